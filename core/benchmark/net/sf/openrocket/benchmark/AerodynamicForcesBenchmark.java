@@ -0,0 +1,66 @@
+package net.sf.openrocket.benchmark;
+
+import net.sf.openrocket.aerodynamics.AerodynamicForces;
+import net.sf.openrocket.aerodynamics.BarrowmanCalculator;
+import net.sf.openrocket.aerodynamics.FlightConditions;
+import net.sf.openrocket.aerodynamics.WarningSet;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Benchmarks {@link BarrowmanCalculator#getAerodynamicForces} on the Alpha III over a
+ * sequence of flight conditions resembling a flight, with or without coefficient tables.
+ */
+public class AerodynamicForcesBenchmark extends Benchmark {
+
+	private static final int CONDITIONS = 64;
+
+	private final double tableTolerance;
+	private BarrowmanCalculator calculator;
+	private FlightConfiguration configuration;
+	private FlightConditions[] conditions;
+	private final WarningSet warnings = new WarningSet();
+
+	/**
+	 * @param tableTolerance	the tolerance of the coefficient tables, or zero to calculate directly.
+	 */
+	public AerodynamicForcesBenchmark(double tableTolerance) {
+		super("BarrowmanCalculator.getAerodynamicForces" + (tableTolerance > 0 ? " (tables)" : ""));
+		this.tableTolerance = tableTolerance;
+	}
+
+	@Override
+	public void setUp() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		configuration = rocket.getSelectedConfiguration();
+		calculator = new BarrowmanCalculator();
+		calculator.setTableTolerance(tableTolerance);
+
+		conditions = new FlightConditions[CONDITIONS];
+		for (int i = 0; i < CONDITIONS; i++) {
+			double f = (double) i / CONDITIONS;
+			FlightConditions c = new FlightConditions(configuration);
+			c.setMach(0.05 + 0.25 * Math.sin(Math.PI * f));
+			c.setVelocity(c.getMach() * 340);
+			c.setAOA(0.002 + 0.05 * f * f);
+			c.setTheta(2 * Math.PI * f);
+			conditions[i] = c;
+		}
+	}
+
+	@Override
+	public Object invoke() {
+		double sum = 0;
+		for (FlightConditions c : conditions) {
+			AerodynamicForces forces = calculator.getAerodynamicForces(configuration, c, warnings);
+			sum += forces.getCD() + forces.getCN();
+		}
+		return sum;
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return CONDITIONS;
+	}
+}
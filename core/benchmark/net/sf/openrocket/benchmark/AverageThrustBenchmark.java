@@ -0,0 +1,53 @@
+package net.sf.openrocket.benchmark;
+
+import net.sf.openrocket.motor.ThrustCurveMotor;
+
+/**
+ * Benchmarks {@link ThrustCurveMotor#getAverageThrust(double, double)} over consecutive
+ * time steps, on the motor of the bundled thrust curve database with the most data points,
+ * either directly or through a {@link ThrustCurveMotor.Cursor} as during a simulation.
+ */
+public class AverageThrustBenchmark extends Benchmark {
+
+	private static final double TIME_STEP = 0.01;
+
+	private final boolean useCursor;
+	private ThrustCurveMotor motor;
+	private int steps;
+
+	public AverageThrustBenchmark(boolean useCursor) {
+		super("ThrustCurveMotor.getAverageThrust" + (useCursor ? " (cursor)" : ""));
+		this.useCursor = useCursor;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		for (ThrustCurveMotor m : BenchmarkSimulations.loadMotors()) {
+			if (motor == null || m.getTimePoints().length > motor.getTimePoints().length) {
+				motor = m;
+			}
+		}
+		steps = (int) Math.ceil(motor.getBurnTimeEstimate() / TIME_STEP);
+	}
+
+	@Override
+	public Object invoke() {
+		double impulse = 0;
+		if (useCursor) {
+			ThrustCurveMotor.Cursor cursor = motor.newCursor();
+			for (int i = 0; i < steps; i++) {
+				impulse += cursor.getAverageThrust(i * TIME_STEP, (i + 1) * TIME_STEP) * TIME_STEP;
+			}
+		} else {
+			for (int i = 0; i < steps; i++) {
+				impulse += motor.getAverageThrust(i * TIME_STEP, (i + 1) * TIME_STEP) * TIME_STEP;
+			}
+		}
+		return impulse;
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return steps;
+	}
+}
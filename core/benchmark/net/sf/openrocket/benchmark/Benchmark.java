@@ -0,0 +1,59 @@
+package net.sf.openrocket.benchmark;
+
+/**
+ * A performance benchmark run by {@link BenchmarkRunner}.
+ * <p>
+ * The runner calls {@link #setUp()} once, then calls {@link #invoke()} repeatedly
+ * during the warmup and measurement iterations, and finally calls {@link #tearDown()}.
+ * Only the time and memory used by {@link #invoke()} (and the harness loop around it)
+ * are measured, so any state that is consumed by an invocation should be prepared
+ * in advance where possible.
+ */
+public abstract class Benchmark {
+
+	private final String name;
+
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Return the name of this benchmark, used for selecting benchmarks and reporting results.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Prepare the benchmark.  The default implementation does nothing.
+	 */
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Perform one invocation of the benchmarked operation.
+	 *
+	 * @return	a value computed from the results of the operation, which the runner
+	 * 			consumes so that the operation cannot be optimized away.
+	 */
+	public abstract Object invoke() throws Exception;
+
+	/**
+	 * Return the number of operations performed by a single invocation.  The results are
+	 * reported per operation.  The default is one.
+	 */
+	public int getOperationsPerInvocation() {
+		return 1;
+	}
+
+	/**
+	 * Release the resources of the benchmark.  The default implementation does nothing.
+	 */
+	public void tearDown() throws Exception {
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,314 @@
+package net.sf.openrocket.benchmark;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import net.sf.openrocket.aerodynamics.BarrowmanCalculator;
+import net.sf.openrocket.simulation.IntegrationMethod;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Runs the OpenRocket performance benchmarks and reports their throughput and allocation rate.
+ * <p>
+ * Each benchmark is run for a number of warmup iterations, whose results are discarded,
+ * followed by a number of measurement iterations of fixed duration.  The reported values are
+ * <ul>
+ * <li>the throughput in operations per second, as the mean and standard deviation over the
+ *     measurement iterations,</li>
+ * <li>the average time per operation,</li>
+ * <li>the number of bytes allocated per operation by the benchmark thread, if the JVM supports
+ *     measuring it, and</li>
+ * <li>the number and total time of garbage collections during the measurement.</li>
+ * </ul>
+ * Usage:
+ * <pre>
+ * BenchmarkRunner [-wi warmupIterations] [-i iterations] [-t iterationMillis] [-csv file] [-l] [regex...]
+ * </pre>
+ * The regular expressions select the benchmarks to run by name; by default all are run.
+ * <code>-l</code> lists the available benchmarks.  From Ant, run <code>ant benchmark</code> with the
+ * arguments in the <code>benchmark.args</code> property.
+ */
+public class BenchmarkRunner {
+
+	private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+	private static final int DEFAULT_ITERATIONS = 5;
+	private static final long DEFAULT_ITERATION_MILLIS = 1000;
+
+	/** Sink for the benchmark results, so that they are not optimized away */
+	private static volatile int sink;
+
+	private int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+	private int iterations = DEFAULT_ITERATIONS;
+	private long iterationMillis = DEFAULT_ITERATION_MILLIS;
+
+	private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+
+	/**
+	 * Return all available benchmarks.
+	 */
+	public static List<Benchmark> getBenchmarks() {
+		List<Benchmark> list = new ArrayList<Benchmark>();
+		list.add(new RK4StepBenchmark());
+		list.add(new AerodynamicForcesBenchmark(0));
+		list.add(new AerodynamicForcesBenchmark(BarrowmanCalculator.DEFAULT_TABLE_TOLERANCE));
+		list.add(new MassCalculatorBenchmark(true));
+		list.add(new MassCalculatorBenchmark(false));
+		list.add(new AverageThrustBenchmark(false));
+		list.add(new AverageThrustBenchmark(true));
+		list.add(new SimulationBenchmark("Alpha III (B4)", false, TestRockets.TEST_FCID_1));
+		list.add(new SimulationBenchmark("Beta (D21)", true, TestRockets.TEST_FCID_1));
+		list.add(new SimulationBenchmark("Alpha III (B4)", false, TestRockets.TEST_FCID_1, IntegrationMethod.DORMAND_PRINCE));
+		list.add(new SimulationBenchmark("Beta (D21)", true, TestRockets.TEST_FCID_1, IntegrationMethod.DORMAND_PRINCE));
+		list.add(new OrkSaveBenchmark(false));
+		list.add(new OrkSaveBenchmark(true));
+		list.add(new OrkLoadBenchmark(false));
+		list.add(new OrkLoadBenchmark(true));
+		return list;
+	}
+
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		List<Pattern> filters = new ArrayList<Pattern>();
+		String csv = null;
+		boolean list = false;
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-wi")) {
+				runner.warmupIterations = Integer.parseInt(args[++i]);
+			} else if (arg.equals("-i")) {
+				runner.iterations = Integer.parseInt(args[++i]);
+			} else if (arg.equals("-t")) {
+				runner.iterationMillis = Long.parseLong(args[++i]);
+			} else if (arg.equals("-csv")) {
+				csv = args[++i];
+			} else if (arg.equals("-l")) {
+				list = true;
+			} else if (arg.length() > 0) {
+				filters.add(Pattern.compile(arg));
+			}
+		}
+		if (runner.iterations < 1) {
+			throw new IllegalArgumentException("At least one measurement iteration is required");
+		}
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (Benchmark benchmark : getBenchmarks()) {
+			if (filters.isEmpty() || matches(filters, benchmark.getName())) {
+				benchmarks.add(benchmark);
+			}
+		}
+
+		if (list) {
+			for (Benchmark benchmark : benchmarks) {
+				System.out.println(benchmark.getName());
+			}
+			return;
+		}
+
+		BenchmarkSimulations.setUpApplication();
+
+		System.out.println(Result.HEADER);
+		List<Result> results = new ArrayList<Result>();
+		for (Benchmark benchmark : benchmarks) {
+			Result result = runner.run(benchmark);
+			System.out.println(result);
+			results.add(result);
+		}
+
+		if (csv != null) {
+			writeCsv(csv, results);
+		}
+	}
+
+	private static boolean matches(List<Pattern> filters, String name) {
+		for (Pattern p : filters) {
+			if (p.matcher(name).find()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Run a single benchmark.
+	 *
+	 * @param benchmark		the benchmark to run.
+	 * @return				the measured results.
+	 */
+	public Result run(Benchmark benchmark) throws Exception {
+		benchmark.setUp();
+		try {
+			for (int i = 0; i < warmupIterations; i++) {
+				iterate(benchmark, new Result(benchmark.getName(), 1));
+			}
+
+			Result result = new Result(benchmark.getName(), iterations);
+			long gcCount = getGcCount();
+			long gcMillis = getGcMillis();
+			for (int i = 0; i < iterations; i++) {
+				iterate(benchmark, result);
+			}
+			result.gcCount = getGcCount() - gcCount;
+			result.gcMillis = getGcMillis() - gcMillis;
+			return result;
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	private void iterate(Benchmark benchmark, Result result) throws Exception {
+		long threadId = Thread.currentThread().getId();
+		long deadline = System.nanoTime() + iterationMillis * 1000000;
+		long allocated = getAllocatedBytes(threadId);
+		long t0 = System.nanoTime();
+		long t;
+		long invocations = 0;
+		int hash = 0;
+		do {
+			Object value = benchmark.invoke();
+			hash += (value == null) ? 0 : value.hashCode();
+			invocations++;
+			t = System.nanoTime();
+		} while (t < deadline);
+		allocated = getAllocatedBytes(threadId) - allocated;
+		sink += hash;
+
+		long operations = invocations * benchmark.getOperationsPerInvocation();
+		result.add(operations, t - t0, allocated);
+	}
+
+	private long getAllocatedBytes(long threadId) {
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadId);
+		}
+		return -1;
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(gc.getCollectionCount(), 0);
+		}
+		return count;
+	}
+
+	private static long getGcMillis() {
+		long time = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += Math.max(gc.getCollectionTime(), 0);
+		}
+		return time;
+	}
+
+	private static void writeCsv(String file, List<Result> results) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		try {
+			out.println("benchmark,ops_per_s,ops_per_s_stddev,us_per_op,bytes_per_op,gc_count,gc_ms");
+			for (Result r : results) {
+				out.println(String.format(Locale.ROOT, "\"%s\",%.3f,%.3f,%.4f,%.1f,%d,%d", r.name, r.getThroughput(),
+						r.getThroughputDeviation(), r.getMicrosPerOperation(), r.getBytesPerOperation(),
+						r.gcCount, r.gcMillis));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+
+	/**
+	 * The measured results of a benchmark.
+	 */
+	public static class Result {
+		static final String HEADER = String.format(Locale.ROOT, "%-52s %14s %12s %12s %14s %8s",
+				"Benchmark", "ops/s", "+-", "us/op", "B/op", "GCs");
+
+		private final String name;
+		private final double[] throughputs;
+		private int count = 0;
+		private long operations = 0;
+		private long nanos = 0;
+		private long allocated = 0;
+		private long gcCount;
+		private long gcMillis;
+
+		Result(String name, int iterations) {
+			this.name = name;
+			this.throughputs = new double[iterations];
+		}
+
+		void add(long operations, long nanos, long allocated) {
+			throughputs[count++] = operations * 1e9 / nanos;
+			this.operations += operations;
+			this.nanos += nanos;
+			if (allocated < 0 || this.allocated < 0) {
+				this.allocated = -1;
+			} else {
+				this.allocated += allocated;
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Return the mean throughput over the iterations, in operations per second.
+		 */
+		public double getThroughput() {
+			double sum = 0;
+			for (double t : Arrays.copyOf(throughputs, count)) {
+				sum += t;
+			}
+			return sum / count;
+		}
+
+		/**
+		 * Return the standard deviation of the throughput over the iterations.
+		 */
+		public double getThroughputDeviation() {
+			if (count < 2) {
+				return 0;
+			}
+			double mean = getThroughput();
+			double sum = 0;
+			for (int i = 0; i < count; i++) {
+				sum += (throughputs[i] - mean) * (throughputs[i] - mean);
+			}
+			return Math.sqrt(sum / (count - 1));
+		}
+
+		public double getMicrosPerOperation() {
+			return nanos / 1000.0 / operations;
+		}
+
+		/**
+		 * Return the number of bytes allocated per operation, or NaN if the JVM
+		 * does not support measuring it.
+		 */
+		public double getBytesPerOperation() {
+			if (allocated < 0) {
+				return Double.NaN;
+			}
+			return (double) allocated / operations;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%-52s %14.1f %12.1f %12.3f %14.0f %8d", name, getThroughput(),
+					getThroughputDeviation(), getMicrosPerOperation(), getBytesPerOperation(), gcCount);
+		}
+	}
+}
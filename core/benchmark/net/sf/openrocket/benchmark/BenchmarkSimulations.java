@@ -0,0 +1,148 @@
+package net.sf.openrocket.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import net.sf.openrocket.ServicesForTesting;
+import net.sf.openrocket.database.motor.MotorDatabase;
+import net.sf.openrocket.database.motor.ThrustCurveMotorSetDatabase;
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.OpenRocketDocumentFactory;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.file.motor.BinaryMotorDatabase;
+import net.sf.openrocket.l10n.DebugTranslator;
+import net.sf.openrocket.l10n.Translator;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.plugin.PluginModule;
+import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.listeners.AbstractSimulationListener;
+import net.sf.openrocket.startup.Application;
+import net.sf.openrocket.util.TestRockets;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+
+/**
+ * Simulations and flight states used by the benchmarks.
+ */
+final class BenchmarkSimulations {
+
+	static final double TIME_STEP = 0.01;
+
+	private static final String MOTOR_DATABASE = "datafiles/thrustcurves/thrustcurves.bin";
+
+	private BenchmarkSimulations() {
+	}
+
+	/**
+	 * Set up the application services as for the unit tests, with the bundled thrust curves
+	 * as the motor database so that documents containing motors can be loaded.
+	 */
+	static void setUpApplication() throws IOException {
+		final ThrustCurveMotorSetDatabase motors = new ThrustCurveMotorSetDatabase();
+		for (ThrustCurveMotor motor : loadMotors()) {
+			motors.addMotor(motor);
+		}
+
+		Module overrides = new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(Translator.class).toInstance(new DebugTranslator(null));
+				bind(MotorDatabase.class).toInstance(motors);
+			}
+		};
+		Application.setInjector(Guice.createInjector(Modules.override(new ServicesForTesting()).with(overrides),
+				new PluginModule()));
+	}
+
+	/**
+	 * Read the bundled thrust curves.
+	 */
+	static List<ThrustCurveMotor> loadMotors() throws IOException {
+		InputStream in = BenchmarkSimulations.class.getClassLoader().getResourceAsStream(MOTOR_DATABASE);
+		if (in == null) {
+			throw new IllegalStateException("Motor database " + MOTOR_DATABASE + " not found on classpath");
+		}
+		try {
+			return BinaryMotorDatabase.read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Create a reproducible simulation of a rocket.
+	 */
+	static Simulation makeSimulation(Rocket rocket, FlightConfigurationId fcid) {
+		Simulation simulation = new Simulation(rocket);
+		return configure(simulation, fcid);
+	}
+
+	private static Simulation configure(Simulation simulation, FlightConfigurationId fcid) {
+		simulation.setFlightConfigurationId(fcid);
+		simulation.getOptions().setISAAtmosphere(true);
+		simulation.getOptions().setRandomSeed(42);
+		simulation.getOptions().setTimeStep(TIME_STEP);
+		return simulation;
+	}
+
+	/**
+	 * Simulate the Alpha III with the B4 motor and return a copy of the simulation status
+	 * at the first step after the specified time.
+	 */
+	static SimulationStatus captureAlphaStatus(double time) throws SimulationException {
+		StatusCapture capture = new StatusCapture(time);
+		makeSimulation(TestRockets.makeEstesAlphaIII(), TestRockets.TEST_FCID_1).simulate(capture);
+		if (capture.status[0] == null) {
+			throw new IllegalStateException("Simulation ended before " + time + " s");
+		}
+		return capture.status[0];
+	}
+
+	static String getDocumentName(boolean withSimulationData) {
+		return withSimulationData ? "Alpha III with flight data" : "Falcon 9 Heavy";
+	}
+
+	/**
+	 * Create the document used by the file benchmarks: either the Falcon 9 Heavy, which has
+	 * a large component tree, or the Alpha III with a simulation with flight data.
+	 */
+	static OpenRocketDocument makeDocument(boolean withSimulationData) throws SimulationException {
+		if (!withSimulationData) {
+			return OpenRocketDocumentFactory.createDocumentFromRocket(TestRockets.makeFalcon9Heavy());
+		}
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(TestRockets.makeEstesAlphaIII());
+		Simulation simulation = configure(new Simulation(document, document.getRocket()), TestRockets.TEST_FCID_1);
+		document.addSimulation(simulation);
+		simulation.simulate();
+		return document;
+	}
+
+	private static class StatusCapture extends AbstractSimulationListener {
+		private final double time;
+		// Shared by the clones of the listener
+		private final SimulationStatus[] status = new SimulationStatus[1];
+
+		public StatusCapture(double time) {
+			this.time = time;
+		}
+
+		@Override
+		public void postStep(SimulationStatus s) {
+			if (status[0] == null && s.getSimulationTime() >= time) {
+				status[0] = new SimulationStatus(s);
+			}
+		}
+
+		@Override
+		public boolean isSystemListener() {
+			return true;
+		}
+	}
+}
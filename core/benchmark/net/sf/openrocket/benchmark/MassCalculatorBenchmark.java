@@ -0,0 +1,49 @@
+package net.sf.openrocket.benchmark;
+
+import net.sf.openrocket.masscalc.MassCalculation;
+import net.sf.openrocket.masscalc.MassCalculator;
+import net.sf.openrocket.masscalc.RigidBody;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.simulation.SimulationStatus;
+
+/**
+ * Benchmarks {@link MassCalculator#calculate(MassCalculation.Type, SimulationStatus)} with
+ * the flight state of the Alpha III during boost, as done at every simulation step.
+ * Optionally the mass data is calculated by traversing the component tree instead of using
+ * the mass model of the configuration.
+ */
+public class MassCalculatorBenchmark extends Benchmark {
+
+	private final boolean fromTree;
+	private SimulationStatus status;
+
+	public MassCalculatorBenchmark(boolean fromTree) {
+		super("MassCalculator.calculate" + (fromTree ? " (tree)" : ""));
+		this.fromTree = fromTree;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		status = BenchmarkSimulations.captureAlphaStatus(0.2);
+	}
+
+	@Override
+	public Object invoke() {
+		RigidBody structure, motors;
+		if (fromTree) {
+			FlightConfiguration config = status.getConfiguration();
+			double time = status.getSimulationTime();
+			structure = MassCalculator.calculateFromTree(MassCalculation.Type.STRUCTURE, config, time, status.getActiveMotors());
+			motors = MassCalculator.calculateFromTree(MassCalculation.Type.MOTOR, config, time, status.getActiveMotors());
+		} else {
+			structure = MassCalculator.calculate(MassCalculation.Type.STRUCTURE, status);
+			motors = MassCalculator.calculate(MassCalculation.Type.MOTOR, status);
+		}
+		return structure.getMass() + motors.getMass();
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return 2;
+	}
+}
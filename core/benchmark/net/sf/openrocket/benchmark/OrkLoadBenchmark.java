@@ -0,0 +1,47 @@
+package net.sf.openrocket.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.StorageOptions;
+import net.sf.openrocket.file.GeneralRocketLoader;
+import net.sf.openrocket.file.openrocket.OpenRocketSaver;
+
+/**
+ * Benchmarks loading a document in the .ork format with {@link GeneralRocketLoader}.
+ */
+public class OrkLoadBenchmark extends Benchmark {
+
+	private static final String FILE_NAME = "benchmark.ork";
+
+	private final boolean withSimulationData;
+	private byte[] data;
+
+	/**
+	 * @param withSimulationData	whether to load the simulated Alpha III with its flight data,
+	 * 								instead of the Falcon 9 Heavy.
+	 */
+	public OrkLoadBenchmark(boolean withSimulationData) {
+		super("GeneralRocketLoader.load " + BenchmarkSimulations.getDocumentName(withSimulationData));
+		this.withSimulationData = withSimulationData;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		OpenRocketDocument document = BenchmarkSimulations.makeDocument(withSimulationData);
+		StorageOptions options = new StorageOptions();
+		options.setSaveSimulationData(withSimulationData);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new OpenRocketSaver().save(out, document, options);
+		data = out.toByteArray();
+	}
+
+	@Override
+	public Object invoke() throws Exception {
+		GeneralRocketLoader loader = new GeneralRocketLoader(new File(FILE_NAME));
+		OpenRocketDocument document = loader.load(new ByteArrayInputStream(data), FILE_NAME);
+		return document.getRocket().getChildCount();
+	}
+}
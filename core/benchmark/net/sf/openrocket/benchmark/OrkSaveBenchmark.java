@@ -0,0 +1,40 @@
+package net.sf.openrocket.benchmark;
+
+import java.io.ByteArrayOutputStream;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.StorageOptions;
+import net.sf.openrocket.file.openrocket.OpenRocketSaver;
+
+/**
+ * Benchmarks saving a document in the .ork format with {@link OpenRocketSaver}.
+ */
+public class OrkSaveBenchmark extends Benchmark {
+
+	private final boolean withSimulationData;
+	private OpenRocketDocument document;
+	private StorageOptions options;
+
+	/**
+	 * @param withSimulationData	whether to save the simulated Alpha III with its flight data,
+	 * 								instead of the Falcon 9 Heavy.
+	 */
+	public OrkSaveBenchmark(boolean withSimulationData) {
+		super("OpenRocketSaver.save " + BenchmarkSimulations.getDocumentName(withSimulationData));
+		this.withSimulationData = withSimulationData;
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		document = BenchmarkSimulations.makeDocument(withSimulationData);
+		options = new StorageOptions();
+		options.setSaveSimulationData(withSimulationData);
+	}
+
+	@Override
+	public Object invoke() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new OpenRocketSaver().save(out, document, options);
+		return out.size();
+	}
+}
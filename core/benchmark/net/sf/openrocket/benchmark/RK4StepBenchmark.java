@@ -0,0 +1,43 @@
+package net.sf.openrocket.benchmark;
+
+import net.sf.openrocket.simulation.FlightDataBranch;
+import net.sf.openrocket.simulation.FlightDataType;
+import net.sf.openrocket.simulation.RK4SimulationStepper;
+import net.sf.openrocket.simulation.SimulationStatus;
+
+/**
+ * Benchmarks {@link RK4SimulationStepper#step(SimulationStatus, double)} during the boost
+ * phase of the Alpha III.  Each invocation starts from a copy of the same flight state
+ * and takes a fixed number of steps.
+ */
+public class RK4StepBenchmark extends Benchmark {
+
+	private static final int STEPS = 20;
+
+	private final RK4SimulationStepper stepper = new RK4SimulationStepper();
+	private SimulationStatus start;
+
+	public RK4StepBenchmark() {
+		super("RK4SimulationStepper.step");
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		start = BenchmarkSimulations.captureAlphaStatus(0.2);
+	}
+
+	@Override
+	public Object invoke() throws Exception {
+		SimulationStatus status = stepper.initialize(start);
+		status.setFlightData(new FlightDataBranch("benchmark", FlightDataType.TYPE_TIME));
+		for (int i = 0; i < STEPS; i++) {
+			stepper.step(status, BenchmarkSimulations.TIME_STEP);
+		}
+		return status.getRocketPosition();
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return STEPS;
+	}
+}
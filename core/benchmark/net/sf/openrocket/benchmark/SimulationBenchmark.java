@@ -0,0 +1,53 @@
+package net.sf.openrocket.benchmark;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.BasicEventSimulationEngine;
+import net.sf.openrocket.simulation.IntegrationMethod;
+import net.sf.openrocket.util.TestRockets;
+
+/**
+ * Benchmarks a complete simulation with {@link BasicEventSimulationEngine} of one of the
+ * {@link TestRockets} designs, from launch to landing, using one of the integration methods.
+ */
+public class SimulationBenchmark extends Benchmark {
+
+	private final boolean beta;
+	private final FlightConfigurationId fcid;
+	private final IntegrationMethod method;
+
+	/**
+	 * Benchmark the simulation using the default RK4 integration.
+	 *
+	 * @param design	the name of the design.
+	 * @param beta		whether to simulate the Beta instead of the Alpha III.
+	 * @param fcid		the flight configuration to simulate.
+	 */
+	public SimulationBenchmark(String design, boolean beta, FlightConfigurationId fcid) {
+		this(design, beta, fcid, IntegrationMethod.RK4);
+	}
+
+	/**
+	 * @param design	the name of the design.
+	 * @param beta		whether to simulate the Beta instead of the Alpha III.
+	 * @param fcid		the flight configuration to simulate.
+	 * @param method	the integration method used for the flight.
+	 */
+	public SimulationBenchmark(String design, boolean beta, FlightConfigurationId fcid, IntegrationMethod method) {
+		super("BasicEventSimulationEngine.simulate " + design +
+				(method == IntegrationMethod.RK4 ? "" : " " + method));
+		this.beta = beta;
+		this.fcid = fcid;
+		this.method = method;
+	}
+
+	@Override
+	public Object invoke() throws Exception {
+		Rocket rocket = beta ? TestRockets.makeBeta() : TestRockets.makeEstesAlphaIII();
+		Simulation simulation = BenchmarkSimulations.makeSimulation(rocket, fcid);
+		simulation.getOptions().setIntegrationMethod(method);
+		simulation.simulate();
+		return simulation.getSimulatedData().getMaxAltitude();
+	}
+}
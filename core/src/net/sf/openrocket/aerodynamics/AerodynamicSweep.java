@@ -0,0 +1,255 @@
+package net.sf.openrocket.aerodynamics;
+
+import java.util.Arrays;
+
+import net.sf.openrocket.util.Coordinate;
+import net.sf.openrocket.util.MathUtil;
+
+/**
+ * The aerodynamic coefficients of a rocket at a number of flight conditions, stored in
+ * primitive arrays indexed by the flight condition.  The flight conditions are defined by
+ * the Mach number, angle of attack and roll rate arrays given in the constructor, the other
+ * flight parameters are common to all conditions.
+ * <p>
+ * The arrays returned by the getter methods are the internal arrays of this object and are
+ * not copied.  They are filled by {@link BarrowmanCalculator#getAerodynamicSweep} and by the
+ * array-oriented methods of the component calculators.
+ */
+public class AerodynamicSweep {
+
+	private final double[] mach;
+	private final double[] aoa;
+	private final double[] rollRate;
+
+	private final double[] CNa;
+	private final double[] CN;
+	private final double[] cpX;
+	private final double[] Cm;
+	private final double[] Cside;
+	private final double[] Cyaw;
+	private final double[] Croll;
+	private final double[] CrollDamp;
+	private final double[] CrollForce;
+
+	private final double[] frictionCD;
+	private final double[] pressureCD;
+	private final double[] baseCD;
+	private final double[] overrideCD;
+	private final double[] CD;
+	private final double[] CDaxial;
+
+
+	/**
+	 * Create a sweep over the specified flight conditions.  The input arrays are not copied.
+	 *
+	 * @param mach		the Mach numbers.
+	 * @param aoa		the angles of attack.
+	 * @param rollRate	the roll rates.
+	 * @throws IllegalArgumentException	if the arrays are not of the same length.
+	 */
+	public AerodynamicSweep(double[] mach, double[] aoa, double[] rollRate) {
+		if (mach.length != aoa.length || mach.length != rollRate.length) {
+			throw new IllegalArgumentException("Condition arrays of different lengths: mach=" + mach.length +
+					" aoa=" + aoa.length + " rollRate=" + rollRate.length);
+		}
+		this.mach = mach;
+		this.aoa = aoa;
+		this.rollRate = rollRate;
+
+		int n = mach.length;
+		CNa = new double[n];
+		CN = new double[n];
+		cpX = new double[n];
+		Cm = new double[n];
+		Cside = new double[n];
+		Cyaw = new double[n];
+		Croll = new double[n];
+		CrollDamp = new double[n];
+		CrollForce = new double[n];
+		frictionCD = new double[n];
+		pressureCD = new double[n];
+		baseCD = new double[n];
+		overrideCD = new double[n];
+		CD = new double[n];
+		CDaxial = new double[n];
+	}
+
+
+	/**
+	 * Return the number of flight conditions.
+	 */
+	public int size() {
+		return mach.length;
+	}
+
+	public double[] getMach() {
+		return mach;
+	}
+
+	public double[] getAOA() {
+		return aoa;
+	}
+
+	public double[] getRollRate() {
+		return rollRate;
+	}
+
+
+	public double[] getCNa() {
+		return CNa;
+	}
+
+	public double[] getCN() {
+		return CN;
+	}
+
+	/**
+	 * Return the x coordinates of the CP.  The CNa values are the corresponding weights.
+	 */
+	public double[] getCPx() {
+		return cpX;
+	}
+
+	public double[] getCm() {
+		return Cm;
+	}
+
+	public double[] getCside() {
+		return Cside;
+	}
+
+	public double[] getCyaw() {
+		return Cyaw;
+	}
+
+	public double[] getCroll() {
+		return Croll;
+	}
+
+	public double[] getCrollDamp() {
+		return CrollDamp;
+	}
+
+	public double[] getCrollForce() {
+		return CrollForce;
+	}
+
+	public double[] getFrictionCD() {
+		return frictionCD;
+	}
+
+	public double[] getPressureCD() {
+		return pressureCD;
+	}
+
+	public double[] getBaseCD() {
+		return baseCD;
+	}
+
+	public double[] getOverrideCD() {
+		return overrideCD;
+	}
+
+	public double[] getCD() {
+		return CD;
+	}
+
+	public double[] getCDaxial() {
+		return CDaxial;
+	}
+
+
+	/**
+	 * Zero the non-axial force coefficients.
+	 */
+	public void zero() {
+		Arrays.fill(CNa, 0);
+		Arrays.fill(CN, 0);
+		Arrays.fill(cpX, 0);
+		Arrays.fill(Cm, 0);
+		Arrays.fill(Cside, 0);
+		Arrays.fill(Cyaw, 0);
+		Arrays.fill(Croll, 0);
+		Arrays.fill(CrollDamp, 0);
+		Arrays.fill(CrollForce, 0);
+	}
+
+
+	/**
+	 * Store the non-axial forces of a single calculation at the specified index.  Only the
+	 * x coordinate of the CP is stored.
+	 *
+	 * @param i			the index of the flight condition.
+	 * @param forces	the forces to store.
+	 */
+	public void set(int i, AerodynamicForces forces) {
+		CNa[i] = forces.getCNa();
+		CN[i] = forces.getCN();
+		cpX[i] = forces.getCP().x;
+		Cm[i] = forces.getCm();
+		Cside[i] = forces.getCside();
+		Cyaw[i] = forces.getCyaw();
+		Croll[i] = forces.getCroll();
+		CrollDamp[i] = forces.getCrollDamp();
+		CrollForce[i] = forces.getCrollForce();
+	}
+
+
+	/**
+	 * Merge the non-axial forces of a component instance into this sweep.  The CP x
+	 * coordinates of the instance are transformed by <code>x' = offset + scale * x</code>
+	 * and its pitching moments are computed around the origin, as done for a single
+	 * calculation in {@link BarrowmanCalculator}.
+	 *
+	 * @param instance	the forces of the instance, in local coordinates.
+	 * @param offset	the translation of the CP x coordinates.
+	 * @param scale		the scaling of the CP x coordinates.
+	 * @param refLength	the reference length used for the pitching moments.
+	 */
+	void mergeInstance(AerodynamicSweep instance, double offset, double scale, double refLength) {
+		final int n = mach.length;
+		for (int i = 0; i < n; i++) {
+			double x = offset + scale * instance.cpX[i];
+			mergeCP(i, x, instance.CNa[i]);
+			CN[i] += instance.CN[i];
+			Cm[i] += instance.CN[i] * x / refLength;
+			mergeRemaining(i, instance);
+		}
+	}
+
+	/**
+	 * Merge the non-axial forces of another sweep over the same flight conditions into this
+	 * one, in the same way as {@link AerodynamicForces#merge(AerodynamicForces)}.
+	 */
+	void merge(AerodynamicSweep other) {
+		final int n = mach.length;
+		for (int i = 0; i < n; i++) {
+			mergeCP(i, other.cpX[i], other.CNa[i]);
+			CN[i] += other.CN[i];
+			Cm[i] += other.Cm[i];
+			mergeRemaining(i, other);
+		}
+	}
+
+	/**
+	 * Merge a CP position and its weight, as in {@link Coordinate#average(Coordinate)}.
+	 */
+	private void mergeCP(int i, double x, double weight) {
+		double sum = CNa[i] + weight;
+		if (Math.abs(sum) < MathUtil.pow2(MathUtil.EPSILON)) {
+			cpX[i] = (cpX[i] + x) / 2;
+		} else {
+			cpX[i] = (cpX[i] * CNa[i] + x * weight) / sum;
+		}
+		CNa[i] = sum;
+	}
+
+	private void mergeRemaining(int i, AerodynamicSweep other) {
+		Cside[i] += other.Cside[i];
+		Cyaw[i] += other.Cyaw[i];
+		Croll[i] += other.Croll[i];
+		CrollDamp[i] += other.CrollDamp[i];
+		CrollForce[i] += other.CrollForce[i];
+	}
+
+}
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import net.sf.openrocket.aerodynamics.barrowman.FinSetCalc;
 import net.sf.openrocket.aerodynamics.barrowman.RocketComponentCalc;
+import net.sf.openrocket.aerodynamics.barrowman.TubeCalc;
 import net.sf.openrocket.rocketcomponent.position.AxialMethod;
 import net.sf.openrocket.rocketcomponent.ComponentAssembly;
 import net.sf.openrocket.rocketcomponent.ExternalComponent;
@@ -47,6 +48,38 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 	
 	private double cacheDiameter = -1;
 	private double cacheLength = -1;
+	
+	/** A reasonable tolerance for the coefficient tables */
+	public static final double DEFAULT_TABLE_TOLERANCE = 0.001;
+	
+	private static final double TABLE_MAX_MACH = 5;
+	private static final double TABLE_MIN_LOG_RE = 2;
+	private static final double TABLE_MAX_LOG_RE = 10;
+	private static final int TABLE_MAX_DEPTH = 3;
+	
+	// Indices of the values in the force table
+	private static final int TABLE_CNA = 0;
+	private static final int TABLE_CN = 1;
+	private static final int TABLE_CP_X = 2;
+	private static final int TABLE_CM = 3;
+	private static final int TABLE_CSIDE = 4;
+	private static final int TABLE_CYAW = 5;
+	private static final int TABLE_CROLL_FORCE = 6;
+	private static final int TABLE_PRESSURE_CD = 7;
+	private static final int TABLE_BASE_CD = 8;
+	private static final int TABLE_SIZE = 9;
+	
+	private double tableTolerance = 0;
+	
+	private FlightConfiguration tableConfiguration = null;
+	private int tableConfigurationModID = -1;
+	private double tableRefLength = Double.NaN;
+	private CoefficientTable forceTable = null;
+	private CoefficientTable frictionTable = null;
+	private boolean tablePressureCD = false;
+	private WarningSet tableWarnings = null;
+	private final double[] tableValues = new double[TABLE_SIZE];
+	private final double[] frictionValues = new double[1];
 
 	public BarrowmanCalculator() {
 		
@@ -55,7 +88,45 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 	
 	@Override
 	public BarrowmanCalculator newInstance() {
-		return new BarrowmanCalculator();
+		BarrowmanCalculator calculator = new BarrowmanCalculator();
+		calculator.setTableTolerance(tableTolerance);
+		return calculator;
+	}
+	
+	
+	/**
+	 * Return the tolerance of the coefficient tables, or zero if the tables are not used.
+	 */
+	public double getTableTolerance() {
+		return tableTolerance;
+	}
+	
+	/**
+	 * Set the tolerance of the coefficient tables used by {@link #getAerodynamicForces}.
+	 * <p>
+	 * When the tolerance is positive, the normal force, moment, pressure and base drag
+	 * coefficients are tabulated over Mach number and angle of attack, and the friction drag
+	 * coefficient over Mach and Reynolds numbers, the first time they are needed for a flight
+	 * configuration.  Subsequent forces are interpolated from the tables, whose cells are
+	 * refined until the relative interpolation error is at most the tolerance.  The tables
+	 * are discarded when the rocket or the configuration changes.
+	 * <p>
+	 * The tables assume that the forces do not depend on the lateral wind direction, so they
+	 * are not used for rockets for which they do, such as rockets with one or two fins.  The
+	 * roll damping moment of the fins and the pressure drag of open tubes are always
+	 * calculated directly.
+	 * 
+	 * @param tolerance		the maximum relative interpolation error, or zero to calculate
+	 * 						all forces directly.
+	 */
+	public void setTableTolerance(double tolerance) {
+		if (!(tolerance >= 0)) {
+			throw new IllegalArgumentException("tolerance must be non-negative, was " + tolerance);
+		}
+		if (tolerance != tableTolerance) {
+			tableTolerance = tolerance;
+			voidTables();
+		}
 	}
 	
 	
@@ -187,14 +258,20 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		if (warnings == null)
 			warnings = ignoreWarningSet;
 		
-		// Calculate non-axial force data
-		AerodynamicForces total = calculateNonAxialForces(configuration, conditions, warnings);
-		
-		// Calculate friction data
-		total.setFrictionCD(calculateFrictionCD(configuration, conditions, null, warnings));
-		total.setPressureCD(calculatePressureCD(configuration, conditions, null, warnings));
-		total.setBaseCD(calculateBaseCD(configuration, conditions, null, warnings));
-		total.setOverrideCD(calculateOverrideCD(configuration, conditions, null, null, warnings));
+		AerodynamicForces total = null;
+		if (tableTolerance > 0) {
+			total = getTabulatedForces(configuration, conditions, warnings);
+		}
+		if (total == null) {
+			// Calculate non-axial force data
+			total = calculateNonAxialForces(configuration, conditions, warnings);
+			
+			// Calculate friction data
+			total.setFrictionCD(calculateFrictionCD(configuration, conditions, null, warnings));
+			total.setPressureCD(calculatePressureCD(configuration, conditions, null, warnings));
+			total.setBaseCD(calculateBaseCD(configuration, conditions, null, warnings));
+			total.setOverrideCD(calculateOverrideCD(configuration, conditions, null, null, warnings));
+		}
 		
 		total.setCD(total.getFrictionCD() + total.getPressureCD() + total.getBaseCD() + total.getOverrideCD());
 		
@@ -208,6 +285,101 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		return total;
 	}
 
+	
+	/**
+	 * Calculate the aerodynamic forces of a configuration at a number of flight conditions
+	 * in one pass.  The flight conditions are defined by the Mach number, angle of attack and
+	 * roll rate arrays, while the other parameters are taken from <code>conditions</code>,
+	 * which is not modified.  The results equal those of
+	 * {@link #getAerodynamicForces(FlightConfiguration, FlightConditions, WarningSet)}
+	 * without the coefficient tables.
+	 * <p>
+	 * The non-axial forces are calculated component by component over all of the flight
+	 * conditions, so that each component calculator runs a loop over primitive arrays
+	 * instead of being called separately for each condition.  Sorting the conditions by
+	 * Mach number allows the calculators to reuse the values that depend only on it.
+	 * 
+	 * @param configuration		the rocket configuration.
+	 * @param conditions		the flight conditions common to all of the conditions.
+	 * @param mach				the Mach numbers.
+	 * @param aoa				the angles of attack.
+	 * @param rollRate			the roll rates.
+	 * @param warnings			the set in which to store warnings, or <code>null</code>.
+	 * @return					the aerodynamic coefficients at each flight condition.
+	 * @throws IllegalArgumentException	if the arrays are not of the same length.
+	 */
+	public AerodynamicSweep getAerodynamicSweep(FlightConfiguration configuration, FlightConditions conditions,
+			double[] mach, double[] aoa, double[] rollRate, WarningSet warnings) {
+		final AerodynamicSweep sweep = new AerodynamicSweep(mach, aoa, rollRate);
+		
+		checkCache(configuration);
+		
+		if (warnings == null)
+			warnings = ignoreWarningSet;
+		
+		if (calcMap == null)
+			buildCalcMap(configuration);
+		
+		checkGeometry(configuration, configuration.getRocket(), warnings);
+		
+		final FlightConditions cond = conditions.clone();
+		final double refLength = cond.getRefLength();
+		
+		// Calculate non-axial force data, merged in the same order as in calculateNonAxialForces()
+		final AerodynamicSweep componentSweep = new AerodynamicSweep(mach, aoa, rollRate);
+		final AerodynamicSweep instanceSweep = new AerodynamicSweep(mach, aoa, rollRate);
+		for (Map.Entry<RocketComponent, ArrayList<InstanceContext>> mapEntry : configuration.getActiveInstances().entrySet()) {
+			RocketComponentCalc calcObj = calcMap.get(mapEntry.getKey());
+			if (null == calcObj) {
+				continue;
+			}
+			
+			componentSweep.zero();
+			for (InstanceContext context : mapEntry.getValue()) {
+				instanceSweep.zero();
+				calcObj.calculateNonaxialForces(cond, context.transform, instanceSweep, warnings);
+				
+				// The CP of an instance is on the x axis, so only its x coordinate is transformed
+				double offset = context.transform.transform(Coordinate.NUL).x;
+				double scale = context.transform.linearTransform(Coordinate.X_UNIT).x;
+				componentSweep.mergeInstance(instanceSweep, offset, scale, refLength);
+			}
+			sweep.merge(componentSweep);
+		}
+		
+		// Calculate drag coefficients and damping moments
+		final double dampingMultiplier = getDampingMultiplier(configuration, cond, cond.getPitchCenter().x) * 3;
+		final double[] Cm = sweep.getCm();
+		final double[] Cyaw = sweep.getCyaw();
+		final double[] frictionCD = sweep.getFrictionCD();
+		final double[] pressureCD = sweep.getPressureCD();
+		final double[] baseCD = sweep.getBaseCD();
+		final double[] overrideCD = sweep.getOverrideCD();
+		final double[] CD = sweep.getCD();
+		final double[] CDaxial = sweep.getCDaxial();
+		for (int i = 0; i < sweep.size(); i++) {
+			cond.setMach(mach[i]);
+			cond.setAOA(aoa[i]);
+			cond.setRollRate(rollRate[i]);
+			
+			if (cond.getAOA() > 17.5 * Math.PI / 180)
+				warnings.add(new Warning.LargeAOA(cond.getAOA()));
+			
+			frictionCD[i] = calculateFrictionCD(configuration, cond, null, warnings);
+			pressureCD[i] = calculatePressureCD(configuration, cond, null, warnings);
+			baseCD[i] = calculateBaseCD(configuration, cond, null, warnings);
+			overrideCD[i] = calculateOverrideCD(configuration, cond, null, null, warnings);
+			CD[i] = frictionCD[i] + pressureCD[i] + baseCD[i] + overrideCD[i];
+			CDaxial[i] = calculateAxialCD(cond, CD[i]);
+			
+			double velocity = cond.getVelocity();
+			Cm[i] -= getDampingMoment(dampingMultiplier, cond.getPitchRate(), velocity, Cm[i]);
+			Cyaw[i] -= getDampingMoment(dampingMultiplier, cond.getYawRate(), velocity, Cyaw[i]);
+		}
+		
+		return sweep;
+	}
+
 
 	private AerodynamicForces calculateComponentNonAxialForces( FlightConditions conditions,
 																RocketComponent comp,
@@ -420,8 +592,17 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 	private double calculateFrictionCD(FlightConfiguration configuration, FlightConditions conditions,
 			Map<RocketComponent, AerodynamicForces> forceMap, WarningSet warningSet) {
 		
-		double mach = conditions.getMach();
-		double Re = calculateReynoldsNumber(configuration, conditions);
+		return calculateFrictionCD(configuration, conditions, conditions.getMach(),
+				calculateReynoldsNumber(configuration, conditions), forceMap, warningSet);
+	}
+	
+	/**
+	 * Calculation of drag coefficient due to air friction at the specified Mach and
+	 * Reynolds numbers
+	 */
+	private double calculateFrictionCD(FlightConfiguration configuration, FlightConditions conditions,
+			double mach, double Re, Map<RocketComponent, AerodynamicForces> forceMap, WarningSet warningSet) {
+		
 		double Cf = calculateFrictionCoefficient(configuration, mach, Re);
 		double roughnessCorrection = calculateRoughnessCorrection(mach);
 		
@@ -938,14 +1119,26 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		
 		mul *= 3; // TODO: Higher damping yields much more realistic apogee turn
 		
-		// find magnitude of damping moments, and clamp so they can't
-		// exceed magnitude of pitch and yaw moments
-		double pitchDampingMomentMagnitude = MathUtil.min(mul * pow2(pitchRate / velocity), total.getCm());
-		double yawDampingMomentMagnitude = MathUtil.min(mul * pow2(yawRate / velocity), total.getCyaw());
-
-		// multiply by sign of pitch and yaw rates
-		total.setPitchDampingMoment(MathUtil.sign(pitchRate) * pitchDampingMomentMagnitude);
-		total.setYawDampingMoment(MathUtil.sign(yawRate) * yawDampingMomentMagnitude);
+		total.setPitchDampingMoment(getDampingMoment(mul, pitchRate, velocity, total.getCm()));
+		total.setYawDampingMoment(getDampingMoment(mul, yawRate, velocity, total.getCyaw()));
+	}
+	
+	/**
+	 * Return the damping moment for a pitch or yaw rate.
+	 * 
+	 * @param mul			the damping multiplier
+	 * @param rate			the pitch or yaw rate
+	 * @param velocity		the velocity of the rocket
+	 * @param moment		the pitch or yaw moment without damping
+	 * @return				the damping moment
+	 */
+	private static double getDampingMoment(double mul, double rate, double velocity, double moment) {
+		// find magnitude of damping moment, and clamp so it can't
+		// exceed magnitude of the moment
+		double magnitude = MathUtil.min(mul * pow2(rate / velocity), moment);
+		
+		// multiply by sign of the rate
+		return MathUtil.sign(rate) * magnitude;
 	}
 
 	private double getDampingMultiplier(FlightConfiguration configuration, FlightConditions conditions,
@@ -990,6 +1183,158 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 	
 	
 	
+	////////  The coefficient tables
+	
+	/**
+	 * Return the forces interpolated from the coefficient tables, without the axial drag and
+	 * pitch and yaw damping moments, or <code>null</code> if they must be calculated directly.
+	 * The tables hold the forcing roll moment, and the roll damping moment is calculated
+	 * directly for the roll rate.
+	 */
+	private AerodynamicForces getTabulatedForces(FlightConfiguration configuration, FlightConditions conditions,
+			WarningSet warnings) {
+		if (configuration != tableConfiguration || configuration.getModID() != tableConfigurationModID ||
+				conditions.getRefLength() != tableRefLength) {
+			buildTables(configuration, conditions);
+		}
+		
+		double mach = conditions.getMach();
+		if (forceTable == null || !forceTable.interpolate(mach, conditions.getAOA(), tableValues)) {
+			return null;
+		}
+		
+		AerodynamicForces total = new AerodynamicForces().zero();
+		total.setCNa(tableValues[TABLE_CNA]);
+		total.setCN(tableValues[TABLE_CN]);
+		total.setCP(new Coordinate(tableValues[TABLE_CP_X], 0, 0, tableValues[TABLE_CNA]));
+		total.setCm(tableValues[TABLE_CM]);
+		total.setCside(tableValues[TABLE_CSIDE]);
+		total.setCyaw(tableValues[TABLE_CYAW]);
+		total.setCrollForce(tableValues[TABLE_CROLL_FORCE]);
+		total.setCrollDamp(calculateRollDampingMoment(configuration, conditions));
+		total.setCroll(total.getCrollForce() - total.getCrollDamp());
+		
+		double Re = calculateReynoldsNumber(configuration, conditions);
+		if (Re > 0 && frictionTable.interpolate(mach, Math.log10(Re), frictionValues)) {
+			total.setFrictionCD(frictionValues[0]);
+		} else {
+			total.setFrictionCD(calculateFrictionCD(configuration, conditions, mach, Re, null, warnings));
+		}
+		if (tablePressureCD) {
+			total.setPressureCD(tableValues[TABLE_PRESSURE_CD]);
+		} else {
+			total.setPressureCD(calculatePressureCD(configuration, conditions, null, warnings));
+		}
+		total.setBaseCD(tableValues[TABLE_BASE_CD]);
+		total.setOverrideCD(calculateOverrideCD(configuration, conditions, null, null, warnings));
+		
+		// The warnings that depend on the flight conditions
+		warnings.addAll(tableWarnings);
+		if (conditions.getAOA() > 17.5 * Math.PI / 180)
+			warnings.add(new Warning.LargeAOA(conditions.getAOA()));
+		if (mach > 1.1)
+			warnings.add(Warning.SUPERSONIC);
+		
+		return total;
+	}
+	
+	/**
+	 * Return the roll damping moment of the fins, summed over all fin set instances.
+	 */
+	private double calculateRollDampingMoment(FlightConfiguration configuration, FlightConditions conditions) {
+		double damping = 0;
+		for (Map.Entry<RocketComponent, ArrayList<InstanceContext>> entry : configuration.getActiveInstances().entrySet()) {
+			RocketComponentCalc calcObj = calcMap.get(entry.getKey());
+			if (calcObj instanceof FinSetCalc) {
+				damping += entry.getValue().size() * ((FinSetCalc) calcObj).getRollDampingMoment(conditions);
+			}
+		}
+		return damping;
+	}
+	
+	private void buildTables(final FlightConfiguration configuration, FlightConditions conditions) {
+		voidTables();
+		tableConfiguration = configuration;
+		tableConfigurationModID = configuration.getModID();
+		tableRefLength = conditions.getRefLength();
+		
+		if (calcMap == null)
+			buildCalcMap(configuration);
+		
+		final FlightConditions cond = conditions.clone();
+		cond.setRollRate(0);
+		cond.setPitchRate(0);
+		cond.setYawRate(0);
+		cond.setTheta(0);
+		
+		// The configuration dependent warnings
+		cond.setMach(0.3);
+		cond.setAOA(0);
+		tableWarnings = new WarningSet();
+		calculateNonAxialForces(configuration, cond, tableWarnings);
+		calculateFrictionCD(configuration, cond, null, tableWarnings);
+		calculatePressureCD(configuration, cond, null, tableWarnings);
+		
+		// Check that the forces do not depend on the lateral wind direction
+		cond.setAOA(5 * Math.PI / 180);
+		AerodynamicForces reference = calculateNonAxialForces(configuration, cond, ignoreWarningSet);
+		for (double theta : new double[] { 0.4, 1.1, 2.3 }) {
+			cond.setTheta(theta);
+			AerodynamicForces forces = calculateNonAxialForces(configuration, cond, ignoreWarningSet);
+			if (!MathUtil.equals(forces.getCN(), reference.getCN(), tableTolerance) ||
+					!MathUtil.equals(forces.getCm(), reference.getCm(), tableTolerance)) {
+				log.debug("Aerodynamic forces of " + configuration + " depend on wind direction, not using tables");
+				return;
+			}
+		}
+		cond.setTheta(0);
+		
+		tablePressureCD = true;
+		for (RocketComponent c : configuration.getActiveInstances().keySet()) {
+			if (calcMap.get(c) instanceof TubeCalc) {
+				tablePressureCD = false;
+			}
+		}
+		
+		final double refLength = cond.getRefLength();
+		forceTable = new CoefficientTable(new CoefficientTable.Function() {
+			@Override
+			public void evaluate(double mach, double aoa, double[] values) {
+				cond.setMach(mach);
+				cond.setAOA(aoa);
+				AerodynamicForces forces = calculateNonAxialForces(configuration, cond, ignoreWarningSet);
+				values[TABLE_CNA] = forces.getCNa();
+				values[TABLE_CN] = forces.getCN();
+				values[TABLE_CP_X] = forces.getCP().x;
+				values[TABLE_CM] = forces.getCm();
+				values[TABLE_CSIDE] = forces.getCside();
+				values[TABLE_CYAW] = forces.getCyaw();
+				values[TABLE_CROLL_FORCE] = forces.getCrollForce();
+				values[TABLE_PRESSURE_CD] = tablePressureCD ? calculatePressureCD(configuration, cond, null, ignoreWarningSet) : 0;
+				values[TABLE_BASE_CD] = calculateBaseCD(configuration, cond, null, ignoreWarningSet);
+			}
+		}, new double[] { 1, 0.1, refLength, 0.1, 0.1, 0.1, 0.01, 0.01, 0.01 }, tableTolerance,
+				0, TABLE_MAX_MACH, 50, 0, Math.PI, 36, TABLE_MAX_DEPTH);
+		
+		frictionTable = new CoefficientTable(new CoefficientTable.Function() {
+			@Override
+			public void evaluate(double mach, double logRe, double[] values) {
+				values[0] = calculateFrictionCD(configuration, cond, mach, Math.pow(10, logRe), null, ignoreWarningSet);
+			}
+		}, new double[] { 0.01 }, tableTolerance,
+				0, TABLE_MAX_MACH, 50, TABLE_MIN_LOG_RE, TABLE_MAX_LOG_RE, 32, TABLE_MAX_DEPTH);
+	}
+	
+	private void voidTables() {
+		tableConfiguration = null;
+		tableConfigurationModID = -1;
+		tableRefLength = Double.NaN;
+		forceTable = null;
+		frictionTable = null;
+		tableWarnings = null;
+	}
+	
+	
 	////////  The calculator map
 	
 	@Override
@@ -999,6 +1344,7 @@ public class BarrowmanCalculator extends AbstractAerodynamicCalculator {
 		calcMap = null;
 		cacheDiameter = -1;
 		cacheLength = -1;
+		voidTables();
 	}
 	
 	
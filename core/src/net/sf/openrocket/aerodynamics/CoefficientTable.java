@@ -0,0 +1,288 @@
+package net.sf.openrocket.aerodynamics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A lazily filled table of a vector-valued function of two variables, from which values
+ * are obtained by bilinear interpolation.
+ * <p>
+ * The domain is divided into a regular grid of cells.  The function is evaluated at the
+ * corners of a cell only when a value in the cell is first requested.  At the same time the
+ * interpolated values at the center and the midpoints of the edges of the cell are compared to
+ * the exact values, and if the error is larger than the tolerance, the cell is split into four,
+ * up to a maximum depth.
+ * Cells that cannot be interpolated within the tolerance even at the maximum depth, as well as
+ * points outside the domain, are reported to the caller, which should then evaluate the
+ * function directly.
+ * <p>
+ * The error of a component <i>k</i> is accepted if it is at most
+ * <code>tolerance * max(|value<sub>k</sub>|, scale<sub>k</sub>)</code>, where the scales
+ * prevent requiring a relative accuracy of values close to zero.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class CoefficientTable {
+
+	/**
+	 * The function that is tabulated.
+	 */
+	public interface Function {
+		/**
+		 * Evaluate the function.
+		 *
+		 * @param x			the first variable.
+		 * @param y			the second variable.
+		 * @param values	the array in which to store the function values.
+		 */
+		public void evaluate(double x, double y, double[] values);
+	}
+
+
+	private static final byte UNCHECKED = 0;
+	private static final byte VALID = 1;
+	private static final byte SPLIT = 2;
+	private static final byte DIRECT = 3;
+
+	private final Function function;
+	private final int size;
+	private final double[] scales;
+	private final double tolerance;
+	private final int maxDepth;
+
+	private final double xMin, xMax, yMin, yMax;
+	private final int xCells, yCells;
+	private final double xStep, yStep;
+
+	private final Cell[] cells;
+
+	/** Function values at the grid nodes, indexed by their position on the finest grid */
+	private final Map<Long, double[]> nodes = new HashMap<Long, double[]>();
+	private final long nodeStride;
+
+	private final double[] exact;
+	private final double[] interpolated;
+	private int evaluationCount = 0;
+
+
+	/**
+	 * Sole constructor.
+	 *
+	 * @param function		the function to tabulate.
+	 * @param scales		the scales of the function values, which also define the number of values.
+	 * @param tolerance		the maximum relative interpolation error.
+	 * @param xMin			the minimum of the first variable.
+	 * @param xMax			the maximum of the first variable.
+	 * @param xCells		the number of cells along the first variable.
+	 * @param yMin			the minimum of the second variable.
+	 * @param yMax			the maximum of the second variable.
+	 * @param yCells		the number of cells along the second variable.
+	 * @param maxDepth		the number of times a cell may be split.
+	 */
+	public CoefficientTable(Function function, double[] scales, double tolerance,
+			double xMin, double xMax, int xCells, double yMin, double yMax, int yCells, int maxDepth) {
+		if (!(tolerance > 0)) {
+			throw new IllegalArgumentException("tolerance must be positive, was " + tolerance);
+		}
+		if (!(xMax > xMin) || !(yMax > yMin) || xCells < 1 || yCells < 1 || maxDepth < 0 || maxDepth > 16) {
+			throw new IllegalArgumentException("Invalid table dimensions");
+		}
+		this.function = function;
+		this.size = scales.length;
+		this.scales = scales.clone();
+		this.tolerance = tolerance;
+		this.maxDepth = maxDepth;
+		this.xMin = xMin;
+		this.xMax = xMax;
+		this.xCells = xCells;
+		this.xStep = (xMax - xMin) / xCells;
+		this.yMin = yMin;
+		this.yMax = yMax;
+		this.yCells = yCells;
+		this.yStep = (yMax - yMin) / yCells;
+		this.cells = new Cell[xCells * yCells];
+		this.nodeStride = ((long) yCells << maxDepth) + 1;
+		this.exact = new double[size];
+		this.interpolated = new double[size];
+	}
+
+
+	/**
+	 * Interpolate the function values at a point.
+	 *
+	 * @param x			the first variable.
+	 * @param y			the second variable.
+	 * @param values	the array in which to store the interpolated values.
+	 * @return			<code>true</code> if the values were interpolated, <code>false</code> if the
+	 * 					point is outside the domain or the function cannot be interpolated
+	 * 					within the tolerance near it.
+	 */
+	public boolean interpolate(double x, double y, double[] values) {
+		if (!(x >= xMin && x <= xMax && y >= yMin && y <= yMax)) {
+			return false;
+		}
+
+		int i = Math.min((int) ((x - xMin) / xStep), xCells - 1);
+		int j = Math.min((int) ((y - yMin) / yStep), yCells - 1);
+		Cell cell = cells[i * yCells + j];
+		if (cell == null) {
+			cell = new Cell(i << maxDepth, j << maxDepth, 0);
+			cells[i * yCells + j] = cell;
+		}
+
+		while (true) {
+			if (cell.state == UNCHECKED) {
+				check(cell);
+			}
+			if (cell.state == VALID) {
+				cell.interpolate((x - cell.x0()) / cell.width(), (y - cell.y0()) / cell.height(), values);
+				return true;
+			}
+			if (cell.state == DIRECT) {
+				return false;
+			}
+			cell = cell.getChild(x, y);
+		}
+	}
+
+	/**
+	 * Return the number of function evaluations performed for filling the table.
+	 */
+	public int getEvaluationCount() {
+		return evaluationCount;
+	}
+
+
+	private void check(Cell cell) {
+		int span = cell.span();
+		int half = span / 2;
+
+		cell.corners = new double[][] {
+				getNode(cell.i, cell.j),
+				getNode(cell.i + span, cell.j),
+				getNode(cell.i, cell.j + span),
+				getNode(cell.i + span, cell.j + span)
+		};
+
+		// Check the center and the midpoints of the edges, which are nodes of the children
+		boolean accurate = true;
+		for (int m = 0; m < 5 && accurate; m++) {
+			double u = (m == 0 || m == 3 || m == 4) ? 0.5 : (m == 1 ? 0 : 1);
+			double v = (m == 0 || m == 1 || m == 2) ? 0.5 : (m == 3 ? 0 : 1);
+			double[] value;
+			if (half > 0) {
+				value = getNode(cell.i + (int) (u * span), cell.j + (int) (v * span));
+			} else {
+				value = evaluate(cell.x0() + u * cell.width(), cell.y0() + v * cell.height());
+			}
+			accurate = isAccurate(cell, u, v, value);
+		}
+
+		if (accurate) {
+			cell.state = VALID;
+		} else if (cell.depth < maxDepth) {
+			cell.state = SPLIT;
+			cell.children = new Cell[] {
+					new Cell(cell.i, cell.j, cell.depth + 1),
+					new Cell(cell.i + half, cell.j, cell.depth + 1),
+					new Cell(cell.i, cell.j + half, cell.depth + 1),
+					new Cell(cell.i + half, cell.j + half, cell.depth + 1)
+			};
+			cell.corners = null;
+		} else {
+			cell.state = DIRECT;
+			cell.corners = null;
+		}
+	}
+
+	private boolean isAccurate(Cell cell, double u, double v, double[] value) {
+		cell.interpolate(u, v, interpolated);
+		for (int k = 0; k < size; k++) {
+			double error = Math.abs(interpolated[k] - value[k]);
+			// Also catches NaN values
+			if (!(error <= tolerance * Math.max(Math.abs(value[k]), scales[k]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double[] getNode(int i, int j) {
+		Long key = i * nodeStride + j;
+		double[] node = nodes.get(key);
+		if (node == null) {
+			node = evaluate(xMin + i * xStep / (1 << maxDepth), yMin + j * yStep / (1 << maxDepth));
+			nodes.put(key, node);
+		}
+		return node;
+	}
+
+	private double[] evaluate(double x, double y) {
+		evaluationCount++;
+		function.evaluate(x, y, exact);
+		return exact.clone();
+	}
+
+
+	/**
+	 * A cell of the table, identified by the position of its lower corner on the finest grid.
+	 */
+	private class Cell {
+		private final int i, j;
+		private final int depth;
+		private byte state = UNCHECKED;
+
+		/** Values at the corners (x0,y0), (x1,y0), (x0,y1), (x1,y1) of a valid cell */
+		private double[][] corners;
+		private Cell[] children;
+
+		public Cell(int i, int j, int depth) {
+			this.i = i;
+			this.j = j;
+			this.depth = depth;
+		}
+
+		public int span() {
+			return 1 << (maxDepth - depth);
+		}
+
+		public double x0() {
+			return xMin + i * xStep / (1 << maxDepth);
+		}
+
+		public double y0() {
+			return yMin + j * yStep / (1 << maxDepth);
+		}
+
+		public double width() {
+			return xStep / (1 << depth);
+		}
+
+		public double height() {
+			return yStep / (1 << depth);
+		}
+
+		public Cell getChild(double x, double y) {
+			int index = 0;
+			if (x >= x0() + width() / 2) {
+				index += 1;
+			}
+			if (y >= y0() + height() / 2) {
+				index += 2;
+			}
+			return children[index];
+		}
+
+		/**
+		 * Interpolate the values at the relative position (u,v) within the cell.
+		 */
+		public void interpolate(double u, double v, double[] values) {
+			double[] c00 = corners[0], c10 = corners[1], c01 = corners[2], c11 = corners[3];
+			for (int k = 0; k < size; k++) {
+				double lower = c00[k] + u * (c10[k] - c00[k]);
+				double upper = c01[k] + u * (c11[k] - c01[k]);
+				values[k] = lower + v * (upper - lower);
+			}
+		}
+	}
+}
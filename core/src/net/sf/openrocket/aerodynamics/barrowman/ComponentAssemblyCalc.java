@@ -1,6 +1,7 @@
 package net.sf.openrocket.aerodynamics.barrowman;
 
 import net.sf.openrocket.aerodynamics.AerodynamicForces;
+import net.sf.openrocket.aerodynamics.AerodynamicSweep;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.aerodynamics.WarningSet;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
@@ -22,6 +23,12 @@ public class ComponentAssemblyCalc extends RocketComponentCalc {
 		// empty
 	}
 
+	@Override
+	public void calculateNonaxialForces(FlightConditions conditions, Transformation transform,
+			AerodynamicSweep sweep, WarningSet warnings) {
+		// Nothing to be done
+	}
+
 	@Override
 	public double calculateFrictionCD(FlightConditions conditions, double componentCf, WarningSet warnings) {
 		return 0;
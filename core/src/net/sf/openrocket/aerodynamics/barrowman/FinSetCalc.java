@@ -7,6 +7,7 @@ import static net.sf.openrocket.util.MathUtil.pow2;
 import java.util.Arrays;
 
 import net.sf.openrocket.aerodynamics.AerodynamicForces;
+import net.sf.openrocket.aerodynamics.AerodynamicSweep;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.aerodynamics.Warning;
 import net.sf.openrocket.aerodynamics.WarningSet;
@@ -117,42 +118,11 @@ public class FinSetCalc extends RocketComponentCalc {
 		//		logger.debug("Component cna = {}", cna);
 		
 		// Take into account fin-fin interference effects
-		switch (interferenceFinCount) {
-		case 1:
-		case 2:
-		case 3:
-		case 4:
-			// No interference effect
-			break;
+		cna *= getFinInterferenceFactor(warnings);
 		
-		case 5:
-			cna *= 0.948;
-			break;
-		
-		case 6:
-			cna *= 0.913;
-			break;
-		
-		case 7:
-			cna *= 0.854;
-			break;
-		
-		case 8:
-			cna *= 0.81;
-			break;
-		
-		default:
-			// Assume 75% efficiency
-			cna *= 0.75;
-			warnings.add(Warning.PARALLEL_FINS);
-			break;
-		}
-				
 		// Body-fin interference effect
 		double r = bodyRadius;
-		double tau = r / (span + r);
-		if (Double.isNaN(tau) || Double.isInfinite(tau))
-			tau = 0;
+		double tau = getBodyInterferenceTau();
 		cna *= 1 + tau; // Classical Barrowman
 		//		cna *= pow2(1 + tau);	// Barrowman thesis (too optimistic??)
 		//		logger.debug("Component cna = {}", cna);
@@ -212,6 +182,119 @@ public class FinSetCalc extends RocketComponentCalc {
 		
 	}
 	
+	/**
+	 * Calculates the non-axial forces at each flight condition of a sweep.  The factors
+	 * that depend only on the fin geometry are computed once, and the CP position and
+	 * subsonic CNa are reused between consecutive conditions with the same Mach number.
+	 */
+	@Override
+	public void calculateNonaxialForces(FlightConditions conditions, Transformation transform,
+			AerodynamicSweep sweep, WarningSet warnings) {
+		
+		warnings.addAll(geometryWarnings);
+		
+		if (finArea < MathUtil.EPSILON) {
+			return;
+		}
+		
+		final double sin2 = pow2(Math.sin(conditions.getTheta() - transform.getXrotation()));
+		final double interference = getFinInterferenceFactor(warnings);
+		final double tau = getBodyInterferenceTau();
+		final double refLength = conditions.getRefLength();
+		
+		final int n = sweep.size();
+		final double[] mach = sweep.getMach();
+		final double[] aoa = sweep.getAOA();
+		final double[] rollRate = sweep.getRollRate();
+		final double[] CNa = sweep.getCNa();
+		final double[] CN = sweep.getCN();
+		final double[] cpX = sweep.getCPx();
+		final double[] Cm = sweep.getCm();
+		final double[] Croll = sweep.getCroll();
+		final double[] CrollDamp = sweep.getCrollDamp();
+		final double[] CrollForce = sweep.getCrollForce();
+		
+		double previousMach = Double.NaN;
+		double cna1 = Double.NaN;
+		double x = Double.NaN;
+		for (int i = 0; i < n; i++) {
+			conditions.setMach(mach[i]);
+			conditions.setAOA(aoa[i]);
+			conditions.setRollRate(rollRate[i]);
+			
+			final double m = conditions.getMach();
+			final double alpha = conditions.getAOA();
+			if (m != previousMach) {
+				x = macLead + calculateCPPos(conditions) * macLength;
+			}
+			// The supersonic and transonic CNa depends on the angle of attack
+			if (m != previousMach || m > CNA_SUBSONIC) {
+				cna1 = calculateFinCNa1(conditions);
+			}
+			previousMach = m;
+			
+			double cna = cna1 * sin2;
+			cna *= interference;
+			cna *= 1 + tau;
+			
+			double rollForce = (macSpan + bodyRadius) * cna1 * (1 + tau) * cantAngle / refLength;
+			if (alpha > STALL_ANGLE) {
+				rollForce *= MathUtil.clamp(1 - (alpha - STALL_ANGLE) / (STALL_ANGLE / 2), 0, 1);
+			}
+			double rollDamp = calculateDampingMoment(conditions);
+			
+			CrollForce[i] = rollForce;
+			CrollDamp[i] = rollDamp;
+			Croll[i] = rollForce - rollDamp;
+			CNa[i] = cna;
+			CN[i] = cna * MathUtil.min(alpha, STALL_ANGLE);
+			cpX[i] = x;
+			Cm[i] = CN[i] * x / refLength;
+		}
+	}
+	
+	/**
+	 * Return the multiplier of the CNa due to the fin-fin interference effects.
+	 */
+	private double getFinInterferenceFactor(WarningSet warnings) {
+		switch (interferenceFinCount) {
+		case 1:
+		case 2:
+		case 3:
+		case 4:
+			// No interference effect
+			return 1;
+		
+		case 5:
+			return 0.948;
+		
+		case 6:
+			return 0.913;
+		
+		case 7:
+			return 0.854;
+		
+		case 8:
+			return 0.81;
+		
+		default:
+			// Assume 75% efficiency
+			warnings.add(Warning.PARALLEL_FINS);
+			return 0.75;
+		}
+	}
+	
+	/**
+	 * Return the body-fin interference parameter tau = r / (s + r).
+	 */
+	private double getBodyInterferenceTau() {
+		double r = bodyRadius;
+		double tau = r / (span + r);
+		if (Double.isNaN(tau) || Double.isInfinite(tau))
+			tau = 0;
+		return tau;
+	}
+	
 	/**
 	 * Returns the MAC length of the fin.  This is required in the friction drag
 	 * computation.
@@ -451,6 +534,20 @@ public class FinSetCalc extends RocketComponentCalc {
 		return cnaInterpolator.interpolate(mach, subV, superV, subD, superD, 0);
 	}
 	
+	/**
+	 * Return the roll damping moment coefficient of one instance of the fin set, as included
+	 * in the forces calculated by {@link #calculateNonaxialForces}.
+	 * 
+	 * @param conditions	the flight conditions.
+	 * @return				the roll damping moment coefficient.
+	 */
+	public double getRollDampingMoment(FlightConditions conditions) {
+		if (finArea < MathUtil.EPSILON) {
+			return 0;
+		}
+		return calculateDampingMoment(conditions);
+	}
+	
 	private double calculateDampingMoment(FlightConditions conditions) {
 		double rollRate = conditions.getRollRate();
 		
@@ -1,6 +1,7 @@
 package net.sf.openrocket.aerodynamics.barrowman;
 
 import net.sf.openrocket.aerodynamics.AerodynamicForces;
+import net.sf.openrocket.aerodynamics.AerodynamicSweep;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.aerodynamics.WarningSet;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
@@ -28,6 +29,38 @@ public abstract class RocketComponentCalc {
 	public abstract void calculateNonaxialForces(FlightConditions conditions, Transformation transform,
 												 AerodynamicForces forces, WarningSet warnings);
 
+	/**
+	 * Calculate the non-axial forces produced by the component at each of the flight
+	 * conditions of a sweep.  The values for the flight condition <code>i</code> are stored
+	 * at index <code>i</code> of the non-axial force arrays of the sweep, which are zero when
+	 * this method is called.  The CP and moments are in local coordinates as in
+	 * {@link #calculateNonaxialForces(FlightConditions, Transformation, AerodynamicForces, WarningSet)}.
+	 * <p>
+	 * The default implementation sets the Mach number, angle of attack and roll rate of
+	 * <code>conditions</code> in turn and calls the single condition method.  Subclasses may
+	 * override this with a loop over the primitive arrays.
+	 * 
+	 * @param conditions	the flight conditions common to the sweep, modified by this method.
+	 * @param transform     transformation of the component instance
+	 * @param sweep			the sweep in which to store the values.
+	 * @param warnings		set in which to store possible warnings.
+	 */
+	public void calculateNonaxialForces(FlightConditions conditions, Transformation transform,
+										AerodynamicSweep sweep, WarningSet warnings) {
+		final double[] mach = sweep.getMach();
+		final double[] aoa = sweep.getAOA();
+		final double[] rollRate = sweep.getRollRate();
+		final AerodynamicForces forces = new AerodynamicForces();
+		
+		for (int i = 0; i < sweep.size(); i++) {
+			conditions.setMach(mach[i]);
+			conditions.setAOA(aoa[i]);
+			conditions.setRollRate(rollRate[i]);
+			calculateNonaxialForces(conditions, transform, forces.zero(), warnings);
+			sweep.set(i, forces);
+		}
+	}
+
 
 	/**
 	 * Calculates the friction drag of the component.
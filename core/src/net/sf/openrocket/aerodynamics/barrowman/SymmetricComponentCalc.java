@@ -3,6 +3,7 @@ package net.sf.openrocket.aerodynamics.barrowman;
 import static net.sf.openrocket.models.atmosphere.AtmosphericConditions.GAMMA;
 import static net.sf.openrocket.util.MathUtil.pow2;
 import net.sf.openrocket.aerodynamics.AerodynamicForces;
+import net.sf.openrocket.aerodynamics.AerodynamicSweep;
 import net.sf.openrocket.aerodynamics.BarrowmanCalculator;
 import net.sf.openrocket.aerodynamics.FlightConditions;
 import net.sf.openrocket.aerodynamics.Warning;
@@ -109,25 +110,7 @@ public class SymmetricComponentCalc extends RocketComponentCalc {
 	public void calculateNonaxialForces(FlightConditions conditions, Transformation transform,
 			AerodynamicForces forces, WarningSet warnings) {
 		
-		// Pre-calculate and store the results
-		if (Double.isNaN(cnaCache)) {
-			final double r0 = foreRadius;
-			final double r1 = aftRadius;
-			
-			if (MathUtil.equals(r0, r1)) {
-				isTube = true;
-				cnaCache = 0;
-			} else {
-				isTube = false;
-				
-				final double A0 = Math.PI * pow2(r0);
-				final double A1 = Math.PI * pow2(r1);
-				
-				cnaCache = 2 * (A1 - A0);
-				//System.out.println("cnaCache = " + cnaCache);
-				cpCache = (length * A1 - fullVolume) / (A1 - A0);
-			}
-		}
+		calculateCNaCache();
 		
 		Coordinate cp;
 		
@@ -159,10 +142,95 @@ public class SymmetricComponentCalc extends RocketComponentCalc {
 	
 	
 
+	/**
+	 * Calculates the non-axial forces at each flight condition of a sweep, in the same way
+	 * as the single condition method but without allocating intermediate objects.
+	 */
+	@Override
+	public void calculateNonaxialForces(FlightConditions conditions, Transformation transform,
+			AerodynamicSweep sweep, WarningSet warnings) {
+		
+		calculateCNaCache();
+		
+		final int n = sweep.size();
+		final double[] mach = sweep.getMach();
+		final double[] aoa = sweep.getAOA();
+		final double[] CNa = sweep.getCNa();
+		final double[] CN = sweep.getCN();
+		final double[] cpX = sweep.getCPx();
+		final double[] Cm = sweep.getCm();
+		final double refLength = conditions.getRefLength();
+		boolean supersonic = false;
+		
+		for (int i = 0; i < n; i++) {
+			conditions.setMach(mach[i]);
+			conditions.setAOA(aoa[i]);
+			
+			double liftWeight = getLiftWeight(conditions);
+			double x, w;
+			if (isTube) {
+				x = planformCenter;
+				w = liftWeight;
+			} else {
+				// Same as Coordinate.average()
+				double cnaWeight = cnaCache * conditions.getSincAOA() / conditions.getRefArea();
+				w = cnaWeight + liftWeight;
+				if (Math.abs(w) < pow2(MathUtil.EPSILON)) {
+					x = (cpCache + planformCenter) / 2;
+					w = 0;
+				} else {
+					x = (cpCache * cnaWeight + planformCenter * liftWeight) / w;
+				}
+			}
+			
+			CNa[i] = w;
+			CN[i] = w * conditions.getAOA();
+			cpX[i] = x;
+			Cm[i] = CN[i] * x / refLength;
+			supersonic |= conditions.getMach() > 1.1;
+		}
+		
+		// Add warning on supersonic flight
+		if (supersonic) {
+			warnings.add(Warning.SUPERSONIC);
+		}
+	}
+	
+	/**
+	 * Pre-calculate and store the CNa and CP of the component without body lift.
+	 */
+	private void calculateCNaCache() {
+		if (Double.isNaN(cnaCache)) {
+			final double r0 = foreRadius;
+			final double r1 = aftRadius;
+		
+			if (MathUtil.equals(r0, r1)) {
+				isTube = true;
+				cnaCache = 0;
+			} else {
+				isTube = false;
+			
+				final double A0 = Math.PI * pow2(r0);
+				final double A1 = Math.PI * pow2(r1);
+			
+				cnaCache = 2 * (A1 - A0);
+				//System.out.println("cnaCache = " + cnaCache);
+				cpCache = (length * A1 - fullVolume) / (A1 - A0);
+			}
+		}
+	}
+	
 	/**
 	 * Calculate the body lift effect according to Galejs.
 	 */
 	protected Coordinate getLiftCP(FlightConditions conditions, WarningSet warnings) {
+		return new Coordinate(planformCenter, 0, 0, getLiftWeight(conditions));
+	}
+	
+	/**
+	 * Return the CNa of the body lift effect, the weight of its CP.
+	 */
+	private double getLiftWeight(FlightConditions conditions) {
 		
 		/*
 		 * Without this extra multiplier the rocket may become unstable at apogee
@@ -177,8 +245,8 @@ public class SymmetricComponentCalc extends RocketComponentCalc {
 			mul = pow2(conditions.getMach() / 0.05);
 		}
 		
-		return new Coordinate(planformCenter, 0, 0, mul * BODY_LIFT_K * planformArea / conditions.getRefArea() *
-				conditions.getSinAOA() * conditions.getSincAOA()); // sin(aoa)^2 / aoa
+		return mul * BODY_LIFT_K * planformArea / conditions.getRefArea() *
+				conditions.getSinAOA() * conditions.getSincAOA(); // sin(aoa)^2 / aoa
 	}
 	
 	@Override
@@ -3,6 +3,7 @@ package net.sf.openrocket.database;
 import java.util.List;
 
 import net.sf.openrocket.preset.ComponentPreset;
+import net.sf.openrocket.preset.TypedKey;
 
 public interface ComponentPresetDao {
 
@@ -49,6 +50,17 @@ public interface ComponentPresetDao {
 	 */
 	public List<ComponentPreset> listForTypes( List<ComponentPreset.Type> types );
 
+	/**
+	 * Returns a list of component presets of a type whose value of a dimension key is
+	 * within a range.  Presets without the key are not returned.
+	 * @param type	the searched type
+	 * @param key	the dimension key, such as the outer diameter or the length
+	 * @param min	the minimum value, inclusive
+	 * @param max	the maximum value, inclusive
+	 * @return		the list of components matching the type and range
+	 */
+	public List<ComponentPreset> listForType( ComponentPreset.Type type, TypedKey<Double> key, double min, double max );
+
 	/**
 	 * set or reset a component preset as favorite
 	 * @param preset	the preset to be set as favorite
@@ -1,31 +1,132 @@
 package net.sf.openrocket.database;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.openrocket.preset.ComponentPreset;
+import net.sf.openrocket.preset.TypedKey;
 import net.sf.openrocket.startup.Application;
 
+/**
+ * A database of component presets.
+ * <p>
+ * The lookups use an index of the presets by type, by manufacturer and part number and,
+ * for the keys of {@link #INDEXED_KEYS}, by value, which is rebuilt on the first lookup
+ * after presets have been added or removed.  The lookups return the presets in database order.
+ * <p>
+ * Presets may also be added as {@link PresetLoader}s, which provide the presets of a single
+ * type when first needed.  The presets of a loader are added to the database on the first
+ * lookup of their type, or on the first operation that needs all presets, such as
+ * {@link #listAll()} or {@link #find(String, String)}.
+ */
 public class ComponentPresetDatabase extends Database<ComponentPreset> implements ComponentPresetDao {
 
 	private static final Logger logger = LoggerFactory.getLogger(ComponentPresetDatabase.class);
 	
+	/** The dimension keys whose values are indexed for range lookups */
+	private static final List<TypedKey<Double>> INDEXED_KEYS = Arrays.asList(
+			ComponentPreset.OUTER_DIAMETER,
+			ComponentPreset.FORE_OUTER_DIAMETER,
+			ComponentPreset.AFT_OUTER_DIAMETER,
+			ComponentPreset.LENGTH);
+	
+	/** The lookup index, or null if it must be rebuilt */
+	private volatile PresetIndex index = null;
+	
+	/** The loaders of the presets not yet added, by type */
+	private final Map<ComponentPreset.Type, List<PresetLoader>> pendingLoaders =
+			new EnumMap<ComponentPreset.Type, List<PresetLoader>>(ComponentPreset.Type.class);
+	
 	public ComponentPresetDatabase() {
 		super();
 	}
 	
+	/**
+	 * A source of the presets of a single type, which are loaded when first needed.
+	 */
+	public interface PresetLoader {
+		/**
+		 * Return the type of the presets.
+		 */
+		ComponentPreset.Type getType();
+		
+		/**
+		 * Return the number of presets, without loading them.
+		 */
+		int getPresetCount();
+		
+		/**
+		 * Load the presets.  Called at most once.
+		 */
+		List<ComponentPreset> load();
+	}
+	
+	/**
+	 * Add the presets of a loader to the database when they are first needed.  No add
+	 * events are fired for the presets.
+	 *
+	 * @param loader	the loader of the presets.
+	 */
+	public synchronized void addLoader( PresetLoader loader ) {
+		List<PresetLoader> loaders = pendingLoaders.get(loader.getType());
+		if ( loaders == null ) {
+			loaders = new ArrayList<PresetLoader>(1);
+			pendingLoaders.put(loader.getType(), loaders);
+		}
+		loaders.add(loader);
+	}
+	
 	@Override
 	public List<ComponentPreset> listAll() {
+		loadAll();
 		return list;
 	}
 
+	@Override
+	public boolean add( ComponentPreset element ) {
+		// Equal presets have the same type
+		load(element.getType());
+		return super.add(element);
+	}
+	
+	@Override
+	public Iterator<ComponentPreset> iterator() {
+		loadAll();
+		return super.iterator();
+	}
+	
+	@Override
+	public int size() {
+		loadAll();
+		return super.size();
+	}
+	
+	@Override
+	public ComponentPreset get( int index ) {
+		loadAll();
+		return super.get(index);
+	}
+	
+	@Override
+	public int indexOf( ComponentPreset preset ) {
+		loadAll();
+		return super.indexOf(preset);
+	}
+	
 	@Override
 	public void insert( ComponentPreset preset ) {
+		index = null;
 		list.add(preset);
 	}
 
@@ -35,15 +136,13 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 			return Collections.emptyList();
 		}
 
-		List<ComponentPreset> result = new ArrayList<ComponentPreset>(list.size()/6);
-
-		for( ComponentPreset preset : list ) {
-			if ( preset.get(ComponentPreset.TYPE).equals(type) ) {
-				result.add(preset);
-			}
+		load(type);
+		PresetIndex idx = getIndex();
+		TypeEntry entry = idx.typeEntries.get(type);
+		if ( entry == null ) {
+			return new ArrayList<ComponentPreset>();
 		}
-		return result;
-
+		return idx.toList(entry.ordinals);
 	}
 
 	/**
@@ -60,12 +159,20 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 			return listForType(type);
 		}
 
-		List<ComponentPreset> result = new ArrayList<ComponentPreset>(list.size()/6);
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>();
+		load(type);
+		TypeEntry entry = getIndex().typeEntries.get(type);
+		if ( entry == null ) {
+			return result;
+		}
 
 		Set<String> favorites = Application.getPreferences().getComponentFavorites(type);
+		if ( favorites.isEmpty() ) {
+			return result;
+		}
 
-		for( ComponentPreset preset : list ) {
-			if ( preset.get(ComponentPreset.TYPE).equals(type) && favorites.contains(preset.preferenceKey())) {
+		for( ComponentPreset preset : entry.presets ) {
+			if ( favorites.contains(preset.preferenceKey()) ) {
 				result.add(preset);
 			}
 		}
@@ -82,19 +189,29 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 			return listForType(type[0]);
 		}
 
-		List<ComponentPreset> result = new ArrayList<ComponentPreset>(list.size()/6);
-
-		for( ComponentPreset preset : list ) {
-			ComponentPreset.Type presetType = preset.get(ComponentPreset.TYPE);
-			typeLoop: for( int i=0; i<type.length; i++ ) {
-				if ( presetType.equals(type[i]) ) {
-					result.add(preset);
-					break typeLoop; // from inner loop.
-				}
+		for( ComponentPreset.Type t : type ) {
+			load(t);
+		}
+		PresetIndex idx = getIndex();
+		int count = 0;
+		List<TypeEntry> entries = new ArrayList<TypeEntry>(type.length);
+		for( ComponentPreset.Type t : type ) {
+			TypeEntry entry = idx.typeEntries.get(t);
+			// The same type may be listed several times
+			if ( entry != null && !entries.contains(entry) ) {
+				entries.add(entry);
+				count += entry.ordinals.length;
 			}
+		}
 
+		int[] ordinals = new int[count];
+		int pos = 0;
+		for( TypeEntry entry : entries ) {
+			System.arraycopy(entry.ordinals, 0, ordinals, pos, entry.ordinals.length);
+			pos += entry.ordinals.length;
 		}
-		return result;
+		Arrays.sort(ordinals);
+		return idx.toList(ordinals);
 	}
 
 	@Override
@@ -103,20 +220,314 @@ public class ComponentPresetDatabase extends Database<ComponentPreset> implement
 	}
 
 	@Override
-	public List<ComponentPreset> find(String manufacturer, String partNo) {
-		List<ComponentPreset> presets = new ArrayList<ComponentPreset>();
-		for( ComponentPreset preset : list ) {
-			if ( preset.getManufacturer().getSimpleName().equals(manufacturer) && preset.getPartNo().equals(partNo) ) {
-				presets.add(preset);
+	public List<ComponentPreset> listForType( ComponentPreset.Type type, TypedKey<Double> key, double min, double max ) {
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>();
+		if ( type == null ) {
+			return result;
+		}
+		
+		load(type);
+		PresetIndex idx = getIndex();
+		TypeEntry entry = idx.typeEntries.get(type);
+		if ( entry == null ) {
+			return result;
+		}
+		
+		SortedValues values = entry.sortedValues.get(key);
+		if ( values == null ) {
+			// Not an indexed key, or no preset of the type has it
+			if ( !INDEXED_KEYS.contains(key) ) {
+				for( ComponentPreset preset : entry.presets ) {
+					if ( preset.has(key) ) {
+						double value = preset.get(key);
+						if ( value >= min && value <= max ) {
+							result.add(preset);
+						}
+					}
+				}
 			}
+			return result;
+		}
+		
+		int from = values.lowerBound(min);
+		int to = values.upperBound(max);
+		if ( from >= to ) {
+			return result;
 		}
-		return presets;
+		int[] ordinals = Arrays.copyOfRange(values.ordinals, from, to);
+		Arrays.sort(ordinals);
+		return idx.toList(ordinals);
+	}
+	
+	@Override
+	public List<ComponentPreset> find(String manufacturer, String partNo) {
+		loadAll();
+		Map<String, List<ComponentPreset>> partNumbers = getIndex().partNumbers.get(manufacturer);
+		if ( partNumbers == null ) {
+			return new ArrayList<ComponentPreset>();
+		}
+		List<ComponentPreset> presets = partNumbers.get(partNo);
+		if ( presets == null ) {
+			return new ArrayList<ComponentPreset>();
+		}
+		return new ArrayList<ComponentPreset>(presets);
 	}
 
 	@Override
 	public void setFavorite( ComponentPreset preset, ComponentPreset.Type type, boolean favorite ) {
 		Application.getPreferences().setComponentFavorite( preset, type, favorite );
-		this.fireAddEvent(preset);
+		// The favorites are not indexed, so the index is kept
+		super.fireAddEvent(preset);
+	}
+	
+	@Override
+	protected void fireAddEvent(ComponentPreset element) {
+		index = null;
+		super.fireAddEvent(element);
+	}
+	
+	@Override
+	protected void fireRemoveEvent(ComponentPreset element) {
+		index = null;
+		super.fireRemoveEvent(element);
+	}
+	
+	
+	/**
+	 * Add the presets of the pending loaders of a type to the database.
+	 */
+	private synchronized void load( ComponentPreset.Type type ) {
+		List<PresetLoader> loaders = pendingLoaders.remove(type);
+		if ( loaders == null ) {
+			return;
+		}
+		for( PresetLoader loader : loaders ) {
+			List<ComponentPreset> presets = new ArrayList<ComponentPreset>(loader.load());
+			Collections.sort(presets);
+			merge(presets);
+			logger.debug("Loaded " + presets.size() + " component presets of type " + type);
+		}
+	}
+	
+	/**
+	 * Add the presets of all pending loaders to the database.
+	 */
+	private synchronized void loadAll() {
+		for( ComponentPreset.Type type : ComponentPreset.Type.values() ) {
+			load(type);
+		}
+	}
+	
+	/**
+	 * Merge sorted presets into the sorted list, skipping presets already in the database.
+	 */
+	private void merge( List<ComponentPreset> presets ) {
+		List<ComponentPreset> merged = new ArrayList<ComponentPreset>(list.size() + presets.size());
+		int i = 0;
+		for( ComponentPreset preset : presets ) {
+			while ( i < list.size() && list.get(i).compareTo(preset) <= 0 ) {
+				merged.add(list.get(i++));
+			}
+			if ( !containsEqual(merged, preset) ) {
+				merged.add(preset);
+			}
+		}
+		merged.addAll(list.subList(i, list.size()));
+		
+		index = null;
+		list.clear();
+		list.addAll(merged);
+	}
+	
+	/**
+	 * Return whether the end of the sorted list, which compares equal to the preset,
+	 * contains a preset equal to it.
+	 */
+	private static boolean containsEqual( List<ComponentPreset> sorted, ComponentPreset preset ) {
+		for( int i = sorted.size() - 1; i >= 0 && sorted.get(i).compareTo(preset) == 0; i-- ) {
+			if ( sorted.get(i).equals(preset) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private PresetIndex getIndex() {
+		PresetIndex idx = index;
+		if ( idx == null ) {
+			synchronized (this) {
+				idx = index;
+				if ( idx == null ) {
+					idx = new PresetIndex(list);
+					index = idx;
+				}
+			}
+		}
+		return idx;
+	}
+	
+	
+	/**
+	 * The presets of a single type.
+	 */
+	private static class TypeEntry {
+		/** The presets in database order */
+		private final List<ComponentPreset> presets = new ArrayList<ComponentPreset>();
+		/** The database positions of the presets */
+		private int[] ordinals;
+		/** The values of the indexed keys */
+		private final Map<TypedKey<Double>, SortedValues> sortedValues = new HashMap<TypedKey<Double>, SortedValues>();
+	}
+	
+	
+	/**
+	 * The values of a dimension key and the database positions of their presets,
+	 * sorted by value.
+	 */
+	private static class SortedValues {
+		private final double[] values;
+		private final int[] ordinals;
+		
+		SortedValues(TypedKey<Double> key, List<ComponentPreset> presets, int[] presetOrdinals) {
+			final double[] unsorted = new double[presets.size()];
+			Integer[] order = new Integer[presets.size()];
+			int count = 0;
+			for ( int i = 0; i < presets.size(); i++ ) {
+				ComponentPreset preset = presets.get(i);
+				if ( preset.has(key) ) {
+					double value = preset.get(key);
+					if ( !Double.isNaN(value) ) {
+						unsorted[i] = value;
+						order[count++] = i;
+					}
+				}
+			}
+			order = Arrays.copyOf(order, count);
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer i1, Integer i2) {
+					return Double.compare(unsorted[i1], unsorted[i2]);
+				}
+			});
+			
+			values = new double[count];
+			ordinals = new int[count];
+			for ( int i = 0; i < count; i++ ) {
+				values[i] = unsorted[order[i]];
+				ordinals[i] = presetOrdinals[order[i]];
+			}
+		}
+		
+		boolean isEmpty() {
+			return values.length == 0;
+		}
+		
+		/**
+		 * Return the index of the first value of at least min.
+		 */
+		int lowerBound(double min) {
+			int low = 0;
+			int high = values.length;
+			while ( low < high ) {
+				int mid = (low + high) >>> 1;
+				if ( values[mid] < min ) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+		
+		/**
+		 * Return the index of the first value greater than max.
+		 */
+		int upperBound(double max) {
+			int low = 0;
+			int high = values.length;
+			while ( low < high ) {
+				int mid = (low + high) >>> 1;
+				if ( values[mid] <= max ) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+	
+	
+	/**
+	 * The lookup index of the presets.  The index is not modified after it is created.
+	 */
+	private static class PresetIndex {
+		/** All presets in database order */
+		private final ComponentPreset[] presets;
+		private final Map<ComponentPreset.Type, TypeEntry> typeEntries =
+				new EnumMap<ComponentPreset.Type, TypeEntry>(ComponentPreset.Type.class);
+		/** The presets by manufacturer simple name and part number */
+		private final Map<String, Map<String, List<ComponentPreset>>> partNumbers =
+				new HashMap<String, Map<String, List<ComponentPreset>>>();
+		
+		PresetIndex(List<ComponentPreset> list) {
+			presets = list.toArray(new ComponentPreset[0]);
+			
+			Map<ComponentPreset.Type, List<Integer>> typeOrdinals =
+					new EnumMap<ComponentPreset.Type, List<Integer>>(ComponentPreset.Type.class);
+			for ( int i = 0; i < presets.length; i++ ) {
+				ComponentPreset preset = presets[i];
+				ComponentPreset.Type type = preset.getType();
+				TypeEntry entry = typeEntries.get(type);
+				if ( entry == null ) {
+					entry = new TypeEntry();
+					typeEntries.put(type, entry);
+					typeOrdinals.put(type, new ArrayList<Integer>());
+				}
+				entry.presets.add(preset);
+				typeOrdinals.get(type).add(i);
+				
+				String manufacturer = preset.getManufacturer().getSimpleName();
+				Map<String, List<ComponentPreset>> manufacturerParts = partNumbers.get(manufacturer);
+				if ( manufacturerParts == null ) {
+					manufacturerParts = new HashMap<String, List<ComponentPreset>>();
+					partNumbers.put(manufacturer, manufacturerParts);
+				}
+				List<ComponentPreset> parts = manufacturerParts.get(preset.getPartNo());
+				if ( parts == null ) {
+					parts = new ArrayList<ComponentPreset>(1);
+					manufacturerParts.put(preset.getPartNo(), parts);
+				}
+				parts.add(preset);
+			}
+			
+			for ( Map.Entry<ComponentPreset.Type, TypeEntry> e : typeEntries.entrySet() ) {
+				TypeEntry entry = e.getValue();
+				List<Integer> ordinals = typeOrdinals.get(e.getKey());
+				entry.ordinals = new int[ordinals.size()];
+				for ( int i = 0; i < entry.ordinals.length; i++ ) {
+					entry.ordinals[i] = ordinals.get(i);
+				}
+				for ( TypedKey<Double> key : INDEXED_KEYS ) {
+					SortedValues values = new SortedValues(key, entry.presets, entry.ordinals);
+					if ( !values.isEmpty() ) {
+						entry.sortedValues.put(key, values);
+					}
+				}
+			}
+			logger.debug("Indexed " + presets.length + " component presets of " + typeEntries.size() + " types");
+		}
+		
+		/**
+		 * Return the presets at the database positions.
+		 */
+		List<ComponentPreset> toList(int[] ordinals) {
+			List<ComponentPreset> result = new ArrayList<ComponentPreset>(ordinals.length);
+			for ( int ordinal : ordinals ) {
+				result.add(presets[ordinal]);
+			}
+			return result;
+		}
 	}
 
 }
@@ -1,77 +1,95 @@
 package net.sf.openrocket.database.motor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.openrocket.motor.Manufacturer;
 import net.sf.openrocket.motor.Motor;
 import net.sf.openrocket.motor.ThrustCurveMotor;
 
 /**
  * A database containing ThrustCurveMotorSet objects and allowing adding a motor
  * to the database.
+ * <p>
+ * The motor sets are indexed by manufacturer and designation for adding motors.  The
+ * lookups of {@link #findMotors} use a separate index of the motors by digest, of the
+ * motor sets by manufacturer and of the motor sets sorted by diameter, which is rebuilt
+ * on the first lookup after motors have been added.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
 public class ThrustCurveMotorSetDatabase implements MotorDatabase {
 	private static final Logger log = LoggerFactory.getLogger(ThrustCurveMotorSetDatabase.class);
 	
+	/** The tolerance of the diameter and length in motor lookups */
+	private static final double SIZE_TOLERANCE = 0.005;
+	
 	private final List<ThrustCurveMotorSet> motorSets = new ArrayList<ThrustCurveMotorSet>();
 	
+	/** The motor sets by manufacturer and upper case designation */
+	private final Map<Manufacturer, Map<String, List<ThrustCurveMotorSet>>> designationSets =
+			new HashMap<Manufacturer, Map<String, List<ThrustCurveMotorSet>>>();
+	
+	/** The lookup index, or null if it must be rebuilt */
+	private volatile MotorIndex index = null;
+	
 	@Override
 	public List<ThrustCurveMotor> findMotors(String digest, Motor.Type type, String manufacturer, String designation,
 			double diameter, double length) {
-		ArrayList<ThrustCurveMotor> fullMatches = new ArrayList<ThrustCurveMotor>();
-		ArrayList<ThrustCurveMotor> digestMatches = new ArrayList<ThrustCurveMotor>();
-		ArrayList<ThrustCurveMotor> descriptionMatches = new ArrayList<ThrustCurveMotor>();
+		MotorIndex idx = getIndex();
+		String upperDesignation = (designation != null) ? designation.toUpperCase() : null;
 
 		// Apply filters to see if we can find any motors that match the given criteria.  We'll return
 		// the most restrictive nonempty list we find, or empty list if no matches at all
-		for (ThrustCurveMotorSet set : motorSets) {
-			for (ThrustCurveMotor m : set.getMotors()) {
-				boolean matchDescription = true;
-				boolean matchDigest = true;
-				
-				// unlike the description, digest must be present in search criteria to get a match
-				if (digest == null || digest != m.getDigest())
-					matchDigest = false;
-
-				// match description
-				if (type != null && type != set.getType())
-					matchDescription = false;
-				else if (manufacturer != null && !m.getManufacturer().matches(manufacturer))
-					matchDescription = false;
-				else if (designation != null &&
-						 !m.getDesignation().toUpperCase().contains(designation.toUpperCase()) &&
-						 !designation.toUpperCase().contains(m.getCommonName().toUpperCase()))
-					matchDescription = false;
-				else if (!Double.isNaN(diameter) && (Math.abs(diameter - m.getDiameter()) > 0.005))
-					matchDescription = false;
-				else if (!Double.isNaN(length) && (Math.abs(length - m.getLength()) > 0.005))
-					matchDescription = false;
-
-				if (matchDigest)
-					digestMatches.add(m);
-
-				if (matchDescription)
-					descriptionMatches.add(m);
+		
+		// unlike the description, digest must be present in search criteria to get a match
+		List<ThrustCurveMotor> digestMatches = Collections.emptyList();
+		if (digest != null && idx.digestMotors.containsKey(digest)) {
+			digestMatches = idx.digestMotors.get(digest);
+		}
 
-				if (matchDigest && matchDescription)
-					fullMatches.add(m);
+		ArrayList<ThrustCurveMotor> fullMatches = new ArrayList<ThrustCurveMotor>();
+		for (ThrustCurveMotor m : digestMatches) {
+			SetEntry entry = idx.motorEntries.get(m);
+			if (entry.matches(type, manufacturer, upperDesignation) && matchesSize(m, diameter, length)) {
+				fullMatches.add(m);
 			}
 		}
-		
 		if (!fullMatches.isEmpty())
 			return fullMatches;
 
 		if (!digestMatches.isEmpty())
-			return digestMatches;
+			return new ArrayList<ThrustCurveMotor>(digestMatches);
 
+		ArrayList<ThrustCurveMotor> descriptionMatches = new ArrayList<ThrustCurveMotor>();
+		for (SetEntry entry : idx.getCandidates(manufacturer, diameter)) {
+			if (!entry.matches(type, manufacturer, upperDesignation))
+				continue;
+			for (ThrustCurveMotor m : entry.motors) {
+				if (matchesSize(m, diameter, length)) {
+					descriptionMatches.add(m);
+				}
+			}
+		}
 		return descriptionMatches;
-
+	}
+	
+	private static boolean matchesSize(ThrustCurveMotor m, double diameter, double length) {
+		if (!Double.isNaN(diameter) && (Math.abs(diameter - m.getDiameter()) > SIZE_TOLERANCE))
+			return false;
+		if (!Double.isNaN(length) && (Math.abs(length - m.getLength()) > SIZE_TOLERANCE))
+			return false;
+		return true;
 	}
 	
 	
@@ -91,9 +109,24 @@ public class ThrustCurveMotorSetDatabase implements MotorDatabase {
 	 * @param motor		the motor to add
 	 */
 	public void addMotor(ThrustCurveMotor motor) {
+		index = null;
+		
+		// A matching set has the same manufacturer and designation
+		Map<String, List<ThrustCurveMotorSet>> manufacturerSets = designationSets.get(motor.getManufacturer());
+		if (manufacturerSets == null) {
+			manufacturerSets = new HashMap<String, List<ThrustCurveMotorSet>>();
+			designationSets.put(motor.getManufacturer(), manufacturerSets);
+		}
+		String key = normalizeDesignation(motor.getDesignation());
+		List<ThrustCurveMotorSet> sets = manufacturerSets.get(key);
+		if (sets == null) {
+			sets = new ArrayList<ThrustCurveMotorSet>(1);
+			manufacturerSets.put(key, sets);
+		}
+		
 		// Iterate from last to first, as this is most likely to hit early when loading files
-		for (int i = motorSets.size() - 1; i >= 0; i--) {
-			ThrustCurveMotorSet set = motorSets.get(i);
+		for (int i = sets.size() - 1; i >= 0; i--) {
+			ThrustCurveMotorSet set = sets.get(i);
 			if (set.matches(motor)) {
 				set.addMotor(motor);
 				return;
@@ -103,6 +136,185 @@ public class ThrustCurveMotorSetDatabase implements MotorDatabase {
 		ThrustCurveMotorSet newSet = new ThrustCurveMotorSet();
 		newSet.addMotor(motor);
 		motorSets.add(newSet);
+		sets.add(newSet);
+	}
+	
+	private static String normalizeDesignation(String designation) {
+		return (designation != null) ? designation.toUpperCase(Locale.ENGLISH) : "";
+	}
+	
+	
+	private MotorIndex getIndex() {
+		MotorIndex idx = index;
+		if (idx == null) {
+			synchronized (this) {
+				idx = index;
+				if (idx == null) {
+					idx = new MotorIndex(motorSets);
+					index = idx;
+				}
+			}
+		}
+		return idx;
+	}
+	
+	
+	/**
+	 * A motor set with the values used in the lookups.
+	 */
+	private static class SetEntry {
+		private final int ordinal;
+		private final ThrustCurveMotorSet set;
+		private final List<ThrustCurveMotor> motors;
+		private final String upperDesignation;
+		private final String upperCommonName;
+		
+		SetEntry(int ordinal, ThrustCurveMotorSet set) {
+			this.ordinal = ordinal;
+			this.set = set;
+			this.motors = set.getMotors();
+			this.upperDesignation = set.getDesignation().toUpperCase();
+			this.upperCommonName = set.getCommonName().toUpperCase();
+		}
+		
+		/**
+		 * Return whether the motors of the set match the type, manufacturer and designation.
+		 * These are the same for all motors of the set.
+		 */
+		boolean matches(Motor.Type type, String manufacturer, String designation) {
+			if (type != null && type != set.getType())
+				return false;
+			if (manufacturer != null && !set.getManufacturer().matches(manufacturer))
+				return false;
+			if (designation != null &&
+					!upperDesignation.contains(designation) &&
+					!designation.contains(upperCommonName))
+				return false;
+			return true;
+		}
+	}
+	
+	
+	/**
+	 * The lookup index of the motors.  The index is not modified after it is created.
+	 */
+	private static class MotorIndex {
+		private static final Comparator<SetEntry> DIAMETER_COMPARATOR = new Comparator<SetEntry>() {
+			@Override
+			public int compare(SetEntry e1, SetEntry e2) {
+				int c = Double.compare(e1.set.getDiameter(), e2.set.getDiameter());
+				if (c != 0)
+					return c;
+				return Double.compare(e1.set.getLength(), e2.set.getLength());
+			}
+		};
+		
+		private static final Comparator<SetEntry> ORDINAL_COMPARATOR = new Comparator<SetEntry>() {
+			@Override
+			public int compare(SetEntry e1, SetEntry e2) {
+				return Integer.compare(e1.ordinal, e2.ordinal);
+			}
+		};
+		
+		/** All motor sets in database order */
+		private final List<SetEntry> entries;
+		/** The motor sets sorted by diameter and length */
+		private final SetEntry[] diameterEntries;
+		/** The diameters of diameterEntries */
+		private final double[] diameters;
+		/** The motor sets of each manufacturer in database order */
+		private final Map<Manufacturer, List<SetEntry>> manufacturerEntries = new HashMap<Manufacturer, List<SetEntry>>();
+		/** The motors of each digest in database order */
+		private final Map<String, List<ThrustCurveMotor>> digestMotors = new HashMap<String, List<ThrustCurveMotor>>();
+		/** The set of each motor */
+		private final Map<ThrustCurveMotor, SetEntry> motorEntries = new IdentityHashMap<ThrustCurveMotor, SetEntry>();
+		
+		MotorIndex(List<ThrustCurveMotorSet> motorSets) {
+			entries = new ArrayList<SetEntry>(motorSets.size());
+			for (ThrustCurveMotorSet set : motorSets) {
+				SetEntry entry = new SetEntry(entries.size(), set);
+				entries.add(entry);
+				
+				List<SetEntry> list = manufacturerEntries.get(set.getManufacturer());
+				if (list == null) {
+					list = new ArrayList<SetEntry>();
+					manufacturerEntries.put(set.getManufacturer(), list);
+				}
+				list.add(entry);
+				
+				for (ThrustCurveMotor m : entry.motors) {
+					motorEntries.put(m, entry);
+					List<ThrustCurveMotor> motors = digestMotors.get(m.getDigest());
+					if (motors == null) {
+						motors = new ArrayList<ThrustCurveMotor>(1);
+						digestMotors.put(m.getDigest(), motors);
+					}
+					motors.add(m);
+				}
+			}
+			
+			diameterEntries = entries.toArray(new SetEntry[0]);
+			Arrays.sort(diameterEntries, DIAMETER_COMPARATOR);
+			diameters = new double[diameterEntries.length];
+			for (int i = 0; i < diameters.length; i++) {
+				diameters[i] = diameterEntries[i].set.getDiameter();
+			}
+			log.debug("Indexed " + entries.size() + " motor sets with " + motorEntries.size() + " motors");
+		}
+		
+		/**
+		 * Return the motor sets that may contain motors of the manufacturer and diameter, in
+		 * database order.  Either of the criteria may be null or NaN.
+		 */
+		List<SetEntry> getCandidates(String manufacturer, double diameter) {
+			List<SetEntry> byManufacturer = null;
+			if (manufacturer != null) {
+				byManufacturer = new ArrayList<SetEntry>();
+				int matching = 0;
+				for (Map.Entry<Manufacturer, List<SetEntry>> e : manufacturerEntries.entrySet()) {
+					if (e.getKey().matches(manufacturer)) {
+						byManufacturer.addAll(e.getValue());
+						matching++;
+					}
+				}
+				if (matching > 1) {
+					Collections.sort(byManufacturer, ORDINAL_COMPARATOR);
+				}
+			}
+			
+			if (!Double.isNaN(diameter)) {
+				// The sets contain motors whose diameter differs slightly from the set diameter
+				int from = lowerBound(diameter - 2 * SIZE_TOLERANCE);
+				int to = lowerBound(diameter + 2 * SIZE_TOLERANCE);
+				if (byManufacturer == null || to - from < byManufacturer.size()) {
+					List<SetEntry> byDiameter = new ArrayList<SetEntry>(Arrays.asList(diameterEntries).subList(from, to));
+					Collections.sort(byDiameter, ORDINAL_COMPARATOR);
+					return byDiameter;
+				}
+			}
+			
+			if (byManufacturer != null) {
+				return byManufacturer;
+			}
+			return entries;
+		}
+		
+		/**
+		 * Return the index of the first set with a diameter of at least the value.
+		 */
+		private int lowerBound(double value) {
+			int low = 0;
+			int high = diameters.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (diameters[mid] < value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
 	}
 	
 }
@@ -65,9 +65,10 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 	
 	/** 
 	 * The undo history of the rocket.   Whenever a new undo position is created while the
-	 * rocket is in "dirty" state, the rocket is copied here.
+	 * rocket is in "dirty" state, a snapshot of the rocket is stored here.  Each snapshot
+	 * shares the unchanged components with the previous one.
 	 */
-	private final LinkedList<Rocket> undoHistory = new LinkedList<Rocket>();
+	private final LinkedList<RocketSnapshot> undoHistory = new LinkedList<RocketSnapshot>();
 	private final LinkedList<String> undoDescription = new LinkedList<String>();
 	
 	/**
@@ -520,7 +521,7 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 	 */
 	private void addStateToUndoHistory(String description) {
 		// Add the current state to the undo history
-		undoHistory.add(rocket.copyWithOriginalID());
+		undoHistory.add(createSnapshot());
 		undoDescription.add(null);
 		nextDescription = description;
 		undoPosition++;
@@ -609,7 +610,7 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 		undoHistory.clear();
 		undoDescription.clear();
 		
-		undoHistory.add(rocket.copyWithOriginalID());
+		undoHistory.add(createSnapshot());
 		undoDescription.add(null);
 		undoPosition = 0;
 		
@@ -730,7 +731,7 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 				logUndoError("undo position inconsistency");
 			}
 			// Modifications have been made, save the state and restore previous state
-			undoHistory.add(rocket.copyWithOriginalID());
+			undoHistory.add(createSnapshot());
 			undoDescription.add(null);
 		}
 		
@@ -757,7 +758,17 @@ public class OpenRocketDocument implements ComponentChangeListener, StateChangeL
 		
 		undoPosition++;
 		
-		rocket.loadFrom(undoHistory.get(undoPosition).copyWithOriginalID());
+		rocket.loadFrom(undoHistory.get(undoPosition));
+	}
+	
+	
+	/**
+	 * Take a snapshot of the current rocket, sharing the unchanged components with the
+	 * latest snapshot in the undo history.
+	 */
+	private RocketSnapshot createSnapshot() {
+		RocketSnapshot previous = undoHistory.isEmpty() ? null : undoHistory.getLast();
+		return RocketSnapshot.create(rocket, previous);
 	}
 	
 	
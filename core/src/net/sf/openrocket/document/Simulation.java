@@ -373,6 +373,33 @@ public class Simulation implements ChangeSource, Cloneable {
 	 */
 	public void simulate(SimulationListener... additionalListeners)
 			throws SimulationException {
+		SimulationEngine simulator;
+		
+		try {
+			simulator = simulationEngineClass.getConstructor().newInstance();
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("Cannot instantiate simulator.", e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Cannot access simulator instance?! BUG!", e);
+		} catch (InvocationTargetException | NoSuchMethodException e) {
+			throw new RuntimeException(e);
+		}
+		
+		simulate(simulator, additionalListeners);
+	}
+	
+	/**
+	 * Simulate the flight using the provided simulation engine.  This allows callers that
+	 * run many simulations (e.g. batch runners) to reuse engine instances instead of
+	 * instantiating a new engine for every run.  The engine must not be used concurrently
+	 * by several threads.
+	 *
+	 * @param simulator				the simulation engine to use
+	 * @param additionalListeners	additional simulation listeners (those defined by the simulation are used in any case)
+	 * @throws SimulationException	if a problem occurs during simulation
+	 */
+	public void simulate(SimulationEngine simulator, SimulationListener... additionalListeners)
+			throws SimulationException {
 		mutex.lock("simulate");
 		try {
 			
@@ -380,18 +407,6 @@ public class Simulation implements ChangeSource, Cloneable {
 				throw new SimulationException("Cannot simulate imported simulation.");
 			}
 			
-			SimulationEngine simulator;
-			
-			try {
-				simulator = simulationEngineClass.getConstructor().newInstance();
-			} catch (InstantiationException e) {
-				throw new IllegalStateException("Cannot instantiate simulator.", e);
-			} catch (IllegalAccessException e) {
-				throw new IllegalStateException("Cannot access simulator instance?! BUG!", e);
-			} catch (InvocationTargetException | NoSuchMethodException e) {
-				throw new RuntimeException(e);
-			}
-
 			SimulationConditions simulationConditions = options.toSimulationConditions();
 			simulationConditions.setSimulation(this);
 			for (SimulationListener l : additionalListeners) {
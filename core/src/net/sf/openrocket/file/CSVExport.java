@@ -102,13 +102,13 @@ public class CSVExport {
 		int eventPosition = 0;
 
 		// List of field values
-		List<List<Double>> fieldValues = new ArrayList<List<Double>>();
+		List<FlightDataBranch.ValueList> fieldValues = new ArrayList<FlightDataBranch.ValueList>();
 		for (FlightDataType t : fields) {
-			fieldValues.add(branch.get(t));
+			fieldValues.add(branch.getValues(t));
 		}
 
 		// Time variable
-		List<Double> time = branch.get(FlightDataType.TYPE_TIME);
+		FlightDataBranch.ValueList time = branch.getValues(FlightDataType.TYPE_TIME);
 		if (eventComments && time == null) {
 			// If time information is not available, print events at beginning of file
 			for (FlightEvent e : events) {
@@ -123,7 +123,7 @@ public class CSVExport {
 
 			// Check for events to store
 			if (eventComments && time != null) {
-				double t = time.get(pos);
+				double t = time.getDouble(pos);
 
 				while ((eventPosition < events.size()) &&
 						(events.get(eventPosition).getTime() <= t)) {
@@ -134,7 +134,7 @@ public class CSVExport {
 
 			// Store CSV line
 			for (int i = 0; i < fields.length; i++) {
-				double value = fieldValues.get(i).get(pos);
+				double value = fieldValues.get(i).getDouble(pos);
 				writer.print(TextUtil.doubleToString(units[i].toUnit(value), decimalPlaces, isExponentialNotation));
 
 				if (i < fields.length - 1) {
@@ -0,0 +1,329 @@
+package net.sf.openrocket.file.motor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.motor.Motor;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.Coordinate;
+import net.sf.openrocket.util.FileUtils;
+
+/**
+ * Reader and writer of the compact binary motor database, which replaces the Java
+ * serialized form of the bundled thrust curves.
+ * <p>
+ * The file consists of a header, a string table, a fixed-size record of each motor and
+ * a pool of doubles holding the delays and the thrust curves of the motors.  The thrust
+ * curve of a motor with <code>n</code> points is stored as <code>n</code> time points,
+ * <code>n</code> thrust points and <code>n</code> CG points of four doubles each.  All
+ * values are big-endian.
+ * <p>
+ * The motors are created when the file is read, but their thrust curves are decoded from
+ * the file contents only when first needed.  A file read with {@link #read(File)} is
+ * memory-mapped, so the curves that are never used are never read from disk.  A database
+ * inside a JAR, such as the one bundled with an installed application, cannot be mapped and
+ * is read with {@link #read(InputStream)} into a heap buffer instead.
+ */
+public class BinaryMotorDatabase {
+
+	/** The file name extension of the motor database */
+	public static final String EXTENSION = "bin";
+
+	private static final int MAGIC = 0x4F524D44; // "ORMD"
+	private static final int VERSION = 1;
+
+	/** The size of a motor record:  ten ints, seven doubles and four ints */
+	private static final int RECORD_SIZE = 10 * 4 + 7 * 8 + 4 * 4;
+	/** The number of doubles in a CG point */
+	private static final int CG_SIZE = 4;
+	private static final int NO_STRING = -1;
+	private static final int FLAG_AVAILABLE = 1;
+
+
+	private BinaryMotorDatabase() {
+	}
+
+
+	/**
+	 * Write motors to a stream in the binary format.  The stream is not closed.
+	 *
+	 * @param motors	the motors to write.
+	 * @param out		the stream to write to.
+	 * @throws IOException	if an I/O error occurs.
+	 */
+	public static void write(List<ThrustCurveMotor> motors, OutputStream out) throws IOException {
+		final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+		final List<String> strings = new ArrayList<String>();
+		int poolSize = 0;
+		for (ThrustCurveMotor m : motors) {
+			addString(m.getManufacturer().getDisplayName(), stringIndex, strings);
+			addString(m.getDigest(), stringIndex, strings);
+			addString(m.getCode(), stringIndex, strings);
+			addString(m.getCommonName(), stringIndex, strings);
+			addString(m.getDesignation(), stringIndex, strings);
+			addString(m.getDescription(), stringIndex, strings);
+			addString(m.getCaseInfo(), stringIndex, strings);
+			addString(m.getPropellantInfo(), stringIndex, strings);
+			addString(m.getMotorType().name(), stringIndex, strings);
+			poolSize += m.getStandardDelays().length + (2 + CG_SIZE) * m.getSampleSize();
+		}
+
+		final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(strings.size());
+		data.writeInt(motors.size());
+		data.writeInt(poolSize);
+
+		for (String s : strings) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+
+		int offset = 0;
+		for (ThrustCurveMotor m : motors) {
+			data.writeInt(stringIndex.get(m.getManufacturer().getDisplayName()));
+			data.writeInt(getIndex(m.getDigest(), stringIndex));
+			data.writeInt(getIndex(m.getCode(), stringIndex));
+			data.writeInt(getIndex(m.getCommonName(), stringIndex));
+			data.writeInt(getIndex(m.getDesignation(), stringIndex));
+			data.writeInt(getIndex(m.getDescription(), stringIndex));
+			data.writeInt(getIndex(m.getCaseInfo(), stringIndex));
+			data.writeInt(getIndex(m.getPropellantInfo(), stringIndex));
+			data.writeInt(stringIndex.get(m.getMotorType().name()));
+			data.writeInt(m.isAvailable() ? FLAG_AVAILABLE : 0);
+			data.writeDouble(m.getDiameter());
+			data.writeDouble(m.getLength());
+			data.writeDouble(m.getInitialMass());
+			data.writeDouble(m.getMaxThrustEstimate());
+			data.writeDouble(m.getBurnTimeEstimate());
+			data.writeDouble(m.getAverageThrustEstimate());
+			data.writeDouble(m.getTotalImpulseEstimate());
+			int delays = m.getStandardDelays().length;
+			data.writeInt(offset);
+			data.writeInt(delays);
+			data.writeInt(offset + delays);
+			data.writeInt(m.getSampleSize());
+			offset += delays + (2 + CG_SIZE) * m.getSampleSize();
+		}
+
+		// Align the doubles to their size for efficient access
+		while (data.size() % 8 != 0) {
+			data.writeByte(0);
+		}
+
+		for (ThrustCurveMotor m : motors) {
+			for (double d : m.getStandardDelays()) {
+				data.writeDouble(d);
+			}
+			for (double t : m.getTimePoints()) {
+				data.writeDouble(t);
+			}
+			for (double f : m.getThrustPoints()) {
+				data.writeDouble(f);
+			}
+			for (Coordinate c : m.getCGPoints()) {
+				data.writeDouble(c.x);
+				data.writeDouble(c.y);
+				data.writeDouble(c.z);
+				data.writeDouble(c.weight);
+			}
+		}
+		data.flush();
+	}
+
+	private static void addString(String s, Map<String, Integer> stringIndex, List<String> strings) {
+		if (s != null && !stringIndex.containsKey(s)) {
+			stringIndex.put(s, strings.size());
+			strings.add(s);
+		}
+	}
+
+	private static int getIndex(String s, Map<String, Integer> stringIndex) {
+		return (s != null) ? stringIndex.get(s) : NO_STRING;
+	}
+
+
+	/**
+	 * Read motors from a file by memory-mapping it.
+	 *
+	 * @param file	the file to read.
+	 * @return		the motors of the file.
+	 * @throws IOException	if an I/O error occurs or the file is not a valid motor database.
+	 */
+	public static List<ThrustCurveMotor> read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			// The mapping remains valid after the channel is closed
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Read motors from a stream, which is read fully into memory.  The stream is not closed.
+	 *
+	 * @param in	the stream to read.
+	 * @return		the motors of the stream.
+	 * @throws IOException	if an I/O error occurs or the stream is not a valid motor database.
+	 */
+	public static List<ThrustCurveMotor> read(InputStream in) throws IOException {
+		return read(ByteBuffer.wrap(FileUtils.readBytes(in)));
+	}
+
+	/**
+	 * Read motors from a buffer containing a motor database.  The thrust curves of the
+	 * motors are decoded from the buffer when first needed, so the buffer must not be
+	 * modified afterwards.
+	 *
+	 * @param buffer	the buffer to read, from its current position.
+	 * @return			the motors of the buffer.
+	 * @throws IOException	if the buffer does not contain a valid motor database.
+	 */
+	public static List<ThrustCurveMotor> read(ByteBuffer buffer) throws IOException {
+		final ByteBuffer in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		try {
+			if (in.getInt() != MAGIC) {
+				throw new IOException("Not a motor database");
+			}
+			int version = in.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported motor database version " + version);
+			}
+			final int stringCount = in.getInt();
+			final int motorCount = in.getInt();
+			final int poolSize = in.getInt();
+
+			final String[] strings = new String[stringCount];
+			for (int i = 0; i < stringCount; i++) {
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			// The records are read after the pool has been located
+			final int recordPosition = in.position();
+			in.position(recordPosition + motorCount * RECORD_SIZE);
+			while (in.position() % 8 != 0) {
+				in.get();
+			}
+			if (in.remaining() < poolSize * 8) {
+				throw new IOException("Truncated motor database");
+			}
+			in.limit(in.position() + poolSize * 8);
+			final DoubleBuffer pool = in.slice().order(ByteOrder.BIG_ENDIAN).asDoubleBuffer();
+
+			in.clear();
+			in.position(recordPosition);
+			final Map<String, Manufacturer> manufacturers = new HashMap<String, Manufacturer>();
+			final List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>(motorCount);
+			for (int i = 0; i < motorCount; i++) {
+				motors.add(readMotor(in, strings, manufacturers, pool));
+			}
+			return motors;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Invalid motor database: " + e, e);
+		}
+	}
+
+	private static ThrustCurveMotor readMotor(ByteBuffer in, String[] strings, Map<String, Manufacturer> manufacturers,
+			DoubleBuffer pool) {
+		ThrustCurveMotor.Builder builder = new ThrustCurveMotor.Builder();
+		String manufacturerName = getString(in.getInt(), strings);
+		Manufacturer manufacturer = manufacturers.get(manufacturerName);
+		if (manufacturer == null) {
+			manufacturer = Manufacturer.getManufacturer(manufacturerName);
+			manufacturers.put(manufacturerName, manufacturer);
+		}
+		builder.setManufacturer(manufacturer);
+		builder.setDigest(getString(in.getInt(), strings));
+		builder.setCode(getString(in.getInt(), strings));
+		builder.setCommonName(getString(in.getInt(), strings));
+		builder.setDesignation(getString(in.getInt(), strings));
+		builder.setDescription(getString(in.getInt(), strings));
+		builder.setCaseInfo(getString(in.getInt(), strings));
+		builder.setPropellantInfo(getString(in.getInt(), strings));
+		builder.setMotorType(Motor.Type.valueOf(getString(in.getInt(), strings)));
+		builder.setAvailability((in.getInt() & FLAG_AVAILABLE) != 0);
+		builder.setDiameter(in.getDouble());
+		builder.setLength(in.getDouble());
+		builder.setInitialMass(in.getDouble());
+		double maxThrust = in.getDouble();
+		double burnTimeEstimate = in.getDouble();
+		double averageThrust = in.getDouble();
+		double totalImpulse = in.getDouble();
+		builder.setCurveStatistics(maxThrust, burnTimeEstimate, averageThrust, totalImpulse);
+
+		int delayOffset = in.getInt();
+		double[] delays = new double[in.getInt()];
+		for (int i = 0; i < delays.length; i++) {
+			delays[i] = pool.get(delayOffset + i);
+		}
+		builder.setStandardDelays(delays);
+
+		int curveOffset = in.getInt();
+		int sampleCount = in.getInt();
+		if (sampleCount < 2 || curveOffset < 0 || curveOffset + (2 + CG_SIZE) * sampleCount > pool.limit()) {
+			throw new IllegalArgumentException("Invalid thrust curve offset=" + curveOffset + " length=" + sampleCount);
+		}
+		builder.setCurveLoader(new PooledCurve(pool, curveOffset, sampleCount));
+		return builder.build();
+	}
+
+	private static String getString(int index, String[] strings) {
+		return (index == NO_STRING) ? null : strings[index];
+	}
+
+
+	/**
+	 * A thrust curve stored in the pool of doubles.  The pool is only read using absolute
+	 * positions, so a single buffer may be shared by the curves of all motors.
+	 */
+	private static class PooledCurve implements ThrustCurveMotor.CurveLoader {
+		private final DoubleBuffer pool;
+		private final int offset;
+		private final int count;
+
+		PooledCurve(DoubleBuffer pool, int offset, int count) {
+			this.pool = pool;
+			this.offset = offset;
+			this.count = count;
+		}
+
+		@Override
+		public int getSampleCount() {
+			return count;
+		}
+
+		@Override
+		public void loadCurve(double[] time, double[] thrust, Coordinate[] cg) {
+			int p = offset;
+			for (int i = 0; i < count; i++) {
+				time[i] = pool.get(p++);
+			}
+			for (int i = 0; i < count; i++) {
+				thrust[i] = pool.get(p++);
+			}
+			for (int i = 0; i < count; i++) {
+				cg[i] = new Coordinate(pool.get(p), pool.get(p + 1), pool.get(p + 2), pool.get(p + 3));
+				p += CG_SIZE;
+			}
+		}
+	}
+
+}
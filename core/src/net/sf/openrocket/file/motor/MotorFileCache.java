@@ -0,0 +1,215 @@
+package net.sf.openrocket.file.motor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.FileUtils;
+
+/**
+ * A persistent cache of the motors parsed from motor files, which allows skipping the
+ * parsing of files that have not changed since the previous application session.
+ * <p>
+ * The motors of a file are stored by the absolute path of the file, and are valid as
+ * long as the size and the modification time of the file are unchanged.  The motors are
+ * stored in the format of {@link BinaryMotorDatabase}, including the digests computed
+ * when the files were parsed, and their thrust curves are decoded only when first used.
+ * <p>
+ * Only the files that are looked up or added during a session are retained when the
+ * cache is saved, and the file is rewritten only if the contents have changed.  Errors in
+ * reading or writing the file are logged, after which the cache is empty or left unsaved.
+ * The methods of this class are thread-safe.
+ */
+public class MotorFileCache {
+	private static final Logger log = LoggerFactory.getLogger(MotorFileCache.class);
+
+	private static final int MAGIC = 0x4F524D43; // "ORMC"
+	private static final int VERSION = 1;
+
+	private final File file;
+
+	/** The entries read from the file */
+	private final Map<String, Entry> stored = new HashMap<String, Entry>();
+	/** The entries used or added in this session, which are retained when saving */
+	private final Map<String, Entry> retained = new LinkedHashMap<String, Entry>();
+	private boolean modified = false;
+
+
+	/**
+	 * Open a cache backed by the specified file, reading the motors stored in it.
+	 *
+	 * @param file	the file to store the motors in.
+	 */
+	public MotorFileCache(File file) {
+		this.file = file;
+		load();
+	}
+
+
+	/**
+	 * Return the cached motors of a motor file.  The size and the modification time
+	 * should be read before reading the file itself.
+	 *
+	 * @param motorFile		the motor file.
+	 * @param length		the current size of the motor file.
+	 * @param lastModified	the current modification time of the motor file.
+	 * @return				the motors of the file, or <code>null</code> if the file is not
+	 * 						cached or has changed.
+	 */
+	public synchronized List<ThrustCurveMotor> get(File motorFile, long length, long lastModified) {
+		String path = motorFile.getAbsolutePath();
+		Entry entry = retained.get(path);
+		if (entry == null) {
+			entry = stored.get(path);
+		}
+		if (entry == null || entry.length != length || entry.lastModified != lastModified) {
+			return null;
+		}
+		retained.put(path, entry);
+		return new ArrayList<ThrustCurveMotor>(entry.motors);
+	}
+
+	/**
+	 * Store the motors of a motor file.
+	 *
+	 * @param motorFile		the motor file.
+	 * @param length		the size of the motor file when it was read.
+	 * @param lastModified	the modification time of the motor file when it was read.
+	 * @param motors		the motors of the file.
+	 */
+	public synchronized void put(File motorFile, long length, long lastModified, List<ThrustCurveMotor> motors) {
+		String path = motorFile.getAbsolutePath();
+		retained.put(path, new Entry(path, length, lastModified, new ArrayList<ThrustCurveMotor>(motors)));
+		modified = true;
+	}
+
+	/**
+	 * Write the entries used or added in this session to the file, if they differ from
+	 * the contents of the file.
+	 */
+	public synchronized void save() {
+		if (!modified && retained.size() == stored.size()) {
+			return;
+		}
+
+		List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+		for (Entry e : retained.values()) {
+			motors.addAll(e.motors);
+		}
+
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			File dir = file.getAbsoluteFile().getParentFile();
+			if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+				throw new IOException("Unable to create directory " + dir);
+			}
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(retained.size());
+				for (Entry e : retained.values()) {
+					byte[] path = e.path.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(path.length);
+					out.write(path);
+					out.writeLong(e.length);
+					out.writeLong(e.lastModified);
+					out.writeInt(e.motors.size());
+				}
+				BinaryMotorDatabase.write(motors, out);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			log.warn("Error writing motor cache " + file, e);
+			tmp.delete();
+			return;
+		}
+
+		stored.clear();
+		stored.putAll(retained);
+		modified = false;
+		log.info("Saved " + retained.size() + " motor files with " + motors.size() + " motors to " + file);
+	}
+
+
+	private void load() {
+		if (!file.isFile()) {
+			return;
+		}
+
+		// The file is read into memory instead of being mapped, so that it can be replaced when saving
+		try (InputStream in = new FileInputStream(file)) {
+			ByteBuffer buffer = ByteBuffer.wrap(FileUtils.readBytes(in));
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				log.warn("Motor cache " + file + " has unknown format, discarding it");
+				return;
+			}
+
+			int count = buffer.getInt();
+			String[] paths = new String[count];
+			long[] lengths = new long[count];
+			long[] lastModified = new long[count];
+			int[] motorCounts = new int[count];
+			int motorCount = 0;
+			for (int i = 0; i < count; i++) {
+				byte[] path = new byte[buffer.getInt()];
+				buffer.get(path);
+				paths[i] = new String(path, StandardCharsets.UTF_8);
+				lengths[i] = buffer.getLong();
+				lastModified[i] = buffer.getLong();
+				motorCounts[i] = buffer.getInt();
+				motorCount += motorCounts[i];
+			}
+
+			List<ThrustCurveMotor> motors = BinaryMotorDatabase.read(buffer);
+			if (motors.size() != motorCount) {
+				throw new IOException("Motor count mismatch, expected " + motorCount + " found " + motors.size());
+			}
+			int index = 0;
+			for (int i = 0; i < count; i++) {
+				List<ThrustCurveMotor> fileMotors = new ArrayList<ThrustCurveMotor>(motors.subList(index, index + motorCounts[i]));
+				stored.put(paths[i], new Entry(paths[i], lengths[i], lastModified[i], fileMotors));
+				index += motorCounts[i];
+			}
+		} catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+				| NegativeArraySizeException e) {
+			log.warn("Error reading motor cache " + file + ", discarding it", e);
+			stored.clear();
+			return;
+		}
+		log.info("Loaded " + stored.size() + " motor files from cache " + file);
+	}
+
+
+	private static class Entry {
+		private final String path;
+		private final long length;
+		private final long lastModified;
+		private final List<ThrustCurveMotor> motors;
+
+		Entry(String path, long length, long lastModified, List<ThrustCurveMotor> motors) {
+			this.path = path;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.motors = motors;
+		}
+	}
+
+}
@@ -22,6 +22,7 @@ import net.sf.openrocket.simulation.FlightData;
 import net.sf.openrocket.simulation.FlightDataBranch;
 import net.sf.openrocket.simulation.FlightDataType;
 import net.sf.openrocket.simulation.FlightEvent;
+import net.sf.openrocket.simulation.IntegrationMethod;
 import net.sf.openrocket.simulation.SimulationOptions;
 import net.sf.openrocket.simulation.customexpression.CustomExpression;
 import net.sf.openrocket.simulation.extension.SimulationExtension;
@@ -357,6 +358,9 @@ public class OpenRocketSaver extends RocketSaver {
 		}
 		
 		writeElement("timestep", cond.getTimeStep());
+		if (cond.getIntegrationMethod() != IntegrationMethod.RK4) {
+			writeElement("integrationmethod", enumToXMLName(cond.getIntegrationMethod()));
+		}
 		
 		indent--;
 		writeln("</conditions>");
@@ -484,9 +488,9 @@ public class OpenRocketSaver extends RocketSaver {
 			return;
 		
 		// Retrieve the data from the branch
-		List<List<Double>> data = new ArrayList<List<Double>>(types.length);
+		List<FlightDataBranch.ValueList> data = new ArrayList<FlightDataBranch.ValueList>(types.length);
 		for (int i = 0; i < types.length; i++) {
-			data.add(branch.get(types[i]));
+			data.add(branch.getValues(types[i]));
 		}
 		
 		// Build the <databranch> tag
@@ -570,14 +574,14 @@ public class OpenRocketSaver extends RocketSaver {
 	
 	
 	
-	private void writeDataPointString(List<List<Double>> data, int index, StringBuilder sb)
+	private void writeDataPointString(List<FlightDataBranch.ValueList> data, int index, StringBuilder sb)
 			throws IOException {
 		sb.setLength(0);
 		sb.append("<datapoint>");
 		for (int j = 0; j < data.size(); j++) {
 			if (j > 0)
 				sb.append(",");
-			sb.append(TextUtil.doubleToString(data.get(j).get(index)));
+			sb.append(TextUtil.doubleToString(data.get(j).getDouble(index)));
 		}
 		sb.append("</datapoint>");
 		writeln(sb.toString());
@@ -9,6 +9,7 @@ import net.sf.openrocket.file.simplesax.ElementHandler;
 import net.sf.openrocket.file.simplesax.PlainTextHandler;
 import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
 import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.IntegrationMethod;
 import net.sf.openrocket.simulation.SimulationOptions;
 import net.sf.openrocket.util.GeodeticComputationStrategy;
 
@@ -116,6 +117,14 @@ class SimulationConditionsHandler extends AbstractElementHandler {
 			} else {
 				options.setTimeStep(d);
 			}
+		} else if (element.equals("integrationmethod")) {
+			IntegrationMethod method =
+					(IntegrationMethod) DocumentConfig.findEnum(content, IntegrationMethod.class);
+			if (method != null) {
+				options.setIntegrationMethod(method);
+			} else {
+				warnings.add("Unknown integration method '" + content + "'");
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -198,6 +198,40 @@ public class MassCalculation {
 		if( motorConfig.isEmpty() ){
 			return this;
 		}
+		
+		final RigidBody clusterMOI = calculateCluster( this.type, motorConfig, this.root, this.transform, this.simulationTime, this.activeMotorList );
+		final Coordinate clusterCM = clusterMOI.cm;
+		addMass( clusterCM );
+
+		if(null != this.analysisMap) {
+			final Motor motor = motorConfig.getMotor();
+			CMAnalysisEntry entry = analysisMap.get(motor.getDesignation().hashCode());
+			if (null == entry){
+				entry = new CMAnalysisEntry(motor);
+				analysisMap.put(motor.getDesignation().hashCode(), entry);
+			}
+			entry.updateEachMass(clusterCM.weight / root.getInstanceCount());
+			entry.updateAverageCM(clusterCM);
+		}
+
+		addInertia( clusterMOI );
+		
+		return this;
+	}
+	
+	/**
+	 * Compute the mass data of the motors of a motor mount.
+	 * 
+	 * @param type				the type of calculation
+	 * @param motorConfig		the (non-empty) motor configuration of the mount
+	 * @param root				the motor mount
+	 * @param transform			the transformation from the mount's parent to the rocket frame
+	 * @param simulationTime	the simulation time, or the motor time for static calculations
+	 * @param activeMotorList	the motor states of a simulation, or null for static calculations
+	 * @return					the mass data of all instances of the motor, in the rocket frame
+	 */
+	static RigidBody calculateCluster( final Type type, final MotorConfiguration motorConfig, final RocketComponent root,
+			final Transformation transform, final double simulationTime, final Collection<MotorClusterState> activeMotorList ){
 		final Motor motor = motorConfig.getMotor();
 
 		// If we don't have any MotorClusterStates,
@@ -205,10 +239,12 @@ public class MassCalculation {
 		// If we do have MotorClusterStates, we need to adjust
 		// time according to motor ignition time.
 		double motorTime = simulationTime;
+		MotorClusterState motorState = null;
 		if (activeMotorList != null) {
 			for (MotorClusterState currentMotorState : activeMotorList ) {
 				if (currentMotorState.getMotor() == motor) {
 					motorTime = currentMotorState.getMotorTime(simulationTime);
+					motorState = currentMotorState;
 					break;
 				}
 			}
@@ -224,15 +260,16 @@ public class MassCalculation {
 		double eachMass;
 		double eachCMx;  // CoM from beginning of motor
 		
-		if ( this.type.includesMotorCasing && this.type.includesPropellant ){
-			eachMass = motor.getTotalMass( motorTime );
-			eachCMx = motor.getCMx( motorTime);
-		}else if( this.type.includesMotorCasing ) {
+		// The motor state looks up the thrust curve incrementally during a simulation
+		if ( type.includesMotorCasing && type.includesPropellant ){
+			eachMass = (motorState != null) ? motorState.getTotalMass( motorTime ) : motor.getTotalMass( motorTime );
+			eachCMx = (motorState != null) ? motorState.getCMx( motorTime ) : motor.getCMx( motorTime);
+		}else if( type.includesMotorCasing ) {
 			eachMass = motor.getTotalMass( Motor.PSEUDO_TIME_BURNOUT );
 			eachCMx = motor.getCMx( Motor.PSEUDO_TIME_BURNOUT );
 		} else {
-			final double eachMotorMass = motor.getTotalMass( motorTime );
-			final double eachMotorCMx = motor.getCMx( motorTime ); // CoM from beginning of motor
+			final double eachMotorMass = (motorState != null) ? motorState.getTotalMass( motorTime ) : motor.getTotalMass( motorTime );
+			final double eachMotorCMx = (motorState != null) ? motorState.getCMx( motorTime ) : motor.getCMx( motorTime ); // CoM from beginning of motor
 			final double eachCasingMass = motor.getBurnoutMass();
 			final double eachCasingCMx = motor.getBurnoutCGx();
 			
@@ -260,22 +297,7 @@ public class MassCalculation {
 		}
 		
 		final Coordinate clusterCM = transform.transform( clusterLocalCM  );
-		addMass( clusterCM );
-
-		if(null != this.analysisMap) {
-			CMAnalysisEntry entry = analysisMap.get(motor.getDesignation().hashCode());
-			if (null == entry){
-				entry = new CMAnalysisEntry(motor);
-				analysisMap.put(motor.getDesignation().hashCode(), entry);
-			}
-			entry.updateEachMass(eachMass);
-			entry.updateAverageCM(clusterCM);
-		}
-
-		RigidBody clusterMOI = new RigidBody( clusterCM, clusterIr, clusterIt, clusterIt );
-		addInertia( clusterMOI );
-		
-		return this;
+		return new RigidBody( clusterCM, clusterIr, clusterIt, clusterIt );
 	}
 	
 	/**
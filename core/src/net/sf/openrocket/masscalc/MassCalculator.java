@@ -99,23 +99,35 @@ public class MassCalculator implements Monitorable {
 	////////////////// Mass property Wrappers  ///////////////////
 	// all mass calculation calls should probably call through one of these two wrappers. 
 	
-	// convenience wrapper -- use this to implicitly create a plain MassCalculation object with common parameters,
-	// for calculations in the course of a simulation
+	// convenience wrapper -- use this for calculations in the course of a simulation.
+	// Uses the mass model cached in the configuration.
 	public static RigidBody calculate( final MassCalculation.Type _type, final SimulationStatus status ){
 		final FlightConfiguration config = status.getConfiguration();
 		final double time = status.getSimulationTime();
 		final Collection<MotorClusterState> activeMotorList = status.getActiveMotors();
-		MassCalculation calculation= new MassCalculation( _type, config, time, activeMotorList, config.getRocket(), Transformation.IDENTITY, null);
-		
-		calculation.calculateAssembly();
-		RigidBody result = calculation.calculateMomentOfInertia();
-		return result;
+		return config.getMassModel().calculate( _type, time, activeMotorList );
 	}
 	
-	// convenience wrapper -- use this to implicitly create a plain MassCalculation object with common parameters,
-	// for static mass calculations
+	// convenience wrapper -- use this for static mass calculations.
+	// Uses the mass model cached in the configuration.
 	public static RigidBody calculate( final MassCalculation.Type _type, final FlightConfiguration _config,  double _time){
-		MassCalculation calculation = new MassCalculation( _type, _config, _time, null, _config.getRocket(), Transformation.IDENTITY, null);
+		return _config.getMassModel().calculate( _type, _time, null );
+	}
+	
+	/**
+	 * Calculate mass data by traversing the component tree, without using the mass model
+	 * of the configuration.  The results are the same as those of the other methods, up to
+	 * rounding, so this is mainly useful for verification and benchmarking.
+	 * 
+	 * @param _type				the type of calculation
+	 * @param _config			the rocket configuration
+	 * @param _time				the simulation time, or the motor time for static calculations
+	 * @param activeMotorList	the motor states of a simulation, or null for static calculations
+	 * @return					the mass data
+	 */
+	public static RigidBody calculateFromTree( final MassCalculation.Type _type, final FlightConfiguration _config, final double _time,
+			final Collection<MotorClusterState> activeMotorList ){
+		MassCalculation calculation = new MassCalculation( _type, _config, _time, activeMotorList, _config.getRocket(), Transformation.IDENTITY, null);
 		calculation.calculateAssembly();
 		return calculation.calculateMomentOfInertia();
 	}
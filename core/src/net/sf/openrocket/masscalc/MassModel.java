@@ -0,0 +1,203 @@
+package net.sf.openrocket.masscalc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import net.sf.openrocket.motor.Motor;
+import net.sf.openrocket.motor.MotorConfiguration;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.MotorMount;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.simulation.MotorClusterState;
+import net.sf.openrocket.util.Coordinate;
+import net.sf.openrocket.util.MathUtil;
+import net.sf.openrocket.util.Transformation;
+
+/**
+ * The mass properties of a flight configuration, prepared for repeated calculations at
+ * different times, as during a simulation.
+ * <p>
+ * The structure does not change during flight, so its mass data is calculated once.  The motors
+ * are reduced to a list of motor clusters with their transformations to the rocket frame, and
+ * only their mass and CG are looked up from the thrust curves at each calculation.  The results
+ * are the same as those of a {@link MassCalculation} over the component tree, up to rounding.
+ * <p>
+ * A model is immutable and remains valid until the configuration or the mass or structure of
+ * the rocket changes.  Use {@link FlightConfiguration#getMassModel()} to obtain an up-to-date
+ * model of a configuration.
+ */
+public class MassModel {
+
+	private static final double MIN_MASS = MathUtil.EPSILON;
+
+	private final Rocket rocket;
+	private final int configModID;
+	private final int massModID;
+	private final int treeModID;
+	private final int functionalModID;
+
+	// the result of a structure calculation
+	private final RigidBody structure;
+	// the component bodies of the structure combined into one, about their own center of mass
+	private final RigidBody structureBodies;
+
+	private final List<Cluster> clusters = new ArrayList<Cluster>();
+
+	/**
+	 * Build the mass model of a configuration.
+	 *
+	 * @param config	the flight configuration
+	 */
+	public MassModel(final FlightConfiguration config) {
+		this.rocket = config.getRocket();
+		this.configModID = config.getModID();
+		this.massModID = rocket.getMassModID();
+		this.treeModID = rocket.getTreeModID();
+		this.functionalModID = rocket.getFunctionalModID();
+
+		MassCalculation calculation = new MassCalculation(MassCalculation.Type.STRUCTURE, config, Motor.PSEUDO_TIME_EMPTY,
+				null, rocket, Transformation.IDENTITY, null);
+		calculation.calculateAssembly();
+		this.structure = calculation.calculateMomentOfInertia();
+		this.structureBodies = combine(calculation.bodies);
+
+		collectClusters(config, rocket, Transformation.IDENTITY);
+	}
+
+	/**
+	 * Return whether this model is up to date for the specified configuration.
+	 */
+	public boolean isValidFor(final FlightConfiguration config) {
+		final Rocket r = config.getRocket();
+		return (r == rocket) && (config.getModID() == configModID) && (r.getMassModID() == massModID) &&
+				(r.getTreeModID() == treeModID) && (r.getFunctionalModID() == functionalModID);
+	}
+
+	/**
+	 * Calculate the mass data of the configuration.
+	 *
+	 * @param type				the type of calculation
+	 * @param time				the simulation time, or the motor time for static calculations
+	 * @param activeMotorList	the motor states of a simulation, or null for static calculations
+	 * @return					the mass data, with the moments of inertia about the center of mass
+	 */
+	public RigidBody calculate(final MassCalculation.Type type, final double time,
+			final Collection<MotorClusterState> activeMotorList) {
+		if (type.includesStructure && !type.includesMotorCasing && !type.includesPropellant) {
+			return structure;
+		}
+
+		Coordinate centerOfMass = Coordinate.ZERO;
+		if (type.includesStructure) {
+			centerOfMass = addMass(centerOfMass, structure.cm);
+		}
+
+		RigidBody[] clusterBodies = new RigidBody[clusters.size()];
+		if (type.includesMotorCasing || type.includesPropellant) {
+			Coordinate motorCM = Coordinate.ZERO;
+			for (int i = 0; i < clusters.size(); i++) {
+				final Cluster cluster = clusters.get(i);
+				clusterBodies[i] = MassCalculation.calculateCluster(type, cluster.motorConfig, cluster.mount,
+						cluster.transform, time, activeMotorList);
+				motorCM = addMass(motorCM, clusterBodies[i].cm);
+			}
+			centerOfMass = addMass(centerOfMass, motorCM);
+		}
+
+		double Ir = 0, It = 0;
+		if (type.includesStructure) {
+			final RigidBody moved = structureBodies.rebase(centerOfMass);
+			Ir += moved.Ixx;
+			It += moved.Iyy;
+		}
+		for (RigidBody body : clusterBodies) {
+			if (body != null) {
+				final RigidBody moved = body.rebase(centerOfMass);
+				Ir += moved.Ixx;
+				It += moved.Iyy;
+			}
+		}
+
+		return new RigidBody(centerOfMass, Ir, It, It);
+	}
+
+	/**
+	 * Return the number of motor clusters in the model.
+	 */
+	public int getClusterCount() {
+		return clusters.size();
+	}
+
+
+	/**
+	 * Collect the active motor mounts with motors, traversing the component tree as
+	 * {@link MassCalculation#calculateMotors()} does.
+	 */
+	private void collectClusters(final FlightConfiguration config, final RocketComponent component,
+			final Transformation parentTransform) {
+		if (component.isMotorMount() && config.isComponentActive(component)) {
+			final MotorConfiguration motorConfig = ((MotorMount) component).getMotorConfig(config.getId());
+			if (!motorConfig.isEmpty()) {
+				clusters.add(new Cluster(component, motorConfig, parentTransform));
+			}
+		}
+
+		for (Coordinate location : component.getInstanceLocations()) {
+			final Transformation currentTransform = parentTransform.applyTransformation(
+					Transformation.getTranslationTransform(location));
+			for (RocketComponent child : component.getChildren()) {
+				collectClusters(config, child, currentTransform);
+			}
+		}
+	}
+
+	/**
+	 * Sum bodies into a single body about their common center of mass.  By the parallel axis
+	 * theorem, moving the sum to another point gives the same result as moving each body.
+	 */
+	private static RigidBody combine(final List<RigidBody> bodies) {
+		double mass = 0, x = 0, y = 0, z = 0;
+		for (RigidBody body : bodies) {
+			final double m = body.cm.weight;
+			mass += m;
+			x += m * body.cm.x;
+			y += m * body.cm.y;
+			z += m * body.cm.z;
+		}
+		final Coordinate cm = (mass > 0) ? new Coordinate(x / mass, y / mass, z / mass, mass) : Coordinate.ZERO;
+
+		double Ixx = 0, Iyy = 0, Izz = 0;
+		for (RigidBody body : bodies) {
+			final RigidBody moved = body.rebase(cm);
+			Ixx += moved.Ixx;
+			Iyy += moved.Iyy;
+			Izz += moved.Izz;
+		}
+		return new RigidBody(cm, Ixx, Iyy, Izz);
+	}
+
+	/**
+	 * Same as {@link MassCalculation#addMass(Coordinate)}.
+	 */
+	private static Coordinate addMass(final Coordinate centerOfMass, final Coordinate pointMass) {
+		if (MIN_MASS > centerOfMass.weight) {
+			return pointMass;
+		}
+		return centerOfMass.average(pointMass);
+	}
+
+
+	private static class Cluster {
+		private final RocketComponent mount;
+		private final MotorConfiguration motorConfig;
+		private final Transformation transform;
+
+		public Cluster(RocketComponent mount, MotorConfiguration motorConfig, Transformation transform) {
+			this.mount = mount;
+			this.motorConfig = motorConfig;
+			this.transform = transform;
+		}
+	}
+}
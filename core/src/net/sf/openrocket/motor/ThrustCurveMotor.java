@@ -1,5 +1,8 @@
 package net.sf.openrocket.motor;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.text.Collator;
 import java.util.Arrays;
@@ -32,9 +35,14 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	
 	private static final DesignationComparator DESIGNATION_COMPARATOR = new DesignationComparator();
 	
+	private static final Manufacturer UNKNOWN_MANUFACTURER = Manufacturer.getManufacturer("Unknown");
+	
+	/** Number of time points stepped over linearly from a search hint before falling back to a binary search */
+	private static final int LINEAR_SEARCH_STEPS = 4;
+	
 	private String digest = "";
 	
-	private Manufacturer manufacturer = Manufacturer.getManufacturer("Unknown");
+	private Manufacturer manufacturer = UNKNOWN_MANUFACTURER;
 	private String code = "";
 	private String commonName = "";
 	private String designation = "";
@@ -61,6 +69,37 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	private double unitRotationalInertia;
 	private double unitLongitudinalInertia;
 	
+	// Derived from the thrust curve; not serialized, but rebuilt when the motor is built or read.
+	// cumulative impulse from ignition to each time point
+	private transient double[] cumulativeImpulse;
+	// propellant mass remaining at each time point
+	private transient double[] propellantMass;
+	
+	// Loads the time, thrust and CG points on first use, or null once they are available.  Cleared
+	// only after the points have been stored, so reading it as null makes the points visible.
+	private transient volatile CurveLoader curveLoader;
+	
+	/**
+	 * A source of the thrust curve of a motor whose time, thrust and CG points are read only
+	 * when first needed, for example from a memory-mapped motor database.
+	 */
+	public interface CurveLoader {
+		
+		/**
+		 * Return the number of points in the thrust curve.
+		 */
+		int getSampleCount();
+		
+		/**
+		 * Read the thrust curve into the given arrays, whose length is the number of points.
+		 * 
+		 * @param time		the array to fill with the time points
+		 * @param thrust	the array to fill with the thrust points
+		 * @param cg		the array to fill with the CG points
+		 */
+		void loadCurve(double[] time, double[] thrust, Coordinate[] cg);
+	}
+	
 	public static class Builder {
 		
 		ThrustCurveMotor motor = new ThrustCurveMotor();
@@ -168,7 +207,62 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 			}
 		}
 		
+		/**
+		 * Set the loader of the thrust curve, which is then read only when first needed.  The
+		 * time, thrust and CG points must not be set, and the statistics normally computed from
+		 * them must be set with {@link #setCurveStatistics(double, double, double, double)}.
+		 */
+		public Builder setCurveLoader(CurveLoader loader) {
+			motor.curveLoader = loader;
+			return this;
+		}
+		
+		/**
+		 * Set the statistics of a thrust curve that is read by a {@link CurveLoader}.
+		 */
+		public Builder setCurveStatistics(double maxThrust, double burnTimeEstimate, double averageThrust, double totalImpulse) {
+			motor.maxThrust = maxThrust;
+			motor.burnTimeEstimate = burnTimeEstimate;
+			motor.averageThrust = averageThrust;
+			motor.totalImpulse = totalImpulse;
+			return this;
+		}
+		
 		public ThrustCurveMotor build() {
+			if (motor.curveLoader == null) {
+				validateCurve();
+			}
+			
+			if (motor.type != Motor.Type.SINGLE && motor.type != Motor.Type.RELOAD &&
+					motor.type != Motor.Type.HYBRID && motor.type != Motor.Type.UNKNOWN) {
+				throw new IllegalArgumentException("Illegal motor type=" + motor.type);
+			}
+			
+			motor.unitRotationalInertia = Inertia.filledCylinderRotational( motor.diameter / 2);
+			motor.unitLongitudinalInertia = Inertia.filledCylinderLongitudinal( motor.diameter / 2, motor.length);
+
+			// If I don't have a motor designation (will be the case if I read the thrustcurve from a file)
+			// use the motor code
+			if (motor.designation.equals("")) {
+				motor.designation = motor.code;
+			}
+
+			// If I don't have a motor common name (will be the case if I read the thrustcurve from a flle)
+			// apply the motor code simplification heuristics to generate a common name
+			if (motor.commonName.equals("")) {
+				motor.commonName = simplifyDesignation(motor.designation);
+			}
+				
+
+			if (motor.curveLoader == null) {
+				motor.computeStatistics();
+				motor.computeTables();
+			}
+			
+			return motor;
+		}
+		
+		private void validateCurve() {
 			// Check argument validity
 			if ((motor.time.length != motor.thrust.length) || (motor.time.length != motor.cg.length)) {
 				throw new IllegalArgumentException("Array lengths do not match, " +
@@ -226,33 +320,100 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 					throw new IllegalArgumentException("Negative mass " + c.weight + "at time=" + motor.time[Arrays.asList(motor.cg).indexOf(c)]);
 				}
 			}
-			
-			if (motor.type != Motor.Type.SINGLE && motor.type != Motor.Type.RELOAD &&
-					motor.type != Motor.Type.HYBRID && motor.type != Motor.Type.UNKNOWN) {
-				throw new IllegalArgumentException("Illegal motor type=" + motor.type);
+		}
+		
+	}
+	
+	
+	/**
+	 * A position in the thrust curve of a motor, for efficiently evaluating the motor
+	 * at a sequence of increasing times, as during a simulation.
+	 * <p>
+	 * The cursor remembers the interval of the thrust curve found by the previous query and
+	 * starts the next search from it, falling back to a binary search when the time has moved
+	 * further away.  The thrust, mass and CG at the most recent time are interpolated only once.
+	 * <p>
+	 * The motor itself is immutable and may be shared between threads, but a cursor holds
+	 * mutable state and should be used by a single simulation only.  Each
+	 * {@link net.sf.openrocket.simulation.MotorClusterState} holds its own cursor.
+	 */
+	public static class Cursor {
+		private final ThrustCurveMotor motor;
+		
+		private int averageIndex = -1;
+		private int index = -1;
+		private double motorTime = Double.NaN;
+		private double pseudoIndex = Double.NaN;
+		private Coordinate cg = null;
+		
+		private Cursor( final ThrustCurveMotor motor ){
+			motor.loadCurve();
+			this.motor = motor;
+		}
+		
+		public ThrustCurveMotor getMotor(){
+			return motor;
+		}
+		
+		/**
+		 * @see ThrustCurveMotor#getAverageThrust(double, double)
+		 */
+		public double getAverageThrust( final double startTime, final double endTime ){
+			averageIndex = motor.findIndex( startTime, false, averageIndex );
+			return motor.getAverageThrust( startTime, endTime, averageIndex );
+		}
+		
+		/**
+		 * @see ThrustCurveMotor#getThrust(double)
+		 */
+		public double getThrust( final double motorTime ){
+			moveTo( motorTime );
+			return ThrustCurveMotor.interpolateAtIndex( motor.thrust, pseudoIndex );
+		}
+		
+		/**
+		 * Return the CG of the motor at a time after ignition, with the total mass as its weight.
+		 */
+		public Coordinate getCG( final double motorTime ){
+			moveTo( motorTime );
+			if( null == cg ){
+				cg = motor.interpolateCenterOfMassAtIndex( pseudoIndex );
 			}
-			
-			motor.unitRotationalInertia = Inertia.filledCylinderRotational( motor.diameter / 2);
-			motor.unitLongitudinalInertia = Inertia.filledCylinderLongitudinal( motor.diameter / 2, motor.length);
-
-			// If I don't have a motor designation (will be the case if I read the thrustcurve from a file)
-			// use the motor code
-			if (motor.designation.equals("")) {
-				motor.designation = motor.code;
+			return cg;
+		}
+		
+		/**
+		 * @see ThrustCurveMotor#getTotalMass(double)
+		 */
+		public double getTotalMass( final double motorTime ){
+			return getCG( motorTime ).weight;
+		}
+		
+		/**
+		 * @see ThrustCurveMotor#getCMx(double)
+		 */
+		public double getCMx( final double motorTime ){
+			return getCG( motorTime ).x;
+		}
+		
+		private void moveTo( final double motorTime ){
+			if( motorTime == this.motorTime ){
+				return;
 			}
-
-			// If I don't have a motor common name (will be the case if I read the thrustcurve from a flle)
-			// apply the motor code simplification heuristics to generate a common name
-			if (motor.commonName.equals("")) {
-				motor.commonName = simplifyDesignation(motor.designation);
+			this.motorTime = motorTime;
+			this.pseudoIndex = motor.getPseudoIndex( motorTime, index );
+			this.cg = null;
+			if( !Double.isNaN( pseudoIndex )){
+				index = (int) pseudoIndex;
 			}
-				
-
-			motor.computeStatistics();
-			
-			return motor;
 		}
-		
+	}
+	
+	/**
+	 * Return a new cursor for evaluating this motor at a sequence of times.
+	 */
+	public Cursor newCursor() {
+		return new Cursor( this );
 	}
 	
 	
@@ -271,6 +432,7 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	 * @return	an array of time points where the thrust is sampled
 	 */
 	public double[] getTimePoints() {
+		loadCurve();
 		return time.clone();
 	}
 	
@@ -285,24 +447,63 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	 * @return a pseudo index to this motor's data. 
 	 */
 	protected double getPseudoIndex( final double motorTime ){
+		loadCurve();
+		return getPseudoIndex( motorTime, -1 );
+	}
+	
+	private double getPseudoIndex( final double motorTime, final int hint ){
 		if(( time.length == 0 )||( 0 > motorTime )){
 			return Double.NaN;
 		}
 		
-		final int lowerIndex = getIndex( motorTime);
+		final int lowerIndex = findIndex( motorTime, true, hint );
 		final double fraction = getIndexFraction( motorTime, lowerIndex );
 		return ((double)lowerIndex)+fraction;
 	}
 	
-	private int getIndex( final double motorTime ){
-		int lowerBoundIndex=0;
-		int upperBoundIndex=0;
-		while( ( upperBoundIndex < time.length ) && ( motorTime >= time[upperBoundIndex] )){
-			lowerBoundIndex = upperBoundIndex;
-			++upperBoundIndex;
-		}	
+	/**
+	 * Find the number of time points after the first one that are before the given time,
+	 * i.e. the index of the interval of the thrust curve containing the time.
+	 * <p>
+	 * The search starts from the hint, which is typically the result of the previous search,
+	 * so that sequential queries take constant time.  Otherwise a binary search is used.
+	 * 
+	 * @param motorTime	time after motor ignition, in seconds
+	 * @param inclusive	whether time points equal to the time count as before it
+	 * @param hint		the expected result, or -1 if unknown
+	 * @return			the index, between 0 and the number of time points minus one
+	 */
+	private int findIndex( final double motorTime, final boolean inclusive, final int hint ){
+		int lo = 0;
+		int hi = Math.max( time.length - 1, 0 );
+		
+		if(( 0 <= hint )&&( hint <= hi )){
+			if(( 0 == hint )||( isBefore( hint, motorTime, inclusive ))){
+				lo = hint;
+				for( int i = hint + 1; i <= Math.min( hint + LINEAR_SEARCH_STEPS, hi ); i++ ){
+					if( !isBefore( i, motorTime, inclusive )){
+						return i - 1;
+					}
+					lo = i;
+				}
+			}else{
+				hi = hint - 1;
+			}
+		}
 		
-		return lowerBoundIndex; 
+		while( lo < hi ){
+			final int mid = ( lo + hi + 1 ) >>> 1;
+			if( isBefore( mid, motorTime, inclusive )){
+				lo = mid;
+			}else{
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+	
+	private boolean isBefore( final int index, final double motorTime, final boolean inclusive ){
+		return inclusive ? ( time[index] <= motorTime ) : ( time[index] < motorTime );
 	}
 	
 	private double getIndexFraction( final double motorTime, final int index ){
@@ -335,13 +536,11 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	
 	@Override
 	public double getAverageThrust( final double startTime, final double endTime ) {
-		
-		int timeIndex = 0;
-		
-		while( timeIndex < time.length-1 && startTime > time[timeIndex+1] ) {
-			timeIndex++;
-		}
-		
+		loadCurve();
+		return getAverageThrust( startTime, endTime, findIndex( startTime, false, -1 ));
+	}
+	
+	private double getAverageThrust( final double startTime, final double endTime, final int timeIndex ) {
 		if ( timeIndex == time.length-1 ) {
 			return 0.0;
 		}
@@ -352,29 +551,44 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 			double endThrust = MathUtil.map(endTime, time[timeIndex], time[timeIndex+1], thrust[timeIndex], thrust[timeIndex+1]);
 			return (startThrust + endThrust) / 2.0;
 		}
-
-		double impulse = 0.0;
-
+		
 		// portion from startTime through time[timeIndex+1]
 		double startThrust = MathUtil.map(startTime, time[timeIndex], time[timeIndex+1], thrust[timeIndex], thrust[timeIndex+1]);
-		impulse = (time[timeIndex+1] - startTime) * (startThrust + thrust[timeIndex+1]) / 2.0;
+		double impulse = (time[timeIndex+1] - startTime) * (startThrust + thrust[timeIndex+1]) / 2.0;
 		
-		// Now add the whole steps;
-		timeIndex++;
-		while ( timeIndex < time.length -1 && endTime >= time[timeIndex+1] ) {
-			impulse += (time[timeIndex+1] - time[timeIndex]) * (thrust[timeIndex] + thrust[timeIndex+1]) / 2.0;
-			timeIndex++;
-		}
-		
-		// Now add the bit after the last time index
-		if ( timeIndex < time.length -1 ) {
-			double endThrust = MathUtil.map( endTime,  time[timeIndex], time[timeIndex+1], thrust[timeIndex], thrust[timeIndex+1]);
-			impulse += (endTime - time[timeIndex]) * (thrust[timeIndex] + endThrust) / 2.0;
-		}
+		// the whole steps and the bit after the last time index, from the cumulative impulse table
+		final int endIndex = findIndex( endTime, true, timeIndex+1 );
+		impulse += (cumulativeImpulse[endIndex] - cumulativeImpulse[timeIndex+1]) + getPartialImpulse( endTime, endIndex );
 		
 		return impulse / (endTime - startTime);
 	}
 	
+	/**
+	 * Return the total impulse produced by the motor from ignition until a given time.
+	 * 
+	 * @param motorTime  time (in seconds) since motor ignition
+	 * @return the impulse (in Ns), zero before ignition and the total impulse after burnout
+	 */
+	public double getCumulativeImpulse( final double motorTime ){
+		if( 0 >= motorTime ){
+			return 0.0;
+		}
+		loadCurve();
+		final int index = findIndex( motorTime, true, -1 );
+		return cumulativeImpulse[index] + getPartialImpulse( motorTime, index );
+	}
+	
+	/**
+	 * Return the impulse from time point index to the given time, which lies in the following interval.
+	 */
+	private double getPartialImpulse( final double motorTime, final int index ){
+		if( index == time.length-1 ){
+			return 0.0;
+		}
+		final double thrustAtTime = MathUtil.map(motorTime, time[index], time[index+1], thrust[index], thrust[index+1]);
+		return (motorTime - time[index]) * (thrust[index] + thrustAtTime) / 2.0;
+	}
+	
 	@Override
 	public double getThrust( final double motorTime ){
 		double pseudoIndex = getPseudoIndex( motorTime );
@@ -422,6 +636,7 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	 * @return	an array of thrust samples
 	 */
 	public double[] getThrustPoints() {
+		loadCurve();
 		return thrust.clone();
 	}
 	
@@ -434,6 +649,7 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	//	}
 	
 	public Coordinate[] getCGPoints(){
+		loadCurve();
 		return cg;
 	}
 	
@@ -530,26 +746,31 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	
 	@Override
 	public double getLaunchCGx() {
+		loadCurve();
 		return cg[0].x;//cgx[0];
 	}
 	
 	@Override
 	public double getBurnoutCGx() {
+		loadCurve();
 		return cg[cg.length - 1].x;// cgx[ cg.length - 1];
 	}
 	
 	@Override
 	public double getLaunchMass() {
+		loadCurve();
 		return cg[0].weight;//mass[0];
 	}
 	
 	@Override
 	public double getBurnoutMass() {
+		loadCurve();
 		return cg[cg.length-1].weight; //mass[mass.length - 1];
 	}	
 	
 	@Override
 	public double getBurnTime() {
+		loadCurve();
 		return time[time.length-1];
 	}
 	
@@ -605,8 +826,7 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	@Override
 	public double getPropellantMass( final Double motorTime){
 		final double pseudoIndex = getPseudoIndex( motorTime); 
-		final double totalMass = interpolateCenterOfMassAtIndex( pseudoIndex).weight;
-		return totalMass - this.getBurnoutMass();
+		return ThrustCurveMotor.interpolateAtIndex( propellantMass, pseudoIndex);
 	}
 	
 	protected Coordinate interpolateCenterOfMassAtIndex( final double pseudoIndex ){
@@ -632,7 +852,7 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	}
 	
 	public int getDataSize() {
-		return this.time.length;
+		return getSampleSize();
 	}
 	
 	@Override
@@ -661,6 +881,7 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	}
 	
 	public double getCutOffTime() {
+		loadCurve();
 		return time[time.length - 1];
 	}
 	
@@ -668,6 +889,58 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 		return available;
 	}
 	
+	/**
+	 * Compute the cumulative impulse and propellant mass at each time point.
+	 */
+	private void computeTables() {
+		cumulativeImpulse = new double[time.length];
+		for (int i = 1; i < time.length; i++) {
+			cumulativeImpulse[i] = cumulativeImpulse[i - 1] + (time[i] - time[i - 1]) * (thrust[i - 1] + thrust[i]) / 2;
+		}
+		
+		final double burnoutMass = cg[cg.length - 1].weight;
+		propellantMass = new double[cg.length];
+		for (int i = 0; i < cg.length; i++) {
+			propellantMass[i] = cg[i].weight - burnoutMass;
+		}
+	}
+	
+	/**
+	 * Read the thrust curve from the curve loader, if the motor has one and the curve has
+	 * not been read yet.  This must be called before accessing the time, thrust or CG points.
+	 */
+	private void loadCurve() {
+		if (curveLoader == null) {
+			return;
+		}
+		synchronized (this) {
+			final CurveLoader loader = curveLoader;
+			if (loader == null) {
+				return;
+			}
+			final int n = loader.getSampleCount();
+			final double[] t = new double[n];
+			final double[] f = new double[n];
+			final Coordinate[] c = new Coordinate[n];
+			loader.loadCurve(t, f, c);
+			time = t;
+			thrust = f;
+			cg = c;
+			computeTables();
+			curveLoader = null;
+		}
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		computeTables();
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		loadCurve();
+		out.defaultWriteObject();
+	}
+	
 	/**
 	 * Compute the general statistics of this motor.
 	 */
@@ -798,6 +1071,10 @@ public class ThrustCurveMotor implements Motor, Comparable<ThrustCurveMotor>, Se
 	 * @return return the size of the data arrays
 	 */
 	public int getSampleSize(){
+		final CurveLoader loader = curveLoader;
+		if( loader != null ){
+			return loader.getSampleCount();
+		}
 		return time.length;
 	}
 	
@@ -0,0 +1,301 @@
+package net.sf.openrocket.optimization.general;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.util.BugException;
+
+/**
+ * A persistent store of function values, which allows reusing function evaluations
+ * across optimization runs and application sessions.
+ * <p>
+ * Values are stored by a function key, which must identify the function and all of
+ * its inputs apart from the evaluated point, and by the point.  The key and the point are
+ * hashed into a 128-bit digest, so each stored value takes 24 bytes.
+ * <p>
+ * The file is append-only:  every stored value is appended as a record, while reading
+ * values does not write to the file.  When loaded, the latest record of a value counts,
+ * and at most <code>maxEntries</code> of the most recently stored values are retained.
+ * In memory the values are evicted in the order of use, and the file is rewritten in that
+ * order without the evicted and duplicate records when it grows to twice the maximum number
+ * of entries.  An incomplete record at the end of the file, for example due to a crash,
+ * is ignored.
+ * <p>
+ * Errors in reading or writing the file are logged, after which the store continues
+ * to work in memory only.  The methods of this class are thread-safe.
+ */
+public class FunctionValueStore {
+	private static final Logger log = LoggerFactory.getLogger(FunctionValueStore.class);
+
+	private static final int MAGIC = 0x4F524643; // "ORFC"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_SIZE = 24;
+
+	private final File file;
+	private final int maxEntries;
+	private final Map<Key, Double> values;
+
+	private DataOutputStream output = null;
+	private int recordCount = 0;
+	private boolean failed = false;
+
+
+	/**
+	 * Open a store backed by the specified file, reading the values stored in it.  The file
+	 * is created when the first value is stored.
+	 *
+	 * @param file			the file to store the values in.
+	 * @param maxEntries	the maximum number of values to retain.
+	 */
+	public FunctionValueStore(File file, final int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Invalid maximum number of entries " + maxEntries);
+		}
+		this.file = file;
+		this.maxEntries = maxEntries;
+		this.values = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		load();
+	}
+
+
+	/**
+	 * Return the stored value of a function at a point.
+	 *
+	 * @param functionKey	the key identifying the function.
+	 * @param point			the point.
+	 * @return				the stored value, or <code>null</code> if none is stored.
+	 */
+	public synchronized Double get(String functionKey, Point point) {
+		return values.get(new Key(functionKey, point));
+	}
+
+	/**
+	 * Store the value of a function at a point.
+	 *
+	 * @param functionKey	the key identifying the function.
+	 * @param point			the point.
+	 * @param value			the function value at the point.
+	 */
+	public synchronized void put(String functionKey, Point point, double value) {
+		Key key = new Key(functionKey, point);
+		values.put(key, value);
+		append(key, value);
+	}
+
+	/**
+	 * Return the number of values in the store.
+	 */
+	public synchronized int size() {
+		return values.size();
+	}
+
+	/**
+	 * Remove all values from the store and the file.
+	 */
+	public synchronized void clear() {
+		values.clear();
+		rewrite();
+	}
+
+	/**
+	 * Close the file of the store.  The file is reopened if values are stored afterwards.
+	 */
+	public synchronized void close() {
+		if (output != null) {
+			try {
+				output.close();
+			} catch (IOException e) {
+				log.warn("Error closing function value store " + file, e);
+			}
+			output = null;
+		}
+	}
+
+
+
+	private void load() {
+		if (!file.isFile()) {
+			return;
+		}
+
+		long length = file.length();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (length < HEADER_SIZE || in.readInt() != MAGIC || in.readInt() != VERSION) {
+				log.warn("Function value store " + file + " has unknown format, discarding it");
+				length = -1;
+			} else {
+				long records = (length - HEADER_SIZE) / RECORD_SIZE;
+				for (long i = 0; i < records; i++) {
+					Key key = new Key(in.readLong(), in.readLong());
+					values.put(key, in.readDouble());
+				}
+				recordCount = (int) Math.min(records, Integer.MAX_VALUE);
+			}
+		} catch (IOException e) {
+			log.warn("Error reading function value store " + file + ", continuing in memory", e);
+			values.clear();
+			failed = true;
+			return;
+		}
+
+		log.info("Loaded " + values.size() + " function values from " + file);
+		if (length < 0 || recordCount > 2 * maxEntries || (length - HEADER_SIZE) % RECORD_SIZE != 0) {
+			// Discard an unknown file, or evicted records and an incomplete record at the end
+			rewrite();
+		}
+	}
+
+
+	private void append(Key key, double value) {
+		if (failed) {
+			return;
+		}
+		if (recordCount >= 2 * maxEntries) {
+			rewrite();
+			return;
+		}
+
+		try {
+			if (output == null) {
+				boolean created = !file.isFile() || file.length() < HEADER_SIZE;
+				if (created) {
+					// Write a new file, also replacing an incomplete header
+					createDirectory();
+					output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+					output.writeInt(MAGIC);
+					output.writeInt(VERSION);
+					recordCount = 0;
+				} else {
+					output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+				}
+			}
+			output.writeLong(key.high);
+			output.writeLong(key.low);
+			output.writeDouble(value);
+			output.flush();
+			recordCount++;
+		} catch (IOException e) {
+			log.warn("Error writing function value store " + file + ", continuing in memory", e);
+			close();
+			failed = true;
+		}
+	}
+
+
+	/**
+	 * Rewrite the file with the current values in the order of use.
+	 */
+	private void rewrite() {
+		close();
+		if (failed) {
+			return;
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			createDirectory();
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				for (Map.Entry<Key, Double> e : values.entrySet()) {
+					out.writeLong(e.getKey().high);
+					out.writeLong(e.getKey().low);
+					out.writeDouble(e.getValue());
+				}
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			recordCount = values.size();
+		} catch (IOException e) {
+			log.warn("Error writing function value store " + file + ", continuing in memory", e);
+			tmp.delete();
+			failed = true;
+		}
+	}
+
+
+
+	private void createDirectory() throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create directory " + dir);
+		}
+	}
+	
+	
+	
+	/**
+	 * A 128-bit digest of a function key and a point.
+	 */
+	private static final class Key {
+		private final long high;
+		private final long low;
+
+		public Key(long high, long low) {
+			this.high = high;
+			this.low = low;
+		}
+
+		public Key(String functionKey, Point point) {
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new BugException("SHA-256 digest not available", e);
+			}
+			digest.update(functionKey.getBytes(StandardCharsets.UTF_8));
+			for (int i = 0; i < point.dim(); i++) {
+				long bits = Double.doubleToLongBits(point.get(i));
+				for (int j = 0; j < 8; j++) {
+					digest.update((byte) (bits >>> (8 * j)));
+				}
+			}
+			byte[] hash = digest.digest();
+			this.high = toLong(hash, 0);
+			this.low = toLong(hash, 8);
+		}
+
+		private static long toLong(byte[] b, int offset) {
+			long l = 0;
+			for (int i = 0; i < 8; i++) {
+				l = (l << 8) | (b[offset + i] & 0xFF);
+			}
+			return l;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return high == other.high && low == other.low;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (low ^ (low >>> 32));
+		}
+	}
+
+}
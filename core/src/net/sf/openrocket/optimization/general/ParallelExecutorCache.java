@@ -26,6 +26,10 @@ import net.sf.openrocket.util.BugException;
  * Note that while this class handles threads and abstracts background execution,
  * the public methods themselves are NOT thread-safe and should be called from
  * only one thread at a time.
+ * <p>
+ * Optionally the computed values are also stored in a persistent {@link FunctionValueStore},
+ * and values found in it are not computed again.  A function implementing
+ * {@link StoredValueListener} is notified of the values found in the store.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
@@ -38,6 +42,9 @@ public class ParallelExecutorCache implements ParallelFunctionCache {
 	
 	private Function function;
 	
+	private FunctionValueStore valueStore = null;
+	private String functionKey = null;
+	
 	
 	/**
 	 * Construct a cache that uses the same number of computational threads as there are
@@ -104,6 +111,18 @@ public class ParallelExecutorCache implements ParallelFunctionCache {
 			return;
 		}
 		
+		if (valueStore != null) {
+			Double stored = valueStore.get(functionKey, point);
+			if (stored != null) {
+				// Function has been evaluated at the point previously
+				functionCache.put(point, stored);
+				if (function instanceof StoredValueListener) {
+					((StoredValueListener) function).storedValueUsed(point, stored);
+				}
+				return;
+			}
+		}
+		
 		// Submit point for evaluation
 		FunctionCallable callable = new FunctionCallable(function, point);
 		Future<Double> future = executor.submit(callable);
@@ -136,7 +155,7 @@ public class ParallelExecutorCache implements ParallelFunctionCache {
 		
 		try {
 			double value = future.get();
-			functionCache.put(point, value);
+			putValue(point, value);
 		} catch (ExecutionException e) {
 			Throwable cause = e.getCause();
 			if (cause instanceof InterruptedException) {
@@ -189,7 +208,7 @@ public class ParallelExecutorCache implements ParallelFunctionCache {
 			// Evaluation has been completed, store value in cache
 			try {
 				double value = future.get();
-				functionCache.put(point, value);
+				putValue(point, value);
 				return true;
 			} catch (Exception e) {
 				return false;
@@ -214,7 +233,7 @@ public class ParallelExecutorCache implements ParallelFunctionCache {
 				// Evaluation has been completed, store value in cache
 				try {
 					double value = future.get();
-					functionCache.put(point, value);
+					putValue(point, value);
 				} catch (Exception e) {
 					// Ignore
 				}
@@ -249,13 +268,37 @@ public class ParallelExecutorCache implements ParallelFunctionCache {
 	@Override
 	public void setFunction(Function function) {
 		this.function = function;
+		this.valueStore = null;
+		this.functionKey = null;
 		clearCache();
 	}
 	
+	
+	/**
+	 * Set a persistent store for the values of the current function.  The store is used
+	 * until the function is changed.
+	 * 
+	 * @param store		the value store, or <code>null</code> to not use one.
+	 * @param key		a key identifying the current function and all of its inputs.
+	 */
+	public void setValueStore(FunctionValueStore store, String key) {
+		if (store != null && key == null) {
+			throw new IllegalArgumentException("Function key must be specified with a value store");
+		}
+		this.valueStore = store;
+		this.functionKey = key;
+	}
+	
+	public FunctionValueStore getValueStore() {
+		return valueStore;
+	}
+	
 	@Override
 	public void clearCache() {
 		List<Point> list = new ArrayList<Point>(futureMap.keySet());
 		abort(list);
+		// Completed evaluations remain in the future map
+		futureMap.clear();
 		functionCache.clear();
 	}
 	
@@ -265,6 +308,14 @@ public class ParallelExecutorCache implements ParallelFunctionCache {
 	}
 	
 	
+	private void putValue(Point point, double value) {
+		functionCache.put(point, value);
+		if (valueStore != null) {
+			valueStore.put(functionKey, point, value);
+		}
+	}
+	
+	
 	/**
 	 * Check whether a point is outside of the valid optimization range.
 	 */
@@ -0,0 +1,17 @@
+package net.sf.openrocket.optimization.general;
+
+/**
+ * An interface a {@link Function} may implement to be notified when its value at
+ * a point is taken from a {@link FunctionValueStore} instead of being evaluated.
+ */
+public interface StoredValueListener {
+
+	/**
+	 * Called when the value of the function at a point is read from a value store.
+	 *
+	 * @param point		the point.
+	 * @param value		the stored function value at the point.
+	 */
+	public void storedValueUsed(Point point, double value);
+
+}
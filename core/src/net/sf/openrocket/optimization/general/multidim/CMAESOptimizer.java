@@ -0,0 +1,301 @@
+package net.sf.openrocket.optimization.general.multidim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+import net.sf.openrocket.optimization.general.Point;
+
+/**
+ * An implementation of the covariance matrix adaptation evolution strategy (CMA-ES) by Hansen,
+ * in the (mu/mu_w, lambda) form with the default parameters of "The CMA Evolution Strategy:
+ * A Tutorial".
+ * <p>
+ * Each generation samples lambda points from a multivariate normal distribution, whose mean,
+ * step size and covariance matrix are adapted from the best mu points.  Sampled points outside
+ * the range [0,1] are projected onto the boundary, and the projected points are used in the
+ * adaptation.
+ */
+public class CMAESOptimizer extends PopulationOptimizer {
+
+	/** The default initial step size */
+	public static final double DEFAULT_SIGMA = 0.3;
+
+	private final int lambda;
+	private final double initialSigma;
+
+	// Strategy parameters, set in initialize()
+	private int n;
+	private int mu;
+	private double[] weights;
+	private double mueff;
+	private double cc, cs, c1, cmu, damps, chiN;
+
+	// Dynamic state
+	private double[] mean;
+	private double sigma;
+	private double[][] C;
+	private double[][] B;
+	private double[] D;
+	private double[] pc;
+	private double[] ps;
+	private int evaluations;
+
+
+	/**
+	 * Create a CMA-ES optimizer with the default population size 4 + 3 ln(n), but at least
+	 * as many points as the number of processors.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param dimensions		the dimensionality of the optimization.
+	 * @param seed				the random seed.
+	 */
+	public CMAESOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+		this(functionCache, Math.max(4 + (int) (3 * Math.log(dimensions)), Runtime.getRuntime().availableProcessors()),
+				DEFAULT_SIGMA, seed);
+	}
+
+	/**
+	 * Create a CMA-ES optimizer.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param lambda			the number of points per generation, at least 4.
+	 * @param sigma				the initial step size, positive.
+	 * @param seed				the random seed.
+	 */
+	public CMAESOptimizer(ParallelFunctionCache functionCache, int lambda, double sigma, long seed) {
+		super(functionCache, seed);
+		if (lambda < 4) {
+			throw new IllegalArgumentException("Population size must be at least 4, was " + lambda);
+		}
+		if (!(sigma > 0)) {
+			throw new IllegalArgumentException("Invalid initial step size " + sigma);
+		}
+		this.lambda = lambda;
+		this.initialSigma = sigma;
+	}
+
+
+
+	@Override
+	protected void initialize(Point initial) {
+		n = initial.dim();
+		mu = lambda / 2;
+		weights = new double[mu];
+		double sum = 0;
+		for (int i = 0; i < mu; i++) {
+			weights[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+			sum += weights[i];
+		}
+		double sum2 = 0;
+		for (int i = 0; i < mu; i++) {
+			weights[i] /= sum;
+			sum2 += weights[i] * weights[i];
+		}
+		mueff = 1 / sum2;
+
+		cc = (4 + mueff / n) / (n + 4 + 2 * mueff / n);
+		cs = (mueff + 2) / (n + mueff + 5);
+		c1 = 2 / ((n + 1.3) * (n + 1.3) + mueff);
+		cmu = Math.min(1 - c1, 2 * (mueff - 2 + 1 / mueff) / ((n + 2) * (n + 2) + mueff));
+		damps = 1 + 2 * Math.max(0, Math.sqrt((mueff - 1) / (n + 1)) - 1) + cs;
+		chiN = Math.sqrt(n) * (1 - 1.0 / (4 * n) + 1.0 / (21 * n * n));
+
+		mean = initial.asArray();
+		sigma = initialSigma;
+		C = new double[n][n];
+		B = new double[n][n];
+		D = new double[n];
+		for (int i = 0; i < n; i++) {
+			C[i][i] = 1;
+			B[i][i] = 1;
+			D[i] = 1;
+		}
+		pc = new double[n];
+		ps = new double[n];
+		evaluations = 0;
+	}
+
+
+	@Override
+	protected List<Point> createGeneration() {
+		List<Point> generation = new ArrayList<Point>(lambda);
+		double[] z = new double[n];
+		for (int k = 0; k < lambda; k++) {
+			for (int i = 0; i < n; i++) {
+				z[i] = D[i] * random.nextGaussian();
+			}
+			double[] x = new double[n];
+			for (int i = 0; i < n; i++) {
+				double y = 0;
+				for (int j = 0; j < n; j++) {
+					y += B[i][j] * z[j];
+				}
+				x[i] = mean[i] + sigma * y;
+			}
+			generation.add(clamp(new Point(x)));
+		}
+		return generation;
+	}
+
+
+	@Override
+	protected void update(final List<Point> generation, final double[] values) {
+		evaluations += lambda;
+
+		Integer[] order = new Integer[lambda];
+		for (int i = 0; i < lambda; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(values[a], values[b]);
+			}
+		});
+
+		// Steps of the selected points, y_i = (x_i - m) / sigma
+		double[][] steps = new double[mu][n];
+		double[] meanStep = new double[n];
+		for (int k = 0; k < mu; k++) {
+			Point x = generation.get(order[k]);
+			for (int i = 0; i < n; i++) {
+				steps[k][i] = (x.get(i) - mean[i]) / sigma;
+				meanStep[i] += weights[k] * steps[k][i];
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			mean[i] += sigma * meanStep[i];
+		}
+
+		// Step size evolution path, using C^(-1/2) = B D^-1 B^T
+		double[] t = new double[n];
+		for (int j = 0; j < n; j++) {
+			double s = 0;
+			for (int i = 0; i < n; i++) {
+				s += B[i][j] * meanStep[i];
+			}
+			t[j] = s / D[j];
+		}
+		double csn = Math.sqrt(cs * (2 - cs) * mueff);
+		double psNorm = 0;
+		for (int i = 0; i < n; i++) {
+			double s = 0;
+			for (int j = 0; j < n; j++) {
+				s += B[i][j] * t[j];
+			}
+			ps[i] = (1 - cs) * ps[i] + csn * s;
+			psNorm += ps[i] * ps[i];
+		}
+		psNorm = Math.sqrt(psNorm);
+
+		// Covariance evolution path
+		double generations = (double) evaluations / lambda;
+		boolean hsig = psNorm / Math.sqrt(1 - Math.pow(1 - cs, 2 * generations)) / chiN < 1.4 + 2.0 / (n + 1);
+		double ccn = Math.sqrt(cc * (2 - cc) * mueff);
+		for (int i = 0; i < n; i++) {
+			pc[i] = (1 - cc) * pc[i] + (hsig ? ccn * meanStep[i] : 0);
+		}
+
+		// Covariance matrix
+		double dh = hsig ? 0 : cc * (2 - cc);
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i; j++) {
+				double rankMu = 0;
+				for (int k = 0; k < mu; k++) {
+					rankMu += weights[k] * steps[k][i] * steps[k][j];
+				}
+				double c = (1 - c1 - cmu) * C[i][j] + c1 * (pc[i] * pc[j] + dh * C[i][j]) + cmu * rankMu;
+				C[i][j] = c;
+				C[j][i] = c;
+			}
+		}
+
+		// Step size
+		sigma *= Math.exp((cs / damps) * (psNorm / chiN - 1));
+		sigma = Math.min(sigma, 1);
+
+		decompose();
+	}
+
+
+	/**
+	 * Compute the eigendecomposition C = B diag(D^2) B^T using the cyclic Jacobi method.
+	 */
+	private void decompose() {
+		double[][] a = new double[n][];
+		for (int i = 0; i < n; i++) {
+			a[i] = C[i].clone();
+			Arrays.fill(B[i], 0);
+			B[i][i] = 1;
+		}
+
+		for (int sweep = 0; sweep < 50; sweep++) {
+			double off = 0;
+			for (int p = 0; p < n; p++) {
+				for (int q = p + 1; q < n; q++) {
+					off += a[p][q] * a[p][q];
+				}
+			}
+			if (off < 1e-30) {
+				break;
+			}
+
+			for (int p = 0; p < n; p++) {
+				for (int q = p + 1; q < n; q++) {
+					if (a[p][q] == 0) {
+						continue;
+					}
+					double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+					double tan = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+					if (theta == 0) {
+						tan = 1;
+					}
+					double cos = 1 / Math.sqrt(tan * tan + 1);
+					double sin = tan * cos;
+
+					for (int k = 0; k < n; k++) {
+						double akp = a[k][p];
+						double akq = a[k][q];
+						a[k][p] = cos * akp - sin * akq;
+						a[k][q] = sin * akp + cos * akq;
+					}
+					for (int k = 0; k < n; k++) {
+						double apk = a[p][k];
+						double aqk = a[q][k];
+						a[p][k] = cos * apk - sin * aqk;
+						a[q][k] = sin * apk + cos * aqk;
+					}
+					for (int k = 0; k < n; k++) {
+						double bkp = B[k][p];
+						double bkq = B[k][q];
+						B[k][p] = cos * bkp - sin * bkq;
+						B[k][q] = sin * bkp + cos * bkq;
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			D[i] = Math.sqrt(Math.max(a[i][i], 1e-20));
+		}
+	}
+
+
+	@Override
+	protected double getStepSize() {
+		double max = 0;
+		for (double d : D) {
+			max = Math.max(max, d);
+		}
+		return sigma * max;
+	}
+
+	@Override
+	protected String getAlgorithmStatistics() {
+		return ", lambda=" + lambda + ", sigma=" + sigma;
+	}
+
+}
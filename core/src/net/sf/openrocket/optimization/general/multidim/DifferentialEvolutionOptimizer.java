@@ -0,0 +1,165 @@
+package net.sf.openrocket.optimization.general.multidim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+import net.sf.openrocket.optimization.general.Point;
+
+/**
+ * An implementation of the differential evolution algorithm by Storn and Price, using
+ * the DE/rand/1/bin strategy.
+ * <p>
+ * Each generation contains one trial point per population member.  A trial point is created
+ * by adding the scaled difference of two random members to a third one, and crossing the
+ * result over with the member.  The trial point replaces the member if its function value
+ * is not worse.  Trial coordinates outside the range [0,1] are reflected back between the
+ * base point and the boundary.
+ */
+public class DifferentialEvolutionOptimizer extends PopulationOptimizer {
+
+	/** The default differential weight F */
+	public static final double DEFAULT_WEIGHT = 0.6;
+	/** The default crossover probability CR */
+	public static final double DEFAULT_CROSSOVER = 0.9;
+
+	private final int populationSize;
+	private final double weight;
+	private final double crossover;
+
+	private final List<Point> population = new ArrayList<Point>();
+	private double[] values;
+
+	private int replacementCount = 0;
+
+
+	/**
+	 * Create a differential evolution optimizer with the default parameters and a population
+	 * of ten members per dimension, but at least as many as the number of processors.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param dimensions		the dimensionality of the optimization.
+	 * @param seed				the random seed.
+	 */
+	public DifferentialEvolutionOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+		this(functionCache, Math.max(10 * dimensions, Runtime.getRuntime().availableProcessors()),
+				DEFAULT_WEIGHT, DEFAULT_CROSSOVER, seed);
+	}
+
+	/**
+	 * Create a differential evolution optimizer.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param populationSize	the number of members in the population, at least 4.
+	 * @param weight			the differential weight F, in the range (0, 2].
+	 * @param crossover			the crossover probability CR, in the range [0, 1].
+	 * @param seed				the random seed.
+	 */
+	public DifferentialEvolutionOptimizer(ParallelFunctionCache functionCache, int populationSize, double weight,
+			double crossover, long seed) {
+		super(functionCache, seed);
+		if (populationSize < 4) {
+			throw new IllegalArgumentException("Population size must be at least 4, was " + populationSize);
+		}
+		if (!(weight > 0 && weight <= 2)) {
+			throw new IllegalArgumentException("Invalid differential weight " + weight);
+		}
+		if (!(crossover >= 0 && crossover <= 1)) {
+			throw new IllegalArgumentException("Invalid crossover probability " + crossover);
+		}
+		this.populationSize = populationSize;
+		this.weight = weight;
+		this.crossover = crossover;
+	}
+
+
+
+	@Override
+	protected void initialize(Point initial) {
+		population.clear();
+		population.add(initial);
+		population.addAll(sampleAround(initial, 0.5, populationSize - 1));
+		values = null;
+	}
+
+
+	@Override
+	protected List<Point> createGeneration() {
+		if (values == null) {
+			// The initial population has not been evaluated yet
+			return new ArrayList<Point>(population);
+		}
+
+		final int dim = population.get(0).dim();
+		List<Point> trials = new ArrayList<Point>(populationSize);
+		for (int i = 0; i < populationSize; i++) {
+			int a, b, c;
+			do {
+				a = random.nextInt(populationSize);
+			} while (a == i);
+			do {
+				b = random.nextInt(populationSize);
+			} while (b == i || b == a);
+			do {
+				c = random.nextInt(populationSize);
+			} while (c == i || c == a || c == b);
+
+			Point member = population.get(i);
+			Point base = population.get(a);
+			Point diff = population.get(b).sub(population.get(c));
+
+			double[] trial = member.asArray();
+			int forced = random.nextInt(dim);
+			for (int j = 0; j < dim; j++) {
+				if (j == forced || random.nextDouble() < crossover) {
+					double v = base.get(j) + weight * diff.get(j);
+					if (v < 0) {
+						v = base.get(j) * random.nextDouble();
+					} else if (v > 1) {
+						v = base.get(j) + (1 - base.get(j)) * random.nextDouble();
+					}
+					trial[j] = v;
+				}
+			}
+			trials.add(clamp(new Point(trial)));
+		}
+		return trials;
+	}
+
+
+	@Override
+	protected void update(List<Point> generation, double[] generationValues) {
+		if (values == null) {
+			population.clear();
+			population.addAll(generation);
+			values = generationValues.clone();
+			return;
+		}
+
+		for (int i = 0; i < populationSize; i++) {
+			if (generationValues[i] <= values[i]) {
+				population.set(i, generation.get(i));
+				values[i] = generationValues[i];
+				replacementCount++;
+			}
+		}
+	}
+
+
+	@Override
+	protected double getStepSize() {
+		return rmsDistance(population, getOptimumPoint());
+	}
+
+	@Override
+	protected String getAlgorithmStatistics() {
+		return ", populationSize=" + populationSize + ", replacementCount=" + replacementCount;
+	}
+
+	@Override
+	public void resetStatistics() {
+		super.resetStatistics();
+		replacementCount = 0;
+	}
+
+}
@@ -0,0 +1,329 @@
+package net.sf.openrocket.optimization.general.multidim;
+
+import java.util.List;
+
+import net.sf.openrocket.optimization.general.Point;
+
+/**
+ * A Gaussian process regression model of a function, with a constant mean and a squared
+ * exponential covariance function with a separate length scale for each dimension.
+ * <p>
+ * The function values are normalized to zero mean and unit variance.  The hyperparameters
+ * are selected from a set of candidates by maximizing the marginal likelihood of the values:
+ * first a common length scale and the noise variance, and then the length scale of each
+ * dimension in turn.  The noise term accounts for small discontinuities of the function,
+ * such as those caused by the discrete time steps of a simulation, and keeps the covariance
+ * matrix positive definite.
+ */
+class GaussianProcessModel {
+
+	/** The candidate length scales, relative to the square root of the dimensionality */
+	private static final double[] LENGTH_SCALES = { 0.05, 0.1, 0.15, 0.2, 0.3, 0.5, 0.8, 1.2, 2.0 };
+	/** The candidate noise variances, relative to the normalized variance */
+	private static final double[] NOISES = { 1e-8, 1e-5, 1e-3, 1e-2 };
+
+	private final int n;
+	private double[][] x;
+	private double[] y;
+	private int size;
+
+	private double mean;
+	private double scale;
+	private final double[] lengthScales;
+	/** The inverse squared length scales used in the kernel */
+	private final double[] weights;
+	private double noise;
+	/** The noise variance used in the factorization, possibly increased for numerical reasons */
+	private double factorNoise;
+
+	/** Cholesky factor of the covariance matrix */
+	private double[][] chol;
+	/** The weights K^-1 (y - mean) */
+	private double[] alpha;
+
+
+	/**
+	 * Fit a model to the specified points.
+	 *
+	 * @param points	the points, at least two.
+	 * @param values	the finite function values at the points.
+	 */
+	public GaussianProcessModel(List<Point> points, double[] values) {
+		this.n = points.get(0).dim();
+		this.size = points.size();
+		this.x = new double[size][];
+		this.y = new double[size];
+		for (int i = 0; i < size; i++) {
+			x[i] = points.get(i).asArray();
+			y[i] = values[i];
+		}
+
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += y[i];
+		}
+		mean = sum / size;
+		double var = 0;
+		for (int i = 0; i < size; i++) {
+			var += (y[i] - mean) * (y[i] - mean);
+		}
+		scale = Math.sqrt(var / size);
+		if (!(scale > 0)) {
+			scale = 1;
+		}
+
+		lengthScales = new double[n];
+		weights = new double[n];
+
+		// Select a common length scale and the noise with the best marginal likelihood
+		double bestLikelihood = Double.NEGATIVE_INFINITY;
+		double bestScale = LENGTH_SCALES[0];
+		double bestNoise = NOISES[0];
+		for (double l : LENGTH_SCALES) {
+			for (double e : NOISES) {
+				setLengthScales(l * Math.sqrt(n));
+				noise = e;
+				double likelihood = logLikelihood();
+				if (likelihood > bestLikelihood) {
+					bestLikelihood = likelihood;
+					bestScale = l * Math.sqrt(n);
+					bestNoise = e;
+				}
+			}
+		}
+		setLengthScales(bestScale);
+		noise = bestNoise;
+
+		// Select the length scale of each dimension
+		for (int i = 0; i < n; i++) {
+			double best = lengthScales[i];
+			for (double l : LENGTH_SCALES) {
+				setLengthScale(i, l * Math.sqrt(n));
+				double likelihood = logLikelihood();
+				if (likelihood > bestLikelihood) {
+					bestLikelihood = likelihood;
+					best = lengthScales[i];
+				}
+			}
+			setLengthScale(i, best);
+		}
+		factorize();
+	}
+
+
+	/**
+	 * Add a point to the model, keeping the hyperparameters and the normalization.
+	 */
+	public void add(Point point, double value) {
+		if (size == x.length) {
+			double[][] newX = new double[2 * size][];
+			double[] newY = new double[2 * size];
+			System.arraycopy(x, 0, newX, 0, size);
+			System.arraycopy(y, 0, newY, 0, size);
+			x = newX;
+			y = newY;
+		}
+		x[size] = point.asArray();
+		y[size] = value;
+		size++;
+		factorize();
+	}
+
+
+	/**
+	 * Return the predicted mean and standard deviation of the function at a point.  The
+	 * standard deviation does not include the noise.
+	 *
+	 * @param point		the point.
+	 * @param result	an array of length two to store the mean and standard deviation in.
+	 */
+	public void predict(double[] point, double[] result) {
+		double[] k = new double[size];
+		double mu = 0;
+		for (int i = 0; i < size; i++) {
+			k[i] = kernel(point, x[i]);
+			mu += k[i] * alpha[i];
+		}
+
+		// Solve L v = k, the variance is k(x,x) - v^T v
+		double vv = 0;
+		for (int i = 0; i < size; i++) {
+			double s = k[i];
+			for (int j = 0; j < i; j++) {
+				s -= chol[i][j] * k[j];
+			}
+			k[i] = s / chol[i][i];
+			vv += k[i] * k[i];
+		}
+		double var = Math.max(1 - vv, 0);
+
+		result[0] = mean + scale * mu;
+		result[1] = scale * Math.sqrt(var);
+	}
+
+
+	/**
+	 * Return the lowest predicted mean at the points of the model.  With noise this may
+	 * differ from the lowest value.
+	 */
+	public double getBestMean() {
+		double best = Double.MAX_VALUE;
+		double[] tmp = new double[2];
+		for (int i = 0; i < size; i++) {
+			predict(x[i], tmp);
+			best = Math.min(best, tmp[0]);
+		}
+		return best;
+	}
+
+
+	/**
+	 * Return the expected improvement over the specified value at a point.
+	 */
+	public double expectedImprovement(double[] point, double best, double[] tmp) {
+		predict(point, tmp);
+		double mu = tmp[0];
+		double sigma = tmp[1];
+		if (sigma < 1e-12 * scale) {
+			return Math.max(best - mu, 0);
+		}
+		double z = (best - mu) / sigma;
+		return (best - mu) * normalCDF(z) + sigma * normalPDF(z);
+	}
+
+
+	/**
+	 * Return the length scales of the covariance function in each dimension.
+	 */
+	public double[] getLengthScales() {
+		return lengthScales.clone();
+	}
+
+	public double getNoise() {
+		return noise;
+	}
+
+	/**
+	 * Return the standard deviation of the modeled values.
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	public int size() {
+		return size;
+	}
+
+
+
+	private void setLengthScales(double l) {
+		for (int i = 0; i < n; i++) {
+			setLengthScale(i, l);
+		}
+	}
+
+	private void setLengthScale(int i, double l) {
+		lengthScales[i] = l;
+		weights[i] = 1 / (l * l);
+	}
+
+	private double kernel(double[] a, double[] b) {
+		double d2 = 0;
+		for (int i = 0; i < n; i++) {
+			double d = a[i] - b[i];
+			d2 += weights[i] * d * d;
+		}
+		return Math.exp(-0.5 * d2);
+	}
+
+
+	/**
+	 * Compute the Cholesky factorization of the covariance matrix and the weights.  The noise
+	 * is increased until the matrix is numerically positive definite.
+	 */
+	private void factorize() {
+		chol = new double[size][size];
+		factorNoise = noise;
+		while (!cholesky()) {
+			factorNoise *= 10;
+		}
+
+		alpha = new double[size];
+		double[] t = new double[size];
+		for (int i = 0; i < size; i++) {
+			double s = (y[i] - mean) / scale;
+			for (int j = 0; j < i; j++) {
+				s -= chol[i][j] * t[j];
+			}
+			t[i] = s / chol[i][i];
+		}
+		for (int i = size - 1; i >= 0; i--) {
+			double s = t[i];
+			for (int j = i + 1; j < size; j++) {
+				s -= chol[j][i] * alpha[j];
+			}
+			alpha[i] = s / chol[i][i];
+		}
+	}
+
+	private boolean cholesky() {
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j <= i; j++) {
+				double s = kernel(x[i], x[j]);
+				if (i == j) {
+					s += factorNoise;
+				}
+				for (int k = 0; k < j; k++) {
+					s -= chol[i][k] * chol[j][k];
+				}
+				if (i == j) {
+					if (!(s > 0)) {
+						return false;
+					}
+					chol[i][i] = Math.sqrt(s);
+				} else {
+					chol[i][j] = s / chol[j][j];
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Factorize with the current hyperparameters and return the logarithm of the marginal
+	 * likelihood, omitting the constant term.
+	 */
+	private double logLikelihood() {
+		factorize();
+		double fit = 0;
+		double det = 0;
+		for (int i = 0; i < size; i++) {
+			fit += (y[i] - mean) / scale * alpha[i];
+			det += Math.log(chol[i][i]);
+		}
+		return -0.5 * fit - det;
+	}
+
+
+
+	static double normalPDF(double z) {
+		return Math.exp(-0.5 * z * z) / Math.sqrt(2 * Math.PI);
+	}
+
+	/**
+	 * The standard normal cumulative distribution function, computed using the complementary
+	 * error function approximation of Numerical Recipes with a relative error below 1.2e-7.
+	 */
+	static double normalCDF(double z) {
+		double x = -z / Math.sqrt(2);
+		double t = 1 / (1 + 0.5 * Math.abs(x));
+		double erfc = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418 +
+				t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 +
+				t * (-0.82215223 + t * 0.17087277)))))))));
+		if (x < 0) {
+			erfc = 2 - erfc;
+		}
+		return 0.5 * erfc;
+	}
+
+}
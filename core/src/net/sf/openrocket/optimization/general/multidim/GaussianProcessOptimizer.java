@@ -0,0 +1,391 @@
+package net.sf.openrocket.optimization.general.multidim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+import net.sf.openrocket.optimization.general.Point;
+
+/**
+ * A surrogate model based optimizer for expensive functions, which fits a Gaussian process
+ * model to the evaluated points and evaluates the points that maximize the expected
+ * improvement over the best predicted value at the evaluated points.  This typically requires
+ * far fewer function evaluations than direct search methods on smooth functions of a few
+ * variables.
+ * <p>
+ * The optimization starts from a Latin hypercube design around the initial point.  Each
+ * generation then proposes a batch of points for concurrent evaluation:  after selecting a
+ * point, the model is updated with its predicted value as if it had been evaluated, which
+ * makes the next points of the batch explore elsewhere.
+ * <p>
+ * Very large values, such as the penalty values of points outside the simulation domain,
+ * would distort the model.  They are replaced with the value of the nearest regular point,
+ * increased by the range of the regular values times the logarithm of the penalty relative
+ * to the smallest one.  The model then slopes away from the feasible region without a cliff
+ * at its boundary, where constrained optima usually are.  The model is fitted to at most
+ * <code>maxModelPoints</code> points closest to the best point found.
+ * <p>
+ * The search has converged when no significant improvement is expected anywhere, or when
+ * the best value has not improved for several generations.
+ */
+public class GaussianProcessOptimizer extends PopulationOptimizer {
+
+	/** The default number of points evaluated per generation */
+	public static final int DEFAULT_BATCH_SIZE = 4;
+	/** The default maximum number of points in the model */
+	public static final int DEFAULT_MAX_MODEL_POINTS = 150;
+
+	/** Values above this are considered penalty values */
+	private static final double LARGE_VALUE = 1e100;
+	/** The minimum distance of new points from the evaluated points */
+	private static final double MIN_DISTANCE = 1e-3;
+	/** The number of generations without improvement after which the search has converged */
+	private static final int MAX_STALLED_GENERATIONS = 12;
+
+	private final int batchSize;
+	private final int maxModelPoints;
+
+	private final List<Point> points = new ArrayList<Point>();
+	private final List<Double> values = new ArrayList<Double>();
+	private List<Point> initialDesign;
+
+	private double[] lengthScales = null;
+	private double noise = Double.NaN;
+	private double expectedImprovement = Double.NaN;
+	private double stepSize = 1;
+	private double previousOptimum = Double.NaN;
+	private int stalledGenerations = 0;
+
+
+	/**
+	 * Create a Gaussian process optimizer with the default parameters.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param dimensions		the dimensionality of the optimization.
+	 * @param seed				the random seed.
+	 */
+	public GaussianProcessOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+		this(functionCache, DEFAULT_BATCH_SIZE, DEFAULT_MAX_MODEL_POINTS, seed);
+	}
+
+	/**
+	 * Create a Gaussian process optimizer.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param batchSize			the number of points evaluated per generation, positive.
+	 * @param maxModelPoints	the maximum number of points in the model, at least 10.
+	 * @param seed				the random seed.
+	 */
+	public GaussianProcessOptimizer(ParallelFunctionCache functionCache, int batchSize, int maxModelPoints,
+			long seed) {
+		super(functionCache, seed);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive, was " + batchSize);
+		}
+		if (maxModelPoints < 10) {
+			throw new IllegalArgumentException("Maximum number of model points must be at least 10, was " +
+					maxModelPoints);
+		}
+		this.batchSize = batchSize;
+		this.maxModelPoints = maxModelPoints;
+	}
+
+
+
+	@Override
+	protected void initialize(Point initial) {
+		points.clear();
+		values.clear();
+		points.add(initial);
+		values.add(finite(getOptimumValue()));
+		lengthScales = null;
+		noise = Double.NaN;
+		expectedImprovement = Double.NaN;
+		stepSize = 1;
+		previousOptimum = getOptimumValue();
+		stalledGenerations = 0;
+
+		// Latin hypercube design, one point per stratum in each dimension
+		int dim = initial.dim();
+		int count = Math.max(2 * dim + 2, batchSize);
+		double[][] coordinates = new double[count][dim];
+		for (int i = 0; i < dim; i++) {
+			List<Integer> strata = new ArrayList<Integer>();
+			for (int j = 0; j < count; j++) {
+				strata.add(j);
+			}
+			Collections.shuffle(strata, random);
+			for (int j = 0; j < count; j++) {
+				coordinates[j][i] = (strata.get(j) + random.nextDouble()) / count;
+			}
+		}
+		initialDesign = new ArrayList<Point>();
+		for (double[] c : coordinates) {
+			initialDesign.add(new Point(c));
+		}
+	}
+
+
+	@Override
+	protected List<Point> createGeneration() {
+		if (initialDesign != null) {
+			List<Point> generation = initialDesign;
+			initialDesign = null;
+			return generation;
+		}
+
+		List<Integer> indices = getModelIndices();
+		GaussianProcessModel model = fitFunctionModel(indices);
+		if (model == null) {
+			// Too few regular values to model, sample randomly
+			stepSize = 1;
+			return sampleAround(getOptimumPoint(), 1, batchSize);
+		}
+		lengthScales = model.getLengthScales();
+		noise = model.getNoise();
+
+		double best = model.getBestMean();
+
+		List<Point> generation = new ArrayList<Point>(batchSize);
+		double[] tmp = new double[2];
+		for (int i = 0; i < batchSize; i++) {
+			Point candidate = maximizeExpectedImprovement(model, best, generation, i == 0);
+			generation.add(candidate);
+			if (i == 0) {
+				/*
+				 * The most promising point approaches the optimum as the model converges.
+				 * When no significant improvement is expected anywhere, the search has converged.
+				 */
+				if (expectedImprovement < 1e-6 * model.getScale() || stalledGenerations >= MAX_STALLED_GENERATIONS) {
+					stepSize = 0;
+				} else {
+					stepSize = candidate.sub(getOptimumPoint()).length();
+				}
+			}
+			if (i < batchSize - 1) {
+				// Assume the predicted value, so that the next candidate is chosen elsewhere
+				model.predict(candidate.asArray(), tmp);
+				model.add(candidate, tmp[0]);
+			}
+		}
+
+		return generation;
+	}
+
+
+	@Override
+	protected void update(List<Point> generation, double[] generationValues) {
+		for (int i = 0; i < generation.size(); i++) {
+			points.add(generation.get(i));
+			values.add(finite(generationValues[i]));
+		}
+		if (getOptimumValue() < previousOptimum) {
+			stalledGenerations = 0;
+		} else {
+			stalledGenerations++;
+		}
+		previousOptimum = getOptimumValue();
+	}
+
+
+	/**
+	 * Return the indices of at most <code>maxModelPoints</code> distinct points closest to
+	 * the best point.
+	 */
+	private List<Integer> getModelIndices() {
+		final Point optimum = getOptimumPoint();
+		List<Integer> indices = new ArrayList<Integer>();
+		for (int i = 0; i < points.size(); i++) {
+			indices.add(i);
+		}
+		Collections.sort(indices, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(points.get(a).sub(optimum).length2(), points.get(b).sub(optimum).length2());
+			}
+		});
+
+		List<Point> list = new ArrayList<Point>();
+		List<Integer> modelIndices = new ArrayList<Integer>();
+		for (int index : indices) {
+			if (list.size() >= maxModelPoints) {
+				break;
+			}
+			Point p = points.get(index);
+			if (minDistance(list, p) < 1e-10) {
+				continue;
+			}
+			list.add(p);
+			modelIndices.add(index);
+		}
+		return modelIndices;
+	}
+
+
+	/**
+	 * Fit a model to the specified points, replacing the penalty values as described in the
+	 * class description, or return <code>null</code> if there are less than two regular values.
+	 */
+	private GaussianProcessModel fitFunctionModel(List<Integer> indices) {
+		List<Integer> regular = new ArrayList<Integer>();
+		double minRegular = Double.POSITIVE_INFINITY;
+		double maxRegular = Double.NEGATIVE_INFINITY;
+		double minPenalty = Double.POSITIVE_INFINITY;
+		for (int index : indices) {
+			double v = values.get(index);
+			if (v < LARGE_VALUE) {
+				regular.add(index);
+				minRegular = Math.min(minRegular, v);
+				maxRegular = Math.max(maxRegular, v);
+			} else {
+				minPenalty = Math.min(minPenalty, v);
+			}
+		}
+		if (regular.size() < 2) {
+			return null;
+		}
+
+		List<Point> modelPoints = new ArrayList<Point>();
+		double[] modelValues = new double[indices.size()];
+		for (int index : indices) {
+			Point p = points.get(index);
+			double v = values.get(index);
+			if (v >= LARGE_VALUE) {
+				int nearest = regular.get(0);
+				for (int r : regular) {
+					if (points.get(r).sub(p).length2() < points.get(nearest).sub(p).length2()) {
+						nearest = r;
+					}
+				}
+				v = values.get(nearest) + (maxRegular - minRegular) * Math.log(v / minPenalty);
+			}
+			modelValues[modelPoints.size()] = v;
+			modelPoints.add(p);
+		}
+		return new GaussianProcessModel(modelPoints, modelValues);
+	}
+
+
+	/**
+	 * Return the value limited to finite values, with NaN replaced by the largest value.
+	 */
+	private static double finite(double value) {
+		if (Double.isNaN(value)) {
+			return Double.MAX_VALUE;
+		}
+		return Math.max(Math.min(value, Double.MAX_VALUE), -Double.MAX_VALUE);
+	}
+
+
+	/**
+	 * Return the point maximizing the expected improvement, found by random sampling in the
+	 * whole range and around the best points, followed by a local pattern search.
+	 */
+	private Point maximizeExpectedImprovement(GaussianProcessModel model, double best, List<Point> generation,
+			boolean record) {
+		final int dim = getOptimumPoint().dim();
+		double[] tmp = new double[2];
+
+		List<Point> candidates = sampleAround(getOptimumPoint(), 1, 100 * dim);
+		List<Point> bestPoints = getBestPoints(3);
+		double[] radii = { 0.2, 0.05, 0.01 };
+		for (Point p : bestPoints) {
+			for (double radius : radii) {
+				candidates.addAll(sampleAround(p, radius, 10 * dim));
+			}
+		}
+
+		double[] x = candidates.get(0).asArray();
+		double ei = -1;
+		for (Point c : candidates) {
+			double e = acquisition(model, best, generation, c.asArray(), tmp);
+			if (e > ei) {
+				ei = e;
+				x = c.asArray();
+			}
+		}
+
+		// Compass search from the best candidate
+		double step = 0.02;
+		for (int iteration = 0; step > 1e-5 && iteration < 100; iteration++) {
+			boolean improved = false;
+			for (int i = 0; i < dim; i++) {
+				for (int sign = -1; sign <= 1; sign += 2) {
+					double[] y = x.clone();
+					y[i] = Math.min(Math.max(y[i] + sign * step, 0), 1);
+					double e = acquisition(model, best, generation, y, tmp);
+					if (e > ei) {
+						ei = e;
+						x = y;
+						improved = true;
+					}
+				}
+			}
+			if (!improved) {
+				step /= 2;
+			}
+		}
+
+		if (record) {
+			expectedImprovement = ei;
+		}
+		return new Point(x);
+	}
+
+
+	/**
+	 * Return the expected improvement at a point, or zero if the point is too close to the
+	 * evaluated points or the points already in the generation.
+	 */
+	private double acquisition(GaussianProcessModel model, double best, List<Point> generation, double[] x,
+			double[] tmp) {
+		Point p = new Point(x);
+		if (minDistance(points, p) < MIN_DISTANCE || minDistance(generation, p) < MIN_DISTANCE) {
+			return 0;
+		}
+		return model.expectedImprovement(x, best, tmp);
+	}
+
+
+	private List<Point> getBestPoints(int count) {
+		List<Integer> indices = new ArrayList<Integer>();
+		for (int i = 0; i < points.size(); i++) {
+			indices.add(i);
+		}
+		Collections.sort(indices, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(values.get(a), values.get(b));
+			}
+		});
+		List<Point> list = new ArrayList<Point>();
+		for (int i = 0; i < Math.min(count, indices.size()); i++) {
+			list.add(points.get(indices.get(i)));
+		}
+		return list;
+	}
+
+	private static double minDistance(List<Point> list, Point p) {
+		double min = Double.POSITIVE_INFINITY;
+		for (Point q : list) {
+			min = Math.min(min, q.sub(p).length2());
+		}
+		return Math.sqrt(min);
+	}
+
+
+	@Override
+	protected double getStepSize() {
+		return stepSize;
+	}
+
+	@Override
+	protected String getAlgorithmStatistics() {
+		return ", batchSize=" + batchSize + ", lengthScales=" + Arrays.toString(lengthScales) + ", noise=" + noise +
+				", expectedImprovement=" + expectedImprovement;
+	}
+
+}
@@ -0,0 +1,152 @@
+package net.sf.openrocket.optimization.general.multidim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+import net.sf.openrocket.optimization.general.Point;
+
+/**
+ * An implementation of particle swarm optimization with the constriction coefficients
+ * of Clerc and Kennedy and a global best topology.
+ * <p>
+ * Each generation moves every particle by its velocity, which is attracted towards both the
+ * best point found by the particle and the best point found by the swarm.  Particles hitting
+ * the boundary of the range [0,1] are stopped at the boundary and lose the velocity component
+ * perpendicular to it.
+ */
+public class ParticleSwarmOptimizer extends PopulationOptimizer {
+
+	/** The default inertia weight (constriction coefficient) */
+	public static final double DEFAULT_INERTIA = 0.7298;
+	/** The default acceleration coefficient towards the particle and swarm best points */
+	public static final double DEFAULT_ACCELERATION = 1.49618;
+
+	private final int swarmSize;
+	private final double inertia;
+	private final double acceleration;
+
+	private final List<Point> positions = new ArrayList<Point>();
+	private final List<Point> velocities = new ArrayList<Point>();
+	private final List<Point> particleBest = new ArrayList<Point>();
+	private double[] particleBestValues;
+
+
+	/**
+	 * Create a particle swarm optimizer with the default parameters and a swarm of
+	 * ten particles per dimension, but at least as many as the number of processors.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param dimensions		the dimensionality of the optimization.
+	 * @param seed				the random seed.
+	 */
+	public ParticleSwarmOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+		this(functionCache, Math.max(10 * dimensions, Runtime.getRuntime().availableProcessors()),
+				DEFAULT_INERTIA, DEFAULT_ACCELERATION, seed);
+	}
+
+	/**
+	 * Create a particle swarm optimizer.
+	 *
+	 * @param functionCache		the function cache.
+	 * @param swarmSize			the number of particles, at least 2.
+	 * @param inertia			the inertia weight of the velocity, in the range [0, 1).
+	 * @param acceleration		the acceleration coefficient towards the best points, positive.
+	 * @param seed				the random seed.
+	 */
+	public ParticleSwarmOptimizer(ParallelFunctionCache functionCache, int swarmSize, double inertia,
+			double acceleration, long seed) {
+		super(functionCache, seed);
+		if (swarmSize < 2) {
+			throw new IllegalArgumentException("Swarm size must be at least 2, was " + swarmSize);
+		}
+		if (!(inertia >= 0 && inertia < 1)) {
+			throw new IllegalArgumentException("Invalid inertia weight " + inertia);
+		}
+		if (!(acceleration > 0)) {
+			throw new IllegalArgumentException("Invalid acceleration coefficient " + acceleration);
+		}
+		this.swarmSize = swarmSize;
+		this.inertia = inertia;
+		this.acceleration = acceleration;
+	}
+
+
+
+	@Override
+	protected void initialize(Point initial) {
+		positions.clear();
+		velocities.clear();
+		particleBest.clear();
+		particleBestValues = null;
+
+		positions.add(initial);
+		positions.addAll(sampleAround(initial, 0.5, swarmSize - 1));
+		for (Point p : sampleAround(initial, 0.5, swarmSize)) {
+			velocities.add(p.sub(initial).mul(0.5));
+		}
+	}
+
+
+	@Override
+	protected List<Point> createGeneration() {
+		if (particleBestValues == null) {
+			// The initial positions have not been evaluated yet
+			return new ArrayList<Point>(positions);
+		}
+
+		final Point swarmBest = getOptimumPoint();
+		final int dim = swarmBest.dim();
+		for (int i = 0; i < swarmSize; i++) {
+			Point x = positions.get(i);
+			Point pBest = particleBest.get(i);
+			double[] v = velocities.get(i).asArray();
+			double[] next = new double[dim];
+			for (int j = 0; j < dim; j++) {
+				v[j] = inertia * v[j] +
+						acceleration * random.nextDouble() * (pBest.get(j) - x.get(j)) +
+						acceleration * random.nextDouble() * (swarmBest.get(j) - x.get(j));
+				next[j] = x.get(j) + v[j];
+				if (next[j] < 0) {
+					next[j] = 0;
+					v[j] = 0;
+				} else if (next[j] > 1) {
+					next[j] = 1;
+					v[j] = 0;
+				}
+			}
+			velocities.set(i, new Point(v));
+			positions.set(i, new Point(next));
+		}
+		return new ArrayList<Point>(positions);
+	}
+
+
+	@Override
+	protected void update(List<Point> generation, double[] values) {
+		if (particleBestValues == null) {
+			particleBest.addAll(generation);
+			particleBestValues = values.clone();
+			return;
+		}
+
+		for (int i = 0; i < swarmSize; i++) {
+			if (values[i] < particleBestValues[i]) {
+				particleBest.set(i, generation.get(i));
+				particleBestValues[i] = values[i];
+			}
+		}
+	}
+
+
+	@Override
+	protected double getStepSize() {
+		return rmsDistance(positions, getOptimumPoint());
+	}
+
+	@Override
+	protected String getAlgorithmStatistics() {
+		return ", swarmSize=" + swarmSize;
+	}
+
+}
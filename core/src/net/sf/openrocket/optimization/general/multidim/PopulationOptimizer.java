@@ -0,0 +1,277 @@
+package net.sf.openrocket.optimization.general.multidim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.optimization.general.FunctionCache;
+import net.sf.openrocket.optimization.general.FunctionOptimizer;
+import net.sf.openrocket.optimization.general.OptimizationController;
+import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.util.Statistics;
+
+/**
+ * An abstract base class for population-based optimization algorithms.
+ * <p>
+ * The algorithm proceeds in generations.  All points of a generation are queued to the
+ * ParallelFunctionCache at once and evaluated concurrently, and the next generation is created
+ * only after all values of the current one are known.  All random numbers are drawn from a
+ * generator initialized with the seed of the optimizer, so an optimization run is reproducible
+ * regardless of the number of threads used for the function evaluations.
+ * <p>
+ * The search is performed within the unit hypercube [0,1]^n, which is the valid range of the
+ * points of the rocket optimization.  Subclasses keep their points within this range.
+ * <p>
+ * The optimization controller is called once per generation with the best point found so far.
+ * The step size passed to it is a measure of the spread of the population.
+ * <p>
+ * The optimization can be aborted by interrupting the current thread.
+ */
+public abstract class PopulationOptimizer implements FunctionOptimizer, Statistics {
+	private static final Logger log = LoggerFactory.getLogger(PopulationOptimizer.class);
+
+	/** The default random seed */
+	public static final long DEFAULT_SEED = 0x5eed;
+
+	private ParallelFunctionCache functionExecutor;
+	private final long seed;
+
+	/** The random number generator of the current optimization run */
+	protected Random random;
+
+	private Point optimum = null;
+	private double optimumValue = Double.NaN;
+
+	private int generationCount = 0;
+	private int evaluationCount = 0;
+	private int improvementCount = 0;
+
+
+	protected PopulationOptimizer(ParallelFunctionCache functionCache, long seed) {
+		this.functionExecutor = functionCache;
+		this.seed = seed;
+	}
+
+
+
+	@Override
+	public void optimize(Point initial, OptimizationController control) throws OptimizationException {
+		random = new Random(seed);
+		log.info("Starting " + getClass().getSimpleName() + " optimization at " + initial + " with seed " + seed);
+
+		try {
+
+			initial = clamp(initial);
+			evaluate(Collections.singletonList(initial));
+			optimum = initial;
+			optimumValue = functionExecutor.getValue(initial);
+
+			initialize(initial);
+
+			boolean continueOptimization = true;
+			while (continueOptimization) {
+				generationCount++;
+
+				final Point previous = optimum;
+				final double previousValue = optimumValue;
+
+				List<Point> generation = createGeneration();
+				double[] values = evaluate(generation);
+				for (int i = 0; i < values.length; i++) {
+					if (values[i] < optimumValue) {
+						optimum = generation.get(i);
+						optimumValue = values[i];
+					}
+				}
+				if (optimumValue < previousValue) {
+					improvementCount++;
+				}
+
+				update(generation, values);
+
+				log.debug("Generation " + generationCount + " best value " + optimumValue + " at " + optimum);
+
+				continueOptimization = control.stepTaken(previous, previousValue, optimum, optimumValue, getStepSize());
+
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+			}
+
+		} catch (InterruptedException e) {
+			log.info("Optimization was interrupted with InterruptedException");
+			functionExecutor.abortAll();
+		}
+
+		log.info("Finishing optimization at point " + optimum + " value = " + optimumValue);
+		log.info("Optimization statistics: " + getStatistics());
+	}
+
+
+	/**
+	 * Initialize the population around the initial point.  The random number generator has been
+	 * initialized and the function value at the initial point is available.
+	 *
+	 * @param initial	the initial point, within the valid range.
+	 */
+	protected abstract void initialize(Point initial);
+
+	/**
+	 * Create the points of the next generation.  The points must be within the valid range.
+	 *
+	 * @return	the points to evaluate.
+	 */
+	protected abstract List<Point> createGeneration();
+
+	/**
+	 * Update the state of the algorithm from the function values of a generation.
+	 *
+	 * @param generation	the points returned by {@link #createGeneration()}.
+	 * @param values		the function values at the points.
+	 */
+	protected abstract void update(List<Point> generation, double[] values);
+
+	/**
+	 * Return a measure of the spread of the current population, in the same units as the points.
+	 */
+	protected abstract double getStepSize();
+
+	/**
+	 * Return additional algorithm-specific statistics to append to {@link #getStatistics()},
+	 * each preceded by ", ".  The default implementation returns an empty string.
+	 */
+	protected String getAlgorithmStatistics() {
+		return "";
+	}
+
+
+
+	/**
+	 * Evaluate the function at all the points concurrently.
+	 *
+	 * @param points	the points to evaluate.
+	 * @return			the function values at the points.
+	 */
+	private double[] evaluate(List<Point> points) throws InterruptedException, OptimizationException {
+		functionExecutor.compute(points);
+		functionExecutor.waitFor(points);
+		evaluationCount += points.size();
+
+		double[] values = new double[points.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = functionExecutor.getValue(points.get(i));
+		}
+		return values;
+	}
+
+
+	/**
+	 * Return the point limited to the valid range [0,1] in each dimension.  NaN values are
+	 * replaced by 0.5.
+	 */
+	protected static Point clamp(Point p) {
+		for (int i = 0; i < p.dim(); i++) {
+			double d = p.get(i);
+			if (Double.isNaN(d)) {
+				p = p.set(i, 0.5);
+			} else if (d < 0) {
+				p = p.set(i, 0);
+			} else if (d > 1) {
+				p = p.set(i, 1);
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Return the root-mean-square distance of the points from a center point.
+	 */
+	protected static double rmsDistance(List<Point> points, Point center) {
+		if (points.isEmpty()) {
+			return 0;
+		}
+		double sum = 0;
+		for (Point p : points) {
+			sum += p.sub(center).length2();
+		}
+		return Math.sqrt(sum / points.size());
+	}
+
+	/**
+	 * Return a list of <code>count</code> points sampled uniformly within the intersection
+	 * of the valid range and a hypercube of the given half-width around a center point.
+	 */
+	protected List<Point> sampleAround(Point center, double radius, int count) {
+		List<Point> list = new ArrayList<Point>(count);
+		for (int n = 0; n < count; n++) {
+			double[] p = new double[center.dim()];
+			for (int i = 0; i < p.length; i++) {
+				double min = Math.max(center.get(i) - radius, 0);
+				double max = Math.min(center.get(i) + radius, 1);
+				p[i] = min + (max - min) * random.nextDouble();
+			}
+			list.add(new Point(p));
+		}
+		return list;
+	}
+
+
+
+	/**
+	 * Return the random seed of this optimizer.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	@Override
+	public Point getOptimumPoint() {
+		if (optimum == null) {
+			throw new IllegalStateException("Optimization has not been called");
+		}
+		return optimum;
+	}
+
+	@Override
+	public double getOptimumValue() {
+		if (optimum == null) {
+			throw new IllegalStateException("Optimization has not been called");
+		}
+		return optimumValue;
+	}
+
+	@Override
+	public FunctionCache getFunctionCache() {
+		return functionExecutor;
+	}
+
+	@Override
+	public void setFunctionCache(FunctionCache functionCache) {
+		if (!(functionCache instanceof ParallelFunctionCache)) {
+			throw new IllegalArgumentException("Function cache needs to be a ParallelFunctionCache: " + functionCache);
+		}
+		this.functionExecutor = (ParallelFunctionCache) functionCache;
+	}
+
+	@Override
+	public String getStatistics() {
+		return getClass().getSimpleName() + "[generationCount=" + generationCount +
+				", evaluationCount=" + evaluationCount +
+				", improvementCount=" + improvementCount +
+				getAlgorithmStatistics() + "]";
+	}
+
+	@Override
+	public void resetStatistics() {
+		generationCount = 0;
+		evaluationCount = 0;
+		improvementCount = 0;
+	}
+
+}
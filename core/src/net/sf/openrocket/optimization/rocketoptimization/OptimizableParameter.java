@@ -19,13 +19,30 @@ public interface OptimizableParameter {
 	 */
 	public String getName();
 	
+	/**
+	 * Return the extent of the flight needed to compute this parameter.  The simulation
+	 * is simulated up to this extent, recording only the summary values of the flight
+	 * data, before {@link #computeValue(Simulation)} is called.  A parameter computed
+	 * from the design alone, or one that simulates the flight itself, returns
+	 * {@link SimulationExtent#NONE}.
+	 * <p>
+	 * The default implementation returns {@link SimulationExtent#NONE}, so the flight is
+	 * not simulated beforehand.
+	 * 
+	 * @return	the extent of the flight needed.
+	 */
+	public default SimulationExtent getRequiredExtent() {
+		return SimulationExtent.NONE;
+	}
+	
 	/**
 	 * Compute the value for this optimization parameter for the simulation.
 	 * The return value can be any double value.
 	 * <p>
 	 * This method can return NaN in case of a problem computing
 	 * 
-	 * @param simulation	the simulation
+	 * @param simulation	the simulation, simulated up to the extent returned by
+	 * 						{@link #getRequiredExtent()} (or further)
 	 * @return				the parameter value (any double value)
 	 * @throws OptimizationException	if an error occurs preventing the optimization from continuing
 	 */
@@ -1,28 +1,72 @@
 package net.sf.openrocket.optimization.rocketoptimization;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.openrocket.document.OpenRocketDocumentFactory;
 import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.document.StorageOptions;
+import net.sf.openrocket.file.openrocket.OpenRocketSaver;
 import net.sf.openrocket.optimization.general.Function;
 import net.sf.openrocket.optimization.general.OptimizationException;
 import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.optimization.general.StoredValueListener;
 import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.rocketcomponent.RocketSnapshot;
+import net.sf.openrocket.simulation.FlightDataType;
+import net.sf.openrocket.simulation.SimulationOptions;
+import net.sf.openrocket.simulation.exception.MotorIgnitionException;
+import net.sf.openrocket.simulation.exception.SimulationCalculationException;
+import net.sf.openrocket.simulation.exception.SimulationCancelledException;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.simulation.exception.SimulationLaunchException;
+import net.sf.openrocket.simulation.extension.SimulationExtension;
+import net.sf.openrocket.simulation.listeners.SimulationListener;
+import net.sf.openrocket.simulation.listeners.system.InterruptListener;
 import net.sf.openrocket.unit.UnitGroup;
 import net.sf.openrocket.unit.Value;
+import net.sf.openrocket.util.BugException;
+import net.sf.openrocket.util.BuildProperties;
+import net.sf.openrocket.util.Config;
+import net.sf.openrocket.util.MathUtil;
 import net.sf.openrocket.util.Pair;
+import net.sf.openrocket.util.TextUtil;
 
 /**
  * A Function that optimizes a specific RocketOptimizationParameter to some goal
  * by modifying a base simulation using SimulationModifiers.
+ * <p>
+ * Each evaluation works on a private copy of the base simulation.  Copies are pooled and
+ * reused:  before reuse the rocket of a copy is reset to the state of the base rocket from
+ * a snapshot, which replaces only the components changed by the previous evaluation, and
+ * the simulation conditions are reset from the base simulation.  A full copy of the
+ * simulation is thus made only once per evaluation thread.
+ * <p>
+ * The flight is simulated only as far as the optimization parameter and the simulation
+ * domain need, as declared by their {@link OptimizableParameter#getRequiredExtent()} and
+ * {@link SimulationDomain#getRequiredExtent()}, and only the summary values of the flight
+ * data are recorded.  A domain that needs no flight is checked before simulating, so that
+ * points outside of it cost no simulation at all.  The recorded flight data types are
+ * restored afterwards, so a parameter simulating the flight itself gets the full data.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
-public class RocketOptimizationFunction implements Function {
+public class RocketOptimizationFunction implements Function, StoredValueListener {
 	private static final Logger log = LoggerFactory.getLogger(RocketOptimizationFunction.class);
 	
 	private static final double OUTSIDE_DOMAIN_SCALE = 1.0e200;
@@ -37,6 +81,17 @@ public class RocketOptimizationFunction implements Function {
 	private final SimulationDomain domain;
 	private final SimulationModifier[] modifiers;
 	
+	/** The state of the base rocket, for resetting the pooled simulation copies */
+	private final RocketSnapshot baseRocket;
+	/** The conditions of the base simulation */
+	private final SimulationOptions baseOptions;
+	/** Simulation copies not currently used by an evaluation, guarded by itself */
+	private final Deque<Simulation> simulationPool = new ArrayDeque<>();
+	/** The extent of the flight needed by the domain */
+	private final SimulationExtent domainExtent;
+	/** The extent of the flight needed by the parameter and the domain */
+	private final SimulationExtent simulationExtent;
+	
 
 	private final List<RocketOptimizationListener> listeners = new ArrayList<>();
 	
@@ -62,52 +117,75 @@ public class RocketOptimizationFunction implements Function {
 		if (modifiers.length == 0) {
 			throw new IllegalArgumentException("No SimulationModifiers specified");
 		}
+		this.baseRocket = RocketSnapshot.create(baseSimulation.getRocket(), null);
+		this.baseOptions = baseSimulation.getOptions().clone();
+		this.domainExtent = domain.getRequiredExtent();
+		this.simulationExtent = SimulationExtent.max(parameter.getRequiredExtent(), domainExtent);
 	}
 	
 	
 	@Override
 	public double evaluate(Point point) throws InterruptedException, OptimizationException {
 		
-		/*
-		 * parameterValue is the computed parameter value (e.g. altitude)
-		 * goalValue is the value that needs to be minimized
-		 */
-		double goalValue, parameterValue;
-		
 		log.debug("Computing optimization function value at point " + point);
 		
-		// Create the new simulation based on the point
 		double[] p = point.asArray();
 		if (p.length != modifiers.length) {
 			throw new IllegalArgumentException("Point has length " + p.length + " while function has " +
 					modifiers.length + " simulation modifiers");
 		}
 		
-		final Simulation simulation = newSimulationInstance(baseSimulation);
+		final Simulation simulation = acquireSimulation();
+		try {
+			return evaluate(simulation, point, p);
+		} finally {
+			releaseSimulation(simulation);
+		}
+	}
+	
+	
+	private double evaluate(Simulation simulation, Point point, double[] p)
+			throws InterruptedException, OptimizationException {
+		
+		/*
+		 * parameterValue is the computed parameter value (e.g. altitude)
+		 * goalValue is the value that needs to be minimized
+		 */
+		double goalValue, parameterValue;
 		
-		for (int i = 0; i < modifiers.length; i++) {
-			modifiers[i].modify(simulation, p[i]);
+		// Modify the simulation based on the point, firing a single change event
+		Rocket rocket = simulation.getRocket();
+		rocket.freeze();
+		try {
+			for (int i = 0; i < modifiers.length; i++) {
+				modifiers[i].modify(simulation, p[i]);
+			}
+		} finally {
+			rocket.thaw();
 		}
 		
-		// Check whether the point is within the simulation domain
-		Pair<Double, Value> d = domain.getDistanceToDomain(simulation);
-		double distance = d.getU();
-		Value referenceValue = d.getV();
-		if (distance > 0 || Double.isNaN(distance)) {
-			if (Double.isNaN(distance)) {
-				goalValue = Double.MAX_VALUE;
-			} else {
-				goalValue = (distance + 1) * OUTSIDE_DOMAIN_SCALE;
+		// Check whether the point is within the simulation domain before simulating, if possible
+		Pair<Double, Value> d = null;
+		if (domainExtent == SimulationExtent.NONE) {
+			d = domain.getDistanceToDomain(simulation);
+			if (isOutsideDomain(d)) {
+				return outsideDomain(simulation, point, d);
 			}
-			log.debug("Optimization point is outside of domain, distance=" + distance + " goal function value=" + goalValue);
-			
-			fireEvent(simulation, point, referenceValue, null, goalValue);
-			
-			return goalValue;
 		}
 		
+		// Simulate the flight as far as needed
+		boolean simulated = simulate(simulation);
+		
+		if (d == null) {
+			d = simulated ? domain.getDistanceToDomain(simulation) : new Pair<Double, Value>(Double.NaN, null);
+			if (isOutsideDomain(d)) {
+				return outsideDomain(simulation, point, d);
+			}
+		}
+		Value referenceValue = d.getV();
+		
 		// Compute the optimization value
-		parameterValue = parameter.computeValue(simulation);
+		parameterValue = simulated ? parameter.computeValue(simulation) : Double.NaN;
 		goalValue = goal.getMinimizationParameter(parameterValue);
 		
 		if (Double.isNaN(goalValue)) {
@@ -125,6 +203,101 @@ public class RocketOptimizationFunction implements Function {
 	}
 
 
+	private static boolean isOutsideDomain(Pair<Double, Value> d) {
+		double distance = d.getU();
+		return distance > 0 || Double.isNaN(distance);
+	}
+	
+	private double outsideDomain(Simulation simulation, Point point, Pair<Double, Value> d)
+			throws OptimizationException {
+		double distance = d.getU();
+		double goalValue;
+		if (Double.isNaN(distance)) {
+			goalValue = Double.MAX_VALUE;
+		} else {
+			goalValue = (distance + 1) * OUTSIDE_DOMAIN_SCALE;
+		}
+		log.debug("Optimization point is outside of domain, distance=" + distance + " goal function value=" + goalValue);
+		
+		fireEvent(simulation, point, d.getV(), null, goalValue);
+		
+		return goalValue;
+	}
+	
+	
+	/**
+	 * Simulate the flight up to the extent needed by the parameter and the domain, recording
+	 * only the summary values of the flight data.
+	 * 
+	 * @return	<code>true</code> if the flight was simulated or no simulation is needed,
+	 * 			<code>false</code> if the simulation failed and the point has no valid value.
+	 */
+	private boolean simulate(Simulation simulation) throws OptimizationException, InterruptedException {
+		if (simulationExtent == SimulationExtent.NONE) {
+			return true;
+		}
+		
+		log.debug("Running simulation up to " + simulationExtent);
+		List<SimulationListener> listeners = new ArrayList<SimulationListener>();
+		if (simulationExtent.getEndListener() != null) {
+			listeners.add(simulationExtent.getEndListener());
+		}
+		listeners.add(new InterruptListener());
+		SimulationOptions options = simulation.getOptions();
+		Set<FlightDataType> recordedTypes = options.getRecordedTypes();
+		options.setRecordedTypes(Collections.<FlightDataType> emptySet());
+		
+		try {
+			simulation.simulate(listeners.toArray(new SimulationListener[0]));
+			return true;
+		} catch (MotorIgnitionException e) {
+			// A problem with motor ignition will cause optimization to fail
+			throw new OptimizationException(e);
+		} catch (SimulationLaunchException e) {
+			// Other launch exceptions result in illegal value
+			return false;
+		} catch (SimulationCalculationException e) {
+			// Calculation errors result in illegal value
+			return false;
+		} catch (SimulationCancelledException e) {
+			// Simulation cancellation stops the optimization
+			throw (InterruptedException) new InterruptedException("Optimization was interrupted").initCause(e);
+		} catch (SimulationException e) {
+			// Other exceptions fail
+			throw new OptimizationException(e);
+		} finally {
+			// Parameters simulating the flight themselves get the full flight data
+			options.setRecordedTypes(recordedTypes);
+		}
+	}
+	
+	
+	/**
+	 * Return a simulation copy in the state of the base simulation, either from the pool
+	 * or a new copy.
+	 */
+	private Simulation acquireSimulation() {
+		Simulation simulation;
+		synchronized (simulationPool) {
+			simulation = simulationPool.poll();
+			if (simulation == null) {
+				// The base simulation is only accessed by one thread at a time
+				return newSimulationInstance(baseSimulation);
+			}
+		}
+		
+		simulation.getRocket().loadFrom(baseRocket);
+		simulation.getOptions().copyConditionsFrom(baseOptions);
+		return simulation;
+	}
+	
+	private void releaseSimulation(Simulation simulation) {
+		synchronized (simulationPool) {
+			simulationPool.push(simulation);
+		}
+	}
+	
+	
 	/**
 	 * Returns a new deep copy of the simulation and rocket.
 	 * <p>
@@ -136,6 +309,80 @@ public class RocketOptimizationFunction implements Function {
 		return simulation.duplicateSimulation(simulation.getRocket().copyWithOriginalID());
 	}
 	
+	/**
+	 * Return a key identifying this function, for storing its values in a
+	 * {@link net.sf.openrocket.optimization.general.FunctionValueStore}.  The key is a digest
+	 * of the application version, the base rocket in the file format, the simulation options
+	 * and extensions, the optimization parameter, goal and domain, and the modifiers with their
+	 * ranges.  It is the same for the same optimization of the same design across sessions of
+	 * the same version, as the simulation code may change between versions.
+	 * <p>
+	 * Goals and domains are identified by their <code>toString()</code> value, so goals and
+	 * domains with parameters must describe them in it.
+	 * 
+	 * @return	a hexadecimal key identifying this function.
+	 */
+	public String getFunctionKey() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("version=").append(BuildProperties.getVersion()).append("\n");
+		
+		Rocket rocket = baseRocket.toRocket();
+		ByteArrayOutputStream rocketFile = new ByteArrayOutputStream();
+		try {
+			new OpenRocketSaver().save(rocketFile, OpenRocketDocumentFactory.createDocumentFromRocket(rocket),
+					new StorageOptions());
+		} catch (IOException e) {
+			throw new BugException("Unable to write rocket to memory", e);
+		}
+		sb.append(new String(rocketFile.toByteArray(), StandardCharsets.UTF_8));
+		
+		sb.append("\nconfiguration=").append(baseSimulation.getFlightConfigurationId().key);
+		SimulationOptions o = baseOptions;
+		sb.append("\noptions=").append(Arrays.asList(o.getLaunchRodLength(), o.getLaunchIntoWind(),
+				o.getLaunchRodAngle(), o.getLaunchRodDirection(), o.getWindSpeedAverage(), o.getWindSpeedDeviation(),
+				o.getWindDirection(), o.getLaunchAltitude(), o.getLaunchLatitude(), o.getLaunchLongitude(),
+				o.getGeodeticComputation(), o.isISAAtmosphere(), o.getLaunchTemperature(), o.getLaunchPressure(),
+				o.getTimeStep(), o.getMaximumStepAngle(), o.getIntegrationMethod(), o.getCalculateExtras(),
+				o.getAerodynamicTableTolerance(), o.getRandomSeed()));
+		for (SimulationExtension extension : baseSimulation.getSimulationExtensions()) {
+			sb.append("\nextension=").append(extension.getId());
+			Config config = extension.getConfig();
+			for (String key : new TreeSet<String>(config.keySet())) {
+				sb.append(",").append(key).append("=").append(config.get(key, null));
+			}
+		}
+		
+		sb.append("\nparameter=").append(parameter.getClass().getName()).append(",").append(parameter.getName());
+		sb.append("\ngoal=").append(goal);
+		sb.append("\ndomain=").append(domain);
+		for (SimulationModifier modifier : modifiers) {
+			sb.append("\nmodifier=").append(modifier.getClass().getName()).append(",").append(modifier.getName());
+			Object related = modifier.getRelatedObject();
+			if (related instanceof RocketComponent) {
+				// Component IDs are not stored, so identify components by their position in the rocket
+				int index = 0;
+				for (RocketComponent c : baseSimulation.getRocket()) {
+					if (c == related) {
+						break;
+					}
+					index++;
+				}
+				sb.append(",component=").append(index);
+			} else {
+				sb.append(",").append(related);
+			}
+			sb.append(",").append(modifier.getMinValue()).append(",").append(modifier.getMaxValue());
+		}
+		
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return TextUtil.hexString(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new BugException("SHA-256 digest not available", e);
+		}
+	}
+	
+	
 	/**
 	 * Add a listener to this function.  The listener will be notified each time the
 	 * function is successfully evaluated.
@@ -154,6 +401,27 @@ public class RocketOptimizationFunction implements Function {
 	
 	
 
+	/**
+	 * Notify the listeners of a function value read from a value store.  The state is
+	 * computed from the point, while the domain reference and parameter value are unavailable.
+	 */
+	@Override
+	public void storedValueUsed(Point point, double goalValue) {
+		if (listeners.isEmpty()) {
+			return;
+		}
+		
+		Value[] values = new Value[point.dim()];
+		for (int i = 0; i < values.length; i++) {
+			double value = MathUtil.map(point.get(i), 0.0, 1.0, modifiers[i].getMinValue(), modifiers[i].getMaxValue());
+			values[i] = new Value(value, modifiers[i].getUnitGroup().getDefaultUnit());
+		}
+		
+		for (RocketOptimizationListener l : listeners) {
+			l.evaluated(point, values, null, null, goalValue);
+		}
+	}
+	
 	private void fireEvent(Simulation simulation, Point p, Value domainReference, Value parameterValue, double goalValue)
 			throws OptimizationException {
 		
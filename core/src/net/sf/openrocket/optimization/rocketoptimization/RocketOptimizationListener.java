@@ -11,7 +11,9 @@ import net.sf.openrocket.unit.Value;
 public interface RocketOptimizationListener {
 	
 	/**
-	 * Called after successful function evaluation.
+	 * Called after successful function evaluation, or when the function value at a point
+	 * is taken from a persistent value store.  In the latter case the domain reference and
+	 * the parameter value are unavailable.
 	 * 
 	 * @param point				the optimization point.
 	 * @param state				the values to which the rocket has been modified in SI units, in the order of "point".
@@ -26,5 +26,19 @@ public interface SimulationDomain {
 	 */
 	public Pair<Double, Value> getDistanceToDomain(Simulation simulation);
 	
+	/**
+	 * Return the extent of the flight needed to determine whether the simulation is
+	 * within the domain.  A domain that needs no flight is checked before simulating,
+	 * so points outside of it do not cost a simulation.  Otherwise the domain is checked
+	 * after the flight has been simulated up to this extent (or further).
+	 * <p>
+	 * The default implementation returns {@link SimulationExtent#NONE}.
+	 * 
+	 * @return	the extent of the flight needed.
+	 */
+	public default SimulationExtent getRequiredExtent() {
+		return SimulationExtent.NONE;
+	}
+	
 
 }
@@ -0,0 +1,47 @@
+package net.sf.openrocket.optimization.rocketoptimization;
+
+import net.sf.openrocket.simulation.listeners.SimulationListener;
+import net.sf.openrocket.simulation.listeners.system.ApogeeEndListener;
+import net.sf.openrocket.simulation.listeners.system.RecoveryDeviceDeploymentEndListener;
+
+/**
+ * The extent of the simulated flight required by an optimization parameter or a
+ * simulation domain.  The extents are ordered from the shortest to the longest flight.
+ */
+public enum SimulationExtent {
+
+	/** No flight simulation is required */
+	NONE(null),
+
+	/** The flight is simulated until apogee */
+	APOGEE(ApogeeEndListener.INSTANCE),
+
+	/** The flight is simulated until the first recovery device deployment */
+	RECOVERY_DEVICE_DEPLOYMENT(RecoveryDeviceDeploymentEndListener.INSTANCE),
+
+	/** The whole flight is simulated */
+	FULL_FLIGHT(null);
+
+
+	private final SimulationListener endListener;
+
+	private SimulationExtent(SimulationListener endListener) {
+		this.endListener = endListener;
+	}
+
+	/**
+	 * Return the system listener that ends the simulation at this extent, or
+	 * <code>null</code> if no listener is needed.
+	 */
+	public SimulationListener getEndListener() {
+		return endListener;
+	}
+
+	/**
+	 * Return the longer of two extents.
+	 */
+	public static SimulationExtent max(SimulationExtent a, SimulationExtent b) {
+		return a.compareTo(b) >= 0 ? a : b;
+	}
+
+}
@@ -17,4 +17,9 @@ public class IdentitySimulationDomain implements SimulationDomain {
 		return new Pair<Double, Value>(-1.0, null);
 	}
 	
+	@Override
+	public String toString() {
+		return "IdentitySimulationDomain";
+	}
+	
 }
@@ -4,6 +4,7 @@ import java.util.Locale;
 
 import net.sf.openrocket.document.Simulation;
 import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.rocketcomponent.ComponentChangeEvent;
 import net.sf.openrocket.rocketcomponent.FlightConfigurableParameter;
 import net.sf.openrocket.rocketcomponent.FlightConfigurableParameterSet;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
@@ -61,17 +62,28 @@ public class FlightConfigurationModifier<E extends FlightConfigurableParameter<E
 	}
 	
 	
+	@Override
+	public void modify(Simulation simulation, double scaledValue) throws OptimizationException {
+		super.modify(simulation, scaledValue);
+		// The configuration fires no events itself, so the change is notified through its component
+		getComponent(simulation).fireComponentChangeEvent(ComponentChangeEvent.EVENT_CHANGE);
+	}
+	
+	
 	@Override
 	protected E getModifiedObject(Simulation simulation) throws OptimizationException {
-		
+		RocketComponent c = getComponent(simulation);
+		FlightConfigurableParameterSet<E> configSet = (FlightConfigurableParameterSet<E>) configGetter.invoke(c);
+		return configSet.get(simulation.getFlightConfigurationId());
+	}
+	
+	private RocketComponent getComponent(Simulation simulation) throws OptimizationException {
 		RocketComponent c = simulation.getRocket().findComponent(componentId);
 		if (c == null) {
 			throw new OptimizationException("Could not find component of type " + componentClass.getSimpleName()
 					+ " with correct ID");
 		}
-		
-		FlightConfigurableParameterSet<E> configSet = (FlightConfigurableParameterSet<E>) configGetter.invoke(c);
-		return configSet.get(simulation.getFlightConfigurationId());
+		return c;
 	}
 	
 }
@@ -1,6 +1,7 @@
 package net.sf.openrocket.optimization.rocketoptimization.parameters;
 
 import net.sf.openrocket.l10n.Translator;
+import net.sf.openrocket.optimization.rocketoptimization.SimulationExtent;
 import net.sf.openrocket.simulation.FlightData;
 import net.sf.openrocket.simulation.FlightDataType;
 import net.sf.openrocket.startup.Application;
@@ -20,6 +21,11 @@ public class GroundHitVelocityParameter extends SimulationBasedParameter {
 		return trans.get("name");
 	}
 	
+	@Override
+	public SimulationExtent getRequiredExtent() {
+		return SimulationExtent.FULL_FLIGHT;
+	}
+	
 	@Override
 	protected double getResultValue(FlightData simulatedData) {
 		return simulatedData.getBranch(0).getLast(FlightDataType.TYPE_VELOCITY_TOTAL);
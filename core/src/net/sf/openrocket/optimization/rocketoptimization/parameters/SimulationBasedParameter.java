@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import net.sf.openrocket.document.Simulation;
 import net.sf.openrocket.optimization.general.OptimizationException;
 import net.sf.openrocket.optimization.rocketoptimization.OptimizableParameter;
+import net.sf.openrocket.optimization.rocketoptimization.SimulationExtent;
 import net.sf.openrocket.simulation.FlightData;
 import net.sf.openrocket.simulation.exception.MotorIgnitionException;
 import net.sf.openrocket.simulation.exception.SimulationCalculationException;
@@ -18,8 +19,14 @@ import net.sf.openrocket.simulation.listeners.SimulationListener;
 import net.sf.openrocket.simulation.listeners.system.InterruptListener;
 
 /**
- * An abstract optimization parameter that simulates a rocket flight and obtains
- * a value from the simulation result.
+ * An abstract optimization parameter that obtains a value from the result of a simulated
+ * rocket flight.
+ * <p>
+ * If the subclass returns an extent from {@link #getRequiredExtent()}, the flight is
+ * simulated by the optimization function up to that extent, recording only the summary
+ * values of the flight data, so the value must be computed from the maximum, minimum and
+ * last values.  Otherwise the parameter simulates the flight itself with all flight data
+ * recorded, using the listeners returned by {@link #getSimulationListeners()}.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
@@ -29,33 +36,39 @@ public abstract class SimulationBasedParameter implements OptimizableParameter {
 	
 	@Override
 	public double computeValue(Simulation simulation) throws OptimizationException, InterruptedException {
-		try {
-			log.debug("Running simulation for " + getName());
-			
-			SimulationListener[] listeners = getSimulationListeners();
-			listeners = Arrays.copyOf(listeners, listeners.length + 1);
-			listeners[listeners.length - 1] = new InterruptListener();
-			simulation.simulate(listeners);
-			
-			double value = getResultValue(simulation.getSimulatedData());
-			log.debug("Parameter '" + getName() + " was " + value);
-			return value;
-		} catch (MotorIgnitionException e) {
-			// A problem with motor ignition will cause optimization to fail
-			throw new OptimizationException(e);
-		} catch (SimulationLaunchException e) {
-			// Other launch exceptions result in illegal value
-			return Double.NaN;
-		} catch (SimulationCalculationException e) {
-			// Calculation errors result in illegal value
+		if (getRequiredExtent() == SimulationExtent.NONE) {
+			try {
+				log.debug("Running simulation for " + getName());
+				
+				SimulationListener[] listeners = getSimulationListeners();
+				listeners = Arrays.copyOf(listeners, listeners.length + 1);
+				listeners[listeners.length - 1] = new InterruptListener();
+				simulation.simulate(listeners);
+			} catch (MotorIgnitionException e) {
+				// A problem with motor ignition will cause optimization to fail
+				throw new OptimizationException(e);
+			} catch (SimulationLaunchException e) {
+				// Other launch exceptions result in illegal value
+				return Double.NaN;
+			} catch (SimulationCalculationException e) {
+				// Calculation errors result in illegal value
+				return Double.NaN;
+			} catch (SimulationCancelledException e) {
+				// Simulation cancellation stops the optimization
+				throw (InterruptedException) new InterruptedException("Optimization was interrupted").initCause(e);
+			} catch (SimulationException e) {
+				// Other exceptions fail
+				throw new OptimizationException(e);
+			}
+		}
+		
+		FlightData data = simulation.getSimulatedData();
+		if (data == null || data.getBranchCount() == 0) {
 			return Double.NaN;
-		} catch (SimulationCancelledException e) {
-			// Simulation cancellation stops the optimization
-			throw (InterruptedException) new InterruptedException("Optimization was interrupted").initCause(e);
-		} catch (SimulationException e) {
-			// Other exceptions fail
-			throw new OptimizationException(e);
 		}
+		double value = getResultValue(data);
+		log.debug("Parameter '" + getName() + " was " + value);
+		return value;
 	}
 	
 	
@@ -73,6 +86,9 @@ public abstract class SimulationBasedParameter implements OptimizableParameter {
 	 * has been computed.
 	 * <p>
 	 * This array should NOT contain InterruptListener, it will be added implicitly.
+	 * <p>
+	 * The listeners are used only if the flight is simulated by the parameter itself,
+	 * that is if {@link #getRequiredExtent()} returns {@link SimulationExtent#NONE}.
 	 * 
 	 * @return	an array of simulation listeners to include.
 	 */
@@ -11,6 +11,7 @@ import net.sf.openrocket.l10n.Translator;
 import net.sf.openrocket.masscalc.MassCalculator;
 import net.sf.openrocket.optimization.general.OptimizationException;
 import net.sf.openrocket.optimization.rocketoptimization.OptimizableParameter;
+import net.sf.openrocket.optimization.rocketoptimization.SimulationExtent;
 import net.sf.openrocket.rocketcomponent.FlightConfiguration;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
 import net.sf.openrocket.rocketcomponent.SymmetricComponent;
@@ -42,6 +43,11 @@ public class StabilityParameter implements OptimizableParameter {
 		return trans.get("name") + " (" + getUnitGroup().getDefaultUnit().getUnit() + ")";
 	}
 	
+	@Override
+	public SimulationExtent getRequiredExtent() {
+		return SimulationExtent.NONE;
+	}
+	
 	@Override
 	public double computeValue(Simulation simulation) throws OptimizationException {
 		log.debug("Calculating stability of simulation, absolute=" + absolute);
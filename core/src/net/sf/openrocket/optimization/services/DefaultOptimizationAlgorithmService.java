@@ -0,0 +1,111 @@
+package net.sf.openrocket.optimization.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import net.sf.openrocket.l10n.Translator;
+import net.sf.openrocket.optimization.general.FunctionOptimizer;
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+import net.sf.openrocket.optimization.general.multidim.CMAESOptimizer;
+import net.sf.openrocket.optimization.general.multidim.DifferentialEvolutionOptimizer;
+import net.sf.openrocket.optimization.general.multidim.GaussianProcessOptimizer;
+import net.sf.openrocket.optimization.general.multidim.MultidirectionalSearchOptimizer;
+import net.sf.openrocket.optimization.general.multidim.ParticleSwarmOptimizer;
+import net.sf.openrocket.optimization.general.onedim.GoldenSectionSearchOptimizer;
+import net.sf.openrocket.startup.Application;
+
+/**
+ * Default implementation for the optimization algorithm service.  The pattern search
+ * algorithms are listed first, the first applicable one being the default choice.
+ */
+public class DefaultOptimizationAlgorithmService implements OptimizationAlgorithmService {
+	
+	private static final Translator trans = Application.getTranslator();
+	
+	@Override
+	public Collection<OptimizationAlgorithm> getAlgorithms() {
+		List<OptimizationAlgorithm> list = new ArrayList<OptimizationAlgorithm>();
+		
+		list.add(new Algorithm("goldenSection", false) {
+			@Override
+			public boolean isApplicable(int dimensions) {
+				return dimensions == 1;
+			}
+			
+			@Override
+			public FunctionOptimizer createOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+				return new GoldenSectionSearchOptimizer(functionCache);
+			}
+		});
+		
+		list.add(new Algorithm("multidirectionalSearch", false) {
+			@Override
+			public FunctionOptimizer createOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+				return new MultidirectionalSearchOptimizer(functionCache);
+			}
+		});
+		
+		list.add(new Algorithm("differentialEvolution", true) {
+			@Override
+			public FunctionOptimizer createOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+				return new DifferentialEvolutionOptimizer(functionCache, dimensions, seed);
+			}
+		});
+		
+		list.add(new Algorithm("cmaes", true) {
+			@Override
+			public FunctionOptimizer createOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+				return new CMAESOptimizer(functionCache, dimensions, seed);
+			}
+		});
+		
+		list.add(new Algorithm("particleSwarm", true) {
+			@Override
+			public FunctionOptimizer createOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+				return new ParticleSwarmOptimizer(functionCache, dimensions, seed);
+			}
+		});
+		
+		list.add(new Algorithm("gaussianProcess", true) {
+			@Override
+			public FunctionOptimizer createOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed) {
+				return new GaussianProcessOptimizer(functionCache, dimensions, seed);
+			}
+		});
+		
+		return list;
+	}
+	
+	
+	private static abstract class Algorithm implements OptimizationAlgorithm {
+		private final String key;
+		private final boolean populationBased;
+		
+		public Algorithm(String key, boolean populationBased) {
+			this.key = key;
+			this.populationBased = populationBased;
+		}
+		
+		@Override
+		public String getName() {
+			return trans.get(key);
+		}
+		
+		@Override
+		public boolean isApplicable(int dimensions) {
+			return dimensions > 0;
+		}
+		
+		@Override
+		public boolean isPopulationBased() {
+			return populationBased;
+		}
+		
+		@Override
+		public String toString() {
+			return getName();
+		}
+	}
+	
+}
@@ -0,0 +1,45 @@
+package net.sf.openrocket.optimization.services;
+
+import net.sf.openrocket.optimization.general.FunctionOptimizer;
+import net.sf.openrocket.optimization.general.ParallelFunctionCache;
+
+/**
+ * A function optimization algorithm that can be selected for rocket optimization.
+ * Acts as a factory for the FunctionOptimizer implementing the algorithm.
+ */
+public interface OptimizationAlgorithm {
+	
+	/**
+	 * Return the localized name of the algorithm.
+	 * 
+	 * @return	the name of the algorithm.
+	 */
+	public String getName();
+	
+	/**
+	 * Return whether the algorithm can optimize a function of the specified dimensionality.
+	 * 
+	 * @param dimensions	the number of optimized variables.
+	 * @return				whether the algorithm is applicable.
+	 */
+	public boolean isApplicable(int dimensions);
+	
+	/**
+	 * Return whether the algorithm evaluates a large number of points concurrently, and
+	 * therefore benefits from a function cache using multiple threads.
+	 * 
+	 * @return	whether the algorithm is population-based.
+	 */
+	public boolean isPopulationBased();
+	
+	/**
+	 * Create a new optimizer implementing the algorithm.
+	 * 
+	 * @param functionCache		the function cache that evaluates the function.
+	 * @param dimensions		the number of optimized variables.
+	 * @param seed				the random seed for stochastic algorithms.
+	 * @return					a new optimizer.
+	 */
+	public FunctionOptimizer createOptimizer(ParallelFunctionCache functionCache, int dimensions, long seed);
+	
+}
@@ -0,0 +1,17 @@
+package net.sf.openrocket.optimization.services;
+
+import java.util.Collection;
+
+/**
+ * A service for providing function optimization algorithms.
+ */
+public interface OptimizationAlgorithmService {
+	
+	/**
+	 * Return all optimization algorithms provided by this service.
+	 * 
+	 * @return	a collection of the optimization algorithms.
+	 */
+	public Collection<OptimizationAlgorithm> getAlgorithms();
+	
+}
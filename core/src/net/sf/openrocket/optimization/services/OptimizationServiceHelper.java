@@ -56,4 +56,28 @@ public final class OptimizationServiceHelper {
 	}
 	
 	
+	
+	/**
+	 * Return the optimization algorithms applicable to a function of the specified
+	 * dimensionality.  This queries the getAlgorithms() method from all available services
+	 * and returns a list of the applicable algorithms, the default choice first.
+	 *
+	 * @param dimensions	the number of optimized variables.
+	 * @return				a list of the applicable optimization algorithms.
+	 */
+	public static List<OptimizationAlgorithm> getOptimizationAlgorithms(int dimensions) {
+		List<OptimizationAlgorithm> list = new ArrayList<OptimizationAlgorithm>();
+	
+		ServiceLoader<OptimizationAlgorithmService> loader = ServiceLoader.load(OptimizationAlgorithmService.class);
+		for (OptimizationAlgorithmService service : loader) {
+			for (OptimizationAlgorithm algorithm : service.getAlgorithms()) {
+				if (algorithm.isApplicable(dimensions)) {
+					list.add(algorithm);
+				}
+			}
+		}
+	
+		return list;
+	}
+	
 }
@@ -0,0 +1,475 @@
+package net.sf.openrocket.preset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.openrocket.database.ComponentPresetDatabase;
+import net.sf.openrocket.database.Databases;
+import net.sf.openrocket.l10n.Translator;
+import net.sf.openrocket.material.Material;
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.startup.Application;
+import net.sf.openrocket.util.BugException;
+import net.sf.openrocket.util.FileUtils;
+
+/**
+ * Reader and writer of the compact binary preset bundle, which holds the system component
+ * presets in place of the .orc files parsed at startup.
+ * <p>
+ * The file consists of a header, a string table, a table of the names of the preset keys,
+ * a directory of sections and the section data.  Each section holds the presets of a single
+ * type, and each preset is stored as its digest followed by its properties.  A property is
+ * stored as the index of its key followed by the value, whose encoding depends on the type
+ * of the key.  All values are big-endian.
+ * <p>
+ * Reading a bundle reads the header and the directory, and checks that the data of each
+ * section is valid without decoding it.  The presets of a section are decoded when its
+ * {@link ComponentPresetDatabase.PresetLoader} is first loaded, which the database does on
+ * the first lookup of the type.
+ */
+public class BinaryPresetBundle {
+
+	/** The file name extension of the preset bundle */
+	public static final String EXTENSION = "bin";
+
+	private static final int MAGIC = 0x4F525042; // "ORPB"
+	private static final int VERSION = 1;
+
+	/** The size of a section directory entry:  four ints */
+	private static final int SECTION_ENTRY_SIZE = 4 * 4;
+	private static final int NO_STRING = -1;
+
+	/** The preset keys by name */
+	private static final Map<String, TypedKey<?>> KEYS = new LinkedHashMap<String, TypedKey<?>>();
+	static {
+		try {
+			for (Field field : ComponentPreset.class.getFields()) {
+				if (Modifier.isStatic(field.getModifiers()) && field.getType() == TypedKey.class) {
+					TypedKey<?> key = (TypedKey<?>) field.get(null);
+					KEYS.put(key.getName(), key);
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new BugException(e);
+		}
+	}
+
+
+	private BinaryPresetBundle() {
+	}
+
+
+	/**
+	 * Write presets to a stream in the binary format.  The stream is not closed.
+	 *
+	 * @param presets	the presets to write.
+	 * @param out		the stream to write to.
+	 * @throws IOException	if an I/O error occurs.
+	 * @throws IllegalArgumentException	if a preset has a property of an unsupported type.
+	 */
+	public static void write(List<ComponentPreset> presets, OutputStream out) throws IOException {
+		final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+		final List<String> strings = new ArrayList<String>();
+		final Map<TypedKey<?>, Integer> keyIndex = new HashMap<TypedKey<?>, Integer>();
+		final List<TypedKey<?>> keys = new ArrayList<TypedKey<?>>();
+		final Translator trans = Application.getTranslator();
+
+		final Map<ComponentPreset.Type, List<ComponentPreset>> sections =
+				new EnumMap<ComponentPreset.Type, List<ComponentPreset>>(ComponentPreset.Type.class);
+		for (ComponentPreset preset : presets) {
+			List<ComponentPreset> section = sections.get(preset.getType());
+			if (section == null) {
+				section = new ArrayList<ComponentPreset>();
+				sections.put(preset.getType(), section);
+				addString(preset.getType().name(), stringIndex, strings);
+			}
+			section.add(preset);
+		}
+
+		// Encode the sections, collecting the strings and keys
+		List<byte[]> sectionData = new ArrayList<byte[]>(sections.size());
+		for (List<ComponentPreset> section : sections.values()) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream data = new DataOutputStream(bytes);
+			for (ComponentPreset preset : section) {
+				writePreset(preset, data, trans, stringIndex, strings, keyIndex, keys);
+			}
+			data.flush();
+			sectionData.add(bytes.toByteArray());
+		}
+		for (TypedKey<?> key : keys) {
+			addString(key.getName(), stringIndex, strings);
+		}
+
+		final DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(strings.size());
+		data.writeInt(keys.size());
+		data.writeInt(sections.size());
+
+		for (String s : strings) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+		for (TypedKey<?> key : keys) {
+			data.writeInt(stringIndex.get(key.getName()));
+		}
+
+		int offset = 0;
+		int i = 0;
+		for (Map.Entry<ComponentPreset.Type, List<ComponentPreset>> e : sections.entrySet()) {
+			data.writeInt(stringIndex.get(e.getKey().name()));
+			data.writeInt(e.getValue().size());
+			data.writeInt(offset);
+			data.writeInt(sectionData.get(i).length);
+			offset += sectionData.get(i).length;
+			i++;
+		}
+		for (byte[] section : sectionData) {
+			data.write(section);
+		}
+		data.flush();
+	}
+
+	private static void writePreset(ComponentPreset preset, DataOutputStream data, Translator trans,
+			Map<String, Integer> stringIndex, List<String> strings,
+			Map<TypedKey<?>, Integer> keyIndex, List<TypedKey<?>> keys) throws IOException {
+		List<TypedKey<?>> presetKeys = new ArrayList<TypedKey<?>>();
+		for (TypedKey<?> key : KEYS.values()) {
+			if (preset.has(key)) {
+				presetKeys.add(key);
+			}
+		}
+		data.writeInt(addString(preset.getDigest(), stringIndex, strings));
+		data.writeInt(presetKeys.size());
+		for (TypedKey<?> key : presetKeys) {
+			Object value = preset.get(key);
+			Integer index = keyIndex.get(key);
+			if (index == null) {
+				index = keys.size();
+				keyIndex.put(key, index);
+				keys.add(key);
+			}
+			data.writeInt(index);
+
+			Class<?> type = key.getType();
+			if (type == Boolean.class) {
+				data.writeBoolean((Boolean) value);
+			} else if (type == Integer.class) {
+				data.writeInt((Integer) value);
+			} else if (type == Double.class) {
+				data.writeDouble((Double) value);
+			} else if (type == String.class) {
+				data.writeInt(addString((String) value, stringIndex, strings));
+			} else if (type == Manufacturer.class) {
+				data.writeInt(addString(((Manufacturer) value).getDisplayName(), stringIndex, strings));
+			} else if (type.isEnum()) {
+				data.writeInt(addString(((Enum<?>) value).name(), stringIndex, strings));
+			} else if (type == Material.class) {
+				// The base name is stored, so that the material is translated when read
+				Material material = (Material) value;
+				data.writeInt(addString(material.getType().name(), stringIndex, strings));
+				data.writeInt(addString(trans.getBaseText("material", material.getName()), stringIndex, strings));
+				data.writeDouble(material.getDensity());
+			} else if (type == byte[].class) {
+				byte[] bytes = (byte[]) value;
+				data.writeInt(bytes.length);
+				data.write(bytes);
+			} else {
+				throw new IllegalArgumentException("Unsupported preset property " + key + " of type " + type);
+			}
+		}
+	}
+
+	private static int addString(String s, Map<String, Integer> stringIndex, List<String> strings) {
+		if (s == null) {
+			return NO_STRING;
+		}
+		Integer index = stringIndex.get(s);
+		if (index == null) {
+			index = strings.size();
+			stringIndex.put(s, index);
+			strings.add(s);
+		}
+		return index;
+	}
+
+
+	/**
+	 * Read a preset bundle from a file by memory-mapping it.
+	 *
+	 * @param file	the file to read.
+	 * @return		the loaders of the sections of the bundle.
+	 * @throws IOException	if an I/O error occurs or the file is not a valid preset bundle.
+	 */
+	public static List<ComponentPresetDatabase.PresetLoader> read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			// The mapping remains valid after the channel is closed
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Read a preset bundle from a stream, which is read fully into memory.  The stream
+	 * is not closed.
+	 *
+	 * @param in	the stream to read.
+	 * @return		the loaders of the sections of the bundle.
+	 * @throws IOException	if an I/O error occurs or the stream is not a valid preset bundle.
+	 */
+	public static List<ComponentPresetDatabase.PresetLoader> read(InputStream in) throws IOException {
+		return read(ByteBuffer.wrap(FileUtils.readBytes(in)));
+	}
+
+	/**
+	 * Read a buffer containing a preset bundle.  The header and the section directory are
+	 * read and the section data is checked; the presets of a section are decoded from the
+	 * buffer when its loader is loaded, so the buffer must not be modified afterwards.
+	 *
+	 * @param buffer	the buffer to read, from its current position.
+	 * @return			the loaders of the sections of the bundle.
+	 * @throws IOException	if the buffer does not contain a valid preset bundle.
+	 */
+	public static List<ComponentPresetDatabase.PresetLoader> read(ByteBuffer buffer) throws IOException {
+		final ByteBuffer in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		try {
+			if (in.getInt() != MAGIC) {
+				throw new IOException("Not a preset bundle");
+			}
+			int version = in.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported preset bundle version " + version);
+			}
+			final int stringCount = in.getInt();
+			final int keyCount = in.getInt();
+			final int sectionCount = in.getInt();
+
+			final String[] strings = new String[stringCount];
+			for (int i = 0; i < stringCount; i++) {
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			final TypedKey<?>[] keys = new TypedKey<?>[keyCount];
+			for (int i = 0; i < keyCount; i++) {
+				String name = strings[in.getInt()];
+				keys[i] = KEYS.get(name);
+				if (keys[i] == null) {
+					throw new IOException("Unknown preset key " + name);
+				}
+			}
+
+			final int dataPosition = in.position() + sectionCount * SECTION_ENTRY_SIZE;
+			final List<ComponentPresetDatabase.PresetLoader> sections = new ArrayList<ComponentPresetDatabase.PresetLoader>(sectionCount);
+			for (int i = 0; i < sectionCount; i++) {
+				ComponentPreset.Type type = ComponentPreset.Type.valueOf(strings[in.getInt()]);
+				int presetCount = in.getInt();
+				int offset = in.getInt();
+				int length = in.getInt();
+				if (presetCount < 0 || offset < 0 || length < 0 || dataPosition + (long) offset + length > in.limit()) {
+					throw new IOException("Invalid preset bundle section " + type + " offset=" + offset + " length=" + length);
+				}
+				Section section = new Section(in, strings, keys, type, presetCount, dataPosition + offset, length);
+				section.check();
+				sections.add(section);
+			}
+			return sections;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+				| NegativeArraySizeException e) {
+			throw new IOException("Invalid preset bundle: " + e, e);
+		}
+	}
+
+
+	/**
+	 * The presets of a single type stored in a bundle.  The bundle is read using a
+	 * duplicate of the buffer, so the sections may be loaded concurrently.
+	 */
+	private static class Section implements ComponentPresetDatabase.PresetLoader {
+		private final ByteBuffer buffer;
+		private final String[] strings;
+		private final TypedKey<?>[] keys;
+		private final ComponentPreset.Type type;
+		private final int presetCount;
+		private final int position;
+		private final int length;
+
+		Section(ByteBuffer buffer, String[] strings, TypedKey<?>[] keys, ComponentPreset.Type type,
+				int presetCount, int position, int length) {
+			this.buffer = buffer;
+			this.strings = strings;
+			this.keys = keys;
+			this.type = type;
+			this.presetCount = presetCount;
+			this.position = position;
+			this.length = length;
+		}
+
+		@Override
+		public ComponentPreset.Type getType() {
+			return type;
+		}
+
+		@Override
+		public int getPresetCount() {
+			return presetCount;
+		}
+
+		/**
+		 * Check that the section data can be decoded, so that a damaged bundle is detected
+		 * when it is read and not when the section is loaded.
+		 *
+		 * @throws IllegalArgumentException	if the data is not valid.
+		 * @throws BufferUnderflowException	if the data ends prematurely.
+		 */
+		void check() {
+			ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+			in.limit(position + length);
+			in.position(position);
+			for (int i = 0; i < presetCount; i++) {
+				checkPreset(in);
+			}
+			if (in.hasRemaining()) {
+				throw new IllegalArgumentException(in.remaining() + " bytes left in section " + type);
+			}
+		}
+
+		@Override
+		public List<ComponentPreset> load() {
+			ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+			in.limit(position + length);
+			in.position(position);
+			Map<String, Manufacturer> manufacturers = new HashMap<String, Manufacturer>();
+			List<ComponentPreset> presets = new ArrayList<ComponentPreset>(presetCount);
+			try {
+				for (int i = 0; i < presetCount; i++) {
+					ComponentPreset preset = readPreset(in, manufacturers);
+					if (preset.getType() != type) {
+						throw new IllegalArgumentException("Preset of type " + preset.getType() + " in section " + type);
+					}
+					presets.add(preset);
+				}
+				if (in.hasRemaining()) {
+					throw new IllegalArgumentException(in.remaining() + " bytes left in section " + type);
+				}
+			} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+					| NegativeArraySizeException | ClassCastException e) {
+				throw new BugException("Invalid preset bundle section " + type, e);
+			}
+			return presets;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private ComponentPreset readPreset(ByteBuffer in, Map<String, Manufacturer> manufacturers) {
+			ComponentPreset preset = new ComponentPreset();
+			preset.setDigest(getString(in.getInt()));
+			int count = in.getInt();
+			for (int i = 0; i < count; i++) {
+				TypedKey key = keys[in.getInt()];
+				Class<?> type = key.getType();
+				Object value;
+				if (type == Boolean.class) {
+					value = in.get() != 0;
+				} else if (type == Integer.class) {
+					value = in.getInt();
+				} else if (type == Double.class) {
+					value = in.getDouble();
+				} else if (type == String.class) {
+					value = getString(in.getInt());
+				} else if (type == Manufacturer.class) {
+					String name = getString(in.getInt());
+					Manufacturer manufacturer = manufacturers.get(name);
+					if (manufacturer == null) {
+						manufacturer = Manufacturer.getManufacturer(name);
+						manufacturers.put(name, manufacturer);
+					}
+					value = manufacturer;
+				} else if (type.isEnum()) {
+					value = Enum.valueOf((Class<Enum>) type, getString(in.getInt()));
+				} else if (type == Material.class) {
+					Material.Type materialType = Material.Type.valueOf(getString(in.getInt()));
+					String name = getString(in.getInt());
+					value = Databases.findMaterial(materialType, name, in.getDouble());
+				} else if (type == byte[].class) {
+					byte[] bytes = new byte[in.getInt()];
+					in.get(bytes);
+					value = bytes;
+				} else {
+					throw new IllegalArgumentException("Unsupported preset key " + key);
+				}
+				preset.put(key, value);
+			}
+			return preset;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private void checkPreset(ByteBuffer in) {
+			getString(in.getInt());
+			int count = in.getInt();
+			for (int i = 0; i < count; i++) {
+				TypedKey<?> key = keys[in.getInt()];
+				Class<?> type = key.getType();
+				if (type == Boolean.class) {
+					in.get();
+				} else if (type == Integer.class) {
+					in.getInt();
+				} else if (type == Double.class) {
+					in.getDouble();
+				} else if (type == String.class || type == Manufacturer.class) {
+					getString(in.getInt());
+				} else if (type.isEnum()) {
+					Enum<?> value = Enum.valueOf((Class<Enum>) type, getRequiredString(in.getInt()));
+					if (key == ComponentPreset.TYPE && value != this.type) {
+						throw new IllegalArgumentException("Preset of type " + value + " in section " + this.type);
+					}
+				} else if (type == Material.class) {
+					Material.Type.valueOf(getRequiredString(in.getInt()));
+					getString(in.getInt());
+					in.getDouble();
+				} else if (type == byte[].class) {
+					int size = in.getInt();
+					if (size < 0) {
+						throw new IllegalArgumentException("Negative data size " + size);
+					}
+					in.position(in.position() + size);
+				} else {
+					throw new IllegalArgumentException("Unsupported preset key " + key);
+				}
+			}
+		}
+
+		private String getRequiredString(int index) {
+			String s = getString(index);
+			if (s == null) {
+				throw new IllegalArgumentException("Missing value in section " + type);
+			}
+			return s;
+		}
+
+		private String getString(int index) {
+			return (index == NO_STRING) ? null : strings[index];
+		}
+	}
+
+}
@@ -378,6 +378,15 @@ public class ComponentPreset implements Comparable<ComponentPreset>, Serializabl
 		return digest != null ? digest.hashCode() : 0;
 	}
 
+	/**
+	 * Package scope so the BinaryPresetBundle can restore the digest computed when the
+	 * bundle was written.
+	 * @param digest
+	 */
+	void setDigest(String digest) {
+		this.digest = digest;
+	}
+
 	/**
 	 * Package scope so the factory can call it.
 	 */
@@ -87,8 +87,8 @@ public class AxialStage extends ComponentAssembly implements FlightConfigurableC
 	}
 	
 	@Override
-	protected RocketComponent copyWithOriginalID() {
-		AxialStage copy = (AxialStage) super.copyWithOriginalID();
+	protected RocketComponent copyComponentWithOriginalID() {
+		AxialStage copy = (AxialStage) super.copyComponentWithOriginalID();
 		copy.separations = new FlightConfigurableParameterSet<StageSeparationConfiguration>(separations);
 		return copy;
 	}
@@ -1,6 +1,7 @@
 package net.sf.openrocket.rocketcomponent;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -13,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.openrocket.l10n.Translator;
+import net.sf.openrocket.masscalc.MassModel;
 import net.sf.openrocket.motor.MotorConfiguration;
 import net.sf.openrocket.motor.MotorConfigurationId;
 import net.sf.openrocket.startup.Application;
@@ -36,6 +38,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 
     private String configurationName;
 	public static String DEFAULT_CONFIG_NAME = "[{motors}]";
+	private static final Transformation[] ROOT_TRANSFORMS = { Transformation.IDENTITY };
 	private final RocketDescriptor descriptor = Application.getInjector().getInstance(RocketDescriptor.class);
 	
 	protected final Rocket rocket;
@@ -69,17 +72,23 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	final private Collection<MotorConfiguration> activeMotors = new ConcurrentLinkedQueue<MotorConfiguration>();
 	final private InstanceMap activeInstances = new InstanceMap();
 	final private InstanceMap extraRenderInstances = new InstanceMap();		// Extra instances to be rendered, besides the active instances
+	final private Map<RocketComponent, ComponentInstances> instanceCache = new HashMap<>();	// Instances of each component, reused while unchanged
+	private int instancesModID = 0;	// Incremented whenever the instance maps change
 	
 	private int boundsModID = -1;
+	private int boundsInstancesModID = -1;
 	private BoundingBox cachedBoundsAerodynamic = new BoundingBox();	// Bounding box of all aerodynamic components
 	private BoundingBox cachedBounds = new BoundingBox();	// Bounding box of all components
 	private double cachedLengthAerodynamic = -1;	// Rocket length of all aerodynamic components
 	private double cachedLength = -1;	// Rocket length of all components
 	
 	private int refLengthModID = -1;
+	private int refLengthConfigModID = -1;
 	private double cachedRefLength = -1;
 	
 	private int modID = 0;
+	
+	private MassModel massModel = null;
 
 	/**
 	 * Create a Default configuration with the specified <code>Rocket</code>.
@@ -128,6 +137,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 		for (StageFlags cur : stages.values()) {
 			cur.active = _active;
 		}
+		modID++;
 		updateMotors();
 		updateActiveInstances();
 	}
@@ -135,6 +145,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	public void copyStages(FlightConfiguration other) {
 		for (StageFlags cur : other.stages.values())
 			stages.put(cur.stageNumber, new StageFlags(cur.stageNumber, cur.stageId, cur.active));
+		modID++;
 		updateMotors();
 		updateActiveInstances();
 	}
@@ -150,6 +161,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 				flags.active = otherFlags.active;
 			}
 		}
+		modID++;
 		updateMotors();
 		updateActiveInstances();
 	}
@@ -403,45 +415,106 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	/*
 	 * Generates a read-only, instance-aware collection of the components for this rocket & configuration
 	 * 
+	 * The instances of each component are cached, and recomputed only when the component position, instance
+	 * offsets or angles, active state or the transformations of its parent have changed.  Thus a change of a
+	 * single component creates new instance contexts only for the subtree whose locations have changed.
+	 * 
 	 *  TODO: swap in this function for the 'getActiveComponents() function, above;  ONLY WHEN READY / MATURE! 
 	 */
 	private void updateActiveInstances() {
-		activeInstances.clear();
-		extraRenderInstances.clear();
-		getActiveContextListAt(this.rocket, activeInstances, Transformation.IDENTITY);
+		final Map<RocketComponent, ComponentInstances> updated = new HashMap<>();
+		updateInstancesAt(this.rocket, ROOT_TRANSFORMS, updated);
+
+		// Remove the components that are no longer in the rocket
+		for (RocketComponent component : instanceCache.keySet()) {
+			if (!updated.containsKey(component)) {
+				activeInstances.remove(component);
+				extraRenderInstances.remove(component);
+				instancesModID++;
+			}
+		}
+		instanceCache.clear();
+		instanceCache.putAll(updated);
 	}
 
-	private InstanceMap getActiveContextListAt(final RocketComponent component, final InstanceMap results, final Transformation parentTransform ){
+	/**
+	 * Update the instances of a component and its children.
+	 * 
+	 * @param component			the component
+	 * @param parentTransforms	the transformations of all instances of the parent component
+	 * @param updated			the map to store the up-to-date instances in
+	 */
+	private void updateInstancesAt(final RocketComponent component, final Transformation[] parentTransforms,
+			final Map<RocketComponent, ComponentInstances> updated) {
+		final ComponentInstances previous = instanceCache.get(component);
+		final ComponentInstances instances = getComponentInstances(component, parentTransforms, previous);
+		updated.put(component, instances);
+
+		if (instances != previous) {
+			setInstanceContexts(activeInstances, component, instances.active ? instances.contexts : null);
+			setInstanceContexts(extraRenderInstances, component, instances.active ? null : instances.contexts);
+			instancesModID++;
+		}
+
+		for (RocketComponent child : component.getChildren()) {
+			updateInstancesAt(child, instances.transforms, updated);
+		}
+	}
 
+	/**
+	 * Return the instances of a component, or the previous instances if they are still up to date.
+	 */
+	private ComponentInstances getComponentInstances(final RocketComponent component,
+			final Transformation[] parentTransforms, final ComponentInstances previous) {
 		final int instanceCount = component.getInstanceCount();
+		final Coordinate position = component.getPosition();
 		final Coordinate[] allOffsets = component.getInstanceOffsets();
 		final double[] allAngles = component.getInstanceAngles();
-		
-		final Transformation compLocTransform = Transformation.getTranslationTransform( component.getPosition() );
-		final Transformation componentTransform = parentTransform.applyTransformation(compLocTransform);
+
+		// constructs entry in-place if this component is active
+		final boolean active = this.isComponentActive(component);
+		// Boosters with no children are marked as inactive, but still need to be rendered.
+		// See GitHub issue #1980 for more information.
+		final boolean rendered = active ||
+				(component instanceof ParallelStage && stages.get(component.getStageNumber()).active);
+
+		if (previous != null && previous.isValid(component, parentTransforms, instanceCount, position, allOffsets,
+				allAngles, active, rendered)) {
+			return previous;
+		}
+
+		final Transformation compLocTransform = Transformation.getTranslationTransform( position );
+		final Transformation[] transforms = new Transformation[parentTransforms.length * instanceCount];
+		final ArrayList<InstanceContext> contexts = rendered ? new ArrayList<InstanceContext>(transforms.length) : null;
 
 		// generate the Instance's Context:
-		for(int currentInstanceNumber=0; currentInstanceNumber < instanceCount; currentInstanceNumber++) {
-			final Transformation offsetTransform = Transformation.getTranslationTransform( allOffsets[currentInstanceNumber] );
-			final Transformation angleTransform = Transformation.getAxialRotation(allAngles[currentInstanceNumber]);
-			final Transformation currentTransform = componentTransform.applyTransformation(offsetTransform)
-				.applyTransformation(angleTransform);
-
-			// constructs entry in-place if this component is active
-			if (this.isComponentActive(component)) {
-				results.emplace(component, currentInstanceNumber, currentTransform);
-			} else if (component instanceof ParallelStage && stages.get(component.getStageNumber()).active) {
-				// Boosters with no children are marked as inactive, but still need to be rendered.
-				// See GitHub issue #1980 for more information.
-				extraRenderInstances.emplace(component, currentInstanceNumber, currentTransform);
-			}
+		int index = 0;
+		for (Transformation parentTransform : parentTransforms) {
+			final Transformation componentTransform = parentTransform.applyTransformation(compLocTransform);
+			for(int currentInstanceNumber=0; currentInstanceNumber < instanceCount; currentInstanceNumber++) {
+				final Transformation offsetTransform = Transformation.getTranslationTransform( allOffsets[currentInstanceNumber] );
+				final Transformation angleTransform = Transformation.getAxialRotation(allAngles[currentInstanceNumber]);
+				final Transformation currentTransform = componentTransform.applyTransformation(offsetTransform)
+					.applyTransformation(angleTransform);
 
-			for(RocketComponent child : component.getChildren()) {
-				getActiveContextListAt(child, results, currentTransform);
+				transforms[index++] = currentTransform;
+				if (rendered) {
+					contexts.add(new InstanceContext(component, currentInstanceNumber, currentTransform));
+				}
 			}
 		}
 
-		return results;
+		return new ComponentInstances(component, parentTransforms, instanceCount, position, allOffsets, allAngles,
+				active, rendered, transforms, contexts);
+	}
+
+	private static void setInstanceContexts(final InstanceMap map, final RocketComponent component,
+			final ArrayList<InstanceContext> contexts) {
+		// Remove first, so that a component replacing an equal one (a copy with the same ID) becomes the key
+		map.remove(component);
+		if (contexts != null && !contexts.isEmpty()) {
+			map.put(component, contexts);
+		}
 	}
 
 	/**
@@ -500,8 +573,9 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	 * @return  the reference length for this configuration.
 	 */
 	public double getReferenceLength() {
-		if (rocket.getModID() != refLengthModID) {
+		if (rocket.getModID() != refLengthModID || modID != refLengthConfigModID) {
 			refLengthModID = rocket.getModID();
+			refLengthConfigModID = modID;
 			cachedRefLength = rocket.getReferenceType().getReferenceLength(this);
 		}
 		return cachedRefLength;
@@ -646,6 +720,21 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 		updateActiveInstances();
 	}
 
+	/**
+	 * Reset this configuration to the state of a new configuration with the same ID and name,
+	 * with all stages active, and invalidate the cached data.  The cached component instances
+	 * are reused for the components that have not changed.  Used when the rocket is reloaded.
+	 */
+	/*package-local*/ void reset() {
+		this.stages.clear();
+		this.preloadStageActiveness = null;
+		this.modID++;
+		this.boundsModID = -1;
+		this.refLengthModID = -1;
+		this.massModel = null;
+		update();
+	}
+
 	/**
 	 * Return true if rocket has a RecoveryDevice
 	 */
@@ -689,14 +778,14 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	 * @return the rocket's bounding box (under the selected configuration)
 	 */
 	public BoundingBox getBoundingBoxAerodynamic() {
-//		if (rocket.getModID() != boundsModID) {
-		calculateBounds();
-//		}
+		if (!isBoundsCacheValid()) {
+			calculateBounds();
+		}
 		
 		if(cachedBoundsAerodynamic.isEmpty())
 			cachedBoundsAerodynamic = new BoundingBox(Coordinate.ZERO,Coordinate.X_UNIT);
 		
-		return cachedBoundsAerodynamic;
+		return cachedBoundsAerodynamic.clone();
 	}
 
 	/**
@@ -705,14 +794,22 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	 * @return the rocket's bounding box (under the selected configuration)
 	 */
 	public BoundingBox getBoundingBox() {
-//		if (rocket.getModID() != boundsModID) {
-		calculateBounds();
-//		}
+		if (!isBoundsCacheValid()) {
+			calculateBounds();
+		}
 
 		if(cachedBounds.isEmpty())
 			cachedBounds = new BoundingBox(Coordinate.ZERO,Coordinate.X_UNIT);
 
-		return cachedBounds;
+		return cachedBounds.clone();
+	}
+
+	/**
+	 * Return whether the cached bounds are up to date.  The component geometry may change without
+	 * events while the rocket events are disabled, so the bounds are then always recalculated.
+	 */
+	private boolean isBoundsCacheValid() {
+		return rocket.isEventsEnabled() && rocket.getModID() == boundsModID && instancesModID == boundsInstancesModID;
 	}
 
 	/**
@@ -774,6 +871,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 		}
 		
 		boundsModID = rocket.getModID();
+		boundsInstancesModID = instancesModID;
 		cachedLengthAerodynamic = rocketBoundsAerodynamic.span().x;
 		cachedLength = rocketBounds.span().x;
 		/* Special case for the scenario that all of the stages are removed and are
@@ -797,7 +895,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	 * @return	the length of the rocket in the X-direction.
 	 */
 	public double getLengthAerodynamic() {
-		if (rocket.getModID() != boundsModID) {
+		if (!isBoundsCacheValid()) {
 			calculateBounds();
 		}
 		return cachedLengthAerodynamic;
@@ -810,7 +908,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	 * @return	the length of the rocket in the X-direction.
 	 */
 	public double getLength() {
-		if (rocket.getModID() != boundsModID) {
+		if (!isBoundsCacheValid()) {
 			calculateBounds();
 		}
 		return cachedLength;
@@ -835,6 +933,7 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
         clone.cachedBoundsAerodynamic = this.cachedBoundsAerodynamic.clone();
 		clone.cachedBounds = this.cachedBounds.clone();
 		clone.modID = this.modID;
+		clone.massModel = this.massModel;
 		clone.boundsModID = -1;
 		clone.refLengthModID = -1;
 		return clone;
@@ -880,6 +979,21 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 	public int getModID() {
 		return modID;
 	}
+	
+	/**
+	 * Return the mass model of this configuration, which is rebuilt only when the configuration
+	 * or the mass or structure of the rocket has changed.
+	 * 
+	 * @return the up-to-date mass model
+	 */
+	public MassModel getMassModel() {
+		MassModel model = massModel;
+		if (model == null || !model.isValidFor(this)) {
+			model = new MassModel(this);
+			massModel = model;
+		}
+		return model;
+	}
 
 	public void setName(final String newName) {
 		if ((newName == null) || ("".equals(newName))) {
@@ -938,5 +1052,63 @@ public class FlightConfiguration implements FlightConfigurableParameter<FlightCo
 		return buf.toString();
 	}
 	
+	
+	/**
+	 * The instances of a component in this configuration, together with the inputs they were computed from.
+	 */
+	private static class ComponentInstances {
+		private final RocketComponent component;
+		private final Transformation[] parentTransforms;
+		private final int instanceCount;
+		private final Coordinate position;
+		private final Coordinate[] offsets;
+		private final double[] angles;
+		private final boolean active;
+		private final boolean rendered;
+
+		// transformations of all instances, for each parent instance in turn
+		private final Transformation[] transforms;
+		// the instance contexts, or null if the component is not rendered
+		private final ArrayList<InstanceContext> contexts;
+
+		public ComponentInstances(RocketComponent component, Transformation[] parentTransforms, int instanceCount,
+				Coordinate position, Coordinate[] offsets, double[] angles, boolean active, boolean rendered,
+				Transformation[] transforms, ArrayList<InstanceContext> contexts) {
+			this.component = component;
+			this.parentTransforms = parentTransforms;
+			this.instanceCount = instanceCount;
+			this.position = position;
+			this.offsets = offsets;
+			this.angles = angles;
+			this.active = active;
+			this.rendered = rendered;
+			this.transforms = transforms;
+			this.contexts = contexts;
+		}
+
+		/**
+		 * Return whether these instances were computed from the given inputs.  The component and the parent
+		 * transformations are compared by identity, since components are equal to copies with the same ID,
+		 * and unchanged parents pass on their previous transformations.
+		 */
+		public boolean isValid(RocketComponent component, Transformation[] parentTransforms, int instanceCount,
+				Coordinate position, Coordinate[] offsets, double[] angles, boolean active, boolean rendered) {
+			if (component != this.component || parentTransforms != this.parentTransforms || instanceCount != this.instanceCount ||
+					active != this.active || rendered != this.rendered || !isSame(position, this.position) ||
+					offsets.length != this.offsets.length || !Arrays.equals(angles, this.angles)) {
+				return false;
+			}
+			for (int i = 0; i < offsets.length; i++) {
+				if (!isSame(offsets[i], this.offsets[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean isSame(Coordinate a, Coordinate b) {
+			return a.x == b.x && a.y == b.y && a.z == b.z;
+		}
+	}
  
 }
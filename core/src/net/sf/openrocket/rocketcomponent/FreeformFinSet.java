@@ -413,8 +413,8 @@ public class FreeformFinSet extends FinSet {
 	}
 	
 	@Override
-	protected RocketComponent copyWithOriginalID() {
-		RocketComponent c = super.copyWithOriginalID();
+	protected RocketComponent copyComponentWithOriginalID() {
+		RocketComponent c = super.copyComponentWithOriginalID();
 		
 		((FreeformFinSet) c).points = new ArrayList<>(this.points);
 		
@@ -407,13 +407,13 @@ public class InnerTube extends ThicknessRingComponent implements AxialPositionab
 	}
 	
 	@Override
-	protected RocketComponent copyWithOriginalID() {
-		InnerTube copy = (InnerTube) super.copyWithOriginalID();
+	protected RocketComponent copyComponentWithOriginalID() {
+		InnerTube copy = (InnerTube) super.copyComponentWithOriginalID();
 		if( copy == this ){
-			new IllegalArgumentException(" copyWithOriginalID should return a different instance! ");
+			new IllegalArgumentException(" copyComponentWithOriginalID should return a different instance! ");
 		}
 		if( copy.motors == this.motors ){
-			new IllegalArgumentException(" copyWithOriginalID should produce different motorSet instances! ");
+			new IllegalArgumentException(" copyComponentWithOriginalID should produce different motorSet instances! ");
 		}
 		
 		copy.motors = new MotorConfigurationSet( this.motors, copy );
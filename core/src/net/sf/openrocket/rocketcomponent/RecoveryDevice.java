@@ -146,8 +146,8 @@ public abstract class RecoveryDevice extends MassObject implements FlightConfigu
 	}
 
 	@Override
-	protected RocketComponent copyWithOriginalID() {
-		RecoveryDevice copy = (RecoveryDevice) super.copyWithOriginalID();
+	protected RocketComponent copyComponentWithOriginalID() {
+		RecoveryDevice copy = (RecoveryDevice) super.copyComponentWithOriginalID();
 		copy.deploymentConfigurations = new FlightConfigurableParameterSet<DeploymentConfiguration>(deploymentConfigurations);
 		return copy;
 	}
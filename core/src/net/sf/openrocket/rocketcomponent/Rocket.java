@@ -2,6 +2,7 @@ package net.sf.openrocket.rocketcomponent;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,15 +34,24 @@ public class Rocket extends ComponentAssembly {
 	protected static final double DEFAULT_REFERENCE_LENGTH = 0.01;
 
 	/**
-	 * List of component change listeners.
+	 * List of component change listeners.  The list is copied on modification, so events
+	 * are dispatched without copying it.
 	 */
-	private Set<EventListener> listenerList = new HashSet<>();
+	private Set<EventListener> listenerList = new CopyOnWriteArraySet<>();
 	
 	/**
-	 * When freezeList != null, events are not dispatched but stored in the list.
-	 * When the structure is thawed, a single combined event will be fired.
+	 * When freezeDepth > 0, events are not dispatched but coalesced into the frozen
+	 * event fields below.  When the structure is thawed, a single combined event will be fired.
 	 */
-	private List<ComponentChangeEvent> freezeList = null;
+	private int freezeDepth = 0;
+	/** The combined type of the events fired during the freeze, or zero if none were fired. */
+	private int frozenType = 0;
+	/** Whether any of the events fired during the freeze was a functional change. */
+	private boolean frozenFunctional = false;
+	/** The source of the last event fired during the freeze. */
+	private RocketComponent frozenSource = null;
+	/** The flight configurations to update after the freeze, or null to update all. */
+	private Set<FlightConfigurationId> frozenIds = null;
 	
 	
 	private int modID;
@@ -371,24 +381,39 @@ public class Rocket extends ComponentAssembly {
 	public Rocket copyWithOriginalID() {
 		final Rocket copyRocket = (Rocket) super.copyWithOriginalID();
 
-		// Rocket copy is cloned, so non-trivial members must be cloned as well:
-		copyRocket.stageMap = new ConcurrentHashMap<>();
 		for( Map.Entry<Integer,AxialStage> entry : this.stageMap.entrySet()){
 			final AxialStage stage = (AxialStage)copyRocket.findComponent(entry.getValue().getID());
 			copyRocket.stageMap.put(entry.getKey(), stage);
 		}
 
+		// the flight configurations were created before the stages were copied
+		for (FlightConfiguration config : copyRocket.configSet) {
+			config.update();
+		}
+		
+		return copyRocket;
+	}
+
+	@Override
+	protected RocketComponent copyComponentWithOriginalID() {
+		final Rocket copyRocket = (Rocket) super.copyComponentWithOriginalID();
+
+		// Rocket copy is cloned, so non-trivial members must be cloned as well:
+		copyRocket.stageMap = new ConcurrentHashMap<>();
+
 		// these flight configurations need to reference the _new_ Rocket copy
 		// the default value needs to be explicitly set, because it has different semantics
 		copyRocket.configSet = new FlightConfigurableParameterSet<>(new FlightConfiguration(copyRocket));
 		for (FlightConfigurationId key : this.configSet.getIds()) {
 			FlightConfiguration newCfg = new FlightConfiguration(copyRocket, key);
-			newCfg.setName(this.configSet.get(key).getName());			// Copy config name
+			newCfg.setName(this.configSet.get(key).getNameRaw());			// Copy config name
 			copyRocket.configSet.set(key, newCfg);
 		}
 
 		copyRocket.selectedConfiguration = copyRocket.configSet.get( this.getSelectedConfiguration().getId());
-		copyRocket.listenerList = new HashSet<>();
+		copyRocket.listenerList = new CopyOnWriteArraySet<>();
+		copyRocket.clearFrozenEvents();
+		copyRocket.freezeDepth = 0;
 		
 		return copyRocket;
 	}
@@ -412,7 +437,39 @@ public class Rocket extends ComponentAssembly {
 		
 		// Store list of components to invalidate after event has been fired
 		List<RocketComponent> toInvalidate = this.copyFrom(source);
+		this.stageMap = source.stageMap;
+		
+		loadRocketFrom(source, toInvalidate);
+	}
+	
+	/**
+	 * Load the rocket structure and all parameters from an undo snapshot.  Unlike
+	 * {@link #loadFrom(Rocket)}, the components whose state has not changed since the
+	 * snapshot was taken are kept in the rocket, and only the changed components are
+	 * replaced by copies of their snapshot state.
+	 * <p>
+	 * This method fires an undo change event, after which the replaced components are
+	 * invalidated.
+	 *
+	 * @param snapshot	the snapshot to load.
+	 */
+	public void loadFrom(RocketSnapshot snapshot) {
+		
+		// Store list of components to invalidate after event has been fired
+		List<RocketComponent> toInvalidate = snapshot.restore(this);
+		this.stageMap = new ConcurrentHashMap<>();
+		for (AxialStage stage : getSubStages()) {
+			this.stageMap.put(stage.getStageNumber(), stage);
+		}
 		
+		loadRocketFrom(snapshot.getRocket(), toInvalidate);
+	}
+	
+	/**
+	 * Load the rocket specific parameters from the source rocket, whose components have
+	 * already been loaded, and fire the undo change event.
+	 */
+	private void loadRocketFrom(Rocket source, List<RocketComponent> toInvalidate) {
 		int type = ComponentChangeEvent.UNDO_CHANGE | ComponentChangeEvent.NONFUNCTIONAL_CHANGE;
 		if (this.massModID != source.massModID)
 			type |= ComponentChangeEvent.MASS_CHANGE;
@@ -428,15 +485,28 @@ public class Rocket extends ComponentAssembly {
 		this.functionalModID = source.functionalModID;
 		this.refType = source.refType;
 		this.customReferenceLength = source.customReferenceLength;
-		this.stageMap = source.stageMap;
 
-		// these flight configurations need to reference the _this_ Rocket:
+		// these flight configurations need to reference the _this_ Rocket.  Existing configurations
+		// are reset and reused, which keeps the instances of the unchanged components.
+		Map<FlightConfigurationId, FlightConfiguration> previous = new HashMap<>(this.configSet.map);
+		FlightConfiguration defaultConfig = this.configSet.getDefault();
+		previous.remove(FlightConfigurationId.DEFAULT_VALUE_FCID);
+		defaultConfig.reset();
 		this.configSet.reset();
-		this.configSet.setDefault(new FlightConfiguration(this));
+		this.configSet.setDefault(defaultConfig);
 		for (FlightConfigurationId key : source.configSet.map.keySet()) {
-			FlightConfiguration newCfg = new FlightConfiguration(this, key);
-			newCfg.setName(source.configSet.get(key).getName());			// Copy config name
-			this.configSet.set(key, newCfg);
+			if (key == FlightConfigurationId.DEFAULT_VALUE_FCID) {
+				continue;
+			}
+			FlightConfiguration newCfg = previous.get(key);
+			if (newCfg == null) {
+				newCfg = new FlightConfiguration(this, key);
+			} else {
+				newCfg.reset();
+			}
+			newCfg.setName(source.configSet.get(key).getNameRaw());			// Copy config name
+			// The configurations are up to date, and all are updated by the change event below
+			this.configSet.map.put(key, newCfg);
 		}
 		this.selectedConfiguration = this.configSet.get(source.getSelectedConfiguration().getId());
 
@@ -463,7 +533,7 @@ public class Rocket extends ComponentAssembly {
 	 */
 	public void resetListeners() {
 		//		System.out.println("RESETTING LISTENER LIST of Rocket "+this);
-		listenerList = new HashSet<EventListener>();
+		listenerList = new CopyOnWriteArraySet<EventListener>();
 	}
 	
 	
@@ -515,6 +585,9 @@ public class Rocket extends ComponentAssembly {
 	}
 
 	protected void fireComponentChangeEvent(ComponentChangeEvent cce, final FlightConfigurationId[] ids) {
+		if (!cce.isUndoChange()) {
+			updateComponentModIDs(cce.getSource());
+		}
 		if (!this.eventsEnabled) {
 			return;
 		}
@@ -539,9 +612,9 @@ public class Rocket extends ComponentAssembly {
 			}
 
 			// Check whether frozen
-			if (freezeList != null) {
-				log.debug("Rocket is in frozen state, adding event " + cce + " info freeze list");
-				freezeList.add(cce);
+			if (freezeDepth > 0) {
+				log.trace("Rocket is in frozen state, coalescing event " + cce);
+				coalesceFrozenEvent(cce, ids);
 				return;
 			}
 
@@ -565,6 +638,21 @@ public class Rocket extends ComponentAssembly {
 		fireComponentChangeEvent(cce, null);
 	}
 	
+	/**
+	 * Update the modification ID of the component that is the source of a change event.
+	 * Events of the rocket itself may concern any component (for example the motor
+	 * configurations of the motor mounts), so then all components are marked as changed.
+	 */
+	private void updateComponentModIDs(Object source) {
+		if (source instanceof RocketComponent && source != this && ((RocketComponent) source).getRoot() == this) {
+			((RocketComponent) source).updateComponentModID();
+			return;
+		}
+		for (RocketComponent c : this) {
+			c.updateComponentModID();
+		}
+	}
+	
 	@Override
 	public void update(){
 		updateStageNumbers();
@@ -638,9 +726,8 @@ public class Rocket extends ComponentAssembly {
 	
 	
 	private void notifyAllListeners(final ComponentChangeEvent cce){
-		// Copy the list before iterating to prevent concurrent modification exceptions.
-		EventListener[] list = listenerList.toArray(new EventListener[0]);
-		for (EventListener l : list) {
+		// The copy-on-write list may be modified by the listeners while iterating
+		for (EventListener l : listenerList) {
             { // vvvv DEVEL vvvv
                 //System.err.println("notifying listener.  (type= "+l.getClass().getSimpleName()+")");
                 //System.err.println("                     (type= "+l.getClass().getName()+")");
@@ -654,10 +741,35 @@ public class Rocket extends ComponentAssembly {
 		}
 	}
 	
+	/**
+	 * Add an event fired during a freeze to the combined event fired when the rocket is thawed.
+	 */
+	private void coalesceFrozenEvent(ComponentChangeEvent cce, FlightConfigurationId[] ids) {
+		boolean first = (frozenSource == null);
+		frozenType |= cce.getType();
+		frozenFunctional |= cce.isFunctionalChange();
+		frozenSource = cce.getSource();
+		if (ids == null) {
+			frozenIds = null;
+		} else if (first) {
+			frozenIds = new LinkedHashSet<>(Arrays.asList(ids));
+		} else if (frozenIds != null) {
+			frozenIds.addAll(Arrays.asList(ids));
+		}
+	}
+	
+	private void clearFrozenEvents() {
+		frozenType = 0;
+		frozenFunctional = false;
+		frozenSource = null;
+		frozenIds = null;
+	}
+	
 	/**
 	 * Freezes the rocket structure from firing any events.  This may be performed to
 	 * combine several actions on the structure into a single large action.
-	 * <code>thaw()</code> must always be called afterwards.
+	 * <code>thaw()</code> must always be called afterwards.  Freezes may be nested, in
+	 * which case the events are fired when the outermost freeze is thawed.
 	 *
 	 * NOTE:  Always use a try/finally to ensure <code>thaw()</code> is called:
 	 * <pre>
@@ -671,48 +783,69 @@ public class Rocket extends ComponentAssembly {
 	 * </pre>
 	 *
 	 * @see #thaw()
+	 * @see #batchUpdate(Runnable)
 	 */
 	public void freeze() {
 		checkState();
-		if (freezeList == null) {
-			freezeList = new LinkedList<>();
+		if (freezeDepth == 0) {
+			clearFrozenEvents();
 			log.debug("Freezing Rocket");
-		} else {
-			Application.getExceptionHandler().handleErrorCondition("Attempting to freeze Rocket when it is already frozen, " +
-					"freezeList=" + freezeList);
 		}
+		freezeDepth++;
 	}
 	
 	/**
 	 * Thaws a frozen rocket structure and fires a combination of the events fired during
 	 * the freeze.  The event type is a combination of those fired and the source is the
-	 * last component to have been an event source.
+	 * last component to have been an event source.  Nested freezes fire no events.
 	 *
 	 * @see #freeze()
 	 */
 	public void thaw() {
 		checkState();
-		if (freezeList == null) {
+		if (freezeDepth == 0) {
 			Application.getExceptionHandler().handleErrorCondition("Attempting to thaw Rocket when it is not frozen");
 			return;
 		}
-		if (freezeList.size() == 0) {
-			log.warn("Thawing rocket with no changes made");
-			freezeList = null;
+		freezeDepth--;
+		if (freezeDepth > 0) {
+			return;
+		}
+		if (frozenSource == null) {
+			log.debug("Thawing rocket with no changes made");
 			return;
 		}
 		
-		log.debug("Thawing rocket, freezeList=" + freezeList);
+		log.debug("Thawing rocket, frozen event type=" + frozenType + " source=" + frozenSource);
 		
-		int type = 0;
-		Object c = null;
-		for (ComponentChangeEvent e : freezeList) {
-			type = type | e.getType();
-			c = e.getSource();
+		// The combined event is a functional change if any of the events was
+		int type = frozenType;
+		if (frozenFunctional) {
+			type &= ~ComponentChangeEvent.NONFUNCTIONAL_CHANGE;
 		}
-		freezeList = null;
+		ComponentChangeEvent cce = new ComponentChangeEvent(frozenSource, type);
+		FlightConfigurationId[] ids = (frozenIds == null) ? null : frozenIds.toArray(new FlightConfigurationId[0]);
+		clearFrozenEvents();
 		
-		fireComponentChangeEvent(new ComponentChangeEvent((RocketComponent) c, type));
+		fireComponentChangeEvent(cce, ids);
+	}
+	
+	/**
+	 * Perform a number of changes to the rocket structure, firing a single combined change
+	 * event after all of them.  The changes may include further batch updates.
+	 * <p>
+	 * This is equivalent to calling <code>update.run()</code> between {@link #freeze()} and
+	 * {@link #thaw()}.  The event is fired also if the update throws an exception.
+	 *
+	 * @param update	the changes to perform.
+	 */
+	public void batchUpdate(Runnable update) {
+		freeze();
+		try {
+			update.run();
+		} finally {
+			thaw();
+		}
 	}
 	
 	
@@ -942,6 +1075,14 @@ public class Rocket extends ComponentAssembly {
 		return (AxialStage.class.equals(type));
 	}
 
+	/**
+	 * Return whether change events are enabled.  While they are disabled, the modification
+	 * ID's are not updated when the rocket is changed.
+	 */
+	public boolean isEventsEnabled() {
+		return eventsEnabled;
+	}
+	
 	/** 
 	 * STUB.  would enable the monitoring, relay and production of events in this rocket instance.
 	 */
@@ -136,6 +136,14 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 	private boolean bypassComponentChangeEvent = false;
 	
 	
+	/**
+	 * The modification ID of this component.  It is updated whenever a change event is fired
+	 * for this component, so two copies with the same component ID and modification ID
+	 * have the same state.
+	 */
+	private int componentModID = UniqueID.next();
+	
+	
 	/**
 	 * Used to invalidate the component after calling {@link #copyFrom(RocketComponent)}.
 	 */
@@ -393,10 +401,8 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 	 * undo/redo mechanism.  This method should not be used for other purposes,
 	 * such as copy/paste.  This method does not fire any events.
 	 * <p>
-	 * This method must be overridden by any component that refers to mutable objects,
-	 * or if some fields should not be copied.  This should be performed by
-	 * <code>RocketComponent c = super.copyWithOriginalID();</code> and then cloning/modifying
-	 * the appropriate fields.
+	 * The components are copied by {@link #copyComponentWithOriginalID()}, which must be
+	 * overridden by any component that refers to mutable objects.
 	 * <p>
 	 * This is not performed as serializing/deserializing for performance reasons.
 	 *
@@ -406,19 +412,7 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 		mutex.lock("copyWithOriginalID");
 		try {
 			checkState();
-			RocketComponent clone;
-			try {
-				clone = (RocketComponent) this.clone();
-			} catch (CloneNotSupportedException e) {
-				throw new BugException("CloneNotSupportedException encountered, report a bug!", e);
-			}
-			
-			// Reset the mutex
-			clone.mutex = SafetyMutex.newInstance();
-			
-			// Reset all parent/child information
-			clone.parent = null;
-			clone.children = new ArrayList<RocketComponent>();
+			RocketComponent clone = copyComponentWithOriginalID();
 			
 			// Add copied children to the structure without firing events.
 			for (RocketComponent child : this.children) {
@@ -437,6 +431,37 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 		}
 	}
 
+	/**
+	 * Make a copy of this component without its children while maintaining the component ID.
+	 * The copy has no parent and no children.  This is used by {@link #copyWithOriginalID()}
+	 * for each component of the copied structure, and by {@link RocketSnapshot} for copying
+	 * single components.  This method does not fire any events.
+	 * <p>
+	 * This method must be overridden by any component that refers to mutable objects,
+	 * or if some fields should not be copied.  This should be performed by
+	 * <code>RocketComponent c = super.copyComponentWithOriginalID();</code> and then
+	 * cloning/modifying the appropriate fields.
+	 *
+	 * @return A copy of this component without children.
+	 */
+	protected RocketComponent copyComponentWithOriginalID() {
+		RocketComponent clone;
+		try {
+			clone = (RocketComponent) this.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new BugException("CloneNotSupportedException encountered, report a bug!", e);
+		}
+		
+		// Reset the mutex
+		clone.mutex = SafetyMutex.newInstance();
+		
+		// Reset all parent/child information
+		clone.parent = null;
+		clone.children = new ArrayList<RocketComponent>();
+		
+		return clone;
+	}
+
 	@Override
 	public RocketComponent clone() throws CloneNotSupportedException {
 		RocketComponent clone = (RocketComponent) super.clone();
@@ -2277,6 +2302,10 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 	 */
 	protected void fireComponentChangeEvent(ComponentChangeEvent e) {
 		checkState();
+		if (!e.isUndoChange()) {
+			// Also when the event is not propagated, the component state has changed
+			updateComponentModID();
+		}
 		if (parent == null || bypassComponentChangeEvent) {
 			/* Ignore if root invalid. */
 			return;
@@ -2296,6 +2325,19 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 		fireComponentChangeEvent(new ComponentChangeEvent(this, type));
 	}
 
+	/**
+	 * Return the modification ID of this component.  The ID changes whenever a (non-undo)
+	 * change event is fired for this component, also when the event is not propagated
+	 * to the rocket.
+	 */
+	/*package-local*/ int getComponentModID() {
+		return componentModID;
+	}
+	
+	/*package-local*/ void updateComponentModID() {
+		componentModID = UniqueID.next();
+	}
+
 	public void setBypassChangeEvent(boolean newValue) {
 		this.bypassComponentChangeEvent = newValue;
 	}
@@ -2573,7 +2615,22 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 		this.checkComponentStructure();
 		src.checkComponentStructure();
 		
-		// Set all parameters
+		copyParametersFrom(src);
+		
+		// Add source components to invalidation tree
+		for (RocketComponent c : src) {
+			toInvalidate.add(c);
+		}
+		
+		return toInvalidate;
+	}
+	
+	/**
+	 * Set all parameters of this component common to all components to those of
+	 * <code>src</code>.  Used by {@link #copyFrom(RocketComponent)} and when restoring
+	 * a {@link RocketSnapshot}.
+	 */
+	/*package-local*/ void copyParametersFrom(RocketComponent src) {
 		this.length = src.length;
 		this.axialMethod = src.axialMethod;
 		this.position = src.position;
@@ -2599,13 +2656,7 @@ public abstract class RocketComponent implements ChangeSource, Cloneable, Iterab
 			icch.copyFrom(((InsideColorComponent) src).getInsideColorComponentHandler());
 			((InsideColorComponent) this).setInsideColorComponentHandler(icch);
 		}
-		
-		// Add source components to invalidation tree
-		for (RocketComponent c : src) {
-			toInvalidate.add(c);
-		}
-		
-		return toInvalidate;
+		this.componentModID = src.componentModID;
 	}
 	
 	protected void invalidate() {
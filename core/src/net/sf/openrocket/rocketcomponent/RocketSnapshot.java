@@ -0,0 +1,244 @@
+package net.sf.openrocket.rocketcomponent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the state of a rocket, used for the undo history.
+ * <p>
+ * The snapshot stores each component as a copy without children, in a tree of snapshot nodes
+ * that mirrors the component tree.  A snapshot is taken relative to a previous snapshot, and
+ * shares the component copies and subtrees of all components that have not changed since it.
+ * Whether a component has changed is determined from its modification ID, which is updated
+ * whenever a change event is fired for the component.
+ * <p>
+ * Only the state of the component itself is tracked this way.  The flight configurable parameters
+ * (motor, deployment and stage separation configurations) are edited without change events, so
+ * components holding them ({@link FlightConfigurableComponent}s:  stages, motor mounts and recovery
+ * devices) are copied for every snapshot, as is the rocket with its flight configurations.  The
+ * memory required by a snapshot is therefore proportional to the size of the edit and the number
+ * of these components, not to the size of the rocket.
+ * <p>
+ * A snapshot is loaded into a rocket using {@link Rocket#loadFrom(RocketSnapshot)}, which
+ * likewise replaces only the components that differ from the snapshot.
+ */
+public final class RocketSnapshot {
+
+	private final Node root;
+
+	private RocketSnapshot(Node root) {
+		this.root = root;
+	}
+
+
+	/**
+	 * Take a snapshot of the current state of a rocket.
+	 *
+	 * @param rocket	the rocket.
+	 * @param previous	a previous snapshot of the rocket whose unchanged parts are shared,
+	 * 					or <code>null</code>.
+	 * @return			the snapshot.
+	 */
+	public static RocketSnapshot create(Rocket rocket, RocketSnapshot previous) {
+		rocket.checkState();
+
+		Map<String, Node> previousNodes = new HashMap<String, Node>();
+		if (previous != null) {
+			for (Node child : previous.root.children) {
+				child.collect(previousNodes);
+			}
+		}
+
+		// The rocket itself holds the flight configurations, whose changes are not tracked
+		// by its modification ID, so it is always copied.
+		Node[] children = new Node[rocket.getChildCount()];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = snapshot(rocket.getChild(i), previousNodes);
+		}
+		return new RocketSnapshot(new Node(rocket.copyComponentWithOriginalID(), children));
+	}
+
+	private static Node snapshot(RocketComponent component, Map<String, Node> previousNodes) {
+		Node previous = previousNodes.get(component.getID());
+		if (previous != null && !previous.isStateOf(component)) {
+			previous = null;
+		}
+
+		boolean unchanged = (previous != null) && (previous.children.length == component.getChildCount());
+		Node[] children = new Node[component.getChildCount()];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = snapshot(component.getChild(i), previousNodes);
+			unchanged = unchanged && (children[i] == previous.children[i]);
+		}
+
+		if (unchanged) {
+			return previous;
+		}
+		if (previous != null) {
+			return new Node(previous.component, children);
+		}
+		return new Node(component.copyComponentWithOriginalID(), children);
+	}
+
+
+	/**
+	 * Return the modification ID of the rocket at the time of the snapshot.
+	 */
+	public int getModID() {
+		return getRocket().getModID();
+	}
+
+	/**
+	 * Return the number of components in this snapshot, including the rocket.
+	 */
+	public int getComponentCount() {
+		return root.count();
+	}
+
+	/**
+	 * Return the number of component copies this snapshot shares with another snapshot.
+	 */
+	public int getSharedComponentCount(RocketSnapshot other) {
+		Map<RocketComponent, Boolean> copies = new IdentityHashMap<RocketComponent, Boolean>();
+		other.root.collectCopies(copies);
+		return root.countShared(copies);
+	}
+
+	/**
+	 * Return a new rocket with the state of this snapshot.  The rocket is a copy with the
+	 * original component ID's, as returned by {@link Rocket#copyWithOriginalID()}.
+	 */
+	public Rocket toRocket() {
+		Rocket rocket = (Rocket) root.component.copyComponentWithOriginalID();
+		rocket.loadFrom(this);
+		return rocket;
+	}
+
+
+	/**
+	 * Return the copy of the rocket without children.
+	 */
+	/*package-local*/ Rocket getRocket() {
+		return (Rocket) root.component;
+	}
+
+	/**
+	 * Restore the component structure and the parameters common to all components of a rocket
+	 * from this snapshot.  Components of the rocket with the same state as in the snapshot are
+	 * kept, the others are replaced by copies of the snapshot components.
+	 *
+	 * @param rocket	the rocket to restore.
+	 * @return			the components that are no longer part of the rocket, and should be
+	 * 					invalidated after the change event has been fired.
+	 */
+	/*package-local*/ List<RocketComponent> restore(Rocket rocket) {
+		rocket.checkState();
+
+		Map<String, RocketComponent> current = new HashMap<String, RocketComponent>();
+		for (RocketComponent c : rocket) {
+			if (c != rocket) {
+				current.put(c.getID(), c);
+			}
+		}
+
+		Map<RocketComponent, Boolean> kept = new IdentityHashMap<RocketComponent, Boolean>();
+		restoreChildren(rocket, root, current, kept);
+		rocket.copyParametersFrom(root.component);
+		rocket.checkComponentStructure();
+
+		List<RocketComponent> toInvalidate = new ArrayList<RocketComponent>();
+		for (RocketComponent c : current.values()) {
+			if (!kept.containsKey(c)) {
+				toInvalidate.add(c);
+			}
+		}
+		return toInvalidate;
+	}
+
+	private static void restoreChildren(RocketComponent component, Node node, Map<String, RocketComponent> current,
+			Map<RocketComponent, Boolean> kept) {
+		for (RocketComponent child : component.children) {
+			if (child.parent == component) {
+				child.parent = null;
+			}
+		}
+		component.children.clear();
+
+		for (Node childNode : node.children) {
+			RocketComponent child = current.get(childNode.component.getID());
+			if (child != null && childNode.isStateOf(child)) {
+				kept.put(child, Boolean.TRUE);
+			} else {
+				child = childNode.component.copyComponentWithOriginalID();
+			}
+			if (child.parent != null) {
+				// Moved from a parent restored earlier
+				child.parent.children.remove(child);
+			}
+			component.children.add(child);
+			child.parent = component;
+		}
+
+		for (int i = 0; i < node.children.length; i++) {
+			restoreChildren(component.children.get(i), node.children[i], current, kept);
+		}
+	}
+
+
+	/**
+	 * A node of the snapshot tree.  Nodes are immutable and may be shared between snapshots.
+	 */
+	private static final class Node {
+		private final RocketComponent component;
+		private final Node[] children;
+
+		Node(RocketComponent component, Node[] children) {
+			this.component = component;
+			this.children = children;
+		}
+
+		/**
+		 * Return whether the component copy of this node has the state of the given component.
+		 */
+		boolean isStateOf(RocketComponent c) {
+			if (c instanceof FlightConfigurableComponent) {
+				// Flight configurable parameters change without updating the modification ID
+				return false;
+			}
+			return (component.getClass() == c.getClass()) && (component.getComponentModID() == c.getComponentModID());
+		}
+
+		void collect(Map<String, Node> nodes) {
+			nodes.put(component.getID(), this);
+			for (Node child : children) {
+				child.collect(nodes);
+			}
+		}
+
+		void collectCopies(Map<RocketComponent, Boolean> copies) {
+			copies.put(component, Boolean.TRUE);
+			for (Node child : children) {
+				child.collectCopies(copies);
+			}
+		}
+
+		int count() {
+			int n = 1;
+			for (Node child : children) {
+				n += child.count();
+			}
+			return n;
+		}
+
+		int countShared(Map<RocketComponent, Boolean> copies) {
+			int n = copies.containsKey(component) ? 1 : 0;
+			for (Node child : children) {
+				n += child.countShared(copies);
+			}
+			return n;
+		}
+	}
+}
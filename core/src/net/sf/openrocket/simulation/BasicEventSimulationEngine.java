@@ -38,8 +38,9 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 	private static final Translator trans = Application.getTranslator();
 	private static final Logger log = LoggerFactory.getLogger(BasicEventSimulationEngine.class);
 	
-	// TODO: MEDIUM: Allow selecting steppers
-	private final SimulationStepper flightStepper  = new RK4SimulationStepper();
+	private final SimulationStepper rk4Stepper = new RK4SimulationStepper();
+	private final SimulationStepper dormandPrinceStepper = new DormandPrinceSimulationStepper();
+	private SimulationStepper flightStepper = rk4Stepper;
 	private final SimulationStepper landingStepper = new BasicLandingStepper();
 	private final SimulationStepper tumbleStepper  = new BasicTumbleStepper();
 	private final SimulationStepper groundStepper  = new GroundStepper();
@@ -69,6 +70,19 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 		// Set up flight data
 		flightData = new FlightData();
 		
+		// Discard any branches left over from a previous, aborted run so the engine can be reused
+		toSimulate.clear();
+		
+		// Select the stepper for the flight phases
+		switch (simulationConditions.getIntegrationMethod()) {
+		case DORMAND_PRINCE:
+			flightStepper = dormandPrinceStepper;
+			break;
+		default:
+			flightStepper = rk4Stepper;
+			break;
+		}
+		
 		// Set up rocket configuration
 		this.fcid = simulationConditions.getFlightConfigurationID();
 		FlightConfiguration origConfig = simulationConditions.getRocket().getFlightConfiguration(this.fcid);
@@ -97,7 +111,7 @@ public class BasicEventSimulationEngine implements SimulationEngine {
 		{
 			// main simulation branch 
 			final String branchName = simulationConfig.getRocket().getTopmostStage(currentStatus.getConfiguration()).getName();
-			currentStatus.setFlightData(new FlightDataBranch( branchName, FlightDataType.TYPE_TIME));
+			currentStatus.setFlightData(new FlightDataBranch( branchName, simulationConditions.getRecordedTypes(), FlightDataType.TYPE_TIME));
 		}
 		toSimulate.push(currentStatus);
 		
@@ -0,0 +1,321 @@
+package net.sf.openrocket.simulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.l10n.Translator;
+import net.sf.openrocket.simulation.exception.SimulationCalculationException;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.startup.Application;
+import net.sf.openrocket.util.Coordinate;
+import net.sf.openrocket.util.MathUtil;
+import net.sf.openrocket.util.Quaternion;
+import net.sf.openrocket.util.WorldCoordinate;
+
+/**
+ * A flight stepper using the embedded Runge-Kutta 5(4) pair of Dormand and Prince.
+ * <p>
+ * The difference between the fifth and fourth order solutions is used as an estimate of
+ * the local error, and the time step is adapted so that the error stays within fixed
+ * tolerances.  This allows long time steps during the coast phase, where the flight is
+ * smooth, while still taking short steps during launch and burn.  The force model is
+ * the same as in {@link RK4SimulationStepper}.
+ * <p>
+ * When the vertical velocity changes sign during a step, the step is shortened so that
+ * it ends at apogee.  The apogee time is located using a cubic Hermite interpolant of
+ * the vertical velocity over the step (the dense output of the method).
+ */
+public class DormandPrinceSimulationStepper extends RK4SimulationStepper {
+
+	private static final Logger log = LoggerFactory.getLogger(DormandPrinceSimulationStepper.class);
+	private static final Translator trans = Application.getTranslator();
+
+	/*
+	 * Error tolerances.  The scaled error of each state component is
+	 * error / (absolute + RELATIVE_TOLERANCE * |value|).
+	 */
+	private static final double RELATIVE_TOLERANCE = 1e-6;
+	private static final double POSITION_TOLERANCE = 1e-3;
+	private static final double VELOCITY_TOLERANCE = 1e-3;
+	private static final double ROTATION_VELOCITY_TOLERANCE = 1e-2;
+	private static final double ORIENTATION_TOLERANCE = 1e-3;
+
+	/** Safety factor applied to the optimal time step. */
+	private static final double SAFETY = 0.9;
+	/** Maximum factor by which the time step may shrink in one adjustment. */
+	private static final double MIN_SCALE = 0.2;
+	/** Maximum factor by which the time step may grow in one step. */
+	private static final double MAX_SCALE = 5.0;
+	/** Maximum time step as a multiple of the user-specified time step. */
+	private static final double MAX_TIME_STEP_FACTOR = 20;
+
+
+	/*
+	 * Dormand-Prince coefficients.  A[i] are the coefficients of stage i+1, B the fifth-order
+	 * solution weights (equal to the last stage, which is evaluated at the new state) and E the
+	 * difference between the fifth and fourth order weights.
+	 */
+	private static final double[] C = { 0, 1.0 / 5, 3.0 / 10, 4.0 / 5, 8.0 / 9, 1, 1 };
+	private static final double[][] A = {
+			{},
+			{ 1.0 / 5 },
+			{ 3.0 / 40, 9.0 / 40 },
+			{ 44.0 / 45, -56.0 / 15, 32.0 / 9 },
+			{ 19372.0 / 6561, -25360.0 / 2187, 64448.0 / 6561, -212.0 / 729 },
+			{ 9017.0 / 3168, -355.0 / 33, 46732.0 / 5247, 49.0 / 176, -5103.0 / 18656 },
+			{ 35.0 / 384, 0, 500.0 / 1113, 125.0 / 192, -2187.0 / 6784, 11.0 / 84 }
+	};
+	private static final double[] B = A[6];
+	private static final double[] E = {
+			71.0 / 57600, 0, -71.0 / 16695, 71.0 / 1920, -17253.0 / 339200, 22.0 / 525, -1.0 / 40
+	};
+
+	/*
+	 * State increments are stored as 12 primitive values:  position (0-2), velocity (3-5),
+	 * rotation velocity (6-8) and rotation vector of the orientation (9-11).
+	 */
+	private static final int STATE_SIZE = 12;
+
+
+	private final DataStore store = new DataStore();
+	private final RK4Parameters[] k = new RK4Parameters[7];
+	private final double[] increment = new double[STATE_SIZE];
+	private final double[] error = new double[STATE_SIZE];
+
+	/** The time step proposed by the previous step, or NaN at the start of a branch. */
+	private double nextTimeStep = Double.NaN;
+
+
+	public DormandPrinceSimulationStepper() {
+		for (int i = 0; i < k.length; i++) {
+			k[i] = new RK4Parameters();
+		}
+	}
+
+
+	@Override
+	public RK4SimulationStatus initialize(SimulationStatus original) {
+		nextTimeStep = Double.NaN;
+		return super.initialize(original);
+	}
+
+
+	@Override
+	public void step(SimulationStatus simulationStatus, double maxTimeStep) throws SimulationException {
+
+		RK4SimulationStatus status = (RK4SimulationStatus) simulationStatus;
+		SimulationConditions conditions = status.getSimulationConditions();
+		store.reset();
+
+		/*
+		 * Limits for the time step:  the step is at least 1/20th of the user-selected time step
+		 * (as in the RK4 stepper) and at most MAX_TIME_STEP_FACTOR times it.  While on the
+		 * launch rod the same limits as in the RK4 stepper apply.
+		 */
+		double userTimeStep = MathUtil.max(conditions.getTimeStep(), MIN_TIME_STEP);
+		double minTimeStep = conditions.getTimeStep() / 20;
+		double maxStep = MathUtil.min(maxTimeStep, MAX_TIME_STEP_FACTOR * userTimeStep);
+		if (!status.isLaunchRodCleared()) {
+			maxStep = MathUtil.min(maxStep, userTimeStep / 5,
+					conditions.getLaunchRodLength() / status.getRocketVelocity().length() / 10);
+		}
+
+		double h = Double.isNaN(nextTimeStep) ? userTimeStep : nextTimeStep;
+		h = MathUtil.max(MathUtil.min(h, maxStep), minTimeStep);
+
+		//// First stage, k1 = f(t, y), which does not depend on the time step
+
+		computeDerivatives(status, k[0]);
+
+		// Limit the pitch angle change during one step, as in the RK4 stepper
+		double angleLimit = conditions.getMaximumAngleStep() / store.lateralPitchRate;
+		if (h > angleLimit) {
+			log.trace("Time step " + h + " limited by maximum angle step to " + angleLimit);
+			h = MathUtil.max(angleLimit, minTimeStep);
+		}
+
+		boolean rejected = false;
+		boolean apogeeLimited = false;
+		while (true) {
+			checkNaN(h);
+
+			for (int stage = 1; stage < k.length; stage++) {
+				RK4SimulationStatus status2 = status.clone();
+				status2.setSimulationTime(status.getSimulationTime() + C[stage] * h);
+				combine(A[stage], h, increment);
+				applyIncrement(status, status2, increment);
+				computeDerivatives(status2, k[stage]);
+			}
+
+			combine(B, h, increment);
+			combine(E, h, error);
+			double err = errorNorm(status, increment, error);
+
+			if (err > 1 && h > minTimeStep) {
+				double scale = MathUtil.max(SAFETY * Math.pow(err, -0.2), MIN_SCALE);
+				log.trace("Rejected time step " + h + ", error " + err);
+				h = MathUtil.max(h * scale, minTimeStep);
+				rejected = true;
+				continue;
+			}
+
+			if (apogeeLimited) {
+				break;
+			}
+
+			// Propose the next time step, never growing directly after a rejected step
+			double scale = (err == 0) ? MAX_SCALE : MathUtil.clamp(SAFETY * Math.pow(err, -0.2), MIN_SCALE, MAX_SCALE);
+			if (rejected) {
+				scale = MathUtil.min(scale, 1);
+			}
+			nextTimeStep = h * scale;
+
+			/*
+			 * End the step at apogee if the vertical velocity changes sign during the step,
+			 * so that the maximum altitude is not stepped over.
+			 */
+			if (status.isLaunchRodCleared()) {
+				double vz0 = status.getRocketVelocity().z;
+				double vz1 = vz0 + increment[5];
+				if (vz0 > 0 && vz1 < 0) {
+					double t = findZeroCrossing(vz0, k[0].a[2] * h, vz1, k[6].a[2] * h);
+					if (t * h >= minTimeStep && t < 0.99) {
+						log.trace("Shortening time step " + h + " to " + (t * h) + " to end at apogee");
+						h = t * h;
+						apogeeLimited = true;
+						continue;
+					}
+				}
+			}
+			break;
+		}
+		store.timestep = h;
+
+		//// Take the step using the fifth-order solution
+		applyIncrement(status, status, increment);
+		status.setRocketOrientationQuaternion(status.getRocketOrientationQuaternion().normalizeIfNecessary());
+
+		WorldCoordinate w = conditions.getLaunchSite();
+		w = conditions.getGeodeticComputation().addCoordinate(w, status.getRocketPosition());
+		status.setRocketWorldPosition(w);
+
+		status.setSimulationTime(status.getSimulationTime() + h);
+		status.setPreviousTimeStep(h);
+
+		// The last stage was evaluated at the new state, so the data store describes it
+		storeData(status, store);
+
+		// Verify that values don't run out of range
+		if (status.getRocketVelocity().length2() > 1e18 ||
+				status.getRocketPosition().length2() > 1e18 ||
+				status.getRocketRotationVelocity().length2() > 1e18) {
+			throw new SimulationCalculationException(trans.get("error.valuesTooLarge"));
+		}
+	}
+
+
+	/**
+	 * Compute the derivatives at the given status.  The thrust is evaluated at the time of
+	 * the status instead of being averaged over the whole step, so that the error estimate
+	 * also covers changes in thrust.
+	 */
+	private void computeDerivatives(RK4SimulationStatus status, RK4Parameters params)
+			throws SimulationException {
+		store.thrustForce = calculateAverageThrust(status, 0, status.getPreviousAcceleration(),
+				status.getPreviousAtmosphericConditions(), false);
+		computeParameters(status, store, params);
+	}
+
+	/**
+	 * Compute the state increment h * sum(coeff[j] * k[j]) into <code>dest</code>.
+	 */
+	private void combine(double[] coeff, double h, double[] dest) {
+		for (int i = 0; i < 3; i++) {
+			double p = 0, v = 0, rv = 0, o = 0;
+			for (int j = 0; j < coeff.length; j++) {
+				double c = coeff[j];
+				if (c != 0) {
+					p += c * k[j].v[i];
+					v += c * k[j].a[i];
+					rv += c * k[j].ra[i];
+					o += c * k[j].rv[i];
+				}
+			}
+			dest[i] = p * h;
+			dest[3 + i] = v * h;
+			dest[6 + i] = rv * h;
+			dest[9 + i] = o * h;
+		}
+	}
+
+	/**
+	 * Set the state of <code>target</code> to that of <code>origin</code> advanced by the increment.
+	 * <code>origin</code> and <code>target</code> may be the same object.
+	 */
+	private static void applyIncrement(RK4SimulationStatus origin, RK4SimulationStatus target, double[] d) {
+		Coordinate p = origin.getRocketPosition();
+		target.setRocketPosition(new Coordinate(p.x + d[0], p.y + d[1], p.z + d[2]));
+		Coordinate v = origin.getRocketVelocity();
+		target.setRocketVelocity(new Coordinate(v.x + d[3], v.y + d[4], v.z + d[5]));
+		Coordinate rv = origin.getRocketRotationVelocity();
+		target.setRocketRotationVelocity(new Coordinate(rv.x + d[6], rv.y + d[7], rv.z + d[8]));
+		target.setRocketOrientationQuaternion(origin.getRocketOrientationQuaternion().multiplyLeft(
+				Quaternion.rotation(d[9], d[10], d[11])));
+	}
+
+	/**
+	 * Return the root-mean-square of the error estimate scaled by the tolerances.  A value
+	 * of at most one means the step is accurate enough.
+	 */
+	private static double errorNorm(RK4SimulationStatus status, double[] increment, double[] error) {
+		Coordinate p = status.getRocketPosition();
+		Coordinate v = status.getRocketVelocity();
+		Coordinate rv = status.getRocketRotationVelocity();
+		double sum = 0;
+		sum += scaledError(p.x, increment[0], error[0], POSITION_TOLERANCE);
+		sum += scaledError(p.y, increment[1], error[1], POSITION_TOLERANCE);
+		sum += scaledError(p.z, increment[2], error[2], POSITION_TOLERANCE);
+		sum += scaledError(v.x, increment[3], error[3], VELOCITY_TOLERANCE);
+		sum += scaledError(v.y, increment[4], error[4], VELOCITY_TOLERANCE);
+		sum += scaledError(v.z, increment[5], error[5], VELOCITY_TOLERANCE);
+		sum += scaledError(rv.x, increment[6], error[6], ROTATION_VELOCITY_TOLERANCE);
+		sum += scaledError(rv.y, increment[7], error[7], ROTATION_VELOCITY_TOLERANCE);
+		sum += scaledError(rv.z, increment[8], error[8], ROTATION_VELOCITY_TOLERANCE);
+		for (int i = 9; i < STATE_SIZE; i++) {
+			sum += MathUtil.pow2(error[i] / ORIENTATION_TOLERANCE);
+		}
+		return Math.sqrt(sum / STATE_SIZE);
+	}
+
+	private static double scaledError(double value, double increment, double error, double tolerance) {
+		double scale = tolerance + RELATIVE_TOLERANCE * MathUtil.max(Math.abs(value), Math.abs(value + increment));
+		return MathUtil.pow2(error / scale);
+	}
+
+	/**
+	 * Find the zero of the cubic Hermite interpolant with values y0, y1 and scaled derivatives
+	 * d0, d1 at the ends of the unit interval.  The values must have opposite signs.
+	 *
+	 * @return	the location of the zero within [0, 1].
+	 */
+	static double findZeroCrossing(double y0, double d0, double y1, double d1) {
+		double lo = 0;
+		double hi = 1;
+		for (int i = 0; i < 40; i++) {
+			double t = (lo + hi) / 2;
+			if (Math.signum(hermite(y0, d0, y1, d1, t)) == Math.signum(y0)) {
+				lo = t;
+			} else {
+				hi = t;
+			}
+		}
+		return (lo + hi) / 2;
+	}
+
+	private static double hermite(double y0, double d0, double y1, double d1, double t) {
+		double t2 = t * t;
+		double t3 = t2 * t;
+		return (2 * t3 - 3 * t2 + 1) * y0 + (t3 - 2 * t2 + t) * d0 + (-2 * t3 + 3 * t2) * y1 + (t3 - t2) * d1;
+	}
+
+}
@@ -204,46 +204,52 @@ public class FlightData {
 		List<Double> time = branch.get(FlightDataType.TYPE_TIME);
 		List<Double> altitude = branch.get(FlightDataType.TYPE_ALTITUDE);
 		
-		if (time == null || altitude == null) {
+		if (time != null && altitude != null) {
+			int index = 0;
+			for (Double alt : altitude) {
+				if (alt != null) {
+					if (MathUtil.equals(alt, maxAltitude))
+						break;
+				}
+				
+				index++;
+			}
+			if (index < time.size())
+				timeToApogee = time.get(index);
+			else
+				timeToApogee = Double.NaN;
+		} else if (!branch.isRecordingAllTypes()) {
+			// Summary-only branch, use the apogee event
+			FlightEvent apogee = branch.getFirstEvent(FlightEvent.Type.APOGEE);
+			timeToApogee = (apogee != null) ? apogee.getTime() : Double.NaN;
+		} else {
 			timeToApogee = Double.NaN;
 			maxAcceleration = Double.NaN;
 			return;
 		}
-		int index = 0;
-		for (Double alt : altitude) {
-			if (alt != null) {
-				if (MathUtil.equals(alt, maxAltitude))
-					break;
-			}
-			
-			index++;
-		}
-		if (index < time.size())
-			timeToApogee = time.get(index);
-		else
-			timeToApogee = Double.NaN;
 		
 
 		// Launch rod velocity + deployment velocity + ground hit velocity
 		for (FlightEvent event : branch.getEvents()) {
 			if (event.getType() == FlightEvent.Type.LAUNCHROD) {
-				double t = event.getTime();
-				List<Double> velocity = branch.get(FlightDataType.TYPE_VELOCITY_TOTAL);
-				launchRodVelocity = MathUtil.interpolate( time, velocity, t);
+				launchRodVelocity = branch.getValueAtEvent(FlightDataType.TYPE_VELOCITY_TOTAL, event);
 			} else if ( event.getType() == FlightEvent.Type.RECOVERY_DEVICE_DEPLOYMENT) {
-				double t = event.getTime();
-				List<Double> velocity = branch.get(FlightDataType.TYPE_VELOCITY_TOTAL);
-				deploymentVelocity = MathUtil.interpolate( time, velocity, t);
+				deploymentVelocity = branch.getValueAtEvent(FlightDataType.TYPE_VELOCITY_TOTAL, event);
 			} else if (event.getType() == FlightEvent.Type.GROUND_HIT) {
-				double t = event.getTime();
-				List<Double> velocity = branch.get(FlightDataType.TYPE_VELOCITY_TOTAL);
-				groundHitVelocity = MathUtil.interpolate( time,  velocity, t);
+				groundHitVelocity = branch.getValueAtEvent(FlightDataType.TYPE_VELOCITY_TOTAL, event);
 			}
 		}
 		
 		// Max. acceleration (must be after apogee time)
 		if (branch.get(FlightDataType.TYPE_ACCELERATION_TOTAL) != null) {
 			maxAcceleration = calculateMaxAcceleration();
+		} else if (!branch.isRecorded(FlightDataType.TYPE_ACCELERATION_TOTAL)) {
+			FlightEvent deployment = branch.getFirstEvent(FlightEvent.Type.RECOVERY_DEVICE_DEPLOYMENT);
+			if (deployment != null) {
+				maxAcceleration = branch.getMaximumAtEvent(FlightDataType.TYPE_ACCELERATION_TOTAL, deployment);
+			} else {
+				maxAcceleration = branch.getMaximum(FlightDataType.TYPE_ACCELERATION_TOTAL);
+			}
 		} else {
 			maxAcceleration = Double.NaN;
 		}
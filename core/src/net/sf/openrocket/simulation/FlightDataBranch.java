@@ -1,12 +1,13 @@
 package net.sf.openrocket.simulation;
 
+import java.util.AbstractList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.RandomAccess;
 
 import net.sf.openrocket.util.ArrayList;
+import net.sf.openrocket.util.MathUtil;
 import net.sf.openrocket.util.Monitorable;
 import net.sf.openrocket.util.Mutable;
 
@@ -22,19 +23,68 @@ import net.sf.openrocket.util.Mutable;
  * will be created and all previous values will be set to NaN.
  * <p>
  * After populating a FlightDataBranch object it can be made immutable by calling {@link #immute()}.
+ * <p>
+ * The values are stored in primitive arrays, one per variable type.  The values of an
+ * immutable branch can be read without copying using {@link #getValues(FlightDataType)}.
+ * <p>
+ * A branch may be restricted to record only some variable types.  For the other types only
+ * the running minimum, maximum and last value are kept, together with their last and maximum
+ * values at each flight event (see {@link #getValueAtEvent(FlightDataType, FlightEvent)}).
+ * Such types are not returned by {@link #getTypes()}.
  * 
  * @author Sampo Niskanen <sampo.niskanen@iki.fi>
  */
 public class FlightDataBranch implements Monitorable {
 	
+	/** Initial number of data points allocated for each variable type. */
+	private static final int INITIAL_CAPACITY = 64;
+	
+	/** Column of the types that are present in the branch but not recorded. */
+	private static final double[] NOT_RECORDED = new double[0];
+	
+	/**
+	 * The types that are computed even if they are not recorded, by ordinal.  Their aggregates
+	 * are used for the summary values of {@link FlightData}, by the simulation engine, and by
+	 * the optimization parameters and Monte Carlo analysis.
+	 */
+	private static final boolean[] SUMMARY_TYPES = toRecordedArray(Arrays.asList(
+			FlightDataType.TYPE_TIME,
+			FlightDataType.TYPE_ALTITUDE,
+			FlightDataType.TYPE_POSITION_X,
+			FlightDataType.TYPE_POSITION_Y,
+			FlightDataType.TYPE_POSITION_XY,
+			FlightDataType.TYPE_VELOCITY_TOTAL,
+			FlightDataType.TYPE_ACCELERATION_TOTAL,
+			FlightDataType.TYPE_MACH_NUMBER,
+			FlightDataType.TYPE_CG_LOCATION,
+			FlightDataType.TYPE_CP_LOCATION,
+			FlightDataType.TYPE_AOA,
+			FlightDataType.TYPE_THRUST_FORCE));
+	
 	/** The name of this flight data branch. */
 	private final String branchName;
 	
-	private final Map<FlightDataType, ArrayList<Double>> values =
-			new LinkedHashMap<FlightDataType, ArrayList<Double>>();
+	/** The variable types of this branch, in the order they were added. */
+	private final ArrayList<FlightDataType> types = new ArrayList<FlightDataType>();
+	
+	/** The recorded types by ordinal, or null if all types are recorded. */
+	private final boolean[] recorded;
 	
-	private final Map<FlightDataType, Double> maxValues = new HashMap<FlightDataType, Double>();
-	private final Map<FlightDataType, Double> minValues = new HashMap<FlightDataType, Double>();
+	/*
+	 * The values are stored column-wise in primitive arrays indexed by the ordinal of the
+	 * variable type.  A null column means the type is not present in this branch, and
+	 * NOT_RECORDED that only its aggregates are kept.  Unused capacity is pre-filled with
+	 * NaN, so adding a point only increments the length.
+	 */
+	private double[][] values = new double[0][];
+	private double[] minValues = new double[0];
+	private double[] maxValues = new double[0];
+	private double[] lastValues = new double[0];
+	private int length = 0;
+	private int capacity = INITIAL_CAPACITY;
+	
+	/** The last and maximum values at each event, if not all types are recorded. */
+	private final ArrayList<double[][]> eventSnapshots = new ArrayList<double[][]>();
 	
 	/**
 	 * time for the rocket to reach apogee if the flight had been no recovery deployment
@@ -58,21 +108,32 @@ public class FlightDataBranch implements Monitorable {
 	 * @param types		data types to include (must include at least one type).
 	 */
 	public FlightDataBranch(String name, FlightDataType... types) {
+		this(name, null, types);
+	}
+	
+	/**
+	 * Construct a FlightDataBranch that records only some of its variable types.  Values of
+	 * the other types only update the running aggregates of the type.
+	 * 
+	 * @param name			the name of this FlightDataBranch.
+	 * @param recordedTypes	the types to record, or <code>null</code> to record all types.
+	 * @param types			data types to include (must include at least one type).
+	 */
+	public FlightDataBranch(String name, Collection<FlightDataType> recordedTypes, FlightDataType... types) {
 		if (types.length == 0) {
 			throw new IllegalArgumentException("Must specify at least one data type.");
 		}
 		
 		this.branchName = name;
+		this.recorded = toRecordedArray(recordedTypes);
 		
 		for (FlightDataType t : types) {
-			if (values.containsKey(t)) {
+			if (getColumn(t) != null) {
 				throw new IllegalArgumentException("Value type " + t + " specified multiple " +
 						"times in constructor.");
 			}
 			
-			values.put(t, new ArrayList<Double>());
-			minValues.put(t, Double.NaN);
-			maxValues.put(t, Double.NaN);
+			addColumn(t, Double.NaN);
 		}
 	}
 
@@ -83,15 +144,14 @@ public class FlightDataBranch implements Monitorable {
 	 */
 	public FlightDataBranch(String branchName, FlightDataBranch parent) {
 		this.branchName = branchName;
+		this.recorded = parent.recorded;
 
 		// need to have at least one type to set up values
-		values.put(FlightDataType.TYPE_TIME, new ArrayList<Double>());
-		minValues.put(FlightDataType.TYPE_TIME, Double.NaN);
-		maxValues.put(FlightDataType.TYPE_TIME, Double.NaN);
+		addColumn(FlightDataType.TYPE_TIME, Double.NaN);
 
 		// copy all values into new FlightDataBranch
 		this.addPoint();
-		for (FlightDataType t : parent.getTypes()) {
+		for (FlightDataType t : parent.types) {
 			this.setValue(t, parent.getLast(t));
 		}
 	}
@@ -101,6 +161,7 @@ public class FlightDataBranch implements Monitorable {
 	 */
 	public FlightDataBranch() {
 		branchName = "Empty branch";
+		recorded = null;
 		for (FlightDataType type : FlightDataType.ALL_TYPES) {
 			this.setValue(type, Double.NaN);
 		}
@@ -115,9 +176,10 @@ public class FlightDataBranch implements Monitorable {
 	public void addPoint() {
 		mutable.check();
 		
-		for (FlightDataType t : values.keySet()) {
-			values.get(t).add(Double.NaN);
+		if (length == capacity) {
+			grow();
 		}
+		length++;
 		modID++;
 	}
 	
@@ -133,31 +195,22 @@ public class FlightDataBranch implements Monitorable {
 	public void setValue(FlightDataType type, double value) {
 		mutable.check();
 		
-		ArrayList<Double> list = values.get(type);
-		
-		if (list == null) {
-			list = new ArrayList<Double>();
-			int n = getLength();
-			for (int i = 0; i < n; i++) {
-				list.add(Double.NaN);
-			}
-			values.put(type, list);
-			minValues.put(type, value);
-			maxValues.put(type, value);
+		double[] column = getColumn(type);
+		if (column == null) {
+			column = addColumn(type, value);
 		}
 		
-		if (list.size() > 0) {
-			list.set(list.size() - 1, value);
+		if (length > 0 && column != NOT_RECORDED) {
+			column[length - 1] = value;
 		}
 		
-		double min = minValues.get(type);
-		double max = maxValues.get(type);
-		
-		if (Double.isNaN(min) || (value < min)) {
-			minValues.put(type, value);
+		int ordinal = type.getOrdinal();
+		lastValues[ordinal] = value;
+		if (Double.isNaN(minValues[ordinal]) || (value < minValues[ordinal])) {
+			minValues[ordinal] = value;
 		}
-		if (Double.isNaN(max) || (value > max)) {
-			maxValues.put(type, value);
+		if (Double.isNaN(maxValues[ordinal]) || (value > maxValues[ordinal])) {
+			maxValues[ordinal] = value;
 		}
 		modID++;
 	}
@@ -171,51 +224,126 @@ public class FlightDataBranch implements Monitorable {
 	}
 	
 	/**
-	 * Return the variable types included in this branch.  The types are sorted in their
+	 * Return the variable types recorded in this branch.  The types are sorted in their
 	 * natural order.
 	 */
 	public FlightDataType[] getTypes() {
-		FlightDataType[] array = values.keySet().toArray(new FlightDataType[0]);
+		ArrayList<FlightDataType> list = new ArrayList<FlightDataType>(types.size());
+		for (FlightDataType type : types) {
+			if (getColumn(type) != NOT_RECORDED) {
+				list.add(type);
+			}
+		}
+		FlightDataType[] array = list.toArray(new FlightDataType[0]);
 		Arrays.sort(array);
 		return array;
 	}
 	
+	/**
+	 * Return whether values of the specified type are recorded at each data point
+	 * if set, as opposed to only updating the running aggregates.
+	 */
+	public boolean isRecorded(FlightDataType type) {
+		if (recorded == null) {
+			return true;
+		}
+		int ordinal = type.getOrdinal();
+		return ordinal < recorded.length && recorded[ordinal];
+	}
+	
+	/**
+	 * Return whether values of the specified type need to be computed for this branch.  These
+	 * are the recorded types and the types needed for the summary values of the flight.
+	 * Values of the other types would only update aggregates that are never read, so flight
+	 * steppers may skip computing them.
+	 */
+	public boolean isComputed(FlightDataType type) {
+		if (isRecorded(type)) {
+			return true;
+		}
+		int ordinal = type.getOrdinal();
+		return ordinal < SUMMARY_TYPES.length && SUMMARY_TYPES[ordinal];
+	}
+	
+	/**
+	 * Return whether this branch records all variable types.
+	 */
+	public boolean isRecordingAllTypes() {
+		return recorded == null;
+	}
+	
 	/**
 	 * Return the number of data points in this branch.
 	 */
 	public int getLength() {
-		for (FlightDataType t : values.keySet()) {
-			return values.get(t).size();
-		}
-		return 0;
+		return length;
 	}
 	
 	/**
-	 * Return an array of values for the specified variable type.
+	 * Return an array of values for the specified variable type.  The returned list is
+	 * read-only.  For an immutable branch it is a view of the stored data, for a mutable
+	 * branch it is a copy of the data at the time of the call.
 	 * 
 	 * @param type	the variable type.
 	 * @return		a list of the variable values, or <code>null</code> if
 	 * 				the variable type hasn't been added to this branch.
 	 */
 	public List<Double> get(FlightDataType type) {
-		ArrayList<Double> list = values.get(type);
-		if (list == null)
+		return getValues(type);
+	}
+	
+	/**
+	 * Return the values of the specified variable type as a read-only list that also
+	 * allows reading the values as primitives.  For an immutable branch the values are
+	 * not copied.
+	 * 
+	 * @param type	the variable type.
+	 * @return		the variable values, or <code>null</code> if the variable type
+	 * 				hasn't been added to this branch.
+	 */
+	public ValueList getValues(FlightDataType type) {
+		double[] column = getColumn(type);
+		if (column == null || column == NOT_RECORDED)
 			return null;
-		return list.clone();
+		if (isMutable()) {
+			column = Arrays.copyOf(column, length);
+		}
+		return new ValueList(column, length);
+	}
+	
+	/**
+	 * Return the value of the specified type at a data point, or NaN if the type
+	 * is unavailable.
+	 * 
+	 * @param type	the parameter type.
+	 * @param index	the index of the data point.
+	 * @return		the value at the data point, or NaN.
+	 * @throws IndexOutOfBoundsException	if the index is not a valid data point index.
+	 */
+	public double getValue(FlightDataType type, int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index=" + index + " length=" + length);
+		}
+		double[] column = getColumn(type);
+		if (column == null || column == NOT_RECORDED)
+			return Double.NaN;
+		return column[index];
 	}
 	
 	/**
 	 * Return the last value of the specified type in the branch, or NaN if the type is
-	 * unavailable.
+	 * unavailable.  For a type that is not recorded, this is the last value set.
 	 * 
 	 * @param type	the parameter type.
 	 * @return		the last value in this branch, or NaN.
 	 */
 	public double getLast(FlightDataType type) {
-		ArrayList<Double> list = values.get(type);
-		if (list == null || list.isEmpty())
+		double[] column = getColumn(type);
+		if (column == null || length == 0)
 			return Double.NaN;
-		return list.get(list.size() - 1);
+		if (column == NOT_RECORDED)
+			return lastValues[type.getOrdinal()];
+		return column[length - 1];
 	}
 	
 	/**
@@ -226,10 +354,9 @@ public class FlightDataBranch implements Monitorable {
 	 * @return		the minimum value in this branch, or NaN.
 	 */
 	public double getMinimum(FlightDataType type) {
-		Double v = minValues.get(type);
-		if (v == null)
+		if (getColumn(type) == null)
 			return Double.NaN;
-		return v;
+		return minValues[type.getOrdinal()];
 	}
 	
 	/**
@@ -240,10 +367,9 @@ public class FlightDataBranch implements Monitorable {
 	 * @return		the maximum value in this branch, or NaN.
 	 */
 	public double getMaximum(FlightDataType type) {
-		Double v = maxValues.get(type);
-		if (v == null)
+		if (getColumn(type) == null)
 			return Double.NaN;
-		return v;
+		return maxValues[type.getOrdinal()];
 	}
 	
 	
@@ -300,9 +426,55 @@ public class FlightDataBranch implements Monitorable {
 	public void addEvent(FlightEvent event) {
 		mutable.check();
 		events.add(event);
+		if (recorded != null) {
+			eventSnapshots.add(new double[][] { lastValues.clone(), maxValues.clone() });
+		}
 		modID++;
 	}
 	
+	/**
+	 * Return the value of a variable type at the time of an event of this branch.  If the
+	 * type and time are recorded, the value is interpolated at the event time.  Otherwise it
+	 * is the last value set before the event was added to the branch.
+	 * 
+	 * @param type	the variable type.
+	 * @param event	an event of this branch.
+	 * @return		the value at the event, or NaN if not available.
+	 */
+	public double getValueAtEvent(FlightDataType type, FlightEvent event) {
+		if (isRecorded(type) && isRecorded(FlightDataType.TYPE_TIME)) {
+			return MathUtil.interpolate(get(FlightDataType.TYPE_TIME), get(type), event.getTime());
+		}
+		return getSnapshotValue(type, event, 0);
+	}
+	
+	/**
+	 * Return the maximum value of a variable type before an event of this branch.  If the
+	 * type and time are recorded, this is the maximum of the values before the event time.
+	 * Otherwise it is the running maximum when the event was added to the branch.
+	 * 
+	 * @param type	the variable type.
+	 * @param event	an event of this branch.
+	 * @return		the maximum value before the event, or NaN if not available.
+	 */
+	public double getMaximumAtEvent(FlightDataType type, FlightEvent event) {
+		if (isRecorded(type) && isRecorded(FlightDataType.TYPE_TIME)) {
+			double[] time = getColumn(FlightDataType.TYPE_TIME);
+			double[] column = getColumn(type);
+			if (time == null || column == null) {
+				return Double.NaN;
+			}
+			double max = Double.NaN;
+			for (int i = 0; i < length && time[i] < event.getTime(); i++) {
+				if (Double.isNaN(max) || column[i] > max) {
+					max = column[i];
+				}
+			}
+			return max;
+		}
+		return getSnapshotValue(type, event, 1);
+	}
+	
 	
 	/**
 	 * Return the list of events.
@@ -347,6 +519,15 @@ public class FlightDataBranch implements Monitorable {
 	 * modify this object will after this call throw an <code>IllegalStateException</code>.
 	 */
 	public void immute() {
+		if (mutable.isMutable()) {
+			// Release the unused capacity, no more points can be added
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null && values[i] != NOT_RECORDED) {
+					values[i] = Arrays.copyOf(values[i], length);
+				}
+			}
+			capacity = length;
+		}
 		mutable.immute();
 	}
 	
@@ -365,18 +546,161 @@ public class FlightDataBranch implements Monitorable {
 	}
 
 	public FlightDataBranch clone() {
-		FlightDataType[] types = getTypes();
-		FlightDataBranch clone = new FlightDataBranch(branchName, types);
-		for (FlightDataType type : values.keySet()) {
-			clone.values.put(type, values.get(type).clone());
-		}
-		clone.minValues.putAll(minValues);
-		clone.maxValues.putAll(maxValues);
-		clone.events.addAll(events);
-		clone.timeToOptimumAltitude = timeToOptimumAltitude;
-		clone.optimumAltitude = optimumAltitude;
-		clone.modID = modID;
-		return clone;
+		return new FlightDataBranch(this);
+	}
+	
+	/**
+	 * Copy constructor used by {@link #clone()}.  The clone is mutable.
+	 */
+	private FlightDataBranch(FlightDataBranch original) {
+		this.branchName = original.branchName;
+		this.recorded = original.recorded;
+		this.types.addAll(original.types);
+		this.length = original.length;
+		this.capacity = Math.max(length, INITIAL_CAPACITY);
+		this.values = new double[original.values.length][];
+		for (int i = 0; i < values.length; i++) {
+			double[] column = original.values[i];
+			if (column == NOT_RECORDED) {
+				values[i] = NOT_RECORDED;
+			} else if (column != null) {
+				values[i] = copyColumn(column, length, capacity);
+			}
+		}
+		this.minValues = original.minValues.clone();
+		this.maxValues = original.maxValues.clone();
+		this.lastValues = original.lastValues.clone();
+		this.events.addAll(original.events);
+		this.eventSnapshots.addAll(original.eventSnapshots);
+		this.timeToOptimumAltitude = original.timeToOptimumAltitude;
+		this.optimumAltitude = original.optimumAltitude;
+		this.modID = original.modID;
+	}
+	
+	
+	private double[] getColumn(FlightDataType type) {
+		int ordinal = type.getOrdinal();
+		if (ordinal >= values.length)
+			return null;
+		return values[ordinal];
+	}
+	
+	private double getSnapshotValue(FlightDataType type, FlightEvent event, int index) {
+		if (getColumn(type) == null) {
+			return Double.NaN;
+		}
+		for (int i = 0; i < events.size() && i < eventSnapshots.size(); i++) {
+			if (events.get(i) == event) {
+				double[] snapshot = eventSnapshots.get(i)[index];
+				int ordinal = type.getOrdinal();
+				return (ordinal < snapshot.length) ? snapshot[ordinal] : Double.NaN;
+			}
+		}
+		return Double.NaN;
+	}
+	
+	private static boolean[] toRecordedArray(Collection<FlightDataType> recordedTypes) {
+		if (recordedTypes == null) {
+			return null;
+		}
+		int n = FlightDataType.ALL_TYPES.length;
+		for (FlightDataType type : recordedTypes) {
+			n = Math.max(n, type.getOrdinal() + 1);
+		}
+		boolean[] array = new boolean[n];
+		for (FlightDataType type : recordedTypes) {
+			array[type.getOrdinal()] = true;
+		}
+		return array;
+	}
+	
+	/**
+	 * Add a new variable type with all existing values set to NaN.
+	 */
+	private double[] addColumn(FlightDataType type, double initialValue) {
+		int ordinal = type.getOrdinal();
+		if (ordinal >= values.length) {
+			int n = Math.max(ordinal + 1, FlightDataType.ALL_TYPES.length);
+			int oldLength = values.length;
+			values = Arrays.copyOf(values, n);
+			minValues = Arrays.copyOf(minValues, n);
+			maxValues = Arrays.copyOf(maxValues, n);
+			lastValues = Arrays.copyOf(lastValues, n);
+			Arrays.fill(minValues, oldLength, n, Double.NaN);
+			Arrays.fill(maxValues, oldLength, n, Double.NaN);
+			Arrays.fill(lastValues, oldLength, n, Double.NaN);
+		}
+		
+		double[] column;
+		if (isRecorded(type)) {
+			column = new double[capacity];
+			Arrays.fill(column, Double.NaN);
+		} else {
+			column = NOT_RECORDED;
+		}
+		values[ordinal] = column;
+		minValues[ordinal] = initialValue;
+		maxValues[ordinal] = initialValue;
+		lastValues[ordinal] = initialValue;
+		types.add(type);
+		return column;
+	}
+	
+	private void grow() {
+		capacity = Math.max(capacity * 2, INITIAL_CAPACITY);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null && values[i] != NOT_RECORDED) {
+				values[i] = copyColumn(values[i], length, capacity);
+			}
+		}
+	}
+	
+	private static double[] copyColumn(double[] column, int length, int capacity) {
+		double[] copy = Arrays.copyOf(column, capacity);
+		Arrays.fill(copy, length, capacity, Double.NaN);
+		return copy;
+	}
+	
+	
+	/**
+	 * A read-only list of the values of one variable type.  The values can be read
+	 * as primitives using {@link #getDouble(int)}, avoiding boxing.
+	 */
+	public static final class ValueList extends AbstractList<Double> implements RandomAccess {
+		private final double[] data;
+		private final int size;
+		
+		private ValueList(double[] data, int size) {
+			this.data = data;
+			this.size = size;
+		}
+		
+		/**
+		 * Return the value at the specified position as a primitive.
+		 */
+		public double getDouble(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("index=" + index + " size=" + size);
+			}
+			return data[index];
+		}
+		
+		/**
+		 * Return a copy of the values as a primitive array.
+		 */
+		public double[] toDoubleArray() {
+			return Arrays.copyOf(data, size);
+		}
+		
+		@Override
+		public Double get(int index) {
+			return getDouble(index);
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
 	}
 	
 }
@@ -36,6 +36,9 @@ public class FlightDataType implements Comparable<FlightDataType> {
 	/** NOTE: The String key here is now the symbol */
 	private static final Map<String, FlightDataType> EXISTING_TYPES = new HashMap<String, FlightDataType>();
 	
+	/** Dense ordinals of the types, keyed by lower-case name.  MUST BE DEFINED BEFORE ANY TYPES!! */
+	private static final Map<String, Integer> ORDINALS = new HashMap<String, Integer>();
+	
 	
 	//// Time
 	public static final FlightDataType TYPE_TIME = newType(trans.get("FlightDataType.TYPE_TIME"), "t", UnitGroup.UNITS_FLIGHT_TIME, 1);
@@ -340,6 +343,7 @@ public class FlightDataType implements Comparable<FlightDataType> {
 	private final UnitGroup units;
 	private final int priority;
 	private final int hashCode;
+	private final int ordinal;
 	
 	
 	private FlightDataType(String typeName, String symbol, UnitGroup units, int priority) {
@@ -352,6 +356,21 @@ public class FlightDataType implements Comparable<FlightDataType> {
 		this.units = units;
 		this.priority = priority;
 		this.hashCode = this.name.toLowerCase(Locale.ENGLISH).hashCode();
+		this.ordinal = ordinalOf(this.name.toLowerCase(Locale.ENGLISH));
+	}
+	
+	/**
+	 * Return the ordinal for a type name.  Types that are equal share the same ordinal.
+	 */
+	private static int ordinalOf(String key) {
+		synchronized (ORDINALS) {
+			Integer ordinal = ORDINALS.get(key);
+			if (ordinal == null) {
+				ordinal = ORDINALS.size();
+				ORDINALS.put(key, ordinal);
+			}
+			return ordinal;
+		}
 	}
 	
 	/*
@@ -372,6 +391,14 @@ public class FlightDataType implements Comparable<FlightDataType> {
 		return units;
 	}
 	
+	/**
+	 * Return a small, non-negative index that is unique to this type.  Equal types
+	 * have the same ordinal, so it can be used to index arrays of per-type data.
+	 */
+	int getOrdinal() {
+		return ordinal;
+	}
+	
 	@Override
 	public String toString() {
 		return name; //+" ("+symbol+") "+units.getDefaultUnit().toString();
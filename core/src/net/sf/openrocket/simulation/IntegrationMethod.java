@@ -0,0 +1,22 @@
+package net.sf.openrocket.simulation;
+
+/**
+ * The numerical integration method used for the powered and coasting flight phases.
+ */
+public enum IntegrationMethod {
+
+	/**
+	 * Classical fourth-order Runge-Kutta with a heuristically limited time step.
+	 *
+	 * @see RK4SimulationStepper
+	 */
+	RK4,
+
+	/**
+	 * Embedded fifth-order Dormand-Prince method with adaptive, error-controlled time step.
+	 *
+	 * @see DormandPrinceSimulationStepper
+	 */
+	DORMAND_PRINCE;
+
+}
@@ -4,6 +4,7 @@ import net.sf.openrocket.motor.IgnitionEvent;
 import net.sf.openrocket.motor.Motor;
 import net.sf.openrocket.motor.MotorConfiguration;
 import net.sf.openrocket.motor.MotorConfigurationId;
+import net.sf.openrocket.motor.ThrustCurveMotor;
 import net.sf.openrocket.rocketcomponent.FlightConfiguration;
 import net.sf.openrocket.rocketcomponent.MotorMount;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
@@ -15,6 +16,8 @@ public class MotorClusterState {
 	final protected MotorConfiguration config;
 	final protected int motorCount;
 	final protected double thrustDuration; 
+	// position in the thrust curve, for the sequential time queries of a simulation
+	final protected ThrustCurveMotor.Cursor cursor;
 	
 	// for state:
 	protected double ignitionTime = Double.NaN;
@@ -28,6 +31,11 @@ public class MotorClusterState {
 		this.motor = this.config.getMotor();
 		this.motorCount = this.config.getMotorCount();
 		this.thrustDuration = this.motor.getBurnTimeEstimate();
+		if( this.motor instanceof ThrustCurveMotor ){
+			this.cursor = ((ThrustCurveMotor) this.motor).newCursor();
+		}else{
+			this.cursor = null;
+		}
 		
 		this.reset();
 	}
@@ -102,6 +110,30 @@ public class MotorClusterState {
 	public double getPropellantMass( final double motorTime ){
 		return (motor.getPropellantMass( motorTime) - motor.getBurnoutMass());
 	}
+	
+	/**
+	 * Return the total mass of a single motor at a time after ignition.
+	 * 
+	 * @param motorTime  time (in seconds) since motor ignition
+	 */
+	public double getTotalMass( final double motorTime ){
+		if( null != cursor ){
+			return cursor.getTotalMass( motorTime );
+		}
+		return motor.getTotalMass( motorTime );
+	}
+	
+	/**
+	 * Return the CG position of a single motor at a time after ignition, from the beginning of the motor.
+	 * 
+	 * @param motorTime  time (in seconds) since motor ignition
+	 */
+	public double getCMx( final double motorTime ){
+		if( null != cursor ){
+			return cursor.getCMx( motorTime );
+		}
+		return motor.getCMx( motorTime );
+	}
 		
 	public MotorMount getMount(){
 		return config.getMount();
@@ -132,6 +164,9 @@ public class MotorClusterState {
 			double motorEndTime = this.getMotorTime( endSimulationTime);
 			
 			int instanceCount = this.config.getMount().getLocations().length;
+			if( null != cursor ){
+				return instanceCount * cursor.getAverageThrust( motorStartTime, motorEndTime );
+			}
 			return instanceCount * motor.getAverageThrust( motorStartTime, motorEndTime );
 		}else{
 			return 0.00;
@@ -147,6 +182,9 @@ public class MotorClusterState {
 	public double getThrust( final double simulationTime){
 		if( this.currentState.isThrusting() ){
 			double motorTime = this.getMotorTime( simulationTime);
+			if( null != cursor ){
+				return this.motorCount * cursor.getThrust( motorTime );
+			}
 			return this.motorCount * motor.getThrust( motorTime );
 
 		}else{
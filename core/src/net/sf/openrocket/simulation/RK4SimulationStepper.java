@@ -60,6 +60,16 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 	
 	private Random random;
 	
+	/*
+	 * Integration state reused between steps to avoid allocating it anew at every step.
+	 * A stepper instance is only used by the thread running the simulation.
+	 */
+	private final DataStore store = new DataStore();
+	private final RK4Parameters k1 = new RK4Parameters();
+	private final RK4Parameters k2 = new RK4Parameters();
+	private final RK4Parameters k3 = new RK4Parameters();
+	private final RK4Parameters k4 = new RK4Parameters();
+	private final double[] dt = new double[8];
 	
 	
 	
@@ -90,12 +100,11 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 	public void step(SimulationStatus simulationStatus, double maxTimeStep) throws SimulationException {
 		
 		RK4SimulationStatus status = (RK4SimulationStatus) simulationStatus;
-		DataStore store = new DataStore();
+		store.reset();
 		
 		////////  Perform RK4 integration:  ////////
 		
 		RK4SimulationStatus status2;
-		RK4Parameters k1, k2, k3, k4;
 		
 		/*
 		 * Start with previous time step which is used to compute the initial thrust estimate.
@@ -118,7 +127,7 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 
 		//// First position, k1 = f(t, y)
 		
-		k1 = computeParameters(status, store);
+		computeParameters(status, store, k1);
 		
 		/*
 		 * Select the actual time step to use.  It is the minimum of the following:
@@ -136,7 +145,6 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		 * 
 		 * The step is still at least 1/20th of the user-selected time step.
 		 */
-		double[] dt = new double[8];
 		Arrays.fill(dt, Double.MAX_VALUE);
 
 		// If the user selected a really small timestep, use MIN_TIME_STEP instead.
@@ -148,7 +156,7 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		dt[5] = Math.abs(MAX_PITCH_CHANGE / store.lateralPitchAcceleration);
 		if (!status.isLaunchRodCleared()) {
 			dt[0] /= 5.0;
-			dt[6] = status.getSimulationConditions().getLaunchRodLength() / k1.v.length() / 10;
+			dt[6] = status.getSimulationConditions().getLaunchRodLength() / k1.velocityLength() / 10;
 		}
 		dt[7] = 1.5 * status.getPreviousTimeStep();
 		
@@ -190,7 +198,7 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 						" correct=" + store.thrustForce +
 						" timestep=" + store.timestep +
 						", recomputing k1 parameters");
-				k1 = computeParameters(status, store);
+				computeParameters(status, store, k1);
 			} else {
 				log.trace("Thrust estimate differs from correct value by " +
 						(Math.rint(1000 * (thrustDiff + 0.000001) / thrustEstimate) / 10.0) + "%," +
@@ -206,50 +214,52 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		
 		status2 = status.clone();
 		status2.setSimulationTime(status.getSimulationTime() + store.timestep / 2);
-		status2.setRocketPosition(status.getRocketPosition().add(k1.v.multiply(store.timestep / 2)));
-		status2.setRocketVelocity(status.getRocketVelocity().add(k1.a.multiply(store.timestep / 2)));
-		status2.setRocketOrientationQuaternion(status.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(k1.rv.multiply(store.timestep / 2))));
-		status2.setRocketRotationVelocity(status.getRocketRotationVelocity().add(k1.ra.multiply(store.timestep / 2)));
+		applyStep(status, status2, k1, store.timestep / 2);
 		
-		k2 = computeParameters(status2, store);
+		computeParameters(status2, store, k2);
 		
 
 		//// Third position, k3 = f(t + h/2, y + k2*h/2)
 		
 		status2 = status.clone();
 		status2.setSimulationTime(status.getSimulationTime() + store.timestep / 2);
-		status2.setRocketPosition(status.getRocketPosition().add(k2.v.multiply(store.timestep / 2)));
-		status2.setRocketVelocity(status.getRocketVelocity().add(k2.a.multiply(store.timestep / 2)));
-		status2.setRocketOrientationQuaternion(status2.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(k2.rv.multiply(store.timestep / 2))));
-		status2.setRocketRotationVelocity(status.getRocketRotationVelocity().add(k2.ra.multiply(store.timestep / 2)));
+		applyStep(status, status2, k2, store.timestep / 2);
 		
-		k3 = computeParameters(status2, store);
+		computeParameters(status2, store, k3);
 		
 
 		//// Fourth position, k4 = f(t + h, y + k3*h)
 		
 		status2 = status.clone();
 		status2.setSimulationTime(status.getSimulationTime() + store.timestep);
-		status2.setRocketPosition(status.getRocketPosition().add(k3.v.multiply(store.timestep)));
-		status2.setRocketVelocity(status.getRocketVelocity().add(k3.a.multiply(store.timestep)));
-		status2.setRocketOrientationQuaternion(status2.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(k3.rv.multiply(store.timestep))));
-		status2.setRocketRotationVelocity(status.getRocketRotationVelocity().add(k3.ra.multiply(store.timestep)));
+		applyStep(status, status2, k3, store.timestep);
 		
-		k4 = computeParameters(status2, store);
+		computeParameters(status2, store, k4);
 		
 
 		//// Sum all together,  y(n+1) = y(n) + h*(k1 + 2*k2 + 2*k3 + k4)/6
-		Coordinate deltaV, deltaP, deltaR, deltaO;
-		deltaV = k2.a.add(k3.a).multiply(2).add(k1.a).add(k4.a).multiply(store.timestep / 6);
-		deltaP = k2.v.add(k3.v).multiply(2).add(k1.v).add(k4.v).multiply(store.timestep / 6);
-		deltaR = k2.ra.add(k3.ra).multiply(2).add(k1.ra).add(k4.ra).multiply(store.timestep / 6);
-		deltaO = k2.rv.add(k3.rv).multiply(2).add(k1.rv).add(k4.rv).multiply(store.timestep / 6);
-		
-
-		status.setRocketVelocity(status.getRocketVelocity().add(deltaV));
-		status.setRocketPosition(status.getRocketPosition().add(deltaP));
-		status.setRocketRotationVelocity(status.getRocketRotationVelocity().add(deltaR));
-		status.setRocketOrientationQuaternion(status.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(deltaO)).normalizeIfNecessary());
+		// The weighted sums are computed on the primitive state, only the results are stored as objects
+		final double h6 = store.timestep / 6;
+		
+		Coordinate v = status.getRocketVelocity();
+		status.setRocketVelocity(new Coordinate(
+				v.x + rk4Sum(k1.a, k2.a, k3.a, k4.a, 0, h6),
+				v.y + rk4Sum(k1.a, k2.a, k3.a, k4.a, 1, h6),
+				v.z + rk4Sum(k1.a, k2.a, k3.a, k4.a, 2, h6)));
+		Coordinate p = status.getRocketPosition();
+		status.setRocketPosition(new Coordinate(
+				p.x + rk4Sum(k1.v, k2.v, k3.v, k4.v, 0, h6),
+				p.y + rk4Sum(k1.v, k2.v, k3.v, k4.v, 1, h6),
+				p.z + rk4Sum(k1.v, k2.v, k3.v, k4.v, 2, h6)));
+		Coordinate rv = status.getRocketRotationVelocity();
+		status.setRocketRotationVelocity(new Coordinate(
+				rv.x + rk4Sum(k1.ra, k2.ra, k3.ra, k4.ra, 0, h6),
+				rv.y + rk4Sum(k1.ra, k2.ra, k3.ra, k4.ra, 1, h6),
+				rv.z + rk4Sum(k1.ra, k2.ra, k3.ra, k4.ra, 2, h6)));
+		status.setRocketOrientationQuaternion(status.getRocketOrientationQuaternion().multiplyLeft(Quaternion.rotation(
+				rk4Sum(k1.rv, k2.rv, k3.rv, k4.rv, 0, h6),
+				rk4Sum(k1.rv, k2.rv, k3.rv, k4.rv, 1, h6),
+				rk4Sum(k1.rv, k2.rv, k3.rv, k4.rv, 2, h6))).normalizeIfNecessary());
 		
 		WorldCoordinate w = status.getSimulationConditions().getLaunchSite();
 		w = status.getSimulationConditions().getGeodeticComputation().addCoordinate(w, status.getRocketPosition());
@@ -279,26 +289,41 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 
 
 
-	private RK4Parameters computeParameters(RK4SimulationStatus status, DataStore dataStore)
+	void computeParameters(RK4SimulationStatus status, DataStore dataStore, RK4Parameters params)
 			throws SimulationException {
-		RK4Parameters params = new RK4Parameters();
-		
-		//		if (dataStore == null) {
-		//			dataStore = new DataStore();
-		//		}
 		
 		calculateAcceleration(status, dataStore);
-		params.a = dataStore.linearAcceleration;
-		params.ra = dataStore.angularAcceleration;
-		params.v = status.getRocketVelocity();
-		params.rv = status.getRocketRotationVelocity();
 		
-		checkNaN(params.a);
-		checkNaN(params.ra);
-		checkNaN(params.v);
-		checkNaN(params.rv);
+		checkNaN(dataStore.linearAcceleration);
+		checkNaN(dataStore.angularAcceleration);
+		checkNaN(status.getRocketVelocity());
+		checkNaN(status.getRocketRotationVelocity());
 		
-		return params;
+		params.set(dataStore.linearAcceleration, status.getRocketVelocity(),
+				dataStore.angularAcceleration, status.getRocketRotationVelocity());
+	}
+	
+	
+	/**
+	 * Set the position, velocity, orientation and rotation velocity of <code>target</code> to
+	 * those of <code>origin</code> advanced by the derivatives <code>k</code> over time <code>h</code>.
+	 */
+	private static void applyStep(RK4SimulationStatus origin, RK4SimulationStatus target, RK4Parameters k, double h) {
+		Coordinate p = origin.getRocketPosition();
+		target.setRocketPosition(new Coordinate(p.x + k.v[0] * h, p.y + k.v[1] * h, p.z + k.v[2] * h));
+		Coordinate v = origin.getRocketVelocity();
+		target.setRocketVelocity(new Coordinate(v.x + k.a[0] * h, v.y + k.a[1] * h, v.z + k.a[2] * h));
+		target.setRocketOrientationQuaternion(origin.getRocketOrientationQuaternion().multiplyLeft(
+				Quaternion.rotation(k.rv[0] * h, k.rv[1] * h, k.rv[2] * h)));
+		Coordinate rv = origin.getRocketRotationVelocity();
+		target.setRocketRotationVelocity(new Coordinate(rv.x + k.ra[0] * h, rv.y + k.ra[1] * h, rv.z + k.ra[2] * h));
+	}
+	
+	/**
+	 * Return component <code>i</code> of the RK4 weighted sum h*(k1 + 2*k2 + 2*k3 + k4)/6.
+	 */
+	private static double rk4Sum(double[] k1, double[] k2, double[] k3, double[] k4, int i, double h6) {
+		return ((k2[i] + k3[i]) * 2 + k1[i] + k4[i]) * h6;
 	}
 	
 	
@@ -353,14 +378,14 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		// Convert into rocket world coordinates
 		store.linearAcceleration = status.getRocketOrientationQuaternion().rotate(store.linearAcceleration);
 		
-		// add effect of gravity
+		// add effect of gravity and Coriolis acceleration
 		store.gravity = modelGravity(status);
-		store.linearAcceleration = store.linearAcceleration.sub(0, 0, store.gravity);
-		
-		// add effect of Coriolis acceleration
 		store.coriolisAcceleration = status.getSimulationConditions().getGeodeticComputation()
 				.getCoriolisAcceleration(status.getRocketWorldPosition(), status.getRocketVelocity());
-		store.linearAcceleration = store.linearAcceleration.add(store.coriolisAcceleration);
+		store.linearAcceleration = new Coordinate(
+				store.linearAcceleration.x + store.coriolisAcceleration.x,
+				store.linearAcceleration.y + store.coriolisAcceleration.y,
+				store.linearAcceleration.z - store.gravity + store.coriolisAcceleration.z);
 		
 		// If still on the launch rod, project acceleration onto launch rod direction and
 		// set angular acceleration to zero.
@@ -544,7 +569,11 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 	
 	
 
-	private void storeData(RK4SimulationStatus status, DataStore store) {
+	/**
+	 * Store the flight data of the current step.  Types that are not recorded and not needed
+	 * for the flight summary are not computed, see {@link FlightDataBranch#isComputed(FlightDataType)}.
+	 */
+	void storeData(RK4SimulationStatus status, DataStore store) {
 		
 		FlightDataBranch data = status.getFlightData();
 		boolean extra = status.getSimulationConditions().isCalculateExtras();
@@ -555,29 +584,40 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		data.setValue(FlightDataType.TYPE_POSITION_X, status.getRocketPosition().x);
 		data.setValue(FlightDataType.TYPE_POSITION_Y, status.getRocketPosition().y);
 		
-		data.setValue(FlightDataType.TYPE_LATITUDE, status.getRocketWorldPosition().getLatitudeRad());
-		data.setValue(FlightDataType.TYPE_LONGITUDE, status.getRocketWorldPosition().getLongitudeRad());
-		if (status.getSimulationConditions().getGeodeticComputation() != GeodeticComputationStrategy.FLAT) {
+		if (data.isComputed(FlightDataType.TYPE_LATITUDE)) {
+			data.setValue(FlightDataType.TYPE_LATITUDE, status.getRocketWorldPosition().getLatitudeRad());
+		}
+		if (data.isComputed(FlightDataType.TYPE_LONGITUDE)) {
+			data.setValue(FlightDataType.TYPE_LONGITUDE, status.getRocketWorldPosition().getLongitudeRad());
+		}
+		if (status.getSimulationConditions().getGeodeticComputation() != GeodeticComputationStrategy.FLAT &&
+				data.isComputed(FlightDataType.TYPE_CORIOLIS_ACCELERATION)) {
 			data.setValue(FlightDataType.TYPE_CORIOLIS_ACCELERATION, store.coriolisAcceleration.length());
 		}
 		
 		if (extra) {
 			data.setValue(FlightDataType.TYPE_POSITION_XY,
 					MathUtil.hypot(status.getRocketPosition().x, status.getRocketPosition().y));
-			data.setValue(FlightDataType.TYPE_POSITION_DIRECTION,
-					Math.atan2(status.getRocketPosition().y, status.getRocketPosition().x));
+			if (data.isComputed(FlightDataType.TYPE_POSITION_DIRECTION)) {
+				data.setValue(FlightDataType.TYPE_POSITION_DIRECTION,
+						Math.atan2(status.getRocketPosition().y, status.getRocketPosition().x));
+			}
 			
-			data.setValue(FlightDataType.TYPE_VELOCITY_XY,
-					MathUtil.hypot(status.getRocketVelocity().x, status.getRocketVelocity().y));
+			if (data.isComputed(FlightDataType.TYPE_VELOCITY_XY)) {
+				data.setValue(FlightDataType.TYPE_VELOCITY_XY,
+						MathUtil.hypot(status.getRocketVelocity().x, status.getRocketVelocity().y));
+			}
 			
 			if (store.linearAcceleration != null) {
-				data.setValue(FlightDataType.TYPE_ACCELERATION_XY,
-						MathUtil.hypot(store.linearAcceleration.x, store.linearAcceleration.y));
+				if (data.isComputed(FlightDataType.TYPE_ACCELERATION_XY)) {
+					data.setValue(FlightDataType.TYPE_ACCELERATION_XY,
+							MathUtil.hypot(store.linearAcceleration.x, store.linearAcceleration.y));
+				}
 				
 				data.setValue(FlightDataType.TYPE_ACCELERATION_TOTAL, store.linearAcceleration.length());
 			}
 			
-			if (store.flightConditions != null) {
+			if (store.flightConditions != null && data.isComputed(FlightDataType.TYPE_REYNOLDS_NUMBER)) {
 				double Re = (store.flightConditions.getVelocity() *
 						status.getConfiguration().getLengthAerodynamic() /
 						store.flightConditions.getAtmosphericConditions().getKinematicViscosity());
@@ -585,8 +625,10 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 			}
 		}
 		
-		data.setValue(FlightDataType.TYPE_VELOCITY_Z, status.getRocketVelocity().z);
-		if (store.linearAcceleration != null) {
+		if (data.isComputed(FlightDataType.TYPE_VELOCITY_Z)) {
+			data.setValue(FlightDataType.TYPE_VELOCITY_Z, status.getRocketVelocity().z);
+		}
+		if (store.linearAcceleration != null && data.isComputed(FlightDataType.TYPE_ACCELERATION_Z)) {
 			data.setValue(FlightDataType.TYPE_ACCELERATION_Z, store.linearAcceleration.z);
 		}
 		
@@ -603,65 +645,115 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 			if (store.forces != null) {
 				data.setValue(FlightDataType.TYPE_CP_LOCATION, store.forces.getCP().x);
 			}
-			if (store.forces != null && store.flightConditions != null && store.rocketMass != null) {
+			if (store.forces != null && store.flightConditions != null && store.rocketMass != null &&
+					data.isComputed(FlightDataType.TYPE_STABILITY)) {
 				data.setValue(FlightDataType.TYPE_STABILITY,
 						(store.forces.getCP().x - store.rocketMass.getCM().x) / store.flightConditions.getRefLength());
 			}
 		}
 
 		if( null != store.motorMass ){
-			data.setValue(FlightDataType.TYPE_MOTOR_MASS, store.motorMass.getMass());
+			if (data.isComputed(FlightDataType.TYPE_MOTOR_MASS)) {
+				data.setValue(FlightDataType.TYPE_MOTOR_MASS, store.motorMass.getMass());
+			}
 			//data.setValue(FlightDataType.TYPE_MOTOR_LONGITUDINAL_INERTIA, store.motorMassData.getLongitudinalInertia());
 			//data.setValue(FlightDataType.TYPE_MOTOR_ROTATIONAL_INERTIA, store.motorMassData.getRotationalInertia());
 		}
 		if (store.rocketMass != null) {
 			// N.B.: These refer to total mass
-			data.setValue(FlightDataType.TYPE_MASS, store.rocketMass.getMass());
-			data.setValue(FlightDataType.TYPE_LONGITUDINAL_INERTIA, store.rocketMass.getLongitudinalInertia());
-			data.setValue(FlightDataType.TYPE_ROTATIONAL_INERTIA, store.rocketMass.getRotationalInertia());
+			if (data.isComputed(FlightDataType.TYPE_MASS)) {
+				data.setValue(FlightDataType.TYPE_MASS, store.rocketMass.getMass());
+			}
+			if (data.isComputed(FlightDataType.TYPE_LONGITUDINAL_INERTIA)) {
+				data.setValue(FlightDataType.TYPE_LONGITUDINAL_INERTIA, store.rocketMass.getLongitudinalInertia());
+			}
+			if (data.isComputed(FlightDataType.TYPE_ROTATIONAL_INERTIA)) {
+				data.setValue(FlightDataType.TYPE_ROTATIONAL_INERTIA, store.rocketMass.getRotationalInertia());
+			}
 		}
 		
 		data.setValue(FlightDataType.TYPE_THRUST_FORCE, store.thrustForce);
-		data.setValue(FlightDataType.TYPE_DRAG_FORCE, store.dragForce);
-		data.setValue(FlightDataType.TYPE_GRAVITY, store.gravity);
+		if (data.isComputed(FlightDataType.TYPE_DRAG_FORCE)) {
+			data.setValue(FlightDataType.TYPE_DRAG_FORCE, store.dragForce);
+		}
+		if (data.isComputed(FlightDataType.TYPE_GRAVITY)) {
+			data.setValue(FlightDataType.TYPE_GRAVITY, store.gravity);
+		}
 		
 		if (status.isLaunchRodCleared() && store.forces != null) {
 			if (store.rocketMass != null && store.flightConditions != null) {
-				data.setValue(FlightDataType.TYPE_PITCH_MOMENT_COEFF,
-						store.forces.getCm() - store.forces.getCN() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
-				data.setValue(FlightDataType.TYPE_YAW_MOMENT_COEFF,
-						store.forces.getCyaw() - store.forces.getCside() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
+				if (data.isComputed(FlightDataType.TYPE_PITCH_MOMENT_COEFF)) {
+					data.setValue(FlightDataType.TYPE_PITCH_MOMENT_COEFF,
+							store.forces.getCm() - store.forces.getCN() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
+				}
+				if (data.isComputed(FlightDataType.TYPE_YAW_MOMENT_COEFF)) {
+					data.setValue(FlightDataType.TYPE_YAW_MOMENT_COEFF,
+							store.forces.getCyaw() - store.forces.getCside() * store.rocketMass.getCM().x / store.flightConditions.getRefLength());
+				}
+			}
+			if (data.isComputed(FlightDataType.TYPE_NORMAL_FORCE_COEFF)) {
+				data.setValue(FlightDataType.TYPE_NORMAL_FORCE_COEFF, store.forces.getCN());
+			}
+			if (data.isComputed(FlightDataType.TYPE_SIDE_FORCE_COEFF)) {
+				data.setValue(FlightDataType.TYPE_SIDE_FORCE_COEFF, store.forces.getCside());
+			}
+			if (data.isComputed(FlightDataType.TYPE_ROLL_MOMENT_COEFF)) {
+				data.setValue(FlightDataType.TYPE_ROLL_MOMENT_COEFF, store.forces.getCroll());
+			}
+			if (data.isComputed(FlightDataType.TYPE_ROLL_FORCING_COEFF)) {
+				data.setValue(FlightDataType.TYPE_ROLL_FORCING_COEFF, store.forces.getCrollForce());
+			}
+			if (data.isComputed(FlightDataType.TYPE_ROLL_DAMPING_COEFF)) {
+				data.setValue(FlightDataType.TYPE_ROLL_DAMPING_COEFF, store.forces.getCrollDamp());
+			}
+			if (data.isComputed(FlightDataType.TYPE_PITCH_DAMPING_MOMENT_COEFF)) {
+				data.setValue(FlightDataType.TYPE_PITCH_DAMPING_MOMENT_COEFF,
+						store.forces.getPitchDampingMoment());
 			}
-			data.setValue(FlightDataType.TYPE_NORMAL_FORCE_COEFF, store.forces.getCN());
-			data.setValue(FlightDataType.TYPE_SIDE_FORCE_COEFF, store.forces.getCside());
-			data.setValue(FlightDataType.TYPE_ROLL_MOMENT_COEFF, store.forces.getCroll());
-			data.setValue(FlightDataType.TYPE_ROLL_FORCING_COEFF, store.forces.getCrollForce());
-			data.setValue(FlightDataType.TYPE_ROLL_DAMPING_COEFF, store.forces.getCrollDamp());
-			data.setValue(FlightDataType.TYPE_PITCH_DAMPING_MOMENT_COEFF,
-					store.forces.getPitchDampingMoment());
 		}
 		
 		if (store.forces != null) {
-			data.setValue(FlightDataType.TYPE_DRAG_COEFF, store.forces.getCD());
-			data.setValue(FlightDataType.TYPE_AXIAL_DRAG_COEFF, store.forces.getCDaxial());
-			data.setValue(FlightDataType.TYPE_FRICTION_DRAG_COEFF, store.forces.getFrictionCD());
-			data.setValue(FlightDataType.TYPE_PRESSURE_DRAG_COEFF, store.forces.getPressureCD());
-			data.setValue(FlightDataType.TYPE_BASE_DRAG_COEFF, store.forces.getBaseCD());
+			if (data.isComputed(FlightDataType.TYPE_DRAG_COEFF)) {
+				data.setValue(FlightDataType.TYPE_DRAG_COEFF, store.forces.getCD());
+			}
+			if (data.isComputed(FlightDataType.TYPE_AXIAL_DRAG_COEFF)) {
+				data.setValue(FlightDataType.TYPE_AXIAL_DRAG_COEFF, store.forces.getCDaxial());
+			}
+			if (data.isComputed(FlightDataType.TYPE_FRICTION_DRAG_COEFF)) {
+				data.setValue(FlightDataType.TYPE_FRICTION_DRAG_COEFF, store.forces.getFrictionCD());
+			}
+			if (data.isComputed(FlightDataType.TYPE_PRESSURE_DRAG_COEFF)) {
+				data.setValue(FlightDataType.TYPE_PRESSURE_DRAG_COEFF, store.forces.getPressureCD());
+			}
+			if (data.isComputed(FlightDataType.TYPE_BASE_DRAG_COEFF)) {
+				data.setValue(FlightDataType.TYPE_BASE_DRAG_COEFF, store.forces.getBaseCD());
+			}
 		}
 		
 		if (store.flightConditions != null) {
-			data.setValue(FlightDataType.TYPE_REFERENCE_LENGTH, store.flightConditions.getRefLength());
-			data.setValue(FlightDataType.TYPE_REFERENCE_AREA, store.flightConditions.getRefArea());
+			if (data.isComputed(FlightDataType.TYPE_REFERENCE_LENGTH)) {
+				data.setValue(FlightDataType.TYPE_REFERENCE_LENGTH, store.flightConditions.getRefLength());
+			}
+			if (data.isComputed(FlightDataType.TYPE_REFERENCE_AREA)) {
+				data.setValue(FlightDataType.TYPE_REFERENCE_AREA, store.flightConditions.getRefArea());
+			}
 			
-			data.setValue(FlightDataType.TYPE_PITCH_RATE, store.flightConditions.getPitchRate());
-			data.setValue(FlightDataType.TYPE_YAW_RATE, store.flightConditions.getYawRate());
-			data.setValue(FlightDataType.TYPE_ROLL_RATE, store.flightConditions.getRollRate());
+			if (data.isComputed(FlightDataType.TYPE_PITCH_RATE)) {
+				data.setValue(FlightDataType.TYPE_PITCH_RATE, store.flightConditions.getPitchRate());
+			}
+			if (data.isComputed(FlightDataType.TYPE_YAW_RATE)) {
+				data.setValue(FlightDataType.TYPE_YAW_RATE, store.flightConditions.getYawRate());
+			}
+			if (data.isComputed(FlightDataType.TYPE_ROLL_RATE)) {
+				data.setValue(FlightDataType.TYPE_ROLL_RATE, store.flightConditions.getRollRate());
+			}
 			
 			data.setValue(FlightDataType.TYPE_AOA, store.flightConditions.getAOA());
 		}
 		
 
-		if (extra) {
+		if (extra && (data.isComputed(FlightDataType.TYPE_ORIENTATION_THETA) ||
+				data.isComputed(FlightDataType.TYPE_ORIENTATION_PHI))) {
 			Coordinate c = status.getRocketOrientationQuaternion().rotateZ();
 			double theta = Math.atan2(c.z, MathUtil.hypot(c.x, c.y));
 			double phi = Math.atan2(c.y, c.x);
@@ -671,38 +763,71 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 			data.setValue(FlightDataType.TYPE_ORIENTATION_PHI, phi);
 		}
 		
-		data.setValue(FlightDataType.TYPE_WIND_VELOCITY, store.windSpeed);
+		if (data.isComputed(FlightDataType.TYPE_WIND_VELOCITY)) {
+			data.setValue(FlightDataType.TYPE_WIND_VELOCITY, store.windSpeed);
+		}
 		
 		if (store.flightConditions != null) {
-			data.setValue(FlightDataType.TYPE_AIR_TEMPERATURE,
-					store.flightConditions.getAtmosphericConditions().getTemperature());
-			data.setValue(FlightDataType.TYPE_AIR_PRESSURE,
-					store.flightConditions.getAtmosphericConditions().getPressure());
-			data.setValue(FlightDataType.TYPE_SPEED_OF_SOUND,
-					store.flightConditions.getAtmosphericConditions().getMachSpeed());
+			if (data.isComputed(FlightDataType.TYPE_AIR_TEMPERATURE)) {
+				data.setValue(FlightDataType.TYPE_AIR_TEMPERATURE,
+						store.flightConditions.getAtmosphericConditions().getTemperature());
+			}
+			if (data.isComputed(FlightDataType.TYPE_AIR_PRESSURE)) {
+				data.setValue(FlightDataType.TYPE_AIR_PRESSURE,
+						store.flightConditions.getAtmosphericConditions().getPressure());
+			}
+			if (data.isComputed(FlightDataType.TYPE_SPEED_OF_SOUND)) {
+				data.setValue(FlightDataType.TYPE_SPEED_OF_SOUND,
+						store.flightConditions.getAtmosphericConditions().getMachSpeed());
+			}
 		}
 		
 
-		data.setValue(FlightDataType.TYPE_TIME_STEP, store.timestep);
-		data.setValue(FlightDataType.TYPE_COMPUTATION_TIME,
-				(System.nanoTime() - status.getSimulationStartWallTime()) / 1000000000.0);
+		if (data.isComputed(FlightDataType.TYPE_TIME_STEP)) {
+			data.setValue(FlightDataType.TYPE_TIME_STEP, store.timestep);
+		}
+		if (data.isComputed(FlightDataType.TYPE_COMPUTATION_TIME)) {
+			data.setValue(FlightDataType.TYPE_COMPUTATION_TIME,
+					(System.nanoTime() - status.getSimulationStartWallTime()) / 1000000000.0);
+		}
 	}
 	
 	
 
 
-	private static class RK4Parameters {
+	/**
+	 * The derivatives at one RK4 sub-step, stored as primitive x, y, z triplets so that
+	 * the instances can be reused between steps.
+	 */
+	static class RK4Parameters {
 		/** Linear acceleration */
-		public Coordinate a;
+		public final double[] a = new double[3];
 		/** Linear velocity */
-		public Coordinate v;
+		public final double[] v = new double[3];
 		/** Rotational acceleration */
-		public Coordinate ra;
+		public final double[] ra = new double[3];
 		/** Rotational velocity */
-		public Coordinate rv;
+		public final double[] rv = new double[3];
+		
+		public void set(Coordinate a, Coordinate v, Coordinate ra, Coordinate rv) {
+			copy(a, this.a);
+			copy(v, this.v);
+			copy(ra, this.ra);
+			copy(rv, this.rv);
+		}
+		
+		public double velocityLength() {
+			return MathUtil.safeSqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+		}
+		
+		private static void copy(Coordinate c, double[] dest) {
+			dest[0] = c.x;
+			dest[1] = c.y;
+			dest[2] = c.z;
+		}
 	}
 	
-	private static class DataStore {
+	static class DataStore {
 		public double timestep = Double.NaN;
 		
 		public AccelerationData accelerationData;
@@ -735,6 +860,30 @@ public class RK4SimulationStepper extends AbstractSimulationStepper {
 		
 		public Rotation2D thetaRotation;
 		
+		/**
+		 * Clear all values so that nothing from the previous step is stored by accident.
+		 */
+		public void reset() {
+			timestep = Double.NaN;
+			accelerationData = null;
+			atmosphericConditions = null;
+			flightConditions = null;
+			longitudinalAcceleration = Double.NaN;
+			rocketMass = null;
+			motorMass = null;
+			coriolisAcceleration = null;
+			linearAcceleration = null;
+			angularAcceleration = null;
+			forces = null;
+			windSpeed = Double.NaN;
+			gravity = Double.NaN;
+			thrustForce = Double.NaN;
+			dragForce = Double.NaN;
+			lateralPitchRate = Double.NaN;
+			rollAcceleration = Double.NaN;
+			lateralPitchAcceleration = Double.NaN;
+			thetaRotation = null;
+		}
 	}
 	
 }
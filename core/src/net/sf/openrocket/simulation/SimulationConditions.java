@@ -1,7 +1,10 @@
 package net.sf.openrocket.simulation;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import net.sf.openrocket.aerodynamics.AerodynamicCalculator;
 import net.sf.openrocket.document.Simulation;
@@ -58,10 +61,14 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	
 	private double timeStep = RK4SimulationStepper.RECOMMENDED_TIME_STEP;
 	private double maximumAngleStep = RK4SimulationStepper.RECOMMENDED_ANGLE_STEP;
+	private IntegrationMethod integrationMethod = IntegrationMethod.RK4;
 	
 	/* Whether to calculate additional data or only primary simulation figures */
 	private boolean calculateExtras = true;
 	
+	/** The flight data types recorded at every step, or null to record all types */
+	private Set<FlightDataType> recordedTypes = null;
+	
 	
 	private List<SimulationListener> simulationListeners = new ArrayList<SimulationListener>();
 	
@@ -246,6 +253,20 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	}
 	
 	
+	public IntegrationMethod getIntegrationMethod() {
+		return integrationMethod;
+	}
+	
+	
+	public void setIntegrationMethod(IntegrationMethod integrationMethod) {
+		if (integrationMethod == null) {
+			throw new IllegalArgumentException("integrationMethod cannot be null");
+		}
+		this.integrationMethod = integrationMethod;
+		this.modID++;
+	}
+	
+	
 	public double getMaximumAngleStep() {
 		return maximumAngleStep;
 	}
@@ -269,6 +290,33 @@ public class SimulationConditions implements Monitorable, Cloneable {
 	
 	
 	
+	/**
+	 * Return the flight data types that are recorded at every time step, or <code>null</code>
+	 * if all types are recorded.
+	 */
+	public Set<FlightDataType> getRecordedTypes() {
+		return recordedTypes;
+	}
+	
+	/**
+	 * Set the flight data types that are recorded at every time step.  For the other types
+	 * only the minimum, maximum and last value are kept, which suffices for the summary
+	 * values of {@link FlightData}.  An empty set records no data points at all.  Types that
+	 * are not needed for the summary values are not computed, so simulation listeners see
+	 * no values for them (see {@link FlightDataBranch#isComputed(FlightDataType)}).
+	 * 
+	 * @param recordedTypes	the types to record, or <code>null</code> to record all types.
+	 */
+	public void setRecordedTypes(Set<FlightDataType> recordedTypes) {
+		if (recordedTypes == null) {
+			this.recordedTypes = null;
+		} else {
+			this.recordedTypes = Collections.unmodifiableSet(new LinkedHashSet<FlightDataType>(recordedTypes));
+		}
+		this.modID++;
+	}
+	
+	
 	public int getRandomSeed() {
 		return randomSeed;
 	}
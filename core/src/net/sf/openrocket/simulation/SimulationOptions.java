@@ -1,10 +1,14 @@
 package net.sf.openrocket.simulation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EventListener;
 import java.util.EventObject;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,11 +81,16 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 	
 	private double timeStep = preferences.getDouble(Preferences.SIMULATION_TIME_STEP, RK4SimulationStepper.RECOMMENDED_TIME_STEP);
 	private double maximumAngle = RK4SimulationStepper.RECOMMENDED_ANGLE_STEP;
+	private IntegrationMethod integrationMethod = IntegrationMethod.RK4;
 	
 	private int randomSeed = new Random().nextInt();
 	
 	private boolean calculateExtras = true;
 	
+	private Set<FlightDataType> recordedTypes = null;
+	
+	private double aerodynamicTableTolerance = 0;
+	
 	
 	private List<EventListener> listeners = new ArrayList<EventListener>();
 	
@@ -354,6 +363,21 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 	}
 	
 	
+	public IntegrationMethod getIntegrationMethod() {
+		return integrationMethod;
+	}
+	
+	public void setIntegrationMethod(IntegrationMethod integrationMethod) {
+		if (this.integrationMethod == integrationMethod)
+			return;
+		if (integrationMethod == null) {
+			throw new IllegalArgumentException("integrationMethod cannot be null");
+		}
+		this.integrationMethod = integrationMethod;
+		fireChangeEvent();
+	}
+	
+	
 	
 	public boolean getCalculateExtras() {
 		return calculateExtras;
@@ -370,6 +394,67 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 	
 	
 	
+	/**
+	 * Return the flight data types recorded at every time step, or <code>null</code>
+	 * if all types are recorded.
+	 * 
+	 * @see SimulationConditions#setRecordedTypes(Set)
+	 */
+	public Set<FlightDataType> getRecordedTypes() {
+		return recordedTypes;
+	}
+	
+	/**
+	 * Set the flight data types recorded at every time step.  Recording only a few types
+	 * (or none) reduces the memory and time used by simulations that only need the summary
+	 * values, such as optimizations and dispersion analyses.  This setting is not stored
+	 * in design files.
+	 * 
+	 * @param recordedTypes	the types to record, or <code>null</code> to record all types.
+	 * @see SimulationConditions#setRecordedTypes(Set)
+	 */
+	public void setRecordedTypes(Set<FlightDataType> recordedTypes) {
+		if (recordedTypes != null) {
+			recordedTypes = Collections.unmodifiableSet(new LinkedHashSet<FlightDataType>(recordedTypes));
+		}
+		if (Objects.equals(this.recordedTypes, recordedTypes))
+			return;
+		this.recordedTypes = recordedTypes;
+		fireChangeEvent();
+	}
+	
+	
+	
+	/**
+	 * Return the tolerance of the aerodynamic coefficient tables, or zero if the tables
+	 * are not used.
+	 * 
+	 * @see BarrowmanCalculator#setTableTolerance(double)
+	 */
+	public double getAerodynamicTableTolerance() {
+		return aerodynamicTableTolerance;
+	}
+	
+	/**
+	 * Set the tolerance of the aerodynamic coefficient tables.  With a positive tolerance
+	 * the aerodynamic forces are interpolated from tables instead of being recalculated at
+	 * every step.  This setting is not stored in design files.
+	 * 
+	 * @param tolerance		the maximum relative interpolation error, or zero to calculate
+	 * 						the forces directly.
+	 * @see BarrowmanCalculator#setTableTolerance(double)
+	 */
+	public void setAerodynamicTableTolerance(double tolerance) {
+		if (!(tolerance >= 0)) {
+			throw new IllegalArgumentException("tolerance must be non-negative, was " + tolerance);
+		}
+		if (this.aerodynamicTableTolerance == tolerance)
+			return;
+		this.aerodynamicTableTolerance = tolerance;
+		fireChangeEvent();
+	}
+	
+	
 	public int getRandomSeed() {
 		return randomSeed;
 	}
@@ -468,6 +553,14 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 			isChanged = true;
 			this.windTurbulence = src.windTurbulence;
 		}
+		if (!Objects.equals(this.recordedTypes, src.recordedTypes)) {
+			isChanged = true;
+			this.recordedTypes = src.recordedTypes;
+		}
+		if (this.aerodynamicTableTolerance != src.aerodynamicTableTolerance) {
+			isChanged = true;
+			this.aerodynamicTableTolerance = src.aerodynamicTableTolerance;
+		}
 		if (this.calculateExtras != src.calculateExtras) {
 			isChanged = true;
 			this.calculateExtras = src.calculateExtras;
@@ -480,6 +573,10 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 			isChanged = true;
 			this.geodeticComputation = src.geodeticComputation;
 		}
+		if (this.integrationMethod != src.integrationMethod) {
+			isChanged = true;
+			this.integrationMethod = src.integrationMethod;
+		}
 		
 		if (isChanged) {
 			// Only copy the randomSeed if something else has changed.
@@ -512,7 +609,10 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 				MathUtil.equals(this.windAverage, o.windAverage) &&
 				MathUtil.equals(this.windTurbulence, o.windTurbulence) &&
 				MathUtil.equals(this.windDirection, o.windDirection) &&
-				this.calculateExtras == o.calculateExtras && this.randomSeed == o.randomSeed);
+				this.integrationMethod == o.integrationMethod &&
+				this.calculateExtras == o.calculateExtras && Objects.equals(this.recordedTypes, o.recordedTypes) &&
+				this.aerodynamicTableTolerance == o.aerodynamicTableTolerance &&
+				this.randomSeed == o.randomSeed);
 	}
 	
 	/**
@@ -575,13 +675,17 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 		
 		conditions.setGravityModel(gravityModel);
 		
-		conditions.setAerodynamicCalculator(new BarrowmanCalculator());
+		BarrowmanCalculator aerodynamicCalculator = new BarrowmanCalculator();
+		aerodynamicCalculator.setTableTolerance(getAerodynamicTableTolerance());
+		conditions.setAerodynamicCalculator(aerodynamicCalculator);
 		conditions.setMassCalculator(new MassCalculator());
 		
 		conditions.setTimeStep(getTimeStep());
 		conditions.setMaximumAngleStep(getMaximumStepAngle());
+		conditions.setIntegrationMethod(getIntegrationMethod());
 		
 		conditions.setCalculateExtras(getCalculateExtras());
+		conditions.setRecordedTypes(getRecordedTypes());
 		
 		return conditions;
 	}
@@ -605,7 +709,10 @@ public class SimulationOptions implements ChangeSource, Cloneable {
 			.concat(String.format("    launchPressure:  %f\n", launchPressure))
 			.concat(String.format("    timeStep:  %f\n", timeStep))
 			.concat(String.format("    maximumAngle:  %f\n", maximumAngle))
+			.concat("    integrationMethod:  " + integrationMethod.toString() + "\n")
 			.concat(String.format("    calculateExtras:  %b\n", calculateExtras))
+			.concat("    recordedTypes:  " + recordedTypes + "\n")
+			.concat(String.format("    aerodynamicTableTolerance:  %f\n", aerodynamicTableTolerance))
 			.concat("]\n");
 	}
 	
@@ -0,0 +1,122 @@
+package net.sf.openrocket.simulation.batch;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.simulation.FlightData;
+
+/**
+ * The result of a single simulation run by a {@link BatchSimulationRunner}.  Contains the
+ * simulated flight data (or the exception that aborted the simulation) together with the
+ * wall-clock time the simulation took.
+ */
+public class BatchSimulationResult {
+
+	private final OpenRocketDocument document;
+	private final Simulation source;
+	private final Simulation simulation;
+	private final long wallTimeNanos;
+	private final Throwable throwable;
+
+	BatchSimulationResult(OpenRocketDocument document, Simulation source, Simulation simulation,
+			long wallTimeNanos, Throwable throwable) {
+		this.document = document;
+		this.source = source;
+		this.simulation = simulation;
+		this.wallTimeNanos = wallTimeNanos;
+		this.throwable = throwable;
+	}
+
+	/**
+	 * Return the document the simulation belongs to.
+	 */
+	public OpenRocketDocument getDocument() {
+		return document;
+	}
+
+	/**
+	 * Return the original simulation of the document.  This simulation is not modified
+	 * by the batch run.
+	 */
+	public Simulation getSourceSimulation() {
+		return source;
+	}
+
+	/**
+	 * Return the private copy of the simulation that was actually simulated.
+	 */
+	public Simulation getSimulation() {
+		return simulation;
+	}
+
+	/**
+	 * Return the name of the simulation.
+	 */
+	public String getName() {
+		return simulation.getName();
+	}
+
+	/**
+	 * Return the flight data of the simulation.  If the simulation was aborted, this
+	 * contains the data simulated up to that point, or <code>null</code> if none is available.
+	 */
+	public FlightData getFlightData() {
+		return simulation.getSimulatedData();
+	}
+
+	/**
+	 * Return the exception that aborted the simulation, or <code>null</code> if it
+	 * completed successfully.
+	 */
+	public Throwable getThrowable() {
+		return throwable;
+	}
+
+	public boolean isSuccessful() {
+		return throwable == null;
+	}
+
+	/**
+	 * Return the wall-clock time spent simulating, in nanoseconds.
+	 */
+	public long getWallTimeNanos() {
+		return wallTimeNanos;
+	}
+
+	/**
+	 * Return the wall-clock time spent simulating, in seconds.
+	 */
+	public double getWallTime() {
+		return wallTimeNanos / 1000000000.0;
+	}
+
+	public double getMaxAltitude() {
+		FlightData data = getFlightData();
+		return data != null ? data.getMaxAltitude() : Double.NaN;
+	}
+
+	public double getMaxVelocity() {
+		FlightData data = getFlightData();
+		return data != null ? data.getMaxVelocity() : Double.NaN;
+	}
+
+	public double getTimeToApogee() {
+		FlightData data = getFlightData();
+		return data != null ? data.getTimeToApogee() : Double.NaN;
+	}
+
+	public double getFlightTime() {
+		FlightData data = getFlightData();
+		return data != null ? data.getFlightTime() : Double.NaN;
+	}
+
+	public double getGroundHitVelocity() {
+		FlightData data = getFlightData();
+		return data != null ? data.getGroundHitVelocity() : Double.NaN;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BatchSimulationResult[name=%s, successful=%b, wallTime=%.3fs, maxAltitude=%.2f, maxVelocity=%.2f]",
+				getName(), isSuccessful(), getWallTime(), getMaxAltitude(), getMaxVelocity());
+	}
+}
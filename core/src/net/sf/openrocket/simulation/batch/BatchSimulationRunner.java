@@ -0,0 +1,219 @@
+package net.sf.openrocket.simulation.batch;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.file.GeneralRocketLoader;
+import net.sf.openrocket.file.RocketLoadException;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.BasicEventSimulationEngine;
+import net.sf.openrocket.simulation.SimulationEngine;
+import net.sf.openrocket.util.BugException;
+
+/**
+ * Runs all simulations of one or more documents in parallel without any user interface.
+ * <p>
+ * Simulations are executed on a work-stealing thread pool.  Each worker thread keeps its
+ * own {@link BasicEventSimulationEngine} instance, which is reused for all simulations run
+ * on that thread.  Every simulation is run on a private copy of the simulation and its
+ * rocket, so the documents themselves are never modified and no change events are fired
+ * from the worker threads.
+ * <p>
+ * The public methods of this class are meant to be called from a single thread.
+ */
+public class BatchSimulationRunner {
+	private static final Logger log = LoggerFactory.getLogger(BatchSimulationRunner.class);
+
+	private final ForkJoinPool pool;
+
+	private final ThreadLocal<SimulationEngine> engines = new ThreadLocal<SimulationEngine>() {
+		@Override
+		protected SimulationEngine initialValue() {
+			return new BasicEventSimulationEngine();
+		}
+	};
+
+
+	/**
+	 * Construct a runner that uses the same number of threads as there are processors available.
+	 */
+	public BatchSimulationRunner() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct a runner that uses the specified number of threads.
+	 *
+	 * @param threadCount	the number of simulations to run concurrently.
+	 */
+	public BatchSimulationRunner(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("threadCount must be positive, was " + threadCount);
+		}
+		this.pool = new ForkJoinPool(threadCount);
+	}
+
+
+	/**
+	 * Run all simulations of a document.
+	 *
+	 * @param document	the document whose simulations to run.
+	 * @return			the results, in the order of the simulations in the document.
+	 * @throws InterruptedException	if the calling thread is interrupted while waiting for the results.
+	 */
+	public List<BatchSimulationResult> simulate(OpenRocketDocument document) throws InterruptedException {
+		return simulate(Collections.singletonList(document));
+	}
+
+	/**
+	 * Run all simulations of the specified documents.  All simulations are submitted to the
+	 * thread pool at once, so simulations of different documents are run concurrently.
+	 * Imported simulations (status {@link Simulation.Status#EXTERNAL}) cannot be simulated
+	 * and are skipped.
+	 *
+	 * @param documents	the documents whose simulations to run.
+	 * @return			the results, in document and simulation order.
+	 * @throws InterruptedException	if the calling thread is interrupted while waiting for the results.
+	 */
+	public List<BatchSimulationResult> simulate(Collection<OpenRocketDocument> documents) throws InterruptedException {
+		List<Future<BatchSimulationResult>> futures = new ArrayList<Future<BatchSimulationResult>>();
+		for (OpenRocketDocument document : documents) {
+			for (Simulation simulation : document.getSimulations()) {
+				if (simulation.getStatus() == Simulation.Status.EXTERNAL) {
+					log.info("Skipping imported simulation " + simulation.getName());
+					continue;
+				}
+				// Copies are made on the calling thread, as the rocket may not be accessed concurrently
+				Simulation copy = copySimulation(document, simulation);
+				futures.add(pool.submit(new SimulationTask(document, simulation, copy)));
+			}
+		}
+
+		List<BatchSimulationResult> results = new ArrayList<BatchSimulationResult>(futures.size());
+		for (Future<BatchSimulationResult> future : futures) {
+			results.add(get(future));
+		}
+		return results;
+	}
+
+	/**
+	 * Load all OpenRocket documents (<code>*.ork</code>) of a directory and run all of their simulations.
+	 * The documents are loaded in parallel.
+	 *
+	 * @param directory	the directory containing the design files.
+	 * @return			the results, in file name and simulation order.
+	 * @throws RocketLoadException	if one of the files cannot be loaded.
+	 * @throws InterruptedException	if the calling thread is interrupted while waiting for the results.
+	 */
+	public List<BatchSimulationResult> simulateDirectory(File directory) throws RocketLoadException, InterruptedException {
+		File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".ork"));
+		if (files == null) {
+			throw new IllegalArgumentException("Not a directory: " + directory);
+		}
+		Arrays.sort(files);
+
+		List<Future<OpenRocketDocument>> futures = new ArrayList<Future<OpenRocketDocument>>(files.length);
+		for (final File file : files) {
+			futures.add(pool.submit(new Callable<OpenRocketDocument>() {
+				@Override
+				public OpenRocketDocument call() throws RocketLoadException {
+					return new GeneralRocketLoader(file).load();
+				}
+			}));
+		}
+
+		List<OpenRocketDocument> documents = new ArrayList<OpenRocketDocument>(files.length);
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				documents.add(futures.get(i).get());
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RocketLoadException) {
+					throw new RocketLoadException("Unable to load " + files[i] + ": " + e.getCause().getMessage(), e.getCause());
+				}
+				throw new BugException("Unexpected exception loading " + files[i], e.getCause());
+			}
+		}
+		log.info("Loaded " + documents.size() + " documents from " + directory);
+
+		return simulate(documents);
+	}
+
+	/**
+	 * Shut down the thread pool of this runner.  Simulations that have already been submitted
+	 * are completed, but the runner cannot be used afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+
+	/**
+	 * Create a private copy of a simulation of a document, including a copy of the rocket.
+	 * The copy is not attached to the document and may be simulated on another thread
+	 * while the document is in use.  The rocket of the document must not be modified
+	 * concurrently while the copy is made.
+	 *
+	 * @param document		the document the simulation belongs to.
+	 * @param simulation	the simulation to copy.
+	 * @return				a detached copy of the simulation, using the same random seed.
+	 */
+	public static Simulation copySimulation(OpenRocketDocument document, Simulation simulation) {
+		Rocket rocketCopy = document.getRocket().copyWithOriginalID();
+		// The rocket copy does not carry the stage activeness of the flight configurations
+		rocketCopy.getFlightConfiguration(simulation.getId()).copyStageActiveness(simulation.getActiveConfiguration());
+		Simulation copy = simulation.duplicateSimulation(rocketCopy);
+		copy.removeChangeListener(document);
+		copy.getOptions().setRandomSeed(simulation.getOptions().getRandomSeed());
+		return copy;
+	}
+
+
+	private static <T> T get(Future<T> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			throw new BugException("Unexpected exception in batch simulation", e.getCause());
+		}
+	}
+
+
+	private class SimulationTask implements Callable<BatchSimulationResult> {
+		private final OpenRocketDocument document;
+		private final Simulation source;
+		private final Simulation simulation;
+
+		public SimulationTask(OpenRocketDocument document, Simulation source, Simulation simulation) {
+			this.document = document;
+			this.source = source;
+			this.simulation = simulation;
+		}
+
+		@Override
+		public BatchSimulationResult call() {
+			Throwable throwable = null;
+			long t0 = System.nanoTime();
+			try {
+				simulation.simulate(engines.get());
+			} catch (Exception e) {
+				log.warn("Simulation " + simulation.getName() + " failed: " + e.getMessage());
+				throwable = e;
+			}
+			long t1 = System.nanoTime();
+			log.debug("Simulation " + simulation.getName() + " took " + (t1 - t0) / 1000000 + "ms");
+			return new BatchSimulationResult(document, source, simulation, t1 - t0, throwable);
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import java.util.Iterator;
+
+import net.sf.openrocket.aerodynamics.AerodynamicForces;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.simulation.SimulationOptions;
+import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.simulation.listeners.AbstractSimulationListener;
+
+/**
+ * A randomly varied parameter of a Monte Carlo analysis.  For every run, a value is drawn
+ * from the distribution of the dispersion and applied to the private copy of the simulation
+ * of that run.
+ * <p>
+ * Dispersions of simulation options use absolute values in SI units (e.g. the wind speed in m/s
+ * or the launch rod angle in radians), while the <code>...Factor</code> dispersions multiply the
+ * nominal value, so that a distribution such as <code>Distribution.normal(1, 0.03)</code>
+ * gives a 3% standard deviation.
+ */
+public abstract class Dispersion {
+
+	private final String name;
+	private final Distribution distribution;
+
+	protected Dispersion(String name, Distribution distribution) {
+		if (name == null || distribution == null) {
+			throw new IllegalArgumentException("name and distribution must not be null");
+		}
+		this.name = name;
+		this.distribution = distribution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Distribution getDistribution() {
+		return distribution;
+	}
+
+	/**
+	 * Apply a value drawn from the distribution to a run.  This is called on the thread
+	 * running the analysis before the flight is simulated.
+	 *
+	 * @param run	the run to modify.
+	 * @param value	the value drawn from the distribution.
+	 */
+	public abstract void apply(MonteCarloRun run, double value);
+
+	@Override
+	public String toString() {
+		return "Dispersion[" + name + ", " + distribution + "]";
+	}
+
+
+	/**
+	 * Disperse the average wind speed (m/s).
+	 */
+	public static Dispersion windSpeed(Distribution distribution) {
+		return new Dispersion("Wind speed", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				run.getOptions().setWindSpeedAverage(value);
+			}
+		};
+	}
+
+	/**
+	 * Disperse the wind direction (radians).
+	 */
+	public static Dispersion windDirection(Distribution distribution) {
+		return new Dispersion("Wind direction", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				run.getOptions().setWindDirection(value);
+			}
+		};
+	}
+
+	/**
+	 * Disperse the launch rod angle from vertical (radians).
+	 */
+	public static Dispersion launchRodAngle(Distribution distribution) {
+		return new Dispersion("Launch rod angle", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				run.getOptions().setLaunchRodAngle(value);
+			}
+		};
+	}
+
+	/**
+	 * Disperse the launch rod direction (radians).  Has no effect if the rocket is
+	 * launched into the wind.
+	 */
+	public static Dispersion launchRodDirection(Distribution distribution) {
+		return new Dispersion("Launch rod direction", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				SimulationOptions options = run.getOptions();
+				if (!options.getLaunchIntoWind()) {
+					options.setLaunchRodDirection(value);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Disperse the thrust of all motors.  The sampled value multiplies the thrust, and thus
+	 * the total impulse, while the burn time and motor mass remain unchanged.
+	 */
+	public static Dispersion thrustFactor(Distribution distribution) {
+		return new Dispersion("Thrust factor", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				run.addListener(new ThrustFactorListener(value));
+			}
+		};
+	}
+
+	/**
+	 * Disperse the drag coefficient of the rocket.  The sampled value multiplies the
+	 * total and axial drag coefficients.
+	 */
+	public static Dispersion dragFactor(Distribution distribution) {
+		return new Dispersion("Drag factor", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				run.addListener(new DragFactorListener(value));
+			}
+		};
+	}
+
+	/**
+	 * Disperse the mass of the rocket structure, excluding motors.  The sampled value
+	 * multiplies the (possibly overridden) mass of every component.  The center of mass
+	 * of the components is not changed.
+	 */
+	public static Dispersion massFactor(Distribution distribution) {
+		return new Dispersion("Mass factor", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				Iterator<RocketComponent> iterator = run.getRocket().iterator(false);
+				while (iterator.hasNext()) {
+					RocketComponent component = iterator.next();
+					if (component.getMassOverriddenBy() == null) {
+						// Components whose mass is overridden by a parent are scaled with the parent
+						scaleMass(component, value);
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Disperse the mass of a single component (kg).  The sampled value overrides the mass
+	 * of the component.
+	 *
+	 * @param componentId	the ID of the component, see {@link RocketComponent#getID()}.
+	 */
+	public static Dispersion componentMass(final String componentId, Distribution distribution) {
+		return new Dispersion("Component mass", distribution) {
+			@Override
+			public void apply(MonteCarloRun run, double value) {
+				RocketComponent component = run.getRocket().findComponent(componentId);
+				if (component == null) {
+					throw new IllegalArgumentException("Component " + componentId + " not found in rocket");
+				}
+				component.setOverrideMass(value);
+				component.setMassOverridden(true);
+			}
+		};
+	}
+
+
+	private static void scaleMass(RocketComponent component, double factor) {
+		double mass = component.getMass();
+		if (mass == 0) {
+			return;
+		}
+		component.setOverrideMass(mass * factor);
+		component.setMassOverridden(true);
+	}
+
+
+	private static class ThrustFactorListener extends AbstractSimulationListener {
+		private final double factor;
+
+		public ThrustFactorListener(double factor) {
+			this.factor = factor;
+		}
+
+		@Override
+		public double postSimpleThrustCalculation(SimulationStatus status, double thrust) {
+			return thrust * factor;
+		}
+
+		@Override
+		public boolean isSystemListener() {
+			return true;
+		}
+	}
+
+	private static class DragFactorListener extends AbstractSimulationListener {
+		private final double factor;
+
+		public DragFactorListener(double factor) {
+			this.factor = factor;
+		}
+
+		@Override
+		public AerodynamicForces postAerodynamicCalculation(SimulationStatus status, AerodynamicForces forces) {
+			forces.setCD(forces.getCD() * factor);
+			forces.setCDaxial(forces.getCDaxial() * factor);
+			return forces;
+		}
+
+		@Override
+		public boolean isSystemListener() {
+			return true;
+		}
+	}
+}
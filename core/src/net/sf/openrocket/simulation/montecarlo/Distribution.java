@@ -0,0 +1,177 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import java.util.Random;
+
+/**
+ * A probability distribution from which the values of a {@link Dispersion} are drawn.
+ * Instances are immutable and may be shared between threads; all randomness comes from
+ * the {@link Random} passed to {@link #sample(Random)}.
+ */
+public abstract class Distribution {
+
+	/**
+	 * Draw a value from this distribution.
+	 *
+	 * @param random	the source of randomness.
+	 * @return			the sampled value.
+	 */
+	public abstract double sample(Random random);
+
+	/**
+	 * Return the mean of this distribution.
+	 */
+	public abstract double getMean();
+
+
+	/**
+	 * Return a distribution that always returns the same value.
+	 */
+	public static Distribution constant(double value) {
+		return new Constant(value);
+	}
+
+	/**
+	 * Return a normal distribution.
+	 *
+	 * @param mean		the mean value.
+	 * @param deviation	the standard deviation, must be non-negative.
+	 */
+	public static Distribution normal(double mean, double deviation) {
+		if (!(deviation >= 0)) {
+			throw new IllegalArgumentException("deviation must be non-negative, was " + deviation);
+		}
+		return new Normal(mean, deviation);
+	}
+
+	/**
+	 * Return a uniform distribution on [min, max).
+	 */
+	public static Distribution uniform(double min, double max) {
+		if (!(min <= max)) {
+			throw new IllegalArgumentException("min must not be larger than max, min=" + min + " max=" + max);
+		}
+		return new Uniform(min, max);
+	}
+
+	/**
+	 * Return a triangular distribution on [min, max] with its peak at <code>mode</code>.
+	 */
+	public static Distribution triangular(double min, double mode, double max) {
+		if (!(min <= mode && mode <= max)) {
+			throw new IllegalArgumentException("must have min <= mode <= max, min=" + min + " mode=" + mode + " max=" + max);
+		}
+		return new Triangular(min, mode, max);
+	}
+
+
+	private static class Constant extends Distribution {
+		private final double value;
+
+		public Constant(double value) {
+			this.value = value;
+		}
+
+		@Override
+		public double sample(Random random) {
+			return value;
+		}
+
+		@Override
+		public double getMean() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return "Constant[" + value + "]";
+		}
+	}
+
+	private static class Normal extends Distribution {
+		private final double mean;
+		private final double deviation;
+
+		public Normal(double mean, double deviation) {
+			this.mean = mean;
+			this.deviation = deviation;
+		}
+
+		@Override
+		public double sample(Random random) {
+			return mean + deviation * random.nextGaussian();
+		}
+
+		@Override
+		public double getMean() {
+			return mean;
+		}
+
+		@Override
+		public String toString() {
+			return "Normal[mean=" + mean + ", deviation=" + deviation + "]";
+		}
+	}
+
+	private static class Uniform extends Distribution {
+		private final double min;
+		private final double max;
+
+		public Uniform(double min, double max) {
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public double sample(Random random) {
+			return min + (max - min) * random.nextDouble();
+		}
+
+		@Override
+		public double getMean() {
+			return (min + max) / 2;
+		}
+
+		@Override
+		public String toString() {
+			return "Uniform[" + min + ", " + max + "]";
+		}
+	}
+
+	private static class Triangular extends Distribution {
+		private final double min;
+		private final double mode;
+		private final double max;
+
+		public Triangular(double min, double mode, double max) {
+			this.min = min;
+			this.mode = mode;
+			this.max = max;
+		}
+
+		@Override
+		public double sample(Random random) {
+			double u = random.nextDouble();
+			double range = max - min;
+			if (range == 0) {
+				return min;
+			}
+			// Inverse of the cumulative distribution function
+			double f = (mode - min) / range;
+			if (u < f) {
+				return min + Math.sqrt(u * range * (mode - min));
+			} else {
+				return max - Math.sqrt((1 - u) * range * (max - mode));
+			}
+		}
+
+		@Override
+		public double getMean() {
+			return (min + mode + max) / 3;
+		}
+
+		@Override
+		public String toString() {
+			return "Triangular[" + min + ", " + mode + ", " + max + "]";
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+/**
+ * The dispersion ellipse of the landing positions, computed in constant memory from the
+ * running mean and covariance of the positions.  Assuming the landing positions are normally
+ * distributed, the ellipse with semi-axes {@link #getSemiMajorAxis(double)} and
+ * {@link #getSemiMinorAxis(double)} centered at the mean position contains the given fraction
+ * of the landings.  NaN positions are ignored.  This class is not thread-safe.
+ */
+public class LandingEllipse {
+
+	private int count = 0;
+	private double meanX = 0;
+	private double meanY = 0;
+	private double sxx = 0;
+	private double syy = 0;
+	private double sxy = 0;
+
+
+	/**
+	 * Add a landing position.
+	 *
+	 * @param x	the position east of the launch site (m).
+	 * @param y	the position north of the launch site (m).
+	 */
+	public void add(double x, double y) {
+		if (Double.isNaN(x) || Double.isNaN(y)) {
+			return;
+		}
+		count++;
+		double dx = x - meanX;
+		double dy = y - meanY;
+		meanX += dx / count;
+		meanY += dy / count;
+		sxx += dx * (x - meanX);
+		syy += dy * (y - meanY);
+		sxy += dx * (y - meanY);
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public double getMeanX() {
+		return (count > 0) ? meanX : Double.NaN;
+	}
+
+	public double getMeanY() {
+		return (count > 0) ? meanY : Double.NaN;
+	}
+
+	public double getVarianceX() {
+		return (count > 1) ? sxx / (count - 1) : Double.NaN;
+	}
+
+	public double getVarianceY() {
+		return (count > 1) ? syy / (count - 1) : Double.NaN;
+	}
+
+	public double getCovariance() {
+		return (count > 1) ? sxy / (count - 1) : Double.NaN;
+	}
+
+	/**
+	 * Return the semi-major axis of the ellipse containing the given fraction of landings (m).
+	 *
+	 * @param probability	the fraction of landings inside the ellipse, between 0 and 1.
+	 */
+	public double getSemiMajorAxis(double probability) {
+		return Math.sqrt(getMajorVariance() * chiSquare2(probability));
+	}
+
+	/**
+	 * Return the semi-minor axis of the ellipse containing the given fraction of landings (m).
+	 *
+	 * @param probability	the fraction of landings inside the ellipse, between 0 and 1.
+	 */
+	public double getSemiMinorAxis(double probability) {
+		return Math.sqrt(Math.max(getMinorVariance(), 0) * chiSquare2(probability));
+	}
+
+	/**
+	 * Return the direction of the major axis, as the angle from the x (east) axis
+	 * towards the y (north) axis in radians.
+	 */
+	public double getOrientation() {
+		return 0.5 * Math.atan2(2 * getCovariance(), getVarianceX() - getVarianceY());
+	}
+
+
+	private double getMajorVariance() {
+		double a = getVarianceX();
+		double c = getVarianceY();
+		double b = getCovariance();
+		return (a + c) / 2 + Math.hypot((a - c) / 2, b);
+	}
+
+	private double getMinorVariance() {
+		double a = getVarianceX();
+		double c = getVarianceY();
+		double b = getCovariance();
+		return (a + c) / 2 - Math.hypot((a - c) / 2, b);
+	}
+
+	/**
+	 * Return the quantile of the chi-square distribution with two degrees of freedom.
+	 */
+	private static double chiSquare2(double probability) {
+		if (!(probability >= 0 && probability < 1)) {
+			throw new IllegalArgumentException("probability must be in [0, 1), was " + probability);
+		}
+		return -2 * Math.log(1 - probability);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LandingEllipse[count=%d, mean=(%g, %g), 95%%=%g x %g, orientation=%g]",
+				count, getMeanX(), getMeanY(), getSemiMajorAxis(0.95), getSemiMinorAxis(0.95), getOrientation());
+	}
+}
@@ -0,0 +1,40 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import net.sf.openrocket.unit.UnitGroup;
+
+/**
+ * The summary values of a flight that are accumulated by a Monte Carlo analysis.
+ */
+public enum MonteCarloMetric {
+
+	APOGEE("Apogee", UnitGroup.UNITS_DISTANCE),
+	MAX_VELOCITY("Max. velocity", UnitGroup.UNITS_VELOCITY),
+	MAX_ACCELERATION("Max. acceleration", UnitGroup.UNITS_ACCELERATION),
+	MAX_MACH_NUMBER("Max. Mach number", UnitGroup.UNITS_COEFFICIENT),
+	MAX_DYNAMIC_PRESSURE("Max. dynamic pressure", UnitGroup.UNITS_PRESSURE),
+	TIME_TO_APOGEE("Time to apogee", UnitGroup.UNITS_FLIGHT_TIME),
+	FLIGHT_TIME("Flight time", UnitGroup.UNITS_FLIGHT_TIME),
+	LAUNCH_ROD_VELOCITY("Velocity off rod", UnitGroup.UNITS_VELOCITY),
+	GROUND_HIT_VELOCITY("Ground hit velocity", UnitGroup.UNITS_VELOCITY);
+
+	private final String name;
+	private final UnitGroup units;
+
+	MonteCarloMetric(String name, UnitGroup units) {
+		this.name = name;
+		this.units = units;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public UnitGroup getUnitGroup() {
+		return units;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,87 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The accumulated results of a Monte Carlo analysis.  Only summary statistics are kept,
+ * so the memory used does not depend on the number of runs.
+ */
+public class MonteCarloResult {
+
+	private final Map<MonteCarloMetric, RunningStatistics> statistics =
+			new EnumMap<MonteCarloMetric, RunningStatistics>(MonteCarloMetric.class);
+	private final LandingEllipse landingEllipse = new LandingEllipse();
+
+	private int runCount = 0;
+	private int failureCount = 0;
+	private long wallTimeNanos = 0;
+
+
+	MonteCarloResult(double[] percentiles) {
+		for (MonteCarloMetric metric : MonteCarloMetric.values()) {
+			statistics.put(metric, new RunningStatistics(percentiles));
+		}
+	}
+
+
+	void add(double[] values, double landingX, double landingY) {
+		runCount++;
+		for (MonteCarloMetric metric : MonteCarloMetric.values()) {
+			statistics.get(metric).add(values[metric.ordinal()]);
+		}
+		landingEllipse.add(landingX, landingY);
+	}
+
+	void addFailure() {
+		runCount++;
+		failureCount++;
+	}
+
+	void setWallTimeNanos(long wallTimeNanos) {
+		this.wallTimeNanos = wallTimeNanos;
+	}
+
+
+	/**
+	 * Return the statistics of a summary value over all successful runs.
+	 */
+	public RunningStatistics getStatistics(MonteCarloMetric metric) {
+		return statistics.get(metric);
+	}
+
+	/**
+	 * Return the dispersion ellipse of the landing positions of the successful runs.
+	 */
+	public LandingEllipse getLandingEllipse() {
+		return landingEllipse;
+	}
+
+	/**
+	 * Return the total number of runs, including failed ones.
+	 */
+	public int getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Return the number of runs that were aborted by a simulation exception.  These
+	 * runs are not included in the statistics.
+	 */
+	public int getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * Return the wall-clock time of the whole analysis, in seconds.
+	 */
+	public double getWallTime() {
+		return wallTimeNanos / 1000000000.0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("MonteCarloResult[runs=%d, failures=%d, wallTime=%.3fs, apogee=%s, landing=%s]",
+				runCount, failureCount, getWallTime(), getStatistics(MonteCarloMetric.APOGEE), landingEllipse);
+	}
+}
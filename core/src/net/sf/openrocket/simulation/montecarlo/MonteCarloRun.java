@@ -0,0 +1,74 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.SimulationOptions;
+import net.sf.openrocket.simulation.listeners.SimulationListener;
+
+/**
+ * A single dispersed flight of a Monte Carlo analysis.  The run owns a private copy of the
+ * simulation and its rocket, which the {@link Dispersion}s modify before the flight is simulated.
+ */
+public class MonteCarloRun {
+
+	private final int index;
+	private final long seed;
+	private final Simulation simulation;
+	private final List<SimulationListener> listeners = new ArrayList<SimulationListener>();
+
+	MonteCarloRun(int index, long seed, Simulation simulation) {
+		this.index = index;
+		this.seed = seed;
+		this.simulation = simulation;
+	}
+
+	/**
+	 * Return the index of this run, starting from zero.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Return the seed of this run.  The seed depends only on the random seed of the
+	 * original simulation and the run index.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Return the private copy of the simulation that is flown in this run.
+	 */
+	public Simulation getSimulation() {
+		return simulation;
+	}
+
+	/**
+	 * Return the simulation options of this run.
+	 */
+	public SimulationOptions getOptions() {
+		return simulation.getOptions();
+	}
+
+	/**
+	 * Return the private copy of the rocket flown in this run.
+	 */
+	public Rocket getRocket() {
+		return simulation.getRocket();
+	}
+
+	/**
+	 * Add a simulation listener that is used only for this run.
+	 */
+	public void addListener(SimulationListener listener) {
+		listeners.add(listener);
+	}
+
+	List<SimulationListener> getListeners() {
+		return listeners;
+	}
+}
@@ -0,0 +1,284 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.openrocket.aerodynamics.FlightConditions;
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.simulation.BasicEventSimulationEngine;
+import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.FlightDataBranch;
+import net.sf.openrocket.simulation.FlightDataType;
+import net.sf.openrocket.simulation.SimulationEngine;
+import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.simulation.batch.BatchSimulationRunner;
+import net.sf.openrocket.simulation.listeners.AbstractSimulationListener;
+import net.sf.openrocket.simulation.listeners.SimulationListener;
+import net.sf.openrocket.util.BugException;
+
+/**
+ * Runs a Monte Carlo dispersion analysis of a simulation.
+ * <p>
+ * Every run flies a private copy of the simulation and its rocket, to which values drawn from
+ * the {@link Dispersion}s are applied.  The values of run <i>i</i> are drawn from a random number
+ * generator seeded by {@link #getRunSeed(int, int)} from the random seed of the simulation and
+ * <i>i</i>, so an analysis is reproducible.  The runs are simulated in parallel, but their summary
+ * values are accumulated in run order, so the results do not depend on the number of threads.
+ * <p>
+ * Only a bounded number of runs is in progress at any time and the runs record no per-step
+ * flight data, only summary values, so the memory used does not depend on the number of runs.
+ * <p>
+ * The public methods of this class are meant to be called from a single thread.
+ */
+public class MonteCarloRunner {
+	private static final Logger log = LoggerFactory.getLogger(MonteCarloRunner.class);
+
+	/** The default percentiles estimated for each summary value */
+	public static final double[] DEFAULT_PERCENTILES = { 0.05, 0.25, 0.5, 0.75, 0.95 };
+
+	/** Number of runs in progress per thread */
+	private static final int RUNS_PER_THREAD = 4;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final ForkJoinPool pool;
+
+	private final ThreadLocal<SimulationEngine> engines = new ThreadLocal<SimulationEngine>() {
+		@Override
+		protected SimulationEngine initialValue() {
+			return new BasicEventSimulationEngine();
+		}
+	};
+
+	private double[] percentiles = DEFAULT_PERCENTILES.clone();
+
+
+	/**
+	 * Construct a runner that uses the same number of threads as there are processors available.
+	 */
+	public MonteCarloRunner() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct a runner that uses the specified number of threads.
+	 *
+	 * @param threadCount	the number of simulations to run concurrently.
+	 */
+	public MonteCarloRunner(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("threadCount must be positive, was " + threadCount);
+		}
+		this.pool = new ForkJoinPool(threadCount);
+	}
+
+
+	public double[] getPercentiles() {
+		return percentiles.clone();
+	}
+
+	/**
+	 * Set the percentiles estimated for each summary value by subsequent analyses.
+	 *
+	 * @param percentiles	the percentiles, as fractions between 0 and 1.
+	 */
+	public void setPercentiles(double... percentiles) {
+		for (double p : percentiles) {
+			if (!(p >= 0 && p <= 1)) {
+				throw new IllegalArgumentException("percentile must be between 0 and 1, was " + p);
+			}
+		}
+		this.percentiles = percentiles.clone();
+	}
+
+
+	/**
+	 * Run a Monte Carlo analysis of a simulation.  The document and simulation are not modified.
+	 *
+	 * @param document		the document containing the simulation.
+	 * @param simulation	the nominal simulation.
+	 * @param dispersions	the parameters to disperse, applied in order.
+	 * @param runCount		the number of runs.
+	 * @return				the accumulated results.
+	 * @throws InterruptedException	if the calling thread is interrupted while waiting for the runs.
+	 */
+	public MonteCarloResult run(OpenRocketDocument document, Simulation simulation, List<Dispersion> dispersions,
+			int runCount) throws InterruptedException {
+		if (runCount < 0) {
+			throw new IllegalArgumentException("runCount must be non-negative, was " + runCount);
+		}
+		if (simulation.getStatus() == Simulation.Status.EXTERNAL) {
+			throw new IllegalArgumentException("Cannot run Monte Carlo analysis of imported simulation");
+		}
+
+		MonteCarloResult result = new MonteCarloResult(percentiles);
+		int baseSeed = simulation.getOptions().getRandomSeed();
+		int maxPending = pool.getParallelism() * RUNS_PER_THREAD;
+		Deque<Future<RunSummary>> pending = new ArrayDeque<Future<RunSummary>>(maxPending);
+
+		long t0 = System.nanoTime();
+		for (int i = 0; i < runCount; i++) {
+			if (pending.size() >= maxPending) {
+				accumulate(result, get(pending.removeFirst()));
+			}
+
+			// Runs are prepared on the calling thread, as the rocket may not be accessed concurrently
+			long seed = getRunSeed(baseSeed, i);
+			MonteCarloRun run = new MonteCarloRun(i, seed, BatchSimulationRunner.copySimulation(document, simulation));
+			Random random = new Random(seed);
+			for (Dispersion dispersion : dispersions) {
+				dispersion.apply(run, dispersion.getDistribution().sample(random));
+			}
+			run.getOptions().setRandomSeed(random.nextInt());
+			run.getOptions().setRecordedTypes(Collections.<FlightDataType> emptySet());
+
+			pending.addLast(pool.submit(new RunTask(run)));
+		}
+		while (!pending.isEmpty()) {
+			accumulate(result, get(pending.removeFirst()));
+		}
+		result.setWallTimeNanos(System.nanoTime() - t0);
+
+		log.info("Monte Carlo analysis of " + simulation.getName() + ": " + result);
+		return result;
+	}
+
+	/**
+	 * Shut down the thread pool of this runner.  The runner cannot be used afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+
+	/**
+	 * Return the seed of a run, computed from the random seed of the nominal simulation
+	 * and the run index with the SplitMix64 generator.
+	 *
+	 * @param baseSeed	the random seed of the nominal simulation.
+	 * @param index		the index of the run.
+	 * @return			the seed of the run.
+	 */
+	public static long getRunSeed(int baseSeed, int index) {
+		return mix(mix(baseSeed) + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+
+	private static void accumulate(MonteCarloResult result, RunSummary summary) {
+		if (summary.values == null) {
+			result.addFailure();
+		} else {
+			result.add(summary.values, summary.landingX, summary.landingY);
+		}
+	}
+
+	private static <T> T get(Future<T> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			throw new BugException("Unexpected exception in Monte Carlo run", e.getCause());
+		}
+	}
+
+
+	/**
+	 * The summary values of a run, or <code>null</code> values if the run failed.
+	 */
+	private static class RunSummary {
+		private final double[] values;
+		private final double landingX;
+		private final double landingY;
+
+		public RunSummary(double[] values, double landingX, double landingY) {
+			this.values = values;
+			this.landingX = landingX;
+			this.landingY = landingY;
+		}
+	}
+
+	private class RunTask implements Callable<RunSummary> {
+		private final MonteCarloRun run;
+
+		public RunTask(MonteCarloRun run) {
+			this.run = run;
+		}
+
+		@Override
+		public RunSummary call() {
+			DynamicPressureListener dynamicPressure = new DynamicPressureListener();
+			List<SimulationListener> listeners = run.getListeners();
+			listeners.add(dynamicPressure);
+
+			Simulation simulation = run.getSimulation();
+			try {
+				simulation.simulate(engines.get(), listeners.toArray(new SimulationListener[0]));
+			} catch (Exception e) {
+				log.warn("Monte Carlo run " + run.getIndex() + " failed: " + e.getMessage());
+				return new RunSummary(null, Double.NaN, Double.NaN);
+			}
+
+			FlightData data = simulation.getSimulatedData();
+			double[] values = new double[MonteCarloMetric.values().length];
+			values[MonteCarloMetric.APOGEE.ordinal()] = data.getMaxAltitude();
+			values[MonteCarloMetric.MAX_VELOCITY.ordinal()] = data.getMaxVelocity();
+			values[MonteCarloMetric.MAX_ACCELERATION.ordinal()] = data.getMaxAcceleration();
+			values[MonteCarloMetric.MAX_MACH_NUMBER.ordinal()] = data.getMaxMachNumber();
+			values[MonteCarloMetric.MAX_DYNAMIC_PRESSURE.ordinal()] = dynamicPressure.getMaximum();
+			values[MonteCarloMetric.TIME_TO_APOGEE.ordinal()] = data.getTimeToApogee();
+			values[MonteCarloMetric.FLIGHT_TIME.ordinal()] = data.getFlightTime();
+			values[MonteCarloMetric.LAUNCH_ROD_VELOCITY.ordinal()] = data.getLaunchRodVelocity();
+			values[MonteCarloMetric.GROUND_HIT_VELOCITY.ordinal()] = data.getGroundHitVelocity();
+
+			// Landing position of the sustainer
+			FlightDataBranch branch = data.getBranch(0);
+			return new RunSummary(values, branch.getLast(FlightDataType.TYPE_POSITION_X),
+					branch.getLast(FlightDataType.TYPE_POSITION_Y));
+		}
+	}
+
+	/**
+	 * Tracks the maximum dynamic pressure of a flight without storing the flight data.
+	 * <p>
+	 * The simulation clones its listeners along with the simulation status, so the maximum
+	 * is kept in an array shared by all clones.
+	 */
+	private static class DynamicPressureListener extends AbstractSimulationListener {
+		private final double[] maximum = { Double.NaN };
+
+		@Override
+		public FlightConditions postFlightConditions(SimulationStatus status, FlightConditions conditions) {
+			double v = conditions.getVelocity();
+			double q = 0.5 * conditions.getAtmosphericConditions().getDensity() * v * v;
+			if (Double.isNaN(maximum[0]) || q > maximum[0]) {
+				maximum[0] = q;
+			}
+			return null;
+		}
+
+		public double getMaximum() {
+			return maximum[0];
+		}
+
+		@Override
+		public boolean isSystemListener() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a single quantile of a stream of values in constant memory using the
+ * P<sup>2</sup> algorithm of Jain and Chlamtac (1985).  Five markers track the minimum,
+ * the maximum, the desired quantile and the quantiles halfway to both extremes; their
+ * heights are adjusted by piecewise-parabolic interpolation as values are added.
+ * <p>
+ * Until five values have been added, the exact quantile is returned.  The estimate
+ * depends on the order in which values are added.  This class is not thread-safe.
+ */
+public class QuantileEstimator {
+
+	private final double p;
+
+	/** Marker heights */
+	private final double[] q = new double[5];
+	/** Actual marker positions */
+	private final int[] n = new int[5];
+	/** Desired marker positions */
+	private final double[] desired = new double[5];
+	/** Increments of the desired marker positions */
+	private final double[] increment = new double[5];
+
+	private int count = 0;
+
+
+	/**
+	 * Construct an estimator for a quantile.
+	 *
+	 * @param p	the quantile to estimate, between 0 and 1 (e.g. 0.5 for the median).
+	 */
+	public QuantileEstimator(double p) {
+		if (!(p >= 0 && p <= 1)) {
+			throw new IllegalArgumentException("p must be between 0 and 1, was " + p);
+		}
+		this.p = p;
+		increment[0] = 0;
+		increment[1] = p / 2;
+		increment[2] = p;
+		increment[3] = (1 + p) / 2;
+		increment[4] = 1;
+	}
+
+
+	public double getQuantile() {
+		return p;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Add a value to the stream.  NaN values are ignored.
+	 */
+	public void add(double x) {
+		if (Double.isNaN(x)) {
+			return;
+		}
+
+		if (count < 5) {
+			q[count] = x;
+			count++;
+			if (count == 5) {
+				Arrays.sort(q);
+				for (int i = 0; i < 5; i++) {
+					n[i] = i;
+					desired[i] = 4 * increment[i];
+				}
+			}
+			return;
+		}
+		count++;
+
+		// Find the cell containing x, adjusting the extreme markers if necessary
+		int k;
+		if (x < q[0]) {
+			q[0] = x;
+			k = 0;
+		} else if (x >= q[4]) {
+			q[4] = x;
+			k = 3;
+		} else {
+			k = 0;
+			while (x >= q[k + 1]) {
+				k++;
+			}
+		}
+
+		for (int i = k + 1; i < 5; i++) {
+			n[i]++;
+		}
+		for (int i = 0; i < 5; i++) {
+			desired[i] += increment[i];
+		}
+
+		// Adjust the heights of the middle markers
+		for (int i = 1; i < 4; i++) {
+			double d = desired[i] - n[i];
+			if ((d >= 1 && n[i + 1] - n[i] > 1) || (d <= -1 && n[i - 1] - n[i] < -1)) {
+				int s = (d > 0) ? 1 : -1;
+				double candidate = parabolic(i, s);
+				if (q[i - 1] < candidate && candidate < q[i + 1]) {
+					q[i] = candidate;
+				} else {
+					q[i] = linear(i, s);
+				}
+				n[i] += s;
+			}
+		}
+	}
+
+	/**
+	 * Return the current estimate of the quantile, or NaN if no values have been added.
+	 */
+	public double getValue() {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		if (count < 5) {
+			double[] sorted = Arrays.copyOf(q, count);
+			Arrays.sort(sorted);
+			double pos = p * (count - 1);
+			int i = (int) Math.floor(pos);
+			if (i >= count - 1) {
+				return sorted[count - 1];
+			}
+			return sorted[i] + (pos - i) * (sorted[i + 1] - sorted[i]);
+		}
+		return q[2];
+	}
+
+
+	private double parabolic(int i, int d) {
+		return q[i] + (double) d / (n[i + 1] - n[i - 1]) *
+				((n[i] - n[i - 1] + d) * (q[i + 1] - q[i]) / (n[i + 1] - n[i]) +
+						(n[i + 1] - n[i] - d) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]));
+	}
+
+	private double linear(int i, int d) {
+		return q[i] + d * (q[i + d] - q[i]) / (n[i + d] - n[i]);
+	}
+}
@@ -0,0 +1,116 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+/**
+ * Summary statistics of a stream of values computed in constant memory.  The mean and
+ * variance are updated with Welford's algorithm, and the requested percentiles are estimated
+ * with {@link QuantileEstimator}s.  NaN values are ignored.  This class is not thread-safe.
+ */
+public class RunningStatistics {
+
+	private final QuantileEstimator[] quantiles;
+
+	private int count = 0;
+	private double mean = 0;
+	private double m2 = 0;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+
+
+	/**
+	 * Construct statistics estimating the specified percentiles.
+	 *
+	 * @param percentiles	the percentiles to estimate, as fractions between 0 and 1.
+	 */
+	public RunningStatistics(double... percentiles) {
+		quantiles = new QuantileEstimator[percentiles.length];
+		for (int i = 0; i < percentiles.length; i++) {
+			quantiles[i] = new QuantileEstimator(percentiles[i]);
+		}
+	}
+
+
+	public void add(double x) {
+		if (Double.isNaN(x)) {
+			return;
+		}
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+		if (count == 1) {
+			min = x;
+			max = x;
+		} else {
+			min = Math.min(min, x);
+			max = Math.max(max, x);
+		}
+		for (QuantileEstimator q : quantiles) {
+			q.add(x);
+		}
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Return the mean, or NaN if no values have been added.
+	 */
+	public double getMean() {
+		return (count > 0) ? mean : Double.NaN;
+	}
+
+	/**
+	 * Return the sample variance, or NaN if fewer than two values have been added.
+	 */
+	public double getVariance() {
+		return (count > 1) ? m2 / (count - 1) : Double.NaN;
+	}
+
+	/**
+	 * Return the sample standard deviation, or NaN if fewer than two values have been added.
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	public double getMinimum() {
+		return min;
+	}
+
+	public double getMaximum() {
+		return max;
+	}
+
+	/**
+	 * Return the percentiles estimated by these statistics.
+	 */
+	public double[] getPercentiles() {
+		double[] percentiles = new double[quantiles.length];
+		for (int i = 0; i < quantiles.length; i++) {
+			percentiles[i] = quantiles[i].getQuantile();
+		}
+		return percentiles;
+	}
+
+	/**
+	 * Return the estimate of a percentile.
+	 *
+	 * @param percentile	the percentile, which must be one of the percentiles given in the constructor.
+	 * @return				the estimated value, or NaN if no values have been added.
+	 */
+	public double getPercentile(double percentile) {
+		for (QuantileEstimator q : quantiles) {
+			if (q.getQuantile() == percentile) {
+				return q.getValue();
+			}
+		}
+		throw new IllegalArgumentException("Percentile " + percentile + " is not estimated");
+	}
+
+	@Override
+	public String toString() {
+		return String.format("RunningStatistics[count=%d, mean=%g, deviation=%g, min=%g, max=%g]",
+				count, getMean(), getStandardDeviation(), min, max);
+	}
+}
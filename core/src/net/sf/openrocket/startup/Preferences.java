@@ -93,6 +93,7 @@ public abstract class Preferences implements ChangeSource {
 	
 	public static final String CONFIRM_DELETE_SIMULATION = "ConfirmDeleteSimulation";
 	public static final String AUTO_RUN_SIMULATIONS = "AutoRunSimulations";
+	public static final String OPTIMIZATION_CACHE = "OptimizationCache";
 	public static final String LAUNCH_ROD_LENGTH = "LaunchRodLength";
 	public static final String LAUNCH_INTO_WIND = "LaunchIntoWind";
 	public static final String LAUNCH_ROD_ANGLE = "LaunchRodAngle";
@@ -217,6 +218,18 @@ public abstract class Preferences implements ChangeSource {
 		this.putBoolean(AUTO_RUN_SIMULATIONS, check);
 	}
 	
+	/**
+	 * Return whether optimization function values are stored persistently and reused
+	 * by later optimizations of the same design.
+	 */
+	public final boolean getOptimizationCache() {
+		return this.getBoolean(OPTIMIZATION_CACHE, true);
+	}
+	
+	public final void setOptimizationCache(boolean check) {
+		this.putBoolean(OPTIMIZATION_CACHE, check);
+	}
+	
 	public final boolean getLaunchIntoWind() {
 		return this.getBoolean(LAUNCH_INTO_WIND, false);
 	}
@@ -4,7 +4,6 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +12,7 @@ import org.xml.sax.SAXException;
 
 import net.sf.openrocket.file.iterator.DirectoryIterator;
 import net.sf.openrocket.file.iterator.FileIterator;
+import net.sf.openrocket.file.motor.BinaryMotorDatabase;
 import net.sf.openrocket.file.motor.GeneralMotorLoader;
 import net.sf.openrocket.gui.util.SimpleFileFilter;
 import net.sf.openrocket.motor.Motor;
@@ -56,7 +56,7 @@ public class SerializeThrustcurveMotors {
 		String inputDir = args[0];
 		String outputFile = args[1];
 		
-		final List<Motor> allMotors = new ArrayList<Motor>();
+		final List<ThrustCurveMotor> allMotors = new ArrayList<ThrustCurveMotor>();
 		
 		loadFromLocalMotorFiles(allMotors, inputDir);
 		
@@ -65,17 +65,15 @@ public class SerializeThrustcurveMotors {
 		File outFile = new File(outputFile);
 		
 		FileOutputStream ofs = new FileOutputStream(outFile);
-		final ObjectOutputStream oos = new ObjectOutputStream(ofs);
 		
-		oos.writeObject(allMotors);
+		BinaryMotorDatabase.write(allMotors, ofs);
 		
-		oos.flush();
 		ofs.flush();
 		ofs.close();
 		
 	}
 	
-	public static void loadFromThrustCurve(List<Motor> allMotors) throws SAXException, IOException {
+	public static void loadFromThrustCurve(List<ThrustCurveMotor> allMotors) throws SAXException, IOException {
 		
 		SearchRequest searchRequest = new SearchRequest();
 		for (String m : manufacturers) {
@@ -177,7 +175,7 @@ public class SerializeThrustcurveMotors {
 		return b;
 	}
 	
-	private static void loadFromLocalMotorFiles(List<Motor> allMotors, String inputDir) throws IOException {
+	private static void loadFromLocalMotorFiles(List<ThrustCurveMotor> allMotors, String inputDir) throws IOException {
 		GeneralMotorLoader loader = new GeneralMotorLoader();
 		FileIterator iterator = DirectoryIterator.findDirectory(inputDir, new SimpleFileFilter("", false, loader.getSupportedExtensions()));
 		if (iterator == null) {
@@ -634,5 +634,142 @@ public class BarrowmanCalculatorTest {
 		final double zeroCD = zeroForces.getCD();
 		assertEquals("drag at mach 0 should equal drag at mach MathUtil.EPSILON", epsCD, zeroCD, EPSILON);
 	}
-}
+
+	@Test
+	public void testTabulatedForces() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		BarrowmanCalculator direct = new BarrowmanCalculator();
+		BarrowmanCalculator tabulated = new BarrowmanCalculator();
+		tabulated.setTableTolerance(BarrowmanCalculator.DEFAULT_TABLE_TOLERANCE);
+		FlightConditions conditions = new FlightConditions(config);
+		
+		java.util.Random random = new java.util.Random(3);
+		for (int i = 0; i < 200; i++) {
+			conditions.setMach(random.nextDouble() * 2);
+			conditions.setVelocity(conditions.getMach() * 340);
+			conditions.setAOA(random.nextDouble() * 0.5);
+			conditions.setTheta(random.nextDouble() * 2 * Math.PI);
+			
+			AerodynamicForces expected = direct.getAerodynamicForces(config, conditions, null);
+			AerodynamicForces actual = tabulated.getAerodynamicForces(config, conditions, null);
+			String msg = "mach=" + conditions.getMach() + " aoa=" + conditions.getAOA();
+			assertEquals(msg, expected.getCNa(), actual.getCNa(), 0.01 * expected.getCNa());
+			assertEquals(msg, expected.getCN(), actual.getCN(), 0.01 * Math.max(expected.getCN(), 0.1));
+			assertEquals(msg, expected.getCP().x, actual.getCP().x, 0.01 * expected.getCP().x);
+			assertEquals(msg, expected.getCm(), actual.getCm(), 0.01 * Math.max(Math.abs(expected.getCm()), 0.1));
+			assertEquals(msg, expected.getCD(), actual.getCD(), 0.01 * expected.getCD());
+			assertEquals(msg, expected.getCDaxial(), actual.getCDaxial(), 0.01 * expected.getCD());
+		}
+	}
+	
+	@Test
+	public void testTabulatedRollMoment() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FinSet fins = (FinSet) rocket.getChild(0).getChild(1).getChild(0);
+		fins.setCantAngle(Math.toRadians(2));
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		BarrowmanCalculator direct = new BarrowmanCalculator();
+		BarrowmanCalculator tabulated = new BarrowmanCalculator();
+		tabulated.setTableTolerance(BarrowmanCalculator.DEFAULT_TABLE_TOLERANCE);
+		FlightConditions conditions = new FlightConditions(config);
+		
+		// The roll damping is calculated directly at any roll rate, on top of the tabulated forcing moment
+		for (double mach : new double[] { 0.1, 0.5, 0.9, 1.5 }) {
+			for (double rollRate : new double[] { 0, 0.05, 0.1, 1, 10, 50 }) {
+				conditions.setMach(mach);
+				conditions.setVelocity(mach * 340);
+				conditions.setAOA(0.05);
+				conditions.setRollRate(rollRate);
+				
+				AerodynamicForces expected = direct.getAerodynamicForces(config, conditions, null);
+				AerodynamicForces actual = tabulated.getAerodynamicForces(config, conditions, null);
+				String msg = "mach=" + mach + " rollRate=" + rollRate;
+				assertEquals(msg, expected.getCrollDamp(), actual.getCrollDamp(), 0);
+				assertEquals(msg, expected.getCrollForce(), actual.getCrollForce(),
+						0.01 * Math.abs(expected.getCrollForce()));
+				assertEquals(msg, expected.getCroll(), actual.getCroll(), 0.01 * Math.abs(expected.getCrollForce()));
+			}
+		}
+	}
+	
+	@Test
+	public void testTabulatedForcesInvalidated() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		BarrowmanCalculator calc = new BarrowmanCalculator();
+		calc.setTableTolerance(BarrowmanCalculator.DEFAULT_TABLE_TOLERANCE);
+		FlightConditions conditions = new FlightConditions(config);
+		conditions.setMach(0.3);
+		conditions.setVelocity(100);
+		conditions.setAOA(0.1);
+		
+		double before = calc.getAerodynamicForces(config, conditions, null).getCN();
+		FinSet fins = (FinSet) rocket.getChild(0).getChild(1).getChild(0);
+		fins.setFinCount(fins.getFinCount() + 1);
+		double after = calc.getAerodynamicForces(config, conditions, null).getCN();
+		double expected = new BarrowmanCalculator().getAerodynamicForces(config, conditions, null).getCN();
+		
+		assertTrue(after > before);
+		assertEquals(expected, after, 0.001 * expected);
+	}
+	
+	@Test
+	public void testAerodynamicSweep() {
+		for (Rocket rocket : new Rocket[] { TestRockets.makeEstesAlphaIII(), TestRockets.makeFalcon9Heavy() }) {
+			FlightConfiguration config = rocket.getSelectedConfiguration();
+			BarrowmanCalculator calc = new BarrowmanCalculator();
+			FlightConditions conditions = new FlightConditions(config);
+			conditions.setTheta(0.7);
+			conditions.setPitchRate(0.5);
+			conditions.setYawRate(-0.3);
+			
+			// Conditions grouped by Mach number, including roll rates above the damping limit
+			java.util.Random random = new java.util.Random(5);
+			int n = 300;
+			double[] mach = new double[n];
+			double[] aoa = new double[n];
+			double[] rollRate = new double[n];
+			for (int i = 0; i < n; i++) {
+				mach[i] = 0.05 + (i / 20) * 0.17;
+				aoa[i] = random.nextDouble() * 0.6;
+				rollRate[i] = (random.nextDouble() - 0.5) * 40;
+			}
+			
+			WarningSet sweepWarnings = new WarningSet();
+			AerodynamicSweep sweep = calc.getAerodynamicSweep(config, conditions, mach, aoa, rollRate, sweepWarnings);
+			assertEquals(n, sweep.size());
+			
+			WarningSet warnings = new WarningSet();
+			for (int i = 0; i < n; i++) {
+				conditions.setMach(mach[i]);
+				conditions.setAOA(aoa[i]);
+				conditions.setRollRate(rollRate[i]);
+				AerodynamicForces expected = calc.getAerodynamicForces(config, conditions, warnings);
+				
+				String msg = rocket.getName() + " mach=" + mach[i] + " aoa=" + aoa[i] + " rollRate=" + rollRate[i];
+				assertEquals(msg, expected.getCNa(), sweep.getCNa()[i], 1e-9);
+				assertEquals(msg, expected.getCN(), sweep.getCN()[i], 1e-9);
+				assertEquals(msg, expected.getCP().x, sweep.getCPx()[i], 1e-9);
+				assertEquals(msg, expected.getCm(), sweep.getCm()[i], 1e-9);
+				assertEquals(msg, expected.getCyaw(), sweep.getCyaw()[i], 1e-9);
+				assertEquals(msg, expected.getCroll(), sweep.getCroll()[i], 1e-9);
+				assertEquals(msg, expected.getCrollDamp(), sweep.getCrollDamp()[i], 1e-9);
+				assertEquals(msg, expected.getFrictionCD(), sweep.getFrictionCD()[i], 1e-9);
+				assertEquals(msg, expected.getPressureCD(), sweep.getPressureCD()[i], 1e-9);
+				assertEquals(msg, expected.getBaseCD(), sweep.getBaseCD()[i], 1e-9);
+				assertEquals(msg, expected.getCD(), sweep.getCD()[i], 1e-9);
+				assertEquals(msg, expected.getCDaxial(), sweep.getCDaxial()[i], 1e-9);
+			}
+			assertEquals(warnings.size(), sweepWarnings.size());
+		}
+	}
 	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAerodynamicSweepLengths() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = rocket.getSelectedConfiguration();
+		new BarrowmanCalculator().getAerodynamicSweep(config, new FlightConditions(config),
+				new double[3], new double[3], new double[2], null);
+	}
+}
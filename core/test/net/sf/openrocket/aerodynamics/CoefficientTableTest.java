@@ -0,0 +1,76 @@
+package net.sf.openrocket.aerodynamics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CoefficientTableTest {
+
+	private static final CoefficientTable.Function SMOOTH = new CoefficientTable.Function() {
+		@Override
+		public void evaluate(double x, double y, double[] values) {
+			values[0] = Math.sin(x) * Math.exp(y);
+			values[1] = 2 * x + y;
+		}
+	};
+
+	private static final CoefficientTable.Function KINK = new CoefficientTable.Function() {
+		@Override
+		public void evaluate(double x, double y, double[] values) {
+			values[0] = 1 + Math.min(x, 0.37);
+		}
+	};
+
+	@Test
+	public void testSmoothFunction() {
+		CoefficientTable table = new CoefficientTable(SMOOTH, new double[] { 0.1, 0.1 }, 0.001, 0, 2, 4, 0, 1, 2, 4);
+		Random random = new Random(1);
+		double[] values = new double[2];
+		double[] exact = new double[2];
+		for (int i = 0; i < 1000; i++) {
+			double x = 2 * random.nextDouble();
+			double y = random.nextDouble();
+			assertTrue(table.interpolate(x, y, values));
+			SMOOTH.evaluate(x, y, exact);
+			assertEquals(exact[0], values[0], 0.005 * Math.max(Math.abs(exact[0]), 0.1));
+			assertEquals(exact[1], values[1], 1e-12);
+		}
+
+		// Repeated calls do not evaluate the function
+		int count = table.getEvaluationCount();
+		random = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			table.interpolate(2 * random.nextDouble(), random.nextDouble(), values);
+		}
+		assertEquals(count, table.getEvaluationCount());
+	}
+
+	@Test
+	public void testRefinement() {
+		CoefficientTable coarse = new CoefficientTable(KINK, new double[] { 1 }, 0.01, 0, 1, 1, 0, 1, 1, 6);
+		double[] values = new double[1];
+		for (double x = 0; x <= 1; x += 0.01) {
+			assertTrue(coarse.interpolate(x, 0.5, values));
+			assertEquals(1 + Math.min(x, 0.37), values[0], 0.01 * 1.37);
+		}
+
+		// Without splitting the kink cannot be interpolated
+		CoefficientTable unsplit = new CoefficientTable(KINK, new double[] { 1 }, 0.001, 0, 1, 1, 0, 1, 1, 0);
+		assertFalse(unsplit.interpolate(0.3, 0.5, values));
+	}
+
+	@Test
+	public void testOutsideDomain() {
+		CoefficientTable table = new CoefficientTable(SMOOTH, new double[] { 0.1, 0.1 }, 0.001, 0, 2, 4, 0, 1, 2, 4);
+		double[] values = new double[2];
+		assertFalse(table.interpolate(-0.1, 0.5, values));
+		assertFalse(table.interpolate(1, 1.1, values));
+		assertFalse(table.interpolate(Double.NaN, 0.5, values));
+		assertTrue(table.interpolate(2, 1, values));
+		assertTrue(table.getEvaluationCount() > 0);
+	}
+}
@@ -0,0 +1,157 @@
+package net.sf.openrocket.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.preset.ComponentPreset;
+import net.sf.openrocket.preset.ComponentPresetFactory;
+import net.sf.openrocket.preset.TypedKey;
+import net.sf.openrocket.preset.TypedPropertyMap;
+
+import org.junit.Test;
+
+public class ComponentPresetDatabaseTest {
+
+	private static final String[] MANUFACTURERS = { "Estes", "LOC/Precision", "Public Missiles" };
+	private static final ComponentPreset.Type[] TYPES = {
+			ComponentPreset.Type.BODY_TUBE, ComponentPreset.Type.TRANSITION,
+			ComponentPreset.Type.BULK_HEAD, ComponentPreset.Type.STREAMER };
+	private static final List<TypedKey<Double>> KEYS = Arrays.asList(
+			ComponentPreset.OUTER_DIAMETER, ComponentPreset.FORE_OUTER_DIAMETER,
+			ComponentPreset.AFT_OUTER_DIAMETER, ComponentPreset.LENGTH, ComponentPreset.WIDTH);
+
+
+	private static ComponentPreset createPreset(ComponentPreset.Type type, String manufacturer, String partNo,
+			double diameter, double length) throws Exception {
+		TypedPropertyMap presetspec = new TypedPropertyMap();
+		presetspec.put(ComponentPreset.TYPE, type);
+		presetspec.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer(manufacturer));
+		presetspec.put(ComponentPreset.PARTNO, partNo);
+		presetspec.put(ComponentPreset.LENGTH, length);
+		switch (type) {
+		case BODY_TUBE:
+			presetspec.put(ComponentPreset.OUTER_DIAMETER, diameter);
+			presetspec.put(ComponentPreset.INNER_DIAMETER, diameter * 0.9);
+			break;
+		case TRANSITION:
+			presetspec.put(ComponentPreset.FORE_OUTER_DIAMETER, diameter);
+			presetspec.put(ComponentPreset.AFT_OUTER_DIAMETER, diameter * 1.5);
+			break;
+		case BULK_HEAD:
+			presetspec.put(ComponentPreset.OUTER_DIAMETER, diameter);
+			break;
+		default:
+			presetspec.put(ComponentPreset.WIDTH, diameter);
+			break;
+		}
+		return ComponentPresetFactory.create(presetspec);
+	}
+
+	private static ComponentPresetDatabase createDatabase(Random random, int count) throws Exception {
+		ComponentPresetDatabase db = new ComponentPresetDatabase();
+		for (int i = 0; i < count; i++) {
+			ComponentPreset preset = createPreset(TYPES[random.nextInt(TYPES.length)],
+					MANUFACTURERS[random.nextInt(MANUFACTURERS.length)], "P" + random.nextInt(count / 4),
+					0.01 + random.nextInt(100) * 0.001, 0.05 + random.nextInt(50) * 0.01);
+			if (random.nextBoolean()) {
+				db.add(preset);
+			} else {
+				db.insert(preset);
+			}
+		}
+		return db;
+	}
+
+	private static List<ComponentPreset> scanType(ComponentPresetDatabase db, ComponentPreset.Type... types) {
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>();
+		for (ComponentPreset preset : db.listAll()) {
+			if (Arrays.asList(types).contains(preset.getType())) {
+				result.add(preset);
+			}
+		}
+		return result;
+	}
+
+	private static List<ComponentPreset> scanRange(ComponentPresetDatabase db, ComponentPreset.Type type,
+			TypedKey<Double> key, double min, double max) {
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>();
+		for (ComponentPreset preset : scanType(db, type)) {
+			if (preset.has(key) && preset.get(key) >= min && preset.get(key) <= max) {
+				result.add(preset);
+			}
+		}
+		return result;
+	}
+
+	private static List<ComponentPreset> scanPartNo(ComponentPresetDatabase db, String manufacturer, String partNo) {
+		List<ComponentPreset> result = new ArrayList<ComponentPreset>();
+		for (ComponentPreset preset : db.listAll()) {
+			if (preset.getManufacturer().getSimpleName().equals(manufacturer) && preset.getPartNo().equals(partNo)) {
+				result.add(preset);
+			}
+		}
+		return result;
+	}
+
+	private static void assertLookups(ComponentPresetDatabase db, Random random) {
+		for (ComponentPreset.Type type : ComponentPreset.Type.values()) {
+			assertEquals(scanType(db, type), db.listForType(type));
+		}
+		assertEquals(scanType(db, TYPES[0], TYPES[2]), db.listForTypes(TYPES[2], TYPES[0], TYPES[2]));
+		assertEquals(scanType(db, TYPES), db.listForTypes(Arrays.asList(TYPES)));
+
+		for (int i = 0; i < 200; i++) {
+			String manufacturer = MANUFACTURERS[random.nextInt(MANUFACTURERS.length)];
+			String partNo = "P" + random.nextInt(db.size() / 4 + 1);
+			assertEquals(scanPartNo(db, manufacturer, partNo), db.find(manufacturer, partNo));
+
+			ComponentPreset.Type type = TYPES[random.nextInt(TYPES.length)];
+			TypedKey<Double> key = KEYS.get(random.nextInt(KEYS.size()));
+			double min = random.nextDouble() * 0.2;
+			double max = min + random.nextDouble() * 0.05;
+			assertEquals(scanRange(db, type, key, min, max), db.listForType(type, key, min, max));
+		}
+	}
+
+	@Test
+	public void testLookups() throws Exception {
+		Random random = new Random(42);
+		ComponentPresetDatabase db = createDatabase(random, 1000);
+		assertLookups(db, random);
+
+		// The bounds of a range are inclusive
+		ComponentPreset preset = db.listForType(ComponentPreset.Type.BODY_TUBE).get(0);
+		double diameter = preset.get(ComponentPreset.OUTER_DIAMETER);
+		assertTrue(db.listForType(ComponentPreset.Type.BODY_TUBE, ComponentPreset.OUTER_DIAMETER, diameter, diameter)
+				.contains(preset));
+		assertEquals(0, db.find("Estes", "nonexistent").size());
+		assertEquals(0, db.find("nonexistent", "P1").size());
+	}
+
+	@Test
+	public void testModifiedAfterLookup() throws Exception {
+		Random random = new Random(7);
+		ComponentPresetDatabase db = createDatabase(random, 400);
+		assertLookups(db, random);
+
+		db.add(createPreset(ComponentPreset.Type.BODY_TUBE, "Estes", "P1", 0.0245, 0.3));
+		db.insert(createPreset(ComponentPreset.Type.BODY_TUBE, "Estes", "P1", 0.0246, 0.3));
+		assertLookups(db, random);
+
+		Iterator<ComponentPreset> iterator = db.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().getType() == ComponentPreset.Type.TRANSITION && random.nextBoolean()) {
+				iterator.remove();
+			}
+		}
+		assertLookups(db, random);
+	}
+
+}
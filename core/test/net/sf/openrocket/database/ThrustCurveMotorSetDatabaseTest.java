@@ -0,0 +1,145 @@
+package net.sf.openrocket.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.openrocket.database.motor.ThrustCurveMotorSet;
+import net.sf.openrocket.database.motor.ThrustCurveMotorSetDatabase;
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.motor.Motor;
+import net.sf.openrocket.motor.ThrustCurveMotor;
+import net.sf.openrocket.util.Coordinate;
+
+import org.junit.Test;
+
+public class ThrustCurveMotorSetDatabaseTest {
+
+	private static final String[] MANUFACTURERS = { "AeroTech", "Cesaroni", "Estes", "Klima" };
+	private static final String[] IMPULSES = { "C", "D", "F", "G", "H" };
+	private static final double[] DIAMETERS = { 0.018, 0.024, 0.029, 0.038 };
+	private static final double[] LENGTHS = { 0.07, 0.095, 0.124 };
+
+
+	private static ThrustCurveMotor createMotor(String manufacturer, String designation, String commonName,
+			Motor.Type type, double diameter, double length, String digest) {
+		return new ThrustCurveMotor.Builder()
+				.setManufacturer(Manufacturer.getManufacturer(manufacturer))
+				.setCommonName(commonName)
+				.setDesignation(designation)
+				.setDescription("Desc " + digest)
+				.setMotorType(type)
+				.setStandardDelays(new double[] { 5 })
+				.setDiameter(diameter)
+				.setLength(length)
+				.setTimePoints(new double[] { 0, 1, 2 })
+				.setThrustPoints(new double[] { 0, 1, 0 })
+				.setCGPoints(new Coordinate[] { Coordinate.NUL, Coordinate.NUL, Coordinate.NUL })
+				.setDigest(digest)
+				.build();
+	}
+
+	/**
+	 * The lookup of findMotors() implemented by scanning all motors.
+	 */
+	private static List<ThrustCurveMotor> scan(ThrustCurveMotorSetDatabase db, String digest, Motor.Type type,
+			String manufacturer, String designation, double diameter, double length) {
+		List<ThrustCurveMotor> full = new ArrayList<ThrustCurveMotor>();
+		List<ThrustCurveMotor> digests = new ArrayList<ThrustCurveMotor>();
+		List<ThrustCurveMotor> descriptions = new ArrayList<ThrustCurveMotor>();
+		for (ThrustCurveMotorSet set : db.getMotorSets()) {
+			for (ThrustCurveMotor m : set.getMotors()) {
+				boolean matchDigest = digest != null && digest.equals(m.getDigest());
+				boolean matchDescription = !(type != null && type != set.getType()) &&
+						!(manufacturer != null && !m.getManufacturer().matches(manufacturer)) &&
+						!(designation != null &&
+								!m.getDesignation().toUpperCase().contains(designation.toUpperCase()) &&
+								!designation.toUpperCase().contains(m.getCommonName().toUpperCase())) &&
+						!(!Double.isNaN(diameter) && Math.abs(diameter - m.getDiameter()) > 0.005) &&
+						!(!Double.isNaN(length) && Math.abs(length - m.getLength()) > 0.005);
+				if (matchDigest)
+					digests.add(m);
+				if (matchDescription)
+					descriptions.add(m);
+				if (matchDigest && matchDescription)
+					full.add(m);
+			}
+		}
+		if (!full.isEmpty())
+			return full;
+		if (!digests.isEmpty())
+			return digests;
+		return descriptions;
+	}
+
+	private static ThrustCurveMotorSetDatabase createDatabase(Random random, List<ThrustCurveMotor> motors) {
+		ThrustCurveMotorSetDatabase db = new ThrustCurveMotorSetDatabase();
+		for (int i = 0; i < 400; i++) {
+			String manufacturer = MANUFACTURERS[random.nextInt(MANUFACTURERS.length)];
+			String commonName = IMPULSES[random.nextInt(IMPULSES.length)] + (10 + random.nextInt(20));
+			String designation = commonName + (random.nextBoolean() ? "T" : "W");
+			if (random.nextInt(5) == 0) {
+				designation = designation.toLowerCase();
+			}
+			Motor.Type type = random.nextBoolean() ? Motor.Type.SINGLE : Motor.Type.RELOAD;
+			double diameter = DIAMETERS[random.nextInt(DIAMETERS.length)];
+			double length = LENGTHS[random.nextInt(LENGTHS.length)];
+			// Some motors share a digest
+			String digest = "digest" + random.nextInt(350);
+			ThrustCurveMotor motor = createMotor(manufacturer, designation, commonName, type, diameter, length, digest);
+			motors.add(motor);
+			db.addMotor(motor);
+		}
+		return db;
+	}
+
+	@Test
+	public void testFindMotorsMatchesScan() {
+		Random random = new Random(7);
+		List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+		ThrustCurveMotorSetDatabase db = createDatabase(random, motors);
+
+		for (int i = 0; i < 2000; i++) {
+			ThrustCurveMotor m = motors.get(random.nextInt(motors.size()));
+			String digest = random.nextInt(3) == 0 ? null : (random.nextBoolean() ? new String(m.getDigest()) : "other");
+			Motor.Type type = random.nextBoolean() ? null : m.getMotorType();
+			String manufacturer = random.nextBoolean() ? null :
+					(random.nextBoolean() ? m.getManufacturer().getDisplayName() : "AT");
+			String designation = random.nextInt(4) == 0 ? null :
+					(random.nextBoolean() ? m.getDesignation() : m.getCommonName().substring(0, 2));
+			double diameter = random.nextBoolean() ? Double.NaN : m.getDiameter() + (random.nextDouble() - 0.5) * 0.02;
+			double length = random.nextBoolean() ? Double.NaN : m.getLength() + (random.nextDouble() - 0.5) * 0.02;
+
+			List<ThrustCurveMotor> expected = scan(db, digest, type, manufacturer, designation, diameter, length);
+			List<ThrustCurveMotor> actual = db.findMotors(digest, type, manufacturer, designation, diameter, length);
+			String msg = "digest=" + digest + " type=" + type + " manufacturer=" + manufacturer +
+					" designation=" + designation + " diameter=" + diameter + " length=" + length;
+			assertEquals(msg, expected.size(), actual.size());
+			for (int j = 0; j < expected.size(); j++) {
+				assertSame(msg, expected.get(j), actual.get(j));
+			}
+		}
+	}
+
+	@Test
+	public void testMotorsAddedAfterLookup() {
+		ThrustCurveMotorSetDatabase db = new ThrustCurveMotorSetDatabase();
+		ThrustCurveMotor motor1 = createMotor("AeroTech", "F12J", "F12", Motor.Type.SINGLE, 0.024, 0.07, "digestA");
+		db.addMotor(motor1);
+		assertEquals(1, db.findMotors(null, null, "AeroTech", "F12J", Double.NaN, Double.NaN).size());
+
+		// A motor with the same designation is added to the existing set
+		ThrustCurveMotor motor2 = createMotor("AeroTech", "f12j", "F12", Motor.Type.SINGLE, 0.024, 0.07, "digestB");
+		db.addMotor(motor2);
+		assertEquals(1, db.getMotorSets().size());
+		assertEquals(2, db.findMotors(null, null, "AeroTech", "F12J", Double.NaN, Double.NaN).size());
+
+		List<ThrustCurveMotor> found = db.findMotors("digestB", null, "AeroTech", "F12J", 0.024, 0.07);
+		assertEquals(1, found.size());
+		assertSame(motor2, found.get(0));
+	}
+
+}
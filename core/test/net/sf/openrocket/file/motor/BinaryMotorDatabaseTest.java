@@ -0,0 +1,146 @@
+package net.sf.openrocket.file.motor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.openrocket.motor.ThrustCurveMotor;
+
+import org.junit.Test;
+
+public class BinaryMotorDatabaseTest {
+
+	private List<ThrustCurveMotor> loadMotors() throws IOException {
+		GeneralMotorLoader loader = new GeneralMotorLoader();
+		List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+		for (String file : new String[] { "test1.eng", "test2.rse", "test3.rse" }) {
+			InputStream is = this.getClass().getResourceAsStream(file);
+			for (ThrustCurveMotor.Builder builder : loader.load(is, file)) {
+				motors.add(builder.build());
+			}
+			is.close();
+		}
+		return motors;
+	}
+
+	private static byte[] write(List<ThrustCurveMotor> motors) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryMotorDatabase.write(motors, out);
+		return out.toByteArray();
+	}
+
+	private static void assertMotorEquals(ThrustCurveMotor expected, ThrustCurveMotor actual) {
+		assertSame(expected.getManufacturer(), actual.getManufacturer());
+		assertEquals(expected.getDigest(), actual.getDigest());
+		assertEquals(expected.getCode(), actual.getCode());
+		assertEquals(expected.getCommonName(), actual.getCommonName());
+		assertEquals(expected.getDesignation(), actual.getDesignation());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getCaseInfo(), actual.getCaseInfo());
+		assertEquals(expected.getPropellantInfo(), actual.getPropellantInfo());
+		assertEquals(expected.getMotorType(), actual.getMotorType());
+		assertEquals(expected.isAvailable(), actual.isAvailable());
+		assertEquals(expected.getDiameter(), actual.getDiameter(), 0);
+		assertEquals(expected.getLength(), actual.getLength(), 0);
+		assertEquals(expected.getInitialMass(), actual.getInitialMass(), 0);
+		assertEquals(expected.getMaxThrustEstimate(), actual.getMaxThrustEstimate(), 0);
+		assertEquals(expected.getBurnTimeEstimate(), actual.getBurnTimeEstimate(), 0);
+		assertEquals(expected.getAverageThrustEstimate(), actual.getAverageThrustEstimate(), 0);
+		assertEquals(expected.getTotalImpulseEstimate(), actual.getTotalImpulseEstimate(), 0);
+		assertEquals(expected.getUnitIxx(), actual.getUnitIxx(), 0);
+		assertEquals(expected.getUnitIyy(), actual.getUnitIyy(), 0);
+		assertArrayEquals(expected.getStandardDelays(), actual.getStandardDelays(), 0);
+
+		assertArrayEquals(expected.getTimePoints(), actual.getTimePoints(), 0);
+		assertArrayEquals(expected.getThrustPoints(), actual.getThrustPoints(), 0);
+		assertArrayEquals(expected.getCGPoints(), actual.getCGPoints());
+		double burnTime = expected.getBurnTime();
+		for (double t = 0; t <= burnTime; t += burnTime / 17) {
+			assertEquals(expected.getThrust(t), actual.getThrust(t), 0);
+			assertEquals(expected.getCumulativeImpulse(t), actual.getCumulativeImpulse(t), 0);
+			assertEquals(expected.getPropellantMass(t), actual.getPropellantMass(t), 0);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		List<ThrustCurveMotor> motors = loadMotors();
+		List<ThrustCurveMotor> read = BinaryMotorDatabase.read(new ByteArrayInputStream(write(motors)));
+
+		assertEquals(motors.size(), read.size());
+		for (int i = 0; i < motors.size(); i++) {
+			// The sample size is available without decoding the curve
+			assertEquals(motors.get(i).getSampleSize(), read.get(i).getSampleSize());
+			assertMotorEquals(motors.get(i), read.get(i));
+		}
+	}
+
+	@Test
+	public void testReadFromBufferPosition() throws IOException {
+		List<ThrustCurveMotor> motors = loadMotors();
+		byte[] data = write(motors);
+		ByteBuffer buffer = ByteBuffer.allocate(data.length + 3);
+		buffer.position(3);
+		buffer.put(data);
+		buffer.position(3);
+
+		List<ThrustCurveMotor> read = BinaryMotorDatabase.read(buffer);
+		assertEquals(motors.size(), read.size());
+		for (int i = 0; i < motors.size(); i++) {
+			assertMotorEquals(motors.get(i), read.get(i));
+		}
+	}
+
+	@Test
+	public void testSerializeLoadedMotor() throws Exception {
+		List<ThrustCurveMotor> motors = loadMotors();
+		ThrustCurveMotor motor = BinaryMotorDatabase.read(new ByteArrayInputStream(write(motors))).get(0);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(motor);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		ThrustCurveMotor copy = (ThrustCurveMotor) ois.readObject();
+		ois.close();
+
+		assertMotorEquals(motors.get(0), copy);
+	}
+
+	@Test
+	public void testInvalidData() throws IOException {
+		byte[] data = write(loadMotors());
+
+		byte[] version = data.clone();
+		version[7]++;
+		assertInvalid(version);
+
+		byte[] magic = data.clone();
+		magic[0]++;
+		assertInvalid(magic);
+
+		assertInvalid(Arrays.copyOf(data, data.length - 8));
+		assertInvalid(Arrays.copyOf(data, 30));
+	}
+
+	private static void assertInvalid(byte[] data) {
+		try {
+			BinaryMotorDatabase.read(ByteBuffer.wrap(data));
+			fail("Invalid data was read");
+		} catch (IOException expected) {
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package net.sf.openrocket.file.motor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.openrocket.motor.ThrustCurveMotor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MotorFileCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	private List<ThrustCurveMotor> loadMotors(String file) throws IOException {
+		InputStream is = this.getClass().getResourceAsStream(file);
+		List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>();
+		for (ThrustCurveMotor.Builder builder : new GeneralMotorLoader().load(is, file)) {
+			motors.add(builder.build());
+		}
+		is.close();
+		return motors;
+	}
+
+	private static void assertMotorsEqual(List<ThrustCurveMotor> expected, List<ThrustCurveMotor> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getDigest(), actual.get(i).getDigest());
+			assertEquals(expected.get(i).getDesignation(), actual.get(i).getDesignation());
+			assertArrayEquals(expected.get(i).getThrustPoints(), actual.get(i).getThrustPoints(), 0);
+		}
+	}
+
+	@Test
+	public void testPersistence() throws IOException {
+		File cacheFile = new File(folder.getRoot(), "sub/motors.dat");
+		File zip = new File("/motors/test.zip");
+		File eng = new File("/motors/test1.eng");
+		List<ThrustCurveMotor> zipMotors = loadMotors("test.zip");
+		List<ThrustCurveMotor> engMotors = loadMotors("test1.eng");
+
+		MotorFileCache cache = new MotorFileCache(cacheFile);
+		assertNull(cache.get(zip, 100, 1000));
+		cache.put(zip, 100, 1000, zipMotors);
+		cache.put(eng, 200, 2000, engMotors);
+		cache.save();
+		assertTrue(cacheFile.isFile());
+
+		cache = new MotorFileCache(cacheFile);
+		assertMotorsEqual(zipMotors, cache.get(zip, 100, 1000));
+		assertMotorsEqual(engMotors, cache.get(eng, 200, 2000));
+
+		// Changed files are not returned
+		assertNull(cache.get(zip, 101, 1000));
+		assertNull(cache.get(eng, 200, 2001));
+		assertNull(cache.get(new File("/motors/other.eng"), 200, 2000));
+	}
+
+	@Test
+	public void testUnusedEntriesDropped() throws IOException {
+		File cacheFile = new File(folder.getRoot(), "motors.dat");
+		File zip = new File("/motors/test.zip");
+		File eng = new File("/motors/test1.eng");
+
+		MotorFileCache cache = new MotorFileCache(cacheFile);
+		cache.put(zip, 100, 1000, loadMotors("test.zip"));
+		cache.put(eng, 200, 2000, loadMotors("test1.eng"));
+		cache.save();
+
+		// Nothing is written when all entries were used
+		cache = new MotorFileCache(cacheFile);
+		cache.get(zip, 100, 1000);
+		cache.get(eng, 200, 2000);
+		assertTrue(cacheFile.setLastModified(12345000));
+		cache.save();
+		assertEquals(12345000, cacheFile.lastModified());
+
+		// Only the entries used in the session are retained
+		cache = new MotorFileCache(cacheFile);
+		assertEquals(2, cache.get(zip, 100, 1000).size());
+		cache.save();
+
+		cache = new MotorFileCache(cacheFile);
+		assertEquals(2, cache.get(zip, 100, 1000).size());
+		assertNull(cache.get(eng, 200, 2000));
+	}
+
+	@Test
+	public void testInvalidFile() throws IOException {
+		File cacheFile = new File(folder.getRoot(), "motors.dat");
+		FileOutputStream out = new FileOutputStream(cacheFile);
+		out.write(new byte[] { 0x4F, 0x52, 0x4D, 0x43, 0, 0, 0, 1, 0, 0, 0, 5, 0 });
+		out.close();
+
+		MotorFileCache cache = new MotorFileCache(cacheFile);
+		assertNull(cache.get(new File("/motors/test.zip"), 100, 1000));
+		cache.put(new File("/motors/test1.eng"), 200, 2000, loadMotors("test1.eng"));
+		cache.save();
+
+		cache = new MotorFileCache(cacheFile);
+		assertEquals(1, cache.get(new File("/motors/test1.eng"), 200, 2000).size());
+	}
+
+}
@@ -0,0 +1,127 @@
+package net.sf.openrocket.masscalc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.openrocket.motor.Motor;
+import net.sf.openrocket.rocketcomponent.FlightConfiguration;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.rocketcomponent.RocketComponent;
+import net.sf.openrocket.simulation.MotorClusterState;
+import net.sf.openrocket.simulation.SimulationConditions;
+import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.util.TestRockets;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+public class MassModelTest extends BaseTestCase {
+
+	private static final double[] TIMES = { Motor.PSEUDO_TIME_LAUNCH, 0.05, 0.5, 1.0, 2.5, 10.0, Motor.PSEUDO_TIME_BURNOUT };
+
+	@Test
+	public void testMatchesTreeCalculation() {
+		Rocket[] rockets = { TestRockets.makeEstesAlphaIII(), TestRockets.makeBigBlue(), TestRockets.makeIsoHaisu(),
+				TestRockets.makeFalcon9Heavy() };
+		for (Rocket rocket : rockets) {
+			FlightConfiguration config = getConfiguration(rocket);
+			assertMatchesTree(config);
+
+			// each stage separately, as after separation
+			for (int stage = 0; stage < config.getStageCount(); stage++) {
+				config.setOnlyStage(stage);
+				assertMatchesTree(config);
+			}
+		}
+	}
+
+	@Test
+	public void testMatchesTreeCalculationInSimulation() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		FlightConfiguration config = getConfiguration(rocket);
+		SimulationStatus status = new SimulationStatus(config, new SimulationConditions());
+
+		List<MotorClusterState> motors = (List<MotorClusterState>) status.getMotors();
+		for (int i = 0; i < motors.size(); i++) {
+			motors.get(i).ignite(0.5 * i);
+		}
+
+		for (double time : TIMES) {
+			if (time == Motor.PSEUDO_TIME_BURNOUT) {
+				continue;
+			}
+			status.setSimulationTime(time);
+			for (MassCalculation.Type type : MassCalculation.Type.values()) {
+				assertEqualBodies(MassCalculator.calculateFromTree(type, config, time, status.getActiveMotors()),
+						MassCalculator.calculate(type, status));
+			}
+		}
+	}
+
+	@Test
+	public void testModelCached() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = getConfiguration(rocket);
+
+		MassModel model = config.getMassModel();
+		assertSame(model, config.getMassModel());
+		assertSame(model, config.clone().getMassModel());
+		assertEquals(1, model.getClusterCount());
+	}
+
+	@Test
+	public void testModelInvalidated() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightConfiguration config = getConfiguration(rocket);
+		MassModel model = config.getMassModel();
+		double mass = MassCalculator.calculateStructure(config).getMass();
+
+		// mass change
+		RocketComponent noseCone = rocket.getChild(0).getChild(0);
+		noseCone.setMassOverridden(true);
+		noseCone.setOverrideMass(noseCone.getComponentMass() + 0.1);
+		assertNotSame(model, config.getMassModel());
+		assertEquals(mass + 0.1, MassCalculator.calculateStructure(config).getMass(), 1e-9);
+		assertMatchesTree(config);
+
+		// stage change
+		model = config.getMassModel();
+		config.clearAllStages();
+		assertNotSame(model, config.getMassModel());
+		assertEquals(0, MassCalculator.calculateStructure(config).getMass(), 0);
+		config.setAllStages();
+		assertEquals(mass + 0.1, MassCalculator.calculateStructure(config).getMass(), 1e-9);
+	}
+
+	/**
+	 * Return the first configuration with motors, if any.
+	 */
+	private static FlightConfiguration getConfiguration(Rocket rocket) {
+		if (rocket.getFlightConfigurationCount() > 0) {
+			return rocket.getFlightConfigurationByIndex(0, false);
+		}
+		return rocket.getSelectedConfiguration();
+	}
+
+	private static void assertMatchesTree(FlightConfiguration config) {
+		for (MassCalculation.Type type : MassCalculation.Type.values()) {
+			for (double time : TIMES) {
+				assertEqualBodies(MassCalculator.calculateFromTree(type, config, time, null),
+						MassCalculator.calculate(type, config, time));
+			}
+		}
+	}
+
+	private static void assertEqualBodies(RigidBody expected, RigidBody actual) {
+		final double scale = Math.max(expected.getMass(), 1e-6);
+		assertEquals(expected.getMass(), actual.getMass(), 1e-9 * scale);
+		assertEquals(expected.getCM().x, actual.getCM().x, 1e-9);
+		assertEquals(expected.getCM().y, actual.getCM().y, 1e-9);
+		assertEquals(expected.getCM().z, actual.getCM().z, 1e-9);
+		assertEquals(expected.getIxx(), actual.getIxx(), 1e-9 * Math.max(expected.getIxx(), 1e-9));
+		assertEquals(expected.getIyy(), actual.getIyy(), 1e-9 * Math.max(expected.getIyy(), 1e-9));
+	}
+}
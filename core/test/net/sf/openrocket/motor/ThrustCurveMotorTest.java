@@ -3,6 +3,12 @@ package net.sf.openrocket.motor;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
 import org.junit.Test;
 
 import net.sf.openrocket.util.Coordinate;
@@ -186,6 +192,90 @@ public class ThrustCurveMotorTest {
 	}
 			
 	
+	@Test
+	public void testCumulativeImpulse(){
+		assertEquals( 0.0, motorX6.getCumulativeImpulse( -1 ), 0 );
+		assertEquals( 0.25, motorX6.getCumulativeImpulse( 0.5 ), 0.00001 );
+		assertEquals( 1.0, motorX6.getCumulativeImpulse( 1 ), 0.00001 );
+		assertEquals( 6.0, motorX6.getCumulativeImpulse( 3 ), 0.00001 );
+		assertEquals( 7.5, motorX6.getCumulativeImpulse( 4 ), 0.00001 );
+		assertEquals( 7.5, motorX6.getCumulativeImpulse( 20 ), 0.00001 );
+		assertEquals( motorEstesA8_3.getTotalImpulseEstimate(), motorEstesA8_3.getCumulativeImpulse( 1 ), 0.00001 );
+	}
+	
+	@Test
+	public void testAverageThrustAcrossTimePoints(){
+		// 0..1: 1 Ns, 1..3: 5 Ns, 3..3.5: 1.125 Ns
+		assertEquals( 7.125 / 3.5, motorX6.getAverageThrust( 0, 3.5 ), 0.00001 );
+		assertEquals( (0.75 + 5) / 2.5, motorX6.getAverageThrust( 0.5, 3 ), 0.00001 );
+		// past burnout the average includes the time without thrust
+		assertEquals( 1.5 / 2, motorX6.getAverageThrust( 3, 5 ), 0.00001 );
+	}
+	
+	@Test
+	public void testPropellantMass(){
+		assertEquals( 0.02, motorX6.getPropellantMass( 0.0 ), 0.00001 );
+		assertEquals( 0.01, motorX6.getPropellantMass( 3.5 ), 0.00001 );
+		assertEquals( 0.0, motorX6.getPropellantMass( 4.0 ), 0.00001 );
+	}
+	
+	@Test
+	public void testTablesAfterSerialization() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream( bytes );
+		out.writeObject( motorX6 );
+		out.close();
+		ThrustCurveMotor copy = (ThrustCurveMotor) new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() )).readObject();
+		
+		assertEquals( 6.0, copy.getCumulativeImpulse( 3 ), 0.00001 );
+		assertEquals( motorX6.getAverageThrust( 0.5, 3.5 ), copy.getAverageThrust( 0.5, 3.5 ), 0 );
+		assertEquals( motorX6.getPropellantMass( 3.5 ), copy.getPropellantMass( 3.5 ), 0 );
+	}
+	
+	@Test
+	public void testCursorSequential(){
+		final ThrustCurveMotor mtr = motorEstesA8_3;
+		final ThrustCurveMotor.Cursor cursor = mtr.newCursor();
+		final double dt = 0.001;
+		
+		for( double t = 0; t < 1; t += dt ){
+			assertCursorEquals( mtr, cursor, t, dt );
+		}
+	}
+	
+	@Test
+	public void testCursorRandomAccess(){
+		final ThrustCurveMotor mtr = motorEstesA8_3;
+		final ThrustCurveMotor.Cursor cursor = mtr.newCursor();
+		final Random rnd = new Random( 0 );
+		
+		for( int i = 0; i < 1000; i++ ){
+			assertCursorEquals( mtr, cursor, rnd.nextDouble(), rnd.nextDouble() * 0.1 );
+		}
+		// exactly at the time points, in reverse order
+		final double[] time = mtr.getTimePoints();
+		for( int i = time.length - 1; i >= 0; i-- ){
+			assertCursorEquals( mtr, cursor, time[i], 0.01 );
+		}
+	}
+	
+	@Test
+	public void testCursorOutsideCurve(){
+		final ThrustCurveMotor.Cursor cursor = motorX6.newCursor();
+		assertTrue( Double.isNaN( cursor.getThrust( -1 )));
+		assertEquals( 0.0, cursor.getThrust( 20 ), 0 );
+		assertEquals( 0.03, cursor.getTotalMass( Motor.PSEUDO_TIME_BURNOUT ), 0 );
+		assertEquals( 0.0, cursor.getAverageThrust( 5, 6 ), 0 );
+		assertEquals( 2.5, cursor.getAverageThrust( 1, 3 ), 0.00001 );
+	}
+	
+	private static void assertCursorEquals( ThrustCurveMotor mtr, ThrustCurveMotor.Cursor cursor, double t, double dt ){
+		assertEquals( mtr.getThrust( t ), cursor.getThrust( t ), 0 );
+		assertEquals( mtr.getTotalMass( t ), cursor.getTotalMass( t ), 0 );
+		assertEquals( mtr.getCMx( t ), cursor.getCMx( t ), 0 );
+		assertEquals( mtr.getAverageThrust( t, t + dt ), cursor.getAverageThrust( t, t + dt ), 0 );
+	}
+	
 	@Test
 	public void testSimplifyDesignation() {
 		assertEquals("J115", ThrustCurveMotor.Builder.simplifyDesignation("J115"));
@@ -0,0 +1,180 @@
+package net.sf.openrocket.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sf.openrocket.optimization.general.Function;
+import net.sf.openrocket.optimization.general.FunctionValueStore;
+import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.optimization.general.ParallelExecutorCache;
+import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.optimization.general.StoredValueListener;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+public class TestFunctionValueStore extends BaseTestCase {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void testPersistence() throws IOException {
+		File file = new File(folder.getRoot(), "sub/values.dat");
+
+		FunctionValueStore store = new FunctionValueStore(file, 100);
+		assertNull(store.get("a", new Point(0.1, 0.2)));
+		store.put("a", new Point(0.1, 0.2), 1.5);
+		store.put("b", new Point(0.1, 0.2), 2.5);
+		store.put("a", new Point(0.1, 0.2), 3.5);
+		store.close();
+		assertEquals(8 + 3 * 24, file.length());
+
+		store = new FunctionValueStore(file, 100);
+		assertEquals(2, store.size());
+		assertEquals(3.5, store.get("a", new Point(0.1, 0.2)), 0);
+		assertEquals(2.5, store.get("b", new Point(0.1, 0.2)), 0);
+		assertNull(store.get("a", new Point(0.1, 0.3)));
+		assertNull(store.get("c", new Point(0.1, 0.2)));
+		store.close();
+	}
+
+	@Test
+	public void testEviction() {
+		File file = new File(folder.getRoot(), "values.dat");
+
+		FunctionValueStore store = new FunctionValueStore(file, 3);
+		for (int i = 0; i < 3; i++) {
+			store.put("f", new Point(i * 0.1), i);
+		}
+		// Use the first value, so that the second one is the least recently used
+		assertEquals(0, store.get("f", new Point(0.0)), 0);
+		store.put("f", new Point(0.3), 3);
+		assertEquals(3, store.size());
+		assertNull(store.get("f", new Point(0.1)));
+		store.close();
+
+		// Reading values is not written to the file, so the first stored value is evicted on loading
+		assertEquals(8 + 4 * 24, file.length());
+		store = new FunctionValueStore(file, 3);
+		assertEquals(3, store.size());
+		assertNull(store.get("f", new Point(0.0)));
+		assertEquals(1, store.get("f", new Point(0.1)), 0);
+		store.put("f", new Point(0.4), 4);
+		store.put("f", new Point(0.5), 5);
+		assertEquals(8 + 6 * 24, file.length());
+		store.put("f", new Point(0.6), 6);
+		assertNull(store.get("f", new Point(0.1)));
+		assertEquals(4, store.get("f", new Point(0.4)), 0);
+		assertEquals(5, store.get("f", new Point(0.5)), 0);
+		assertEquals(6, store.get("f", new Point(0.6)), 0);
+		store.close();
+
+		// The file has been compacted when it reached twice the maximum size
+		assertEquals(8 + 3 * 24, file.length());
+		store = new FunctionValueStore(file, 3);
+		assertEquals(3, store.size());
+		assertEquals(4, store.get("f", new Point(0.4)), 0);
+		store.close();
+	}
+
+	@Test
+	public void testDamagedFile() throws IOException {
+		File file = new File(folder.getRoot(), "values.dat");
+
+		FunctionValueStore store = new FunctionValueStore(file, 100);
+		store.put("f", new Point(0.5), 1);
+		store.close();
+
+		// An incomplete record at the end is ignored
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(new byte[10]);
+		}
+		store = new FunctionValueStore(file, 100);
+		assertEquals(1, store.size());
+		assertEquals(8 + 24, file.length());
+		store.put("f", new Point(0.6), 2);
+		store.close();
+		store = new FunctionValueStore(file, 100);
+		assertEquals(2, store.get("f", new Point(0.6)), 0);
+		store.close();
+
+		// A file of unknown format is discarded
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write("Not a value store".getBytes());
+		}
+		store = new FunctionValueStore(file, 100);
+		assertEquals(0, store.size());
+		assertEquals(8, file.length());
+		store.close();
+	}
+
+	@Test
+	public void testExecutorCache() throws InterruptedException, OptimizationException {
+		LengthFunction function = new LengthFunction();
+		AtomicInteger evaluations = function.evaluations;
+		FunctionValueStore store = new FunctionValueStore(new File(folder.getRoot(), "values.dat"), 100);
+		Point[] points = { new Point(0.3, 0.4), new Point(0.6, 0.8) };
+
+		ParallelExecutorCache cache = new ParallelExecutorCache(1);
+		try {
+			cache.setFunction(function);
+			cache.setValueStore(store, "length");
+			cache.compute(points[0]);
+			cache.waitFor(points[0]);
+			assertEquals(1, evaluations.get());
+			assertEquals(0, function.storedValues.size());
+
+			// A new optimization reuses the stored value
+			cache.setFunction(function);
+			cache.setValueStore(store, "length");
+			cache.compute(Arrays.asList(points));
+			cache.waitFor(Arrays.asList(points));
+			assertEquals(2, evaluations.get());
+			assertEquals(0.5, cache.getValue(points[0]), 1e-10);
+			assertEquals(1.0, cache.getValue(points[1]), 1e-10);
+			// The function is notified of the stored value
+			assertEquals(Arrays.asList(points[0]), function.storedValues);
+
+			// A different function key does not
+			cache.setFunction(function);
+			cache.setValueStore(store, "other");
+			cache.compute(points[0]);
+			cache.waitFor(points[0]);
+			assertEquals(3, evaluations.get());
+			assertEquals(1, function.storedValues.size());
+		} finally {
+			cache.getExecutor().shutdownNow();
+			store.close();
+		}
+	}
+
+	private static class LengthFunction implements Function, StoredValueListener {
+		private final AtomicInteger evaluations = new AtomicInteger();
+		private final List<Point> storedValues = new ArrayList<Point>();
+
+		@Override
+		public double evaluate(Point p) {
+			evaluations.incrementAndGet();
+			return p.length();
+		}
+
+		@Override
+		public void storedValueUsed(Point point, double value) {
+			assertEquals(point.length(), value, 1e-10);
+			storedValues.add(point);
+		}
+	}
+
+}
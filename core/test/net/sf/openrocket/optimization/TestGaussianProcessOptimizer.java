@@ -0,0 +1,102 @@
+package net.sf.openrocket.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.sf.openrocket.optimization.general.Function;
+import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.optimization.general.ParallelExecutorCache;
+import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.optimization.general.multidim.GaussianProcessOptimizer;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+public class TestGaussianProcessOptimizer extends BaseTestCase {
+
+	private static final Point INITIAL = new Point(0.1, 0.9, 0.5);
+
+	/** A badly scaled quadratic with its minimum at (0.3, 0.7, 0.45) */
+	private static final Function QUADRATIC = new Function() {
+		@Override
+		public double evaluate(Point p) {
+			double[] center = { 0.3, 0.7, 0.45 };
+			double sum = 0;
+			for (int i = 0; i < center.length; i++) {
+				double d = p.get(i) - center[i];
+				sum += (i + 1) * (i + 1) * d * d;
+			}
+			return sum;
+		}
+	};
+
+	/**
+	 * The quadratic with penalty values outside the region x0 >= 0.5, as returned by the rocket
+	 * optimization function outside the simulation domain.  The minimum is at (0.5, 0.7, 0.45).
+	 */
+	private static final Function CONSTRAINED = new Function() {
+		@Override
+		public double evaluate(Point p) throws InterruptedException, OptimizationException {
+			if (p.get(0) < 0.5) {
+				return (0.5 - p.get(0) + 1) * 1e200;
+			}
+			return QUADRATIC.evaluate(p);
+		}
+	};
+
+
+	@Test
+	public void testQuadratic() throws OptimizationException {
+		AtomicInteger evaluations = new AtomicInteger();
+		GaussianProcessOptimizer optimizer = optimize(QUADRATIC, 4, 1, evaluations);
+		assertEquals(0, optimizer.getOptimumValue(), 1e-4);
+		assertEquals(0.3, optimizer.getOptimumPoint().get(0), 0.01);
+		assertEquals(0.7, optimizer.getOptimumPoint().get(1), 0.01);
+		assertTrue("Evaluations: " + evaluations, evaluations.get() <= 150);
+	}
+
+	@Test
+	public void testConstrained() throws OptimizationException {
+		GaussianProcessOptimizer optimizer = optimize(CONSTRAINED, 4, 1, new AtomicInteger());
+		// The optimum on the boundary of the feasible region is approached, but not exactly
+		assertTrue("Value: " + optimizer.getOptimumValue(), optimizer.getOptimumValue() < 0.06);
+		assertEquals(0.5, optimizer.getOptimumPoint().get(0), 0.05);
+	}
+
+	@Test
+	public void testDeterministic() throws OptimizationException {
+		GaussianProcessOptimizer single = optimize(QUADRATIC, 1, 42, new AtomicInteger());
+		GaussianProcessOptimizer parallel = optimize(QUADRATIC, 4, 42, new AtomicInteger());
+		assertEquals(single.getOptimumPoint(), parallel.getOptimumPoint());
+		assertEquals(single.getOptimumValue(), parallel.getOptimumValue(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBatchSize() {
+		new GaussianProcessOptimizer(new ParallelExecutorCache(1), 0, 100, 1);
+	}
+
+
+	private static GaussianProcessOptimizer optimize(final Function function, int threads, long seed,
+			final AtomicInteger evaluations) throws OptimizationException {
+		ParallelExecutorCache cache = new ParallelExecutorCache(threads);
+		try {
+			cache.setFunction(new Function() {
+				@Override
+				public double evaluate(Point p) throws InterruptedException, OptimizationException {
+					evaluations.incrementAndGet();
+					return function.evaluate(p);
+				}
+			});
+			GaussianProcessOptimizer optimizer = new GaussianProcessOptimizer(cache, INITIAL.dim(), seed);
+			optimizer.optimize(INITIAL, (oldPoint, oldValue, newPoint, newValue, stepSize) ->
+					evaluations.get() < 200 && stepSize > 1e-4);
+			return optimizer;
+		} finally {
+			cache.getExecutor().shutdownNow();
+		}
+	}
+
+}
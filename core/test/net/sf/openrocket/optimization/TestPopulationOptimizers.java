@@ -0,0 +1,149 @@
+package net.sf.openrocket.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.openrocket.optimization.general.Function;
+import net.sf.openrocket.optimization.general.FunctionOptimizer;
+import net.sf.openrocket.optimization.general.OptimizationController;
+import net.sf.openrocket.optimization.general.OptimizationException;
+import net.sf.openrocket.optimization.general.ParallelExecutorCache;
+import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.optimization.general.multidim.GaussianProcessOptimizer;
+import net.sf.openrocket.optimization.services.DefaultOptimizationAlgorithmService;
+import net.sf.openrocket.optimization.services.OptimizationAlgorithm;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+public class TestPopulationOptimizers extends BaseTestCase {
+
+	private static final int DIMENSIONS = 4;
+	private static final Point INITIAL = new Point(0.1, 0.9, 0.5, 0.2);
+
+	/** A shifted, badly scaled quadratic with its minimum at (0.3, 0.7, 0.45, 0.6) */
+	private static final Function QUADRATIC = new Function() {
+		@Override
+		public double evaluate(Point p) {
+			double[] center = { 0.3, 0.7, 0.45, 0.6 };
+			double sum = 0;
+			for (int i = 0; i < center.length; i++) {
+				double d = p.get(i) - center[i];
+				sum += (i + 1) * (i + 1) * d * d;
+			}
+			return sum + 0.2 * (p.get(0) - center[0]) * (p.get(1) - center[1]);
+		}
+	};
+
+	/** A function whose minimum is on the boundary of the range, at (0, 1, 0, 1) */
+	private static final Function BOUNDARY = new Function() {
+		@Override
+		public double evaluate(Point p) {
+			return p.get(0) - p.get(1) + p.get(2) - p.get(3);
+		}
+	};
+
+
+	@Test
+	public void testAlgorithms() {
+		assertEquals(5, getAlgorithms(DIMENSIONS).size());
+		assertEquals(6, getAlgorithms(1).size());
+		assertEquals(3, getPopulationAlgorithms().size());
+		// The debug translator of the tests returns the key
+		assertEquals("[DefaultOptimizationAlgorithmService.goldenSection]", getAlgorithms(1).get(0).getName());
+	}
+
+	@Test
+	public void testQuadratic() throws OptimizationException {
+		for (OptimizationAlgorithm a : getPopulationAlgorithms()) {
+			FunctionOptimizer optimizer = optimize(a, QUADRATIC, 4, 1);
+			String msg = a.getName() + ": " + optimizer.getOptimumPoint();
+			assertEquals(msg, 0, optimizer.getOptimumValue(), 1e-5);
+			assertEquals(msg, 0.3, optimizer.getOptimumPoint().get(0), 0.01);
+			assertEquals(msg, 0.7, optimizer.getOptimumPoint().get(1), 0.01);
+		}
+	}
+
+	@Test
+	public void testBoundary() throws OptimizationException {
+		for (OptimizationAlgorithm a : getPopulationAlgorithms()) {
+			FunctionOptimizer optimizer = optimize(a, BOUNDARY, 4, 1);
+			String msg = a.getName() + ": " + optimizer.getOptimumPoint();
+			assertEquals(msg, -2, optimizer.getOptimumValue(), 1e-3);
+		}
+	}
+
+	@Test
+	public void testDeterministic() throws OptimizationException {
+		for (OptimizationAlgorithm a : getPopulationAlgorithms()) {
+			FunctionOptimizer single = optimize(a, QUADRATIC, 1, 42);
+			FunctionOptimizer parallel = optimize(a, QUADRATIC, 4, 42);
+			assertEquals(a.getName(), single.getOptimumPoint(), parallel.getOptimumPoint());
+			assertEquals(a.getName(), single.getOptimumValue(), parallel.getOptimumValue(), 0);
+
+			FunctionOptimizer other = optimize(a, QUADRATIC, 4, 43);
+			assertFalse(a.getName(), single.getOptimumPoint().equals(other.getOptimumPoint()));
+		}
+	}
+
+
+	private static List<OptimizationAlgorithm> getAlgorithms(int dimensions) {
+		List<OptimizationAlgorithm> algorithms = new ArrayList<OptimizationAlgorithm>();
+		for (OptimizationAlgorithm a : new DefaultOptimizationAlgorithmService().getAlgorithms()) {
+			if (a.isApplicable(dimensions)) {
+				algorithms.add(a);
+			}
+		}
+		return algorithms;
+	}
+
+	/**
+	 * Return the population-based algorithms, excluding the surrogate model optimizer.
+	 */
+	private static List<OptimizationAlgorithm> getPopulationAlgorithms() {
+		List<OptimizationAlgorithm> algorithms = getAlgorithms(DIMENSIONS);
+		algorithms.removeIf(a -> !a.isPopulationBased() ||
+				a.createOptimizer(new ParallelExecutorCache(1), DIMENSIONS, 0) instanceof GaussianProcessOptimizer);
+		return algorithms;
+	}
+
+	private static FunctionOptimizer optimize(OptimizationAlgorithm algorithm, Function function, int threads, long seed)
+			throws OptimizationException {
+		ParallelExecutorCache cache = new ParallelExecutorCache(threads);
+		try {
+			cache.setFunction(function);
+			FunctionOptimizer optimizer = algorithm.createOptimizer(cache, DIMENSIONS, seed);
+			optimizer.optimize(INITIAL, new Controller(300, 1e-4));
+			assertTrue(optimizer.getOptimumValue() <= cache.getValue(INITIAL));
+			return optimizer;
+		} finally {
+			cache.getExecutor().shutdownNow();
+		}
+	}
+
+	/**
+	 * Stops the optimization after a maximum number of steps or when the step size is small enough.
+	 */
+	private static class Controller implements OptimizationController {
+		private final int maxSteps;
+		private final double minStep;
+		private int steps = 0;
+
+		public Controller(int maxSteps, double minStep) {
+			this.maxSteps = maxSteps;
+			this.minStep = minStep;
+		}
+
+		@Override
+		public boolean stepTaken(Point oldPoint, double oldValue, Point newPoint, double newValue, double stepSize) {
+			assertTrue(newValue <= oldValue);
+			steps++;
+			return steps < maxSteps && stepSize > minStep;
+		}
+	}
+
+}
@@ -2,6 +2,8 @@ package net.sf.openrocket.optimization.rocketoptimization;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.jmock.Expectations;
@@ -9,17 +11,37 @@ import org.jmock.Mockery;
 import org.jmock.auto.Mock;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import net.sf.openrocket.document.Simulation;
 import net.sf.openrocket.optimization.general.OptimizationException;
 import net.sf.openrocket.optimization.general.Point;
+import net.sf.openrocket.optimization.rocketoptimization.domains.IdentitySimulationDomain;
+import net.sf.openrocket.optimization.rocketoptimization.goals.MaximizationGoal;
+import net.sf.openrocket.optimization.rocketoptimization.goals.MinimizationGoal;
+import net.sf.openrocket.optimization.rocketoptimization.goals.ValueSeekGoal;
+import net.sf.openrocket.optimization.rocketoptimization.modifiers.FlightConfigurationModifier;
+import net.sf.openrocket.optimization.rocketoptimization.modifiers.GenericComponentModifier;
+import net.sf.openrocket.optimization.rocketoptimization.parameters.MaximumAltitudeParameter;
+import net.sf.openrocket.optimization.rocketoptimization.parameters.SimulationBasedParameter;
+import net.sf.openrocket.rocketcomponent.BodyTube;
+import net.sf.openrocket.rocketcomponent.DeploymentConfiguration;
+import net.sf.openrocket.rocketcomponent.NoseCone;
+import net.sf.openrocket.rocketcomponent.Parachute;
 import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.simulation.FlightDataBranch;
+import net.sf.openrocket.simulation.FlightDataType;
+import net.sf.openrocket.simulation.SimulationStatus;
+import net.sf.openrocket.simulation.listeners.AbstractSimulationListener;
+import net.sf.openrocket.simulation.listeners.SimulationListener;
 import net.sf.openrocket.unit.Unit;
 import net.sf.openrocket.unit.UnitGroup;
 import net.sf.openrocket.unit.Value;
 import net.sf.openrocket.util.Pair;
+import net.sf.openrocket.util.TestRockets;
 import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
 
 
@@ -40,6 +62,19 @@ public class TestRocketOptimizationFunction extends BaseTestCase {
 	@Mock
 	RocketOptimizationListener listener;
 	
+	@Before
+	public void setUpExtents() {
+		// The mocked parameter and domain need no flight simulation
+		context.checking(new Expectations() {
+			{
+				allowing(parameter).getRequiredExtent();
+				will(returnValue(SimulationExtent.NONE));
+				allowing(domain).getRequiredExtent();
+				will(returnValue(SimulationExtent.NONE));
+			}
+		});
+	}
+	
 	@Test
 	public void testNormalEvaluation() throws InterruptedException, OptimizationException {
 		final Rocket rocket = new Rocket();
@@ -96,6 +131,45 @@ public class TestRocketOptimizationFunction extends BaseTestCase {
 		assertEquals(gvalue, value, 0);
 	}
 	
+	@Test
+	public void testStoredValueUsed() {
+		final Rocket rocket = new Rocket();
+		final Simulation simulation = new Simulation(rocket);
+		
+		final double gvalue = 8.81;
+		final Point point = new Point(0.4, 0.7);
+		
+		// @formatter:off
+		context.checking(new Expectations() {
+			{
+				oneOf(modifier1).getMinValue();
+				will(returnValue(0.1));
+				oneOf(modifier1).getMaxValue();
+				will(returnValue(0.6));
+				oneOf(modifier1).getUnitGroup();
+				will(returnValue(UnitGroup.UNITS_LENGTH));
+				oneOf(modifier2).getMinValue();
+				will(returnValue(1.0));
+				oneOf(modifier2).getMaxValue();
+				will(returnValue(2.0));
+				oneOf(modifier2).getUnitGroup();
+				will(returnValue(UnitGroup.UNITS_LENGTH));
+				oneOf(listener).evaluated(point, new Value[] {
+						new Value(0.3, UnitGroup.UNITS_LENGTH.getDefaultUnit()),
+						new Value(1.7, UnitGroup.UNITS_LENGTH.getDefaultUnit())
+				}, null, null, gvalue);
+			}
+		});
+		// @formatter:on
+		
+		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
+				parameter, goal, domain, modifier1, modifier2);
+		function.addRocketOptimizationListener(listener);
+		
+		// The state is computed from the point without simulating
+		function.storedValueUsed(point, gvalue);
+	}
+	
 	@Test
 	public void testNaNValue() throws InterruptedException, OptimizationException {
 		final Rocket rocket = new Rocket();
@@ -240,4 +314,288 @@ public class TestRocketOptimizationFunction extends BaseTestCase {
 		assertEquals("Foobar", sim.getRocket().getName());
 	}
 	
+	@Test
+	public void testSimulationCopiesReused() throws InterruptedException, OptimizationException {
+		final Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final Simulation simulation = new Simulation(rocket);
+		final NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		final BodyTube body = (BodyTube) rocket.getChild(0).getChild(1);
+		final double noseLength = nose.getLength();
+		final double bodyLength = body.getLength();
+		
+		SimulationModifier modifier = new GenericComponentModifier("Length", "", nose, UnitGroup.UNITS_LENGTH, 1.0,
+				NoseCone.class, nose.getID(), "Length");
+		modifier.setMinValue(0.05);
+		modifier.setMaxValue(0.15);
+		
+		// Returns the nose cone length, and modifies the body tube as a side effect
+		OptimizableParameter lengthParameter = new OptimizableParameter() {
+			@Override
+			public String getName() {
+				return "Nose cone length";
+			}
+			
+			@Override
+			public SimulationExtent getRequiredExtent() {
+				return SimulationExtent.NONE;
+			}
+			
+			@Override
+			public double computeValue(Simulation sim) {
+				BodyTube b = (BodyTube) sim.getRocket().findComponent(body.getID());
+				assertEquals(bodyLength, b.getLength(), 0);
+				b.setLength(bodyLength + 1);
+				return sim.getRocket().findComponent(nose.getID()).getLength();
+			}
+			
+			@Override
+			public UnitGroup getUnitGroup() {
+				return UnitGroup.UNITS_LENGTH;
+			}
+		};
+		
+		final int[] copies = new int[1];
+		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
+				lengthParameter, new MinimizationGoal(), new IdentitySimulationDomain(), modifier) {
+			@Override
+			Simulation newSimulationInstance(Simulation sim) {
+				copies[0]++;
+				return super.newSimulationInstance(sim);
+			}
+		};
+		
+		assertEquals(0.06, function.evaluate(new Point(0.1)), 1e-9);
+		assertEquals(0.14, function.evaluate(new Point(0.9)), 1e-9);
+		assertEquals(0.10, function.evaluate(new Point(0.5)), 1e-9);
+		assertEquals(1, copies[0]);
+		
+		// The base simulation is not modified
+		assertEquals(noseLength, nose.getLength(), 0);
+		assertEquals(bodyLength, body.getLength(), 0);
+	}
+	
+	@Test
+	public void testDeploymentReset() throws InterruptedException, OptimizationException {
+		final Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final Simulation simulation = new Simulation(rocket);
+		final Parachute parachute = (Parachute) rocket.getChild(0).getChild(1).getChild(3);
+		final DeploymentConfiguration baseDeployment = parachute.getDeploymentConfigurations().getDefault();
+		final double altitude = baseDeployment.getDeployAltitude();
+		final double delay = baseDeployment.getDeployDelay();
+		
+		SimulationModifier modifier = new FlightConfigurationModifier<DeploymentConfiguration>("Delay", "", parachute,
+				UnitGroup.UNITS_SHORT_TIME, 1.0, Parachute.class, parachute.getID(), "DeploymentConfigurations",
+				DeploymentConfiguration.class, "DeployDelay");
+		modifier.setMinValue(0);
+		modifier.setMaxValue(10);
+		
+		// Returns the deployment delay, and modifies the deployment altitude as a side effect without an event
+		OptimizableParameter delayParameter = new OptimizableParameter() {
+			@Override
+			public String getName() {
+				return "Deployment delay";
+			}
+			
+			@Override
+			public double computeValue(Simulation sim) {
+				Parachute p = (Parachute) sim.getRocket().findComponent(parachute.getID());
+				DeploymentConfiguration deployment = p.getDeploymentConfigurations().getDefault();
+				assertEquals(altitude, deployment.getDeployAltitude(), 0);
+				deployment.setDeployAltitude(altitude + 100);
+				return deployment.getDeployDelay();
+			}
+			
+			@Override
+			public UnitGroup getUnitGroup() {
+				return UnitGroup.UNITS_SHORT_TIME;
+			}
+		};
+		
+		final int[] copies = new int[1];
+		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
+				delayParameter, new MinimizationGoal(), new IdentitySimulationDomain(), modifier) {
+			@Override
+			Simulation newSimulationInstance(Simulation sim) {
+				copies[0]++;
+				return super.newSimulationInstance(sim);
+			}
+		};
+		
+		assertEquals(1, function.evaluate(new Point(0.1)), 1e-9);
+		assertEquals(9, function.evaluate(new Point(0.9)), 1e-9);
+		assertEquals(5, function.evaluate(new Point(0.5)), 1e-9);
+		assertEquals(1, copies[0]);
+		
+		// The base simulation is not modified
+		assertEquals(altitude, baseDeployment.getDeployAltitude(), 0);
+		assertEquals(delay, baseDeployment.getDeployDelay(), 0);
+	}
+	
+	@Test
+	public void testDomainCheckedBeforeSimulation() throws InterruptedException, OptimizationException {
+		final Simulation simulation = createFlightSimulation();
+		final SimulationModifier modifier = createNoseModifier(simulation.getRocket());
+		
+		// The point is outside of the domain, so the parameter is not computed
+		context.checking(new Expectations() {
+			{
+				oneOf(domain).getDistanceToDomain(simulation);
+				will(returnValue(new Pair<Double, Value>(0.5, null)));
+			}
+		});
+		
+		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
+				new MaximumAltitudeParameter(), new MaximizationGoal(), domain, modifier) {
+			@Override
+			Simulation newSimulationInstance(Simulation sim) {
+				return sim;
+			}
+		};
+		
+		assertEquals(1.5e200, function.evaluate(new Point(0.5)), 1e186);
+		assertFalse(Simulation.isStatusUpToDate(simulation.getStatus()));
+	}
+	
+	@Test
+	public void testSimulatedToRequiredExtent() throws InterruptedException, OptimizationException {
+		final Simulation simulation = createFlightSimulation();
+		final SimulationModifier modifier = createNoseModifier(simulation.getRocket());
+		final Simulation[] copy = new Simulation[1];
+		
+		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
+				new MaximumAltitudeParameter(), new MaximizationGoal(), new IdentitySimulationDomain(), modifier) {
+			@Override
+			Simulation newSimulationInstance(Simulation sim) {
+				copy[0] = super.newSimulationInstance(sim);
+				return copy[0];
+			}
+		};
+		
+		double value = function.evaluate(new Point(0.5));
+		FlightData data = copy[0].getSimulatedData();
+		FlightDataBranch branch = data.getBranch(0);
+		assertEquals(-data.getMaxAltitude(), value, 0);
+		assertTrue(data.getMaxAltitude() > 50);
+		
+		// The flight ends at apogee and only the summary values are recorded
+		assertEquals(data.getTimeToApogee(), branch.getLast(FlightDataType.TYPE_TIME), 0.5);
+		assertEquals(data.getMaxAltitude(), branch.getLast(FlightDataType.TYPE_ALTITUDE), 1);
+		assertEquals(0, branch.getTypes().length);
+		
+		// The base simulation records all values
+		assertNull(simulation.getOptions().getRecordedTypes());
+	}
+	
+	@Test
+	public void testParameterSimulatingItself() throws InterruptedException, OptimizationException {
+		final Simulation simulation = createFlightSimulation();
+		final SimulationModifier modifier = createNoseModifier(simulation.getRocket());
+		final boolean[] started = new boolean[1];
+		final FlightData[] result = new FlightData[1];
+		
+		// A parameter declaring no extent simulates the flight itself with its listeners
+		SimulationBasedParameter recordedTypes = new SimulationBasedParameter() {
+			@Override
+			public String getName() {
+				return "Recorded types";
+			}
+			
+			@Override
+			public UnitGroup getUnitGroup() {
+				return UnitGroup.UNITS_NONE;
+			}
+			
+			@Override
+			protected SimulationListener[] getSimulationListeners() {
+				return new SimulationListener[] { new AbstractSimulationListener() {
+					@Override
+					public void startSimulation(SimulationStatus status) {
+						started[0] = true;
+					}
+				} };
+			}
+			
+			@Override
+			protected double getResultValue(FlightData simulatedData) {
+				result[0] = simulatedData;
+				return simulatedData.getBranch(0).getTypes().length;
+			}
+		};
+		
+		// The domain needs the flight up to apogee, so the function simulates it first
+		SimulationDomain apogeeDomain = new SimulationDomain() {
+			@Override
+			public Pair<Double, Value> getDistanceToDomain(Simulation sim) {
+				return new Pair<Double, Value>(-1.0, null);
+			}
+			
+			@Override
+			public SimulationExtent getRequiredExtent() {
+				return SimulationExtent.APOGEE;
+			}
+		};
+		
+		RocketOptimizationFunction function = new RocketOptimizationFunction(simulation,
+				recordedTypes, new MinimizationGoal(), apogeeDomain, modifier);
+		
+		double value = function.evaluate(new Point(0.5));
+		assertTrue(started[0]);
+		
+		// The parameter gets the whole flight with all values recorded
+		FlightDataBranch branch = result[0].getBranch(0);
+		assertEquals(branch.getTypes().length, value, 0);
+		assertTrue(branch.getLast(FlightDataType.TYPE_TIME) > result[0].getTimeToApogee() + 1);
+		assertTrue(branch.get(FlightDataType.TYPE_ROLL_RATE).size() > 10);
+	}
+	
+	private static Simulation createFlightSimulation() {
+		Simulation simulation = new Simulation(TestRockets.makeEstesAlphaIII());
+		simulation.setFlightConfigurationId(TestRockets.TEST_FCID_0);
+		simulation.getOptions().setISAAtmosphere(true);
+		simulation.getOptions().setRandomSeed(42);
+		simulation.getOptions().setTimeStep(0.05);
+		return simulation;
+	}
+	
+	private static SimulationModifier createNoseModifier(Rocket rocket) {
+		NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		SimulationModifier modifier = new GenericComponentModifier("Length", "", nose, UnitGroup.UNITS_LENGTH, 1.0,
+				NoseCone.class, nose.getID(), "Length");
+		modifier.setMinValue(0.05);
+		modifier.setMaxValue(0.15);
+		return modifier;
+	}
+	
+	@Test
+	public void testFunctionKey() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		// A copy has different component ID's, like a design loaded in another session
+		Rocket copy = (Rocket) rocket.copy();
+		
+		String key = createKeyFunction(rocket, new MinimizationGoal(), 0.15).getFunctionKey();
+		assertEquals(key, createKeyFunction(rocket, new MinimizationGoal(), 0.15).getFunctionKey());
+		assertEquals(key, createKeyFunction(copy, new MinimizationGoal(), 0.15).getFunctionKey());
+		
+		assertNotEquals(key, createKeyFunction(rocket, new MinimizationGoal(), 0.2).getFunctionKey());
+		assertNotEquals(key, createKeyFunction(rocket, new ValueSeekGoal(1), 0.15).getFunctionKey());
+		assertNotEquals(createKeyFunction(rocket, new ValueSeekGoal(1), 0.15).getFunctionKey(),
+				createKeyFunction(rocket, new ValueSeekGoal(2), 0.15).getFunctionKey());
+		
+		((BodyTube) copy.getChild(0).getChild(1)).setLength(0.5);
+		assertNotEquals(key, createKeyFunction(copy, new MinimizationGoal(), 0.15).getFunctionKey());
+	}
+	
+	private RocketOptimizationFunction createKeyFunction(Rocket rocket, OptimizationGoal goal, double max) {
+		NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		SimulationModifier modifier = new GenericComponentModifier("Length", "", nose, UnitGroup.UNITS_LENGTH, 1.0,
+				NoseCone.class, nose.getID(), "Length");
+		modifier.setMinValue(0.05);
+		modifier.setMaxValue(max);
+		// The random seed is stored with the simulation
+		Simulation simulation = new Simulation(rocket);
+		simulation.getOptions().setRandomSeed(1);
+		return new RocketOptimizationFunction(simulation, new MaximumAltitudeParameter(), goal,
+				new IdentitySimulationDomain(), modifier);
+	}
+	
 }
@@ -0,0 +1,240 @@
+package net.sf.openrocket.preset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.openrocket.database.ComponentPresetDatabase;
+import net.sf.openrocket.database.Databases;
+import net.sf.openrocket.material.Material;
+import net.sf.openrocket.motor.Manufacturer;
+import net.sf.openrocket.rocketcomponent.ExternalComponent.Finish;
+import net.sf.openrocket.rocketcomponent.Transition.Shape;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+import org.junit.Test;
+
+public class BinaryPresetBundleTest extends BaseTestCase {
+
+	private static List<ComponentPreset> createPresets() throws Exception {
+		List<ComponentPreset> presets = new ArrayList<ComponentPreset>();
+		for (int i = 0; i < 5; i++) {
+			TypedPropertyMap presetspec = new TypedPropertyMap();
+			presetspec.put(ComponentPreset.TYPE, ComponentPreset.Type.BODY_TUBE);
+			presetspec.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer("Estes"));
+			presetspec.put(ComponentPreset.PARTNO, "BT-" + (5 + i * 15));
+			presetspec.put(ComponentPreset.DESCRIPTION, "Body tube " + i);
+			presetspec.put(ComponentPreset.LEGACY, i % 2 == 0);
+			presetspec.put(ComponentPreset.LENGTH, 0.3 + i * 0.01);
+			presetspec.put(ComponentPreset.OUTER_DIAMETER, 0.013 + i * 0.005);
+			presetspec.put(ComponentPreset.INNER_DIAMETER, 0.012 + i * 0.005);
+			presetspec.put(ComponentPreset.MASS, 0.01 + i * 0.002);
+			presetspec.put(ComponentPreset.FINISH, Finish.NORMAL);
+			presetspec.put(ComponentPreset.IMAGE, new byte[] { 1, 2, 3, (byte) i });
+			presets.add(ComponentPresetFactory.create(presetspec));
+		}
+
+		TypedPropertyMap presetspec = new TypedPropertyMap();
+		presetspec.put(ComponentPreset.TYPE, ComponentPreset.Type.NOSE_CONE);
+		presetspec.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer("LOC/Precision"));
+		presetspec.put(ComponentPreset.PARTNO, "PNC-2.56");
+		presetspec.put(ComponentPreset.LENGTH, 0.2);
+		presetspec.put(ComponentPreset.SHAPE, Shape.OGIVE);
+		presetspec.put(ComponentPreset.AFT_OUTER_DIAMETER, 0.066);
+		presetspec.put(ComponentPreset.AFT_SHOULDER_DIAMETER, 0.064);
+		presetspec.put(ComponentPreset.AFT_SHOULDER_LENGTH, 0.05);
+		presetspec.put(ComponentPreset.FILLED, false);
+		presetspec.put(ComponentPreset.MASS, 0.05);
+		presets.add(ComponentPresetFactory.create(presetspec));
+
+		presetspec = new TypedPropertyMap();
+		presetspec.put(ComponentPreset.TYPE, ComponentPreset.Type.PARACHUTE);
+		presetspec.put(ComponentPreset.MANUFACTURER, Manufacturer.getManufacturer("Fruity Chutes"));
+		presetspec.put(ComponentPreset.PARTNO, "CFC-24");
+		presetspec.put(ComponentPreset.DIAMETER, 0.6);
+		presetspec.put(ComponentPreset.SIDES, 6);
+		presetspec.put(ComponentPreset.LINE_COUNT, 8);
+		presetspec.put(ComponentPreset.LINE_LENGTH, 0.7);
+		// Materials are looked up as when loading .orc files
+		presetspec.put(ComponentPreset.MATERIAL, Databases.findMaterial(Material.Type.SURFACE, "Ripstop nylon", 0.067));
+		presetspec.put(ComponentPreset.LINE_MATERIAL, Databases.findMaterial(Material.Type.LINE, "Test line", 0.003));
+		presets.add(ComponentPresetFactory.create(presetspec));
+		return presets;
+	}
+
+	private static byte[] write(List<ComponentPreset> presets) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryPresetBundle.write(presets, out);
+		return out.toByteArray();
+	}
+
+	private static List<ComponentPreset> load(List<ComponentPresetDatabase.PresetLoader> loaders) {
+		List<ComponentPreset> presets = new ArrayList<ComponentPreset>();
+		for (ComponentPresetDatabase.PresetLoader loader : loaders) {
+			List<ComponentPreset> section = loader.load();
+			assertEquals(loader.getPresetCount(), section.size());
+			for (ComponentPreset preset : section) {
+				assertSame(loader.getType(), preset.getType());
+			}
+			presets.addAll(section);
+		}
+		return presets;
+	}
+
+	private static void assertPresetEquals(ComponentPreset expected, ComponentPreset actual) {
+		assertEquals(expected.getDigest(), actual.getDigest());
+		for (TypedKey<?> key : Arrays.asList(ComponentPreset.TYPE, ComponentPreset.MANUFACTURER, ComponentPreset.PARTNO,
+				ComponentPreset.DESCRIPTION, ComponentPreset.LEGACY, ComponentPreset.LENGTH, ComponentPreset.OUTER_DIAMETER,
+				ComponentPreset.AFT_OUTER_DIAMETER, ComponentPreset.SHAPE, ComponentPreset.FILLED, ComponentPreset.FINISH,
+				ComponentPreset.MASS, ComponentPreset.SIDES, ComponentPreset.LINE_COUNT)) {
+			assertEquals(expected.has(key), actual.has(key));
+			if (expected.has(key)) {
+				assertEquals(expected.get(key), actual.get(key));
+			}
+		}
+		for (TypedKey<Material> key : Arrays.asList(ComponentPreset.MATERIAL, ComponentPreset.LINE_MATERIAL)) {
+			assertEquals(expected.has(key), actual.has(key));
+			if (expected.has(key)) {
+				assertEquals(expected.get(key).getName(), actual.get(key).getName());
+				assertEquals(expected.get(key).getType(), actual.get(key).getType());
+				assertEquals(expected.get(key).getDensity(), actual.get(key).getDensity(), 0);
+			}
+		}
+		assertEquals(expected.has(ComponentPreset.IMAGE), actual.has(ComponentPreset.IMAGE));
+		if (expected.has(ComponentPreset.IMAGE)) {
+			assertArrayEquals(expected.get(ComponentPreset.IMAGE), actual.get(ComponentPreset.IMAGE));
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		List<ComponentPreset> presets = createPresets();
+		List<ComponentPreset> read = load(BinaryPresetBundle.read(new ByteArrayInputStream(write(presets))));
+
+		assertEquals(presets.size(), read.size());
+		for (int i = 0; i < presets.size(); i++) {
+			assertPresetEquals(presets.get(i), read.get(i));
+			// The stored digest matches the properties
+			String digest = read.get(i).getDigest();
+			read.get(i).computeDigest();
+			assertEquals(digest, read.get(i).getDigest());
+		}
+	}
+
+	@Test
+	public void testReadFromBufferPosition() throws Exception {
+		List<ComponentPreset> presets = createPresets();
+		byte[] data = write(presets);
+		ByteBuffer buffer = ByteBuffer.allocate(data.length + 3);
+		buffer.position(3);
+		buffer.put(data);
+		buffer.position(3);
+
+		List<ComponentPreset> read = load(BinaryPresetBundle.read(buffer));
+		assertEquals(presets.size(), read.size());
+		for (int i = 0; i < presets.size(); i++) {
+			assertPresetEquals(presets.get(i), read.get(i));
+		}
+	}
+
+	@Test
+	public void testLazyDatabase() throws Exception {
+		List<ComponentPreset> presets = createPresets();
+		final List<ComponentPreset.Type> loaded = new ArrayList<ComponentPreset.Type>();
+		ComponentPresetDatabase db = new ComponentPresetDatabase();
+		for (final ComponentPresetDatabase.PresetLoader loader : BinaryPresetBundle.read(ByteBuffer.wrap(write(presets)))) {
+			db.addLoader(new ComponentPresetDatabase.PresetLoader() {
+				@Override
+				public ComponentPreset.Type getType() {
+					return loader.getType();
+				}
+
+				@Override
+				public int getPresetCount() {
+					return loader.getPresetCount();
+				}
+
+				@Override
+				public List<ComponentPreset> load() {
+					loaded.add(loader.getType());
+					return loader.load();
+				}
+			});
+		}
+
+		// Adding an equal preset loads its type
+		ComponentPreset noseCone = presets.get(5);
+		assertFalse(db.add(noseCone));
+		assertEquals(Arrays.asList(ComponentPreset.Type.NOSE_CONE), loaded);
+
+		assertEquals(5, db.listForType(ComponentPreset.Type.BODY_TUBE).size());
+		assertEquals(Arrays.asList(ComponentPreset.Type.NOSE_CONE, ComponentPreset.Type.BODY_TUBE), loaded);
+
+		// All presets are loaded once, and kept in sorted order
+		assertEquals(presets.size(), db.size());
+		assertEquals(3, loaded.size());
+		List<ComponentPreset> sorted = new ArrayList<ComponentPreset>(presets);
+		Collections.sort(sorted);
+		assertEquals(sorted, db.listAll());
+		ComponentPreset parachute = presets.get(6);
+		assertEquals(Arrays.asList(parachute), db.find(parachute.getManufacturer().getSimpleName(), "CFC-24"));
+	}
+
+	@Test
+	public void testInvalidData() throws Exception {
+		byte[] data = write(createPresets());
+
+		byte[] version = data.clone();
+		version[7]++;
+		assertInvalid(version);
+
+		byte[] magic = data.clone();
+		magic[0]++;
+		assertInvalid(magic);
+
+		assertInvalid(Arrays.copyOf(data, data.length - 8));
+		assertInvalid(Arrays.copyOf(data, 30));
+
+		// Damaged section data is detected when the bundle is read, not when the section is loaded
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.position(20);
+		for (int i = 0; i < buffer.getInt(8); i++) {
+			int size = buffer.getInt();
+			buffer.position(buffer.position() + size);
+		}
+		int directory = buffer.position() + 4 * buffer.getInt(12);
+		int sectionData = directory + 16 * buffer.getInt(16);
+
+		byte[] count = data.clone();
+		ByteBuffer.wrap(count).putInt(directory + 4, buffer.getInt(directory + 4) + 1);
+		assertInvalid(count);
+
+		byte[] digest = data.clone();
+		ByteBuffer.wrap(digest).putInt(sectionData, Integer.MAX_VALUE);
+		assertInvalid(digest);
+
+		byte[] key = data.clone();
+		ByteBuffer.wrap(key).putInt(sectionData + 8, Integer.MAX_VALUE);
+		assertInvalid(key);
+	}
+
+	private static void assertInvalid(byte[] data) {
+		try {
+			BinaryPresetBundle.read(ByteBuffer.wrap(data));
+			fail("Invalid data was read");
+		} catch (IOException expected) {
+		}
+	}
+
+}
@@ -12,6 +12,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -811,6 +812,76 @@ public class FlightConfigurationTest extends BaseTestCase {
 			assertEquals(original.isStageActive(i), clone.isStageActive(i));
 		}
 	}
-}
 
+	@Test
+	public void testInstancesUpdatedIncrementally() {
+		final Rocket rocket = TestRockets.makeFalcon9Heavy();
+		final FlightConfiguration config = rocket.getSelectedConfiguration();
+		final RocketComponent boosterBody = rocket.getChild(1).getChild(0).getChild(0).getChild(1);
+		final FinSet boosterFins = (FinSet) boosterBody.getChild(1);
+		final NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+
+		// changing the fins recomputes the instances of the fins only
+		Map<RocketComponent, ArrayList<InstanceContext>> before = new HashMap<>(config.getActiveInstances());
+		boosterFins.setFinCount(4);
+		for (Map.Entry<RocketComponent, ArrayList<InstanceContext>> entry : before.entrySet()) {
+			if (entry.getKey() == boosterFins) {
+				assertNotSame(entry.getValue(), config.getActiveInstances().get(boosterFins));
+			} else {
+				assertTrue(entry.getKey().getName(), entry.getValue() == config.getActiveInstances().get(entry.getKey()));
+			}
+		}
+		assertEquals(8, config.getActiveInstances().count(boosterFins));
+		assertSameInstances(new FlightConfiguration(rocket, config.getId()), config);
+
+		// changing the nose cone length moves the components after it
+		before = new HashMap<>(config.getActiveInstances());
+		nose.setLength(nose.getLength() + 0.1);
+		assertTrue(before.get(nose) == config.getActiveInstances().get(nose));
+		assertNotSame(before.get(boosterFins), config.getActiveInstances().get(boosterFins));
+		assertSameInstances(new FlightConfiguration(rocket, config.getId()), config);
+
+		// removing a component removes its instances
+		boosterBody.removeChild(boosterFins);
+		assertFalse(config.getActiveInstances().containsKey(boosterFins));
+		assertSameInstances(new FlightConfiguration(rocket, config.getId()), config);
+
+		// deactivating a stage
+		config.setOnlyStage(0);
+		final FlightConfiguration expected = new FlightConfiguration(rocket, config.getId());
+		expected.setOnlyStage(0);
+		assertSameInstances(expected, config);
+	}
+
+	@Test
+	public void testBoundsCached() {
+		final Rocket rocket = TestRockets.makeFalcon9Heavy();
+		final FlightConfiguration config = rocket.getSelectedConfiguration();
+
+		final BoundingBox bounds = config.getBoundingBox();
+		config.getBoundingBox().update(new Coordinate(100, 0, 0));
+		assertEquals(bounds.max.x, config.getBoundingBox().max.x, 0);
+		final double length = config.getLength();
 
+		final NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		nose.setLength(nose.getLength() + 0.1);
+		assertEquals(length + 0.1, config.getLength(), EPSILON);
+		assertEquals(bounds.max.x + 0.1, config.getBoundingBox().max.x, EPSILON);
+
+		config.setOnlyStage(1);
+		assertTrue(config.getLength() < length);
+	}
+
+	private static void assertSameInstances(FlightConfiguration expected, FlightConfiguration actual) {
+		assertEquals(expected.getActiveInstances().keySet(), actual.getActiveInstances().keySet());
+		for (Map.Entry<RocketComponent, ArrayList<InstanceContext>> entry : expected.getActiveInstances().entrySet()) {
+			List<InstanceContext> actualContexts = actual.getActiveInstances().get(entry.getKey());
+			assertEquals(entry.getValue().size(), actualContexts.size());
+			for (int i = 0; i < actualContexts.size(); i++) {
+				assertEquals(entry.getValue().get(i).instanceNumber, actualContexts.get(i).instanceNumber);
+				assertEquals(entry.getValue().get(i).transform, actualContexts.get(i).transform);
+			}
+		}
+		assertEquals(expected.getExtraRenderInstances().keySet(), actual.getExtraRenderInstances().keySet());
+	}
+}
@@ -0,0 +1,223 @@
+package net.sf.openrocket.rocketcomponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.OpenRocketDocumentFactory;
+import net.sf.openrocket.util.TestRockets;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+
+public class RocketSnapshotTest extends BaseTestCase {
+
+	@Test
+	public void testSharesUnchangedComponents() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		RocketSnapshot first = RocketSnapshot.create(rocket, null);
+		int count = first.getComponentCount();
+		assertEquals(count(rocket), count);
+
+		// Nothing changed:  only the rocket itself and the flight configurable components are copied
+		int copied = 1 + countFlightConfigurable(rocket);
+		assertEquals(10, copied - 1);
+		RocketSnapshot second = RocketSnapshot.create(rocket, first);
+		assertEquals(count - copied, second.getSharedComponentCount(first));
+
+		// One component changed
+		NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		nose.setLength(nose.getLength() + 0.01);
+		RocketSnapshot third = RocketSnapshot.create(rocket, second);
+		assertEquals(count - copied - 1, third.getSharedComponentCount(second));
+		assertTrue(third.getModID() != second.getModID());
+
+		// A component added to a body tube, which is copied anyway
+		rocket.getChild(0).getChild(3).addChild(new MassComponent());
+		RocketSnapshot fourth = RocketSnapshot.create(rocket, third);
+		assertEquals(count + 1, fourth.getComponentCount());
+		assertEquals(count - copied, fourth.getSharedComponentCount(third));
+	}
+
+	@Test
+	public void testRestore() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		String original = describe(rocket);
+		RocketSnapshot snapshot = RocketSnapshot.create(rocket, null);
+
+		FlightConfiguration selected = rocket.getSelectedConfiguration();
+		selected.setOnlyStage(1);
+
+		RocketComponent upperStageBody = rocket.getChild(0).getChild(3);
+		RocketComponent booster = rocket.getChild(1).getChild(0).getChild(0);
+		RocketComponent unchanged = booster.getChild(0);
+		NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		nose.setLength(nose.getLength() * 2);
+		RocketComponent removed = upperStageBody.getChild(0);
+		upperStageBody.removeChild(0);
+		booster.getChild(1).addChild(new MassComponent());
+		assertFalse(original.equals(describe(rocket)));
+
+		rocket.loadFrom(snapshot);
+		assertEquals(original, describe(rocket));
+		assertEquals(snapshot.getModID(), rocket.getModID());
+
+		// unchanged components are kept, changed ones replaced
+		assertSame(unchanged, rocket.getChild(1).getChild(0).getChild(0).getChild(0));
+		assertNotSame(nose, rocket.getChild(0).getChild(0));
+		assertSame(removed.getClass(), rocket.getChild(0).getChild(3).getChild(0).getClass());
+		assertEquals(removed.getID(), rocket.getChild(0).getChild(3).getChild(0).getID());
+
+		// configurations are reused, but reset
+		assertSame(selected, rocket.getSelectedConfiguration());
+		assertTrue(selected.isStageActive(0));
+		assertEquals(1, selected.getActiveInstances().getInstanceContexts(rocket.getChild(0).getChild(0)).size());
+		assertSame(rocket.getChild(0).getChild(0),
+				selected.getActiveInstances().getInstanceContexts(rocket.getChild(0).getChild(0)).get(0).component);
+
+		// the snapshot can be loaded again, and into another rocket
+		nose = (NoseCone) rocket.getChild(0).getChild(0);
+		nose.setLength(1);
+		rocket.loadFrom(snapshot);
+		assertEquals(original, describe(rocket));
+		assertEquals(original, describe(snapshot.toRocket()));
+	}
+
+	@Test
+	public void testMovedComponent() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		String original = describe(rocket);
+		RocketSnapshot snapshot = RocketSnapshot.create(rocket, null);
+
+		// move the parachute from the body tube to the nose cone
+		RocketComponent stage = rocket.getChild(0);
+		RocketComponent body = stage.getChild(1);
+		RocketComponent parachute = body.getChild(3);
+		body.removeChild(parachute);
+		stage.getChild(0).addChild(parachute);
+
+		RocketSnapshot moved = RocketSnapshot.create(rocket, snapshot);
+		String movedDescription = describe(rocket);
+
+		rocket.loadFrom(snapshot);
+		assertEquals(original, describe(rocket));
+		rocket.loadFrom(moved);
+		assertEquals(movedDescription, describe(rocket));
+		rocket.loadFrom(snapshot);
+		assertEquals(original, describe(rocket));
+	}
+
+	@Test
+	public void testDocumentUndoRedo() {
+		Rocket rocket = TestRockets.makeFalcon9Heavy();
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		String original = describe(rocket);
+
+		document.addUndoPosition("Modify nose cone");
+		NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		nose.setLength(0.5);
+		String modified = describe(rocket);
+
+		document.addUndoPosition("Remove component");
+		rocket.getChild(0).getChild(3).removeChild(0);
+		rocket.setName("Renamed");
+		String removed = describe(rocket);
+
+		document.undo();
+		assertEquals(modified, describe(rocket));
+		document.undo();
+		assertEquals(original, describe(rocket));
+		assertFalse(document.isUndoAvailable());
+
+		document.redo();
+		assertEquals(modified, describe(rocket));
+		document.redo();
+		assertEquals(removed, describe(rocket));
+		assertFalse(document.isRedoAvailable());
+
+		document.undo();
+		document.addUndoPosition("Modify body tube");
+		BodyTube body = (BodyTube) rocket.getChild(1).getChild(0);
+		body.setLength(body.getLength() + 0.1);
+		assertFalse(document.isRedoAvailable());
+		document.undo();
+		assertEquals(modified, describe(rocket));
+	}
+
+	@Test
+	public void testUndoFlightConfigurableParameters() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		BodyTube body = (BodyTube) rocket.getChild(0).getChild(1);
+		Parachute parachute = (Parachute) body.getChild(3);
+		String name = parachute.getName();
+		double originalLength = body.getLength();
+
+		// The default deployment is edited like in the component configuration dialog, without a change event
+		document.addUndoPosition("Modify parachute");
+		parachute.getDeploymentConfigurations().getDefault().setDeployAltitude(300);
+
+		document.addUndoPosition("Modify body tube");
+		body.setLength(body.getLength() + 0.1);
+		double length = body.getLength();
+
+		document.addUndoPosition("Rename parachute");
+		parachute.setName("Renamed");
+
+		document.undo();
+		body = (BodyTube) rocket.getChild(0).getChild(1);
+		parachute = (Parachute) body.getChild(3);
+		assertEquals(300, parachute.getDeploymentConfigurations().getDefault().getDeployAltitude(), 0);
+		assertEquals(length, body.getLength(), 0);
+		assertEquals(name, parachute.getName());
+
+		// The deployment edit fired no event, so it shares the undo position of the body tube edit
+		document.undo();
+		body = (BodyTube) rocket.getChild(0).getChild(1);
+		parachute = (Parachute) body.getChild(3);
+		assertEquals(200, parachute.getDeploymentConfigurations().getDefault().getDeployAltitude(), 0);
+		assertEquals(originalLength, body.getLength(), 0);
+	}
+
+
+	private static int count(RocketComponent component) {
+		int n = 1;
+		for (RocketComponent child : component.getChildren()) {
+			n += count(child);
+		}
+		return n;
+	}
+
+	private static int countFlightConfigurable(Rocket rocket) {
+		int n = 0;
+		for (RocketComponent c : rocket) {
+			if (c instanceof FlightConfigurableComponent) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Return a description of the structure and main parameters of the components.
+	 */
+	private static String describe(Rocket rocket) {
+		StringBuilder sb = new StringBuilder();
+		for (RocketComponent c : rocket) {
+			sb.append(c.getClass().getSimpleName()).append(' ').append(c.getID()).append(' ').append(c.getName())
+					.append(" parent=").append(c.getParent() == null ? null : c.getParent().getID())
+					.append(" length=").append(c.getLength())
+					.append(" position=").append(c.getPosition())
+					.append(" mass=").append(c.getComponentMass())
+					.append('\n');
+		}
+		for (FlightConfiguration config : rocket.getFlightConfigurations()) {
+			sb.append(config.getId()).append(' ').append(config.getName()).append('\n');
+		}
+		sb.append(rocket.getSelectedConfiguration().getId());
+		return sb.toString();
+	}
+}
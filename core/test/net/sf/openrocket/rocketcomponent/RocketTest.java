@@ -8,6 +8,8 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThat;
 
 
+import java.util.List;
+
 import net.sf.openrocket.util.ArrayList;
 import org.junit.Test;
 
@@ -490,4 +492,78 @@ public class RocketTest extends BaseTestCase {
 		assertEquals(  0.12069451, bounds.max.z, EPSILON);
 	}
 
+	@Test
+	public void testBatchUpdateCoalescesEvents() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final NoseCone nose = (NoseCone) rocket.getChild(0).getChild(0);
+		final BodyTube body = (BodyTube) rocket.getChild(0).getChild(1);
+		final List<ComponentChangeEvent> events = new ArrayList<>();
+		rocket.addComponentChangeListener(new ComponentChangeListener() {
+			@Override
+			public void componentChanged(ComponentChangeEvent e) {
+				events.add(e);
+			}
+		});
+		
+		rocket.batchUpdate(new Runnable() {
+			@Override
+			public void run() {
+				nose.setName("Renamed");
+				// Nested batches fire no events of their own
+				body.getRocket().batchUpdate(new Runnable() {
+					@Override
+					public void run() {
+						body.setLength(body.getLength() + 0.01);
+						nose.setLength(nose.getLength() + 0.01);
+					}
+				});
+				assertEquals(0, events.size());
+			}
+		});
+		
+		assertEquals(1, events.size());
+		ComponentChangeEvent event = events.get(0);
+		assertEquals(nose, event.getSource());
+		assertThat(event.isMassChange(), equalTo(true));
+		assertThat(event.isAerodynamicChange(), equalTo(true));
+		// The name change does not make the combined event non-functional
+		assertThat(event.isFunctionalChange(), equalTo(true));
+		
+		// A batch without changes fires no event
+		rocket.batchUpdate(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+		assertEquals(1, events.size());
+	}
+	
+	@Test
+	public void testListenerRemovedDuringDispatch() {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		final Rocket r = rocket;
+		final int[] calls = new int[2];
+		final ComponentChangeListener second = new ComponentChangeListener() {
+			@Override
+			public void componentChanged(ComponentChangeEvent e) {
+				calls[1]++;
+			}
+		};
+		rocket.addComponentChangeListener(new ComponentChangeListener() {
+			@Override
+			public void componentChanged(ComponentChangeEvent e) {
+				calls[0]++;
+				r.removeComponentChangeListener(this);
+				r.removeComponentChangeListener(second);
+			}
+		});
+		rocket.addComponentChangeListener(second);
+		
+		rocket.setName("First");
+		rocket.setName("Second");
+		
+		assertEquals(1, calls[0]);
+		// The listener list is not modified during the dispatch of the first event
+		assertEquals(1, calls[1]);
+	}
 }
@@ -0,0 +1,68 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class DormandPrinceSimulationStepperTest extends BaseTestCase {
+
+	private static FlightData simulate(FlightConfigurationId fcid, IntegrationMethod method) throws SimulationException {
+		Simulation simulation = new Simulation(TestRockets.makeEstesAlphaIII());
+		simulation.setFlightConfigurationId(fcid);
+		simulation.getOptions().setISAAtmosphere(true);
+		simulation.getOptions().setRandomSeed(42);
+		simulation.getOptions().setTimeStep(0.05);
+		simulation.getOptions().setIntegrationMethod(method);
+		simulation.simulate();
+		return simulation.getSimulatedData();
+	}
+
+	private static int countPoints(FlightData data, double endTime) {
+		FlightDataBranch branch = data.getBranch(0);
+		int count = 0;
+		for (int i = 0; i < branch.getLength(); i++) {
+			if (branch.getValue(FlightDataType.TYPE_TIME, i) <= endTime) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testMatchesRK4() throws SimulationException {
+		for (FlightConfigurationId fcid : new FlightConfigurationId[] { TestRockets.TEST_FCID_0, TestRockets.TEST_FCID_1 }) {
+			FlightData rk4 = simulate(fcid, IntegrationMethod.RK4);
+			FlightData dp = simulate(fcid, IntegrationMethod.DORMAND_PRINCE);
+
+			assertEquals(rk4.getMaxAltitude(), dp.getMaxAltitude(), 0.002 * rk4.getMaxAltitude());
+			assertEquals(rk4.getMaxVelocity(), dp.getMaxVelocity(), 0.002 * rk4.getMaxVelocity());
+			assertEquals(rk4.getTimeToApogee(), dp.getTimeToApogee(), 0.05);
+			assertEquals(rk4.getFlightTime(), dp.getFlightTime(), 0.01 * rk4.getFlightTime());
+		}
+	}
+
+	@Test
+	public void testFewerStepsToApogee() throws SimulationException {
+		FlightData rk4 = simulate(TestRockets.TEST_FCID_1, IntegrationMethod.RK4);
+		FlightData dp = simulate(TestRockets.TEST_FCID_1, IntegrationMethod.DORMAND_PRINCE);
+
+		int rk4Points = countPoints(rk4, rk4.getTimeToApogee());
+		int dpPoints = countPoints(dp, dp.getTimeToApogee());
+		assertTrue("RK4 " + rk4Points + " points, Dormand-Prince " + dpPoints + " points", dpPoints < rk4Points);
+	}
+
+	@Test
+	public void testFindZeroCrossing() {
+		// Linear function 1 - 2t
+		assertEquals(0.5, DormandPrinceSimulationStepper.findZeroCrossing(1, -2, -1, -2), 1e-9);
+		// Quadratic function 1 - 4t^2 with derivative -8t
+		assertEquals(0.5, DormandPrinceSimulationStepper.findZeroCrossing(1, 0, -3, -8), 1e-9);
+	}
+}
@@ -0,0 +1,184 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class FlightDataBranchTest {
+
+	@Test
+	public void testValuesAndExtremes() {
+		FlightDataBranch branch = new FlightDataBranch("test", FlightDataType.TYPE_TIME, FlightDataType.TYPE_ALTITUDE);
+		for (int i = 0; i < 1000; i++) {
+			branch.addPoint();
+			branch.setValue(FlightDataType.TYPE_TIME, i * 0.01);
+			branch.setValue(FlightDataType.TYPE_ALTITUDE, Math.sin(i * 0.01));
+		}
+
+		assertEquals(1000, branch.getLength());
+		assertEquals(9.99, branch.getLast(FlightDataType.TYPE_TIME), 0);
+		assertEquals(0, branch.getMinimum(FlightDataType.TYPE_TIME), 0);
+		assertEquals(9.99, branch.getMaximum(FlightDataType.TYPE_TIME), 0);
+		assertEquals(Math.sin(1.57), branch.getMaximum(FlightDataType.TYPE_ALTITUDE), 0);
+		assertEquals(Math.sin(4.71), branch.getMinimum(FlightDataType.TYPE_ALTITUDE), 0);
+		assertEquals(Math.sin(5), branch.getValue(FlightDataType.TYPE_ALTITUDE, 500), 0);
+
+		List<Double> altitude = branch.get(FlightDataType.TYPE_ALTITUDE);
+		assertEquals(1000, altitude.size());
+		assertEquals(Math.sin(1), altitude.get(100), 0);
+
+		assertNull(branch.get(FlightDataType.TYPE_MACH_NUMBER));
+		assertEquals(Double.NaN, branch.getMaximum(FlightDataType.TYPE_MACH_NUMBER), 0);
+		assertEquals(Double.NaN, branch.getValue(FlightDataType.TYPE_MACH_NUMBER, 0), 0);
+	}
+
+	@Test
+	public void testNewTypeIsPaddedWithNaN() {
+		FlightDataBranch branch = new FlightDataBranch("test", FlightDataType.TYPE_TIME);
+		for (int i = 0; i < 3; i++) {
+			branch.addPoint();
+			branch.setValue(FlightDataType.TYPE_TIME, i);
+		}
+		branch.setValue(FlightDataType.TYPE_MACH_NUMBER, 0.5);
+		branch.addPoint();
+
+		assertArrayEquals(new double[] { Double.NaN, Double.NaN, 0.5, Double.NaN },
+				branch.getValues(FlightDataType.TYPE_MACH_NUMBER).toDoubleArray(), 0);
+		assertEquals(0.5, branch.getMinimum(FlightDataType.TYPE_MACH_NUMBER), 0);
+		assertEquals(0.5, branch.getMaximum(FlightDataType.TYPE_MACH_NUMBER), 0);
+	}
+
+	@Test
+	public void testMutableBranchReturnsSnapshot() {
+		FlightDataBranch branch = new FlightDataBranch("test", FlightDataType.TYPE_TIME);
+		branch.addPoint();
+		branch.setValue(FlightDataType.TYPE_TIME, 1);
+
+		List<Double> time = branch.get(FlightDataType.TYPE_TIME);
+		branch.setValue(FlightDataType.TYPE_TIME, 2);
+		branch.addPoint();
+
+		assertEquals(1, time.size());
+		assertEquals(1.0, time.get(0), 0);
+		try {
+			time.set(0, 3.0);
+			fail("Returned list is modifiable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testClone() {
+		FlightDataBranch branch = new FlightDataBranch("test", FlightDataType.TYPE_TIME);
+		branch.addPoint();
+		branch.setValue(FlightDataType.TYPE_TIME, 1);
+		branch.immute();
+
+		FlightDataBranch clone = branch.clone();
+		clone.addPoint();
+		clone.setValue(FlightDataType.TYPE_TIME, 5);
+
+		assertEquals(1, branch.getLength());
+		assertEquals(1, branch.getMaximum(FlightDataType.TYPE_TIME), 0);
+		assertEquals(2, clone.getLength());
+		assertEquals(1, clone.getValue(FlightDataType.TYPE_TIME, 0), 0);
+		assertEquals(5, clone.getMaximum(FlightDataType.TYPE_TIME), 0);
+	}
+
+	@Test
+	public void testEmptyBranch() {
+		FlightDataBranch branch = new FlightDataBranch();
+		assertEquals(0, branch.getLength());
+		assertEquals(FlightDataType.ALL_TYPES.length, branch.getTypes().length);
+		assertEquals(0, branch.get(FlightDataType.TYPE_ALTITUDE).size());
+		assertEquals(Double.NaN, branch.getLast(FlightDataType.TYPE_ALTITUDE), 0);
+	}
+
+	@Test
+	public void testRecordedTypes() {
+		FlightDataBranch branch = new FlightDataBranch("test", Collections.singleton(FlightDataType.TYPE_TIME),
+				FlightDataType.TYPE_TIME);
+		assertTrue(branch.isRecorded(FlightDataType.TYPE_TIME));
+		assertFalse(branch.isRecorded(FlightDataType.TYPE_ALTITUDE));
+		assertFalse(branch.isRecordingAllTypes());
+
+		FlightEvent apogee = null;
+		for (int i = 0; i <= 100; i++) {
+			branch.addPoint();
+			branch.setValue(FlightDataType.TYPE_TIME, i * 0.1);
+			branch.setValue(FlightDataType.TYPE_ALTITUDE, 100 - (i - 50) * (i - 50) / 25.0);
+			branch.setValue(FlightDataType.TYPE_VELOCITY_TOTAL, Math.abs(i - 50));
+			if (i == 50) {
+				apogee = new FlightEvent(FlightEvent.Type.APOGEE, 5.0);
+				branch.addEvent(apogee);
+			}
+		}
+
+		assertEquals(101, branch.getLength());
+		assertArrayEquals(new FlightDataType[] { FlightDataType.TYPE_TIME }, branch.getTypes());
+		assertEquals(101, branch.getValues(FlightDataType.TYPE_TIME).size());
+		assertNull(branch.get(FlightDataType.TYPE_ALTITUDE));
+		assertEquals(Double.NaN, branch.getValue(FlightDataType.TYPE_ALTITUDE, 0), 0);
+
+		// Aggregates are kept for the types that are not recorded
+		assertEquals(100, branch.getMaximum(FlightDataType.TYPE_ALTITUDE), 0);
+		assertEquals(0, branch.getMinimum(FlightDataType.TYPE_ALTITUDE), 0);
+		assertEquals(0, branch.getLast(FlightDataType.TYPE_ALTITUDE), 0);
+		assertEquals(0, branch.getValueAtEvent(FlightDataType.TYPE_VELOCITY_TOTAL, apogee), 0);
+		assertEquals(50, branch.getMaximumAtEvent(FlightDataType.TYPE_VELOCITY_TOTAL, apogee), 0);
+		assertEquals(Double.NaN, branch.getValueAtEvent(FlightDataType.TYPE_MACH_NUMBER, apogee), 0);
+
+		// Clones and booster branches keep the recording selection
+		branch.immute();
+		FlightDataBranch clone = branch.clone();
+		assertEquals(100, clone.getMaximum(FlightDataType.TYPE_ALTITUDE), 0);
+		assertEquals(0, clone.getValueAtEvent(FlightDataType.TYPE_VELOCITY_TOTAL, apogee), 0);
+		FlightDataBranch booster = new FlightDataBranch("booster", branch);
+		assertFalse(booster.isRecorded(FlightDataType.TYPE_ALTITUDE));
+		assertEquals(0, booster.getLast(FlightDataType.TYPE_ALTITUDE), 0);
+
+		FlightData data = new FlightData(branch);
+		assertEquals(100, data.getMaxAltitude(), 0);
+		assertEquals(50, data.getMaxVelocity(), 0);
+		assertEquals(5.0, data.getTimeToApogee(), 0);
+		assertEquals(10.0, data.getFlightTime(), 1e-9);
+	}
+
+	@Test
+	public void testNoRecordedTypes() {
+		FlightDataBranch branch = new FlightDataBranch("test", Collections.<FlightDataType> emptySet(),
+				FlightDataType.TYPE_TIME);
+		for (int i = 0; i < 10000; i++) {
+			branch.addPoint();
+			branch.setValue(FlightDataType.TYPE_TIME, i);
+		}
+		assertEquals(10000, branch.getLength());
+		assertEquals(0, branch.getTypes().length);
+		assertNull(branch.get(FlightDataType.TYPE_TIME));
+		assertEquals(9999, branch.getLast(FlightDataType.TYPE_TIME), 0);
+		assertEquals(9999, branch.getMaximum(FlightDataType.TYPE_TIME), 0);
+	}
+
+	@Test
+	public void testComputedTypes() {
+		FlightDataBranch all = new FlightDataBranch("test", FlightDataType.TYPE_TIME);
+		assertTrue(all.isComputed(FlightDataType.TYPE_ROLL_RATE));
+
+		FlightDataBranch branch = new FlightDataBranch("test", Collections.singleton(FlightDataType.TYPE_ROLL_RATE),
+				FlightDataType.TYPE_TIME);
+		assertTrue(branch.isComputed(FlightDataType.TYPE_ROLL_RATE));
+		assertTrue(branch.isComputed(FlightDataType.TYPE_ALTITUDE));
+		assertTrue(branch.isComputed(FlightDataType.TYPE_VELOCITY_TOTAL));
+		assertFalse(branch.isComputed(FlightDataType.TYPE_PITCH_RATE));
+		assertFalse(branch.isComputed(FlightDataType.TYPE_DRAG_COEFF));
+	}
+}
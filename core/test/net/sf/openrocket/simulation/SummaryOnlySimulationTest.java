@@ -0,0 +1,84 @@
+package net.sf.openrocket.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.simulation.exception.SimulationException;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class SummaryOnlySimulationTest extends BaseTestCase {
+
+	// The same rocket is simulated in both modes, because the order in which the aerodynamic
+	// and mass contributions of the components are summed depends on their random IDs
+	private static FlightData simulate(Rocket rocket, FlightConfigurationId fcid, Set<FlightDataType> recordedTypes)
+			throws SimulationException {
+		Simulation simulation = new Simulation(rocket);
+		simulation.setFlightConfigurationId(fcid);
+		simulation.getOptions().setISAAtmosphere(true);
+		simulation.getOptions().setRandomSeed(42);
+		simulation.getOptions().setTimeStep(0.05);
+		simulation.getOptions().setRecordedTypes(recordedTypes);
+		simulation.simulate();
+		return simulation.getSimulatedData();
+	}
+
+	@Test
+	public void testSummaryMatchesFullSimulation() throws SimulationException {
+		for (FlightConfigurationId fcid : new FlightConfigurationId[] { TestRockets.TEST_FCID_0, TestRockets.TEST_FCID_1 }) {
+			Rocket rocket = TestRockets.makeEstesAlphaIII();
+			FlightData full = simulate(rocket, fcid, null);
+			FlightData summary = simulate(rocket, fcid, Collections.<FlightDataType> emptySet());
+
+			FlightDataBranch fullBranch = full.getBranch(0);
+			FlightDataBranch branch = summary.getBranch(0);
+			assertEquals(0, branch.getTypes().length);
+			assertNull(branch.get(FlightDataType.TYPE_ALTITUDE));
+			assertEquals(fullBranch.getLength(), branch.getLength());
+			assertEquals(fullBranch.getEvents().size(), branch.getEvents().size());
+
+			assertEquals(full.getMaxAltitude(), summary.getMaxAltitude(), 0);
+			assertEquals(full.getMaxVelocity(), summary.getMaxVelocity(), 0);
+			assertEquals(full.getMaxMachNumber(), summary.getMaxMachNumber(), 0);
+			assertEquals(full.getFlightTime(), summary.getFlightTime(), 0);
+			assertEquals(fullBranch.getFirstEvent(FlightEvent.Type.APOGEE).getTime(), summary.getTimeToApogee(), 0);
+			assertEquals(full.getLaunchRodVelocity(), summary.getLaunchRodVelocity(), 0);
+			assertEquals(full.getMaxAcceleration(), summary.getMaxAcceleration(), 0);
+			for (FlightDataType type : new FlightDataType[] { FlightDataType.TYPE_POSITION_X, FlightDataType.TYPE_POSITION_Y,
+					FlightDataType.TYPE_POSITION_XY, FlightDataType.TYPE_VELOCITY_TOTAL }) {
+				assertEquals(fullBranch.getLast(type), branch.getLast(type), 0);
+			}
+
+			// Types not needed for the summary are not computed
+			assertTrue(Double.isNaN(branch.getLast(FlightDataType.TYPE_ROLL_RATE)));
+			assertTrue(Double.isNaN(branch.getMaximum(FlightDataType.TYPE_DRAG_COEFF)));
+		}
+	}
+
+	@Test
+	public void testSelectedTypes() throws SimulationException {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		FlightData full = simulate(rocket, TestRockets.TEST_FCID_1, null);
+		FlightData selected = simulate(rocket, TestRockets.TEST_FCID_1,
+				new HashSet<FlightDataType>(Arrays.asList(FlightDataType.TYPE_TIME, FlightDataType.TYPE_ALTITUDE)));
+
+		FlightDataBranch branch = selected.getBranch(0);
+		assertEquals(2, branch.getTypes().length);
+		assertEquals(full.getBranch(0).getLength(), branch.getLength());
+		assertEquals(full.getBranch(0).get(FlightDataType.TYPE_ALTITUDE), branch.get(FlightDataType.TYPE_ALTITUDE));
+		assertNull(branch.get(FlightDataType.TYPE_VELOCITY_TOTAL));
+		assertEquals(full.getTimeToApogee(), selected.getTimeToApogee(), 0);
+		assertEquals(full.getMaxVelocity(), selected.getMaxVelocity(), 0);
+	}
+}
@@ -0,0 +1,87 @@
+package net.sf.openrocket.simulation.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.OpenRocketDocumentFactory;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.rocketcomponent.FlightConfigurationId;
+import net.sf.openrocket.rocketcomponent.Rocket;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class BatchSimulationRunnerTest extends BaseTestCase {
+
+	private static Simulation createSimulation(OpenRocketDocument document, FlightConfigurationId fcid, String name) {
+		Simulation sim = new Simulation(document, document.getRocket());
+		sim.setName(name);
+		sim.setFlightConfigurationId(fcid);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.getOptions().setRandomSeed(42);
+		document.addSimulation(sim);
+		return sim;
+	}
+
+	@Test
+	public void testBatchMatchesSerialSimulation() throws Exception {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		createSimulation(document, TestRockets.TEST_FCID_0, "A");
+		createSimulation(document, TestRockets.TEST_FCID_1, "B");
+		createSimulation(document, TestRockets.TEST_FCID_2, "C");
+
+		BatchSimulationRunner runner = new BatchSimulationRunner(2);
+		List<BatchSimulationResult> results;
+		try {
+			results = runner.simulate(document);
+		} finally {
+			runner.shutdown();
+		}
+
+		assertEquals(3, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			BatchSimulationResult result = results.get(i);
+			Simulation source = document.getSimulation(i);
+
+			assertSame(source, result.getSourceSimulation());
+			assertTrue(result.isSuccessful());
+			assertNull(result.getThrowable());
+			assertTrue(result.getWallTimeNanos() > 0);
+			assertTrue(result.getMaxAltitude() > 0);
+
+			// The document simulations are not touched by the batch run
+			assertNull(source.getSimulatedData());
+
+			source.simulate();
+			assertEquals(source.getSimulatedData().getMaxAltitude(), result.getMaxAltitude(), 1e-6);
+			assertEquals(source.getSimulatedData().getFlightTime(), result.getFlightTime(), 1e-6);
+		}
+	}
+
+	@Test
+	public void testFailedSimulationIsReported() throws Exception {
+		Rocket rocket = TestRockets.makeEstesAlphaIII();
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(rocket);
+		Simulation sim = createSimulation(document, TestRockets.TEST_FCID_0, "Disabled");
+		sim.getActiveConfiguration()._setStageActive(0, false);
+
+		BatchSimulationRunner runner = new BatchSimulationRunner(1);
+		List<BatchSimulationResult> results;
+		try {
+			results = runner.simulate(document);
+		} finally {
+			runner.shutdown();
+		}
+
+		assertEquals(1, results.size());
+		assertTrue(!results.get(0).isSuccessful());
+	}
+}
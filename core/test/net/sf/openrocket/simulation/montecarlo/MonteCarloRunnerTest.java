@@ -0,0 +1,124 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.openrocket.document.OpenRocketDocument;
+import net.sf.openrocket.document.OpenRocketDocumentFactory;
+import net.sf.openrocket.document.Simulation;
+import net.sf.openrocket.simulation.FlightData;
+import net.sf.openrocket.util.BaseTestCase.BaseTestCase;
+import net.sf.openrocket.util.TestRockets;
+
+public class MonteCarloRunnerTest extends BaseTestCase {
+
+	private static Simulation createSimulation(OpenRocketDocument document) {
+		Simulation sim = new Simulation(document, document.getRocket());
+		sim.setFlightConfigurationId(TestRockets.TEST_FCID_1);
+		sim.getOptions().setISAAtmosphere(true);
+		sim.getOptions().setTimeStep(0.05);
+		sim.getOptions().setRandomSeed(42);
+		sim.getOptions().setWindSpeedAverage(2);
+		document.addSimulation(sim);
+		return sim;
+	}
+
+	private static MonteCarloResult run(int threadCount, OpenRocketDocument document, Simulation simulation,
+			List<Dispersion> dispersions, int runCount) throws InterruptedException {
+		MonteCarloRunner runner = new MonteCarloRunner(threadCount);
+		try {
+			return runner.run(document, simulation, dispersions, runCount);
+		} finally {
+			runner.shutdown();
+		}
+	}
+
+	@Test
+	public void testResultsIndependentOfThreadCount() throws Exception {
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(TestRockets.makeEstesAlphaIII());
+		Simulation simulation = createSimulation(document);
+		List<Dispersion> dispersions = Arrays.asList(
+				Dispersion.windSpeed(Distribution.uniform(0, 6)),
+				Dispersion.windDirection(Distribution.uniform(0, 2 * Math.PI)),
+				Dispersion.launchRodAngle(Distribution.normal(0, Math.toRadians(2))),
+				Dispersion.thrustFactor(Distribution.normal(1, 0.03)),
+				Dispersion.dragFactor(Distribution.normal(1, 0.05)),
+				Dispersion.massFactor(Distribution.triangular(0.95, 1, 1.05)));
+
+		MonteCarloResult serial = run(1, document, simulation, dispersions, 12);
+		MonteCarloResult parallel = run(3, document, simulation, dispersions, 12);
+
+		assertEquals(12, serial.getRunCount());
+		assertEquals(0, serial.getFailureCount());
+		for (MonteCarloMetric metric : MonteCarloMetric.values()) {
+			RunningStatistics s = serial.getStatistics(metric);
+			RunningStatistics p = parallel.getStatistics(metric);
+			assertEquals(metric.getName(), 12, s.getCount());
+			assertEquals(metric.getName(), s.getMean(), p.getMean(), 0);
+			assertEquals(metric.getName(), s.getStandardDeviation(), p.getStandardDeviation(), 0);
+			assertEquals(metric.getName(), s.getPercentile(0.5), p.getPercentile(0.5), 0);
+		}
+		assertEquals(serial.getLandingEllipse().getMeanX(), parallel.getLandingEllipse().getMeanX(), 0);
+		assertEquals(serial.getLandingEllipse().getSemiMajorAxis(0.95), parallel.getLandingEllipse().getSemiMajorAxis(0.95), 0);
+
+		// The dispersions spread the results
+		RunningStatistics apogee = serial.getStatistics(MonteCarloMetric.APOGEE);
+		assertTrue(apogee.getStandardDeviation() > 0);
+		assertTrue(apogee.getMinimum() <= apogee.getPercentile(0.05));
+		assertTrue(apogee.getPercentile(0.95) <= apogee.getMaximum());
+		assertTrue(serial.getLandingEllipse().getSemiMajorAxis(0.95) > 0);
+		assertTrue(serial.getStatistics(MonteCarloMetric.MAX_DYNAMIC_PRESSURE).getMean() > 0);
+
+		// The document is not modified
+		assertEquals(Simulation.Status.NOT_SIMULATED, simulation.getStatus());
+		assertNull(simulation.getSimulatedData());
+	}
+
+	@Test
+	public void testNominalRunsMatchSimulation() throws Exception {
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(TestRockets.makeEstesAlphaIII());
+		Simulation simulation = createSimulation(document);
+		simulation.getOptions().setWindSpeedAverage(0);
+		simulation.getOptions().setWindTurbulenceIntensity(0);
+
+		MonteCarloResult result = run(2, document, simulation, Collections.<Dispersion> emptyList(), 4);
+
+		Simulation copy = simulation.copy();
+		copy.simulate();
+		FlightData data = copy.getSimulatedData();
+		RunningStatistics apogee = result.getStatistics(MonteCarloMetric.APOGEE);
+		assertEquals(4, apogee.getCount());
+		assertEquals(data.getMaxAltitude(), apogee.getMean(), 0.1);
+		assertEquals(data.getMaxAltitude(), apogee.getPercentile(0.5), 0.1);
+	}
+
+	@Test
+	public void testThrustFactor() throws Exception {
+		OpenRocketDocument document = OpenRocketDocumentFactory.createDocumentFromRocket(TestRockets.makeEstesAlphaIII());
+		Simulation simulation = createSimulation(document);
+
+		MonteCarloResult nominal = run(2, document, simulation,
+				Collections.singletonList(Dispersion.thrustFactor(Distribution.constant(1))), 2);
+		MonteCarloResult boosted = run(2, document, simulation,
+				Collections.singletonList(Dispersion.thrustFactor(Distribution.constant(1.2))), 2);
+
+		assertTrue(boosted.getStatistics(MonteCarloMetric.APOGEE).getMean() > nominal.getStatistics(MonteCarloMetric.APOGEE).getMean());
+		assertTrue(boosted.getStatistics(MonteCarloMetric.MAX_VELOCITY).getMean() > nominal.getStatistics(MonteCarloMetric.MAX_VELOCITY).getMean());
+	}
+
+	@Test
+	public void testRunSeeds() {
+		assertEquals(MonteCarloRunner.getRunSeed(42, 7), MonteCarloRunner.getRunSeed(42, 7));
+		assertFalse(MonteCarloRunner.getRunSeed(42, 7) == MonteCarloRunner.getRunSeed(42, 8));
+		assertFalse(MonteCarloRunner.getRunSeed(42, 7) == MonteCarloRunner.getRunSeed(43, 7));
+		assertFalse(MonteCarloRunner.getRunSeed(42, 8) == MonteCarloRunner.getRunSeed(43, 7));
+	}
+}
@@ -0,0 +1,78 @@
+package net.sf.openrocket.simulation.montecarlo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RunningStatisticsTest {
+
+	@Test
+	public void testMeanAndDeviation() {
+		RunningStatistics stats = new RunningStatistics();
+		for (double x : new double[] { 2, 4, 4, 4, 5, 5, 7, 9, Double.NaN }) {
+			stats.add(x);
+		}
+		assertEquals(8, stats.getCount());
+		assertEquals(5, stats.getMean(), 1e-12);
+		assertEquals(32.0 / 7, stats.getVariance(), 1e-12);
+		assertEquals(2, stats.getMinimum(), 0);
+		assertEquals(9, stats.getMaximum(), 0);
+	}
+
+	@Test
+	public void testPercentiles() {
+		RunningStatistics stats = new RunningStatistics(0.05, 0.5, 0.95);
+		Random random = new Random(1);
+		double[] values = new double[20000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 10 + 3 * random.nextGaussian();
+			stats.add(values[i]);
+		}
+		Arrays.sort(values);
+
+		assertEquals(values[1000], stats.getPercentile(0.05), 0.1);
+		assertEquals(values[10000], stats.getPercentile(0.5), 0.1);
+		assertEquals(values[19000], stats.getPercentile(0.95), 0.1);
+		assertEquals(10, stats.getMean(), 0.1);
+		assertEquals(3, stats.getStandardDeviation(), 0.1);
+	}
+
+	@Test
+	public void testFewValuesExact() {
+		QuantileEstimator median = new QuantileEstimator(0.5);
+		assertEquals(Double.NaN, median.getValue(), 0);
+		median.add(3);
+		median.add(1);
+		assertEquals(2, median.getValue(), 0);
+		median.add(2);
+		assertEquals(2, median.getValue(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownPercentile() {
+		new RunningStatistics(0.5).getPercentile(0.9);
+	}
+
+	@Test
+	public void testLandingEllipse() {
+		// Uncorrelated positions with deviations 4 and 1, rotated by 30 degrees
+		LandingEllipse ellipse = new LandingEllipse();
+		Random random = new Random(2);
+		double angle = Math.toRadians(30);
+		for (int i = 0; i < 50000; i++) {
+			double u = 4 * random.nextGaussian();
+			double v = random.nextGaussian();
+			ellipse.add(10 + u * Math.cos(angle) - v * Math.sin(angle), -5 + u * Math.sin(angle) + v * Math.cos(angle));
+		}
+
+		assertEquals(10, ellipse.getMeanX(), 0.1);
+		assertEquals(-5, ellipse.getMeanY(), 0.1);
+		assertEquals(angle, ellipse.getOrientation(), 0.01);
+		double k = Math.sqrt(-2 * Math.log(0.05));
+		assertEquals(4 * k, ellipse.getSemiMajorAxis(0.95), 0.1);
+		assertEquals(k, ellipse.getSemiMinorAxis(0.95), 0.05);
+	}
+}
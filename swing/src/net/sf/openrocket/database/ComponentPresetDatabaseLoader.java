@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -11,10 +12,10 @@ import net.sf.openrocket.file.iterator.DirectoryIterator;
 import net.sf.openrocket.file.iterator.FileIterator;
 import net.sf.openrocket.gui.util.SimpleFileFilter;
 import net.sf.openrocket.gui.util.SwingPreferences;
+import net.sf.openrocket.preset.BinaryPresetBundle;
 import net.sf.openrocket.preset.ComponentPreset;
 import net.sf.openrocket.preset.xml.OpenRocketComponentLoader;
 import net.sf.openrocket.startup.Application;
-import net.sf.openrocket.util.BugException;
 import net.sf.openrocket.util.Pair;
 
 import org.slf4j.Logger;
@@ -89,9 +90,14 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 	/**
 	 * loads the default preset components into the database
 	 * uses the file directory from "datafiles/presets"
+	 * <p>
+	 * The prebuilt preset bundle is used if it exists, otherwise the .orc files are parsed.
 	 */
 	private void loadPresetComponents() {
 		log.info("Loading component presets from " + SYSTEM_PRESET_DIR);
+		if (loadPresetBundles()) {
+			return;
+		}
 		FileIterator iterator = DirectoryIterator.findDirectory(SYSTEM_PRESET_DIR, new SimpleFileFilter("", false, "orc"));
 		
 		if(iterator == null)
@@ -106,6 +112,53 @@ public class ComponentPresetDatabaseLoader extends AsynchronousDatabaseLoader {
 		}
 	}
 	
+	/**
+	 * loads the binary preset bundles generated from the default preset components.
+	 * Only the section directories of the bundles are read, the presets of each type are
+	 * decoded by the database when first needed.  If any bundle cannot be read, none of
+	 * them are used so that the .orc files can be parsed instead.
+	 * 
+	 * @return	true if the bundles were found and read
+	 */
+	private boolean loadPresetBundles() {
+		FileIterator iterator = DirectoryIterator.findDirectory(SYSTEM_PRESET_DIR,
+				new SimpleFileFilter("", false, BinaryPresetBundle.EXTENSION));
+		if (iterator == null) {
+			return false;
+		}
+		
+		List<ComponentPresetDatabase.PresetLoader> sections = new ArrayList<ComponentPresetDatabase.PresetLoader>();
+		int bundleCount = 0;
+		try {
+			while (iterator.hasNext()) {
+				Pair<File, InputStream> f = iterator.next();
+				log.debug("loading preset bundle: " + f.getU().getName());
+				try {
+					if (f.getU().isFile()) {
+						sections.addAll(BinaryPresetBundle.read(f.getU()));
+					} else {
+						sections.addAll(BinaryPresetBundle.read(f.getV()));
+					}
+				} finally {
+					f.getV().close();
+				}
+				bundleCount++;
+			}
+		} catch (IOException ex) {
+			log.warn("Unable to read preset bundles, loading component files instead", ex);
+			return false;
+		} finally {
+			iterator.close();
+		}
+		
+		for (ComponentPresetDatabase.PresetLoader section : sections) {
+			componentPresetDao.addLoader(section);
+			presetCount += section.getPresetCount();
+		}
+		fileCount += bundleCount;
+		return bundleCount > 0;
+	}
+	
 	/**
 	 * load components from a custom component file
 	 * uses an OpenRocketComponentLoader for the job
@@ -6,10 +6,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import net.sf.openrocket.arch.SystemInfo;
 import net.sf.openrocket.l10n.Translator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +24,9 @@ import org.slf4j.LoggerFactory;
 import net.sf.openrocket.database.motor.ThrustCurveMotorSetDatabase;
 import net.sf.openrocket.file.iterator.DirectoryIterator;
 import net.sf.openrocket.file.iterator.FileIterator;
+import net.sf.openrocket.file.motor.BinaryMotorDatabase;
 import net.sf.openrocket.file.motor.GeneralMotorLoader;
+import net.sf.openrocket.file.motor.MotorFileCache;
 import net.sf.openrocket.gui.util.SimpleFileFilter;
 import net.sf.openrocket.gui.util.SwingPreferences;
 import net.sf.openrocket.motor.ThrustCurveMotor;
@@ -41,6 +50,7 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 
 	private static final String THRUSTCURVE_DIRECTORY = "datafiles/thrustcurves/";
 	private static final long STARTUP_DELAY = 0;
+	private static final String MOTOR_CACHE_FILE = "MotorCache.dat";
 	
 	private final ThrustCurveMotorSetDatabase database = new ThrustCurveMotorSetDatabase();
 	private int motorCount = 0;
@@ -63,20 +73,65 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	/**
 	 * Loads the user defined motors
 	 * the directories are defined in the preferences
+	 * <p>
+	 * The files are parsed in parallel, and the motors of files that have not changed
+	 * since the previous session are read from the motor cache instead.  The motors
+	 * are added to the database in the order of the files.
 	 */
 	private void loadUserDefinedMotors() {
-		GeneralMotorLoader loader = new GeneralMotorLoader();
-		SimpleFileFilter fileFilter = new SimpleFileFilter("", loader.getSupportedExtensions());
+		SimpleFileFilter fileFilter = new SimpleFileFilter("", new GeneralMotorLoader().getSupportedExtensions());
 		log.info("Starting reading user-defined motors");
+		List<File> files = new ArrayList<File>();
 		for (File file : ((SwingPreferences) Application.getPreferences()).getUserThrustCurveFiles()) {
 			if (file.isFile()) {
-				loadFile(loader, file);
+				files.add(file);
 			} else if (file.isDirectory()) {
-				loadDirectory(loader, fileFilter, file);
+				findFiles(fileFilter, file, files);
 			} else {
 				log.warn("User-defined motor file " + file + " is neither file nor directory");
 			}
 		}
+		if (files.isEmpty()) {
+			log.info("Ending reading user-defined motors, no files found");
+			return;
+		}
+		
+		final MotorFileCache cache = new MotorFileCache(new File(SystemInfo.getUserApplicationDirectory(), MOTOR_CACHE_FILE));
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(SwingPreferences.getMaxThreadCount(), files.size()),
+				new ThreadFactory() {
+					private ThreadFactory factory = Executors.defaultThreadFactory();
+					
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = factory.newThread(r);
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		try {
+			List<Future<FileMotors>> results = new ArrayList<Future<FileMotors>>(files.size());
+			for (final File file : files) {
+				results.add(executor.submit(new Callable<FileMotors>() {
+					@Override
+					public FileMotors call() throws IOException {
+						return loadFile(cache, file);
+					}
+				}));
+			}
+			for (int i = 0; i < files.size(); i++) {
+				try {
+					addMotors(results.get(i).get());
+				} catch (ExecutionException e) {
+					log.warn("Exception while reading " + files.get(i) + ": " + e.getCause(), e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			log.warn("Interrupted while reading user-defined motors", e);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		cache.save();
 		log.info("Ending reading user-defined motors, motorCount=" + motorCount);
 	}
 
@@ -87,7 +142,8 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	 */
 	private void loadSerializedMotorDatabase() {
 		log.info("Starting reading serialized motor database");
-		FileIterator iterator = DirectoryIterator.findDirectory(THRUSTCURVE_DIRECTORY, new SimpleFileFilter("", false, "ser"));
+		FileIterator iterator = DirectoryIterator.findDirectory(THRUSTCURVE_DIRECTORY,
+				new SimpleFileFilter("", false, BinaryMotorDatabase.EXTENSION));
 		while (iterator.hasNext()) {
 			Pair<File, InputStream> f = iterator.next();
 			loadSerialized(f);
@@ -97,16 +153,27 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	
 	
 	/**
-	 * loads a serailized motor data from an stream
+	 * loads a binary motor database from a file or a stream.  A file on disk, as when
+	 * running from the source tree, is memory-mapped.  The database bundled in the JAR of
+	 * an installed application is read from the stream into the heap.  In both cases the
+	 * thrust curves are decoded only when first used.
 	 * 
-	 * @param f	the pair of a File (for logging) and the input stream
+	 * @param f	the pair of a File and the input stream
 	 */
-	@SuppressWarnings("unchecked")
 	private void loadSerialized(Pair<File, InputStream> f) {
 		try {
 			log.debug("Reading motors from file " + f.getU().getPath());
-			ObjectInputStream ois = new ObjectInputStream(f.getV());
-			List<ThrustCurveMotor> motors = (List<ThrustCurveMotor>) ois.readObject();
+			List<ThrustCurveMotor> motors;
+			if (f.getU().isFile()) {
+				f.getV().close();
+				motors = BinaryMotorDatabase.read(f.getU());
+			} else {
+				try {
+					motors = BinaryMotorDatabase.read(f.getV());
+				} finally {
+					f.getV().close();
+				}
+			}
 			addMotors(motors);
 		} catch (Exception ex) {
 			throw new BugException(ex);
@@ -114,76 +181,84 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	}
 	
 	/**
-	 * loads a single motor file into the database using a simple file handler object
+	 * reads the motors of a single motor file, from the motor cache if the file has not
+	 * changed, parsing it otherwise.  Called concurrently for different files.
 	 * 
-	 * @param loader	the motor loading handler object
-	 * @param file		the File to the file itself
+	 * @param cache		the motor cache
+	 * @param file		the motor file
+	 * @return			the motors read from the file
+	 * @throws IOException	if the file cannot be read or parsed
 	 */
-	private void loadFile(GeneralMotorLoader loader, File file) {
-		try {
-			log.debug("Loading motors from file " + file);
-			loadFile(
-					loader,
-					new Pair<>(
-							file,
-							new BufferedInputStream(new FileInputStream(file))));
-		} catch (Exception e) {
-			log.warn("Exception while reading " + file + ": " + e, e);
+	private static FileMotors loadFile(MotorFileCache cache, File file) throws IOException {
+		// Read the file attributes before the file, so that a concurrent change invalidates the entry
+		long length = file.length();
+		long lastModified = file.lastModified();
+		List<ThrustCurveMotor> cached = cache.get(file, length, lastModified);
+		if (cached != null) {
+			return new FileMotors(file, cached, null);
+		}
+		
+		log.debug("Loading motors from file " + file);
+		List<ThrustCurveMotor.Builder> builders;
+		try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+			builders = new GeneralMotorLoader().load(is, file.getName());
+		}
+		List<ThrustCurveMotor> motors = new ArrayList<ThrustCurveMotor>(builders.size());
+		for (ThrustCurveMotor.Builder builder : builders) {
+			try {
+				motors.add(builder.build());
+			} catch (IllegalArgumentException e) {
+				// Files with invalid motors are not cached, so that the error is reported again
+				return new FileMotors(file, motors, e);
+			}
 		}
+		cache.put(file, length, lastModified, motors);
+		return new FileMotors(file, motors, null);
 	}
 	
 	/**
-	 * loads a single motor file into the database using inputStream instead of file object
+	 * finds the motor files of a directory and its subdirectories, skipping hidden files
+	 * and directories such as .svn and AppleDouble files, like DirectoryIterator
 	 * 
-	 * @param loader	an object to handle the loading
-	 * @param f			the pair of File name and its input stream
+	 * @param fileFilter	the supported extensions of files
+	 * @param dir			the directory
+	 * @param files			the list to add the files to
 	 */
-	private void loadFile(GeneralMotorLoader loader, Pair<File, InputStream> f) {
-		try {
-			List<ThrustCurveMotor.Builder> motors = loader.load(f.getV(), f.getU().getName());
-			try {
-				addMotorsFromBuilders(motors);
-			}
-			catch (IllegalArgumentException e) {
-				Translator trans = Application.getTranslator();
-				String fullPath = f.getU().getPath();
-				String message = "<html><body><p style='width: 400px;'><i>" + e.getMessage() +
-						"</i>.<br><br>" + MessageFormat.format( trans.get("MotorDbLoaderDlg.message1"), fullPath) +
-						"<br>" + trans.get("MotorDbLoaderDlg.message2") + "</p></body></html>";
-				JOptionPane pane = new JOptionPane(message, JOptionPane.WARNING_MESSAGE);
-				JDialog dialog = pane.createDialog(null, trans.get("MotorDbLoaderDlg.title"));
-				dialog.setModalityType(Dialog.ModalityType.MODELESS);
-				dialog.setAlwaysOnTop(true);
-				dialog.setVisible(true);
+	private static void findFiles(SimpleFileFilter fileFilter, File dir, List<File> files) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			log.warn("Unable to read directory " + dir);
+			return;
+		}
+		for (File child : children) {
+			if (child.getName().startsWith(".")) {
+				continue;
 			}
-			f.getV().close();
-		} catch (Exception e) {
-			log.warn("Exception while loading file " + f.getU() + ": " + e, e);
-			try {
-				f.getV().close();
-			} catch (IOException e1) {
+			if (child.isDirectory()) {
+				findFiles(fileFilter, child, files);
+			} else if (fileFilter.accept(child)) {
+				files.add(child);
 			}
 		}
 	}
 	
 	/**
-	 * loads an entire directory of motor files
+	 * shows a warning of an invalid motor in a motor file
 	 * 
-	 * @param loader 		a motor loading handler object
-	 * @param fileFilter	the supported extensions of files
-	 * @param file			the directory file object
+	 * @param file	the motor file
+	 * @param e		the error of the invalid motor
 	 */
-	private void loadDirectory(GeneralMotorLoader loader, SimpleFileFilter fileFilter, File file) {
-		FileIterator iterator;
-		try {
-			iterator = new DirectoryIterator(file, fileFilter, true);
-		} catch (Exception e) {
-			log.warn("Unable to read directory " + file + ": " + e, e);
-			return;
-		}
-		while (iterator.hasNext()) {
-			loadFile(loader, iterator.next());
-		}
+	private static void showInvalidMotorWarning(File file, IllegalArgumentException e) {
+		Translator trans = Application.getTranslator();
+		String fullPath = file.getPath();
+		String message = "<html><body><p style='width: 400px;'><i>" + e.getMessage() +
+				"</i>.<br><br>" + MessageFormat.format( trans.get("MotorDbLoaderDlg.message1"), fullPath) +
+				"<br>" + trans.get("MotorDbLoaderDlg.message2") + "</p></body></html>";
+		JOptionPane pane = new JOptionPane(message, JOptionPane.WARNING_MESSAGE);
+		JDialog dialog = pane.createDialog(null, trans.get("MotorDbLoaderDlg.title"));
+		dialog.setModalityType(Dialog.ModalityType.MODELESS);
+		dialog.setAlwaysOnTop(true);
+		dialog.setVisible(true);
 	}
 
 
@@ -201,14 +276,31 @@ public class MotorDatabaseLoader extends AsynchronousDatabaseLoader {
 	}
 	
 	/**
-	 * builds the motors while building them
+	 * adds the motors of a motor file into the database, and shows a warning
+	 * if the file contained an invalid motor
 	 * 
-	 * @param motorBuilders List of motor builders to be used for adding motor into the database
+	 * @param f		the motors of the file
 	 */
-	private synchronized void addMotorsFromBuilders(List<ThrustCurveMotor.Builder> motorBuilders) {
-		for (ThrustCurveMotor.Builder m : motorBuilders) {
-			motorCount++;
-			database.addMotor(m.build());
+	private void addMotors(FileMotors f) {
+		addMotors(f.motors);
+		if (f.error != null) {
+			showInvalidMotorWarning(f.file, f.error);
+		}
+	}
+	
+	/**
+	 * The motors read from a motor file, and the error of the first invalid motor
+	 * if the file contained one.  The motors after an invalid motor are not read.
+	 */
+	private static class FileMotors {
+		private final File file;
+		private final List<ThrustCurveMotor> motors;
+		private final IllegalArgumentException error;
+		
+		FileMotors(File file, List<ThrustCurveMotor> motors, IllegalArgumentException error) {
+			this.file = file;
+			this.motors = motors;
+			this.error = error;
 		}
 	}
 	
@@ -91,6 +91,7 @@ import net.sf.openrocket.optimization.rocketoptimization.domains.StabilityDomain
 import net.sf.openrocket.optimization.rocketoptimization.goals.MaximizationGoal;
 import net.sf.openrocket.optimization.rocketoptimization.goals.MinimizationGoal;
 import net.sf.openrocket.optimization.rocketoptimization.goals.ValueSeekGoal;
+import net.sf.openrocket.optimization.services.OptimizationAlgorithm;
 import net.sf.openrocket.optimization.services.OptimizationServiceHelper;
 import net.sf.openrocket.rocketcomponent.Rocket;
 import net.sf.openrocket.rocketcomponent.RocketComponent;
@@ -149,6 +150,10 @@ public class GeneralOptimizationDialog extends JDialog {
 	private final UnitSelector optimizationGoalUnitSelector;
 	private final DoubleModel optimizationSeekValue;
 	
+	private final JComboBox<Named<OptimizationAlgorithm>> optimizationAlgorithmCombo;
+	/** The number of modifiers the algorithm combo has been populated for */
+	private int optimizationAlgorithmDimensions = -1;
+	
 	private final DoubleModel minimumStability;
 	private final DoubleModel maximumStability;
 	private final JCheckBox minimumStabilitySelected;
@@ -422,6 +427,19 @@ public class GeneralOptimizationDialog extends JDialog {
 		disableComponents.add(optimizationGoalUnitSelector);
 		sub.add(optimizationGoalUnitSelector, "width 20lp, wrap unrel");
 		
+		// // Optimization algorithm
+		label = new JLabel(trans.get("lbl.optimizeAlgorithm"));
+		tip = trans.get("lbl.optimizeAlgorithm.ttip");
+		label.setToolTipText(tip);
+		disableComponents.add(label);
+		sub.add(label, "");
+		
+		optimizationAlgorithmCombo = new JComboBox<>();
+		optimizationAlgorithmCombo.setToolTipText(tip);
+		populateAlgorithms();
+		disableComponents.add(optimizationAlgorithmCombo);
+		sub.add(optimizationAlgorithmCombo, "growx, wrap unrel");
+		
 		panel.add(sub, "grow");
 		
 		// // Required stability sub-panel
@@ -726,7 +744,7 @@ public class GeneralOptimizationDialog extends JDialog {
 		}
 		
 		// Create and start the background worker
-		worker = new OptimizationWorker(simulation, parameter, goal, domain, modifiers) {
+		worker = new OptimizationWorker(simulation, parameter, goal, domain, getSelectedAlgorithm(), modifiers) {
 			@Override
 			protected void done(OptimizationException exception) {
 				log.info("Optimization finished, exception=" + exception, exception);
@@ -992,6 +1010,38 @@ public class GeneralOptimizationDialog extends JDialog {
 		}
 	}
 	
+	/**
+	 * Populate the optimization algorithms applicable to the number of selected modifiers,
+	 * keeping the current selection if it is still applicable.
+	 */
+	private void populateAlgorithms() {
+		int dimensions = Math.max(selectedModifiers.size(), 1);
+		if (dimensions == optimizationAlgorithmDimensions) {
+			return;
+		}
+		optimizationAlgorithmDimensions = dimensions;
+		
+		Object selection = optimizationAlgorithmCombo.getSelectedItem();
+		String current = (selection != null) ? selection.toString() : null;
+		
+		Vector<Named<OptimizationAlgorithm>> algorithms = new Vector<>();
+		for (OptimizationAlgorithm a : OptimizationServiceHelper.getOptimizationAlgorithms(dimensions)) {
+			algorithms.add(new Named<>(a, a.getName()));
+		}
+		if (algorithms.isEmpty()) {
+			throw new BugException("No optimization algorithms found, distribution built wrong.");
+		}
+		
+		optimizationAlgorithmCombo.setModel(new DefaultComboBoxModel<>(algorithms));
+		
+		for (int i = 0; i < algorithms.size(); i++) {
+			if (algorithms.get(i).toString().equals(current)) {
+				optimizationAlgorithmCombo.setSelectedIndex(i);
+				break;
+			}
+		}
+	}
+	
 	private void updateCounters() {
 		bestValueLabel.setText(bestValueUnit.toStringUnit(bestValue));
 		stepCountLabel.setText("" + stepCount);
@@ -1097,6 +1147,9 @@ public class GeneralOptimizationDialog extends JDialog {
 		log.debug("removeAllButton enabled: " + state);
 		removeAllButton.setEnabled(state);
 		
+		// Optimization algorithm choices depend on the number of modifiers
+		populateAlgorithms();
+		
 		// Optimization goal
 		String selected = (String) optimizationGoalCombo.getSelectedItem();
 		state = GOAL_SEEK.equals(selected);
@@ -1302,6 +1355,15 @@ public class GeneralOptimizationDialog extends JDialog {
 		return ((Named<OptimizableParameter>) optimizationParameterCombo.getSelectedItem()).get();
 	}
 	
+	/**
+	 * Return the currently selected optimization algorithm.
+	 * @return the selected optimization algorithm.
+	 */
+	@SuppressWarnings("unchecked")
+	private OptimizationAlgorithm getSelectedAlgorithm() {
+		return ((Named<OptimizationAlgorithm>) optimizationAlgorithmCombo.getSelectedItem()).get();
+	}
+	
 	private Unit getModifierUnit(int index) {
 		return selectedModifiers.get(index).getUnitGroup().getDefaultUnit();
 	}
@@ -1,5 +1,6 @@
 package net.sf.openrocket.gui.dialogs.optimization;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -9,21 +10,23 @@ import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.openrocket.arch.SystemInfo;
 import net.sf.openrocket.document.Simulation;
 import net.sf.openrocket.optimization.general.FunctionOptimizer;
+import net.sf.openrocket.optimization.general.FunctionValueStore;
 import net.sf.openrocket.optimization.general.OptimizationController;
 import net.sf.openrocket.optimization.general.OptimizationException;
 import net.sf.openrocket.optimization.general.ParallelExecutorCache;
-import net.sf.openrocket.optimization.general.ParallelFunctionCache;
 import net.sf.openrocket.optimization.general.Point;
-import net.sf.openrocket.optimization.general.multidim.MultidirectionalSearchOptimizer;
-import net.sf.openrocket.optimization.general.onedim.GoldenSectionSearchOptimizer;
+import net.sf.openrocket.optimization.general.multidim.PopulationOptimizer;
 import net.sf.openrocket.optimization.rocketoptimization.OptimizableParameter;
 import net.sf.openrocket.optimization.rocketoptimization.OptimizationGoal;
 import net.sf.openrocket.optimization.rocketoptimization.RocketOptimizationFunction;
 import net.sf.openrocket.optimization.rocketoptimization.RocketOptimizationListener;
 import net.sf.openrocket.optimization.rocketoptimization.SimulationDomain;
 import net.sf.openrocket.optimization.rocketoptimization.SimulationModifier;
+import net.sf.openrocket.optimization.services.OptimizationAlgorithm;
+import net.sf.openrocket.startup.Application;
 import net.sf.openrocket.unit.Value;
 import net.sf.openrocket.util.BugException;
 
@@ -53,6 +56,10 @@ public abstract class OptimizationWorker extends Thread implements OptimizationC
 	private static final long PURGE_TIMEOUT = 500;
 	/** End optimization when step size is below this threshold */
 	private static final double STEP_SIZE_LIMIT = 0.005;
+	/** Maximum number of function values kept in the persistent store */
+	private static final int VALUE_STORE_SIZE = 200000;
+	
+	private static FunctionValueStore valueStore = null;
 	
 	private final FunctionOptimizer optimizer;
 	private final RocketOptimizationFunction function;
@@ -60,7 +67,7 @@ public abstract class OptimizationWorker extends Thread implements OptimizationC
 	private final Simulation simulation;
 	private final SimulationModifier[] modifiers;
 	
-	private final ParallelFunctionCache cache;
+	private final ParallelExecutorCache cache;
 
 	private final LinkedBlockingQueue<FunctionEvaluationData> evaluationQueue = new LinkedBlockingQueue<>();
 	private final LinkedBlockingQueue<OptimizationStepData> stepQueue = new LinkedBlockingQueue<>();
@@ -75,10 +82,12 @@ public abstract class OptimizationWorker extends Thread implements OptimizationC
 	 * @param parameter			the optimization parameter
 	 * @param goal				the optimization goal
 	 * @param domain			the optimization domain
+	 * @param algorithm		the optimization algorithm
 	 * @param modifiers			the simulation modifiers
 	 */
 	public OptimizationWorker(Simulation simulation, OptimizableParameter parameter,
-			OptimizationGoal goal, SimulationDomain domain, SimulationModifier... modifiers) {
+			OptimizationGoal goal, SimulationDomain domain, OptimizationAlgorithm algorithm,
+			SimulationModifier... modifiers) {
 		
 		this.simulation = simulation;
 		this.modifiers = modifiers.clone();
@@ -86,14 +95,15 @@ public abstract class OptimizationWorker extends Thread implements OptimizationC
 		function = new RocketOptimizationFunction(simulation, parameter, goal, domain, modifiers);
 		function.addRocketOptimizationListener(this);
 		
-		cache = new ParallelExecutorCache(1);
-		cache.setFunction(function);
-		
-		if (modifiers.length == 1) {
-			optimizer = new GoldenSectionSearchOptimizer(cache);
+		// Population-based algorithms evaluate whole generations concurrently
+		if (algorithm.isPopulationBased()) {
+			cache = new ParallelExecutorCache();
 		} else {
-			optimizer = new MultidirectionalSearchOptimizer(cache);
+			cache = new ParallelExecutorCache(1);
 		}
+		cache.setFunction(function);
+		
+		optimizer = algorithm.createOptimizer(cache, modifiers.length, PopulationOptimizer.DEFAULT_SEED);
 	}
 	
 	
@@ -101,6 +111,11 @@ public abstract class OptimizationWorker extends Thread implements OptimizationC
 	public void run() {
 		try {
 			
+			// Loading the store and computing the function key are slow, so they are done here off the EDT
+			if (Application.getPreferences().getOptimizationCache()) {
+				cache.setValueStore(getValueStore(), function.getFunctionKey());
+			}
+			
 			double[] current = new double[modifiers.length];
 			for (int i = 0; i < modifiers.length; i++) {
 				current[i] = modifiers[i].getCurrentScaledValue(simulation);
@@ -120,6 +135,18 @@ public abstract class OptimizationWorker extends Thread implements OptimizationC
 		}
 	}
 	
+	/**
+	 * Return the value store shared by all optimizations, loading it on first use.
+	 */
+	private static synchronized FunctionValueStore getValueStore() {
+		if (valueStore == null) {
+			File file = new File(SystemInfo.getUserApplicationDirectory(), "OptimizationCache.dat");
+			valueStore = new FunctionValueStore(file, VALUE_STORE_SIZE);
+		}
+		return valueStore;
+	}
+	
+	
 	/**
 	 * This method is called after the optimization has ended, either normally, when interrupted
 	 * or by throwing an exception.  This method is called on the EDT, like the done() method of SwingWorker.
@@ -60,6 +60,19 @@ public class SimulationPreferencesPanel extends PreferencesPanel {
 		});
 		this.add(automaticallyRunSimsBox, "wrap, growx, sg combos ");
 
+		// Store optimization function values between optimizations
+		final JCheckBox optimizationCacheBox = new JCheckBox(
+				trans.get("pref.dlg.checkbox.Optimizationcache"));
+		optimizationCacheBox.setToolTipText(trans.get("pref.dlg.checkbox.Optimizationcache.ttip"));
+		optimizationCacheBox.setSelected(preferences.getOptimizationCache());
+		optimizationCacheBox.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				preferences.setOptimizationCache(optimizationCacheBox.isSelected());
+			}
+		});
+		this.add(optimizationCacheBox, "wrap, growx, sg combos ");
+
 		//GeodeticComputationStrategy geodeticComputation = GeodeticComputationStrategy.SPHERICAL;
 
 		JPanel sub, subsub;
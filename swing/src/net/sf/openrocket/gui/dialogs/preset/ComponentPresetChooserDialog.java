@@ -73,6 +73,8 @@ public class ComponentPresetChooserDialog extends JDialog {
 	int legacyColumnIndex = -1;	
 	int aftDiameterColumnIndex = -1;
 	int foreDiameterColumnIndex = -1;
+	private TypedKey<Double> aftDiameterKey = null;
+	private TypedKey<Double> foreDiameterKey = null;
 	
 	private List<ComponentPreset> presets;
 	private ComponentPreset.Type presetType;
@@ -109,9 +111,11 @@ public class ComponentPresetChooserDialog extends JDialog {
 				}
 				if (key == ComponentPreset.OUTER_DIAMETER || key == ComponentPreset.AFT_OUTER_DIAMETER) {
 					aftDiameterColumnIndex = i;
+					aftDiameterKey = (key == ComponentPreset.OUTER_DIAMETER) ? ComponentPreset.OUTER_DIAMETER : ComponentPreset.AFT_OUTER_DIAMETER;
 				}
 				if (key == ComponentPreset.OUTER_DIAMETER || key == ComponentPreset.FORE_OUTER_DIAMETER) {
 					foreDiameterColumnIndex = i;
+					foreDiameterKey = (key == ComponentPreset.OUTER_DIAMETER) ? ComponentPreset.OUTER_DIAMETER : ComponentPreset.FORE_OUTER_DIAMETER;
 				}
 			}
 		}
@@ -262,7 +266,8 @@ public class ComponentPresetChooserDialog extends JDialog {
 			final SymmetricComponent prevSym = curSym.getPreviousSymmetricComponent();
 			if (prevSym != null && foreDiameterColumnIndex >= 0) {
 				foreDiameterFilterCheckBox.setSelected(preferences.isMatchForeDiameter());
-				foreDiameterFilter = new ComponentPresetRowFilter(prevSym.getAftRadius() * 2.0, foreDiameterColumnIndex);
+				foreDiameterFilter = new ComponentPresetRowFilter(prevSym.getAftRadius() * 2.0, foreDiameterKey, presets,
+						Application.getComponentPresetDao());
 				panel.add(foreDiameterFilterCheckBox, "wrap");
 				foreDiameterFilterCheckBox.addItemListener(new ItemListener() {
 					@Override
@@ -288,7 +293,8 @@ public class ComponentPresetChooserDialog extends JDialog {
 			}
 			if (nextSym != null && aftDiameterColumnIndex >= 0) {
 				aftDiameterFilterCheckBox.setSelected(preferences.isMatchAftDiameter());
-				aftDiameterFilter = new ComponentPresetRowFilter(nextSym.getForeRadius() * 2.0, aftDiameterColumnIndex);
+				aftDiameterFilter = new ComponentPresetRowFilter(nextSym.getForeRadius() * 2.0, aftDiameterKey, presets,
+						Application.getComponentPresetDao());
 				panel.add(aftDiameterFilterCheckBox, "wrap");
 				aftDiameterFilterCheckBox.addItemListener(new ItemListener() {
 					@Override
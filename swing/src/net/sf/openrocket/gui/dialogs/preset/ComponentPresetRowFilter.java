@@ -1,8 +1,17 @@
 package net.sf.openrocket.gui.dialogs.preset;
 
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
 import javax.swing.RowFilter;
 import javax.swing.table.TableModel;
 
+import net.sf.openrocket.database.ComponentPresetDao;
+import net.sf.openrocket.preset.ComponentPreset;
+import net.sf.openrocket.preset.TypedKey;
 import net.sf.openrocket.unit.Value;
 import net.sf.openrocket.util.MathUtil;
 
@@ -12,6 +21,8 @@ public class ComponentPresetRowFilter extends RowFilter<TableModel, Object> {
 	private double dvalue = 0.0;
 	private double epsilon = 0.0;
 	private final int column;
+	/** The model rows included by a dimension filter, or null to compare the column values */
+	private BitSet includedRows = null;
 	
 	ComponentPresetRowFilter(double value, int column) {
 		this.dvalue = value;
@@ -21,6 +32,34 @@ public class ComponentPresetRowFilter extends RowFilter<TableModel, Object> {
 		 */
 		this.epsilon = MathUtil.max(value * 0.05, 0.001);
 	}
+	
+	/**
+	 * A filter of the dimension of the presets, whose model rows are the presets in the
+	 * specified order.  The matching presets are looked up from the preset database once,
+	 * instead of comparing the column values of each row whenever the filters change.
+	 * Presets without the dimension are included.
+	 * 
+	 * @param value		the dimension value to match within 5%, but at least 1mm.
+	 * @param key		the dimension key.
+	 * @param presets	the presets of the model rows, all of the same type.
+	 * @param dao		the preset database.
+	 */
+	ComponentPresetRowFilter(double value, TypedKey<Double> key, List<ComponentPreset> presets, ComponentPresetDao dao) {
+		this(value, -1);
+		this.includedRows = new BitSet(presets.size());
+		if (presets.isEmpty()) {
+			return;
+		}
+		
+		Set<ComponentPreset> matching = Collections.newSetFromMap(new IdentityHashMap<ComponentPreset, Boolean>());
+		matching.addAll(dao.listForType(presets.get(0).getType(), key, value - epsilon, value + epsilon));
+		for (int i = 0; i < presets.size(); i++) {
+			ComponentPreset preset = presets.get(i);
+			if (!preset.has(key) || matching.contains(preset)) {
+				includedRows.set(i);
+			}
+		}
+	}
 
 	ComponentPresetRowFilter(Boolean value, int column) {
 		this.bvalue = value;
@@ -30,6 +69,10 @@ public class ComponentPresetRowFilter extends RowFilter<TableModel, Object> {
 	
 	@Override
 	public boolean include(RowFilter.Entry<? extends TableModel, ? extends Object> entry) {
+		if (includedRows != null) {
+			return includedRows.get((Integer) entry.getIdentifier());
+		}
+		
 		Object o = entry.getValue(column);
 		if (o instanceof Value) {
 			Value v = (Value) o;
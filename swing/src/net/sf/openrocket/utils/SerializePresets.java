@@ -1,9 +1,10 @@
 package net.sf.openrocket.utils;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
@@ -12,6 +13,7 @@ import net.sf.openrocket.database.ComponentPresetDatabase;
 import net.sf.openrocket.file.iterator.DirectoryIterator;
 import net.sf.openrocket.file.iterator.FileIterator;
 import net.sf.openrocket.gui.util.SimpleFileFilter;
+import net.sf.openrocket.preset.BinaryPresetBundle;
 import net.sf.openrocket.preset.ComponentPreset;
 import net.sf.openrocket.preset.xml.OpenRocketComponentLoader;
 import net.sf.openrocket.util.Pair;
@@ -19,7 +21,8 @@ import net.sf.openrocket.util.Pair;
 public class SerializePresets extends BasicApplication {
 
     private static void printUsage() {
-        System.err.println("SerializePresets <dir> ... ");
+        System.err.println("SerializePresets <output file> <dir> ... ");
+        System.err.println("<output file> is the binary preset bundle to write");
         System.err.println("<dir> (may be repeated) is base directory for a set of .orc preset files");
     }
 	
@@ -31,7 +34,7 @@ public class SerializePresets extends BasicApplication {
 		SerializePresets app = new SerializePresets();
 		app.initializeApplication();
 		
-		if (args.length < 1) {
+		if (args.length < 2) {
 			printUsage();
             throw new IllegalArgumentException("Invalid Command Line Params");
         }
@@ -40,7 +43,7 @@ public class SerializePresets extends BasicApplication {
 		
 		ComponentPresetDatabase componentPresetDao = new ComponentPresetDatabase();
 
-		for (int i = 0; i < args.length; i++) {
+		for (int i = 1; i < args.length; i++) {
 
 			System.err.println("Processing .orc files in directory " + args[i]);
 			
@@ -67,14 +70,10 @@ public class SerializePresets extends BasicApplication {
 		
 		System.out.println("Total number of presets = " + list.size());
 		
-		File outFile = new File("resources/datafiles/presets", "system.ser");
+		File outFile = new File(args[0]);
 		
-		FileOutputStream ofs = new FileOutputStream(outFile);
-		ObjectOutputStream oos = new ObjectOutputStream(ofs);
-		
-		oos.writeObject(list);
-		
-		ofs.flush();
-		ofs.close();
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(outFile));
+		BinaryPresetBundle.write(list, os);
+		os.close();
 	}
 }